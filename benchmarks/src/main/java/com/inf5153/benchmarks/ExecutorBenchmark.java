@@ -0,0 +1,112 @@
+package com.inf5153.benchmarks;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.inf5153.ast.Block;
+import com.inf5153.ast.flat.FlatTree;
+import com.inf5153.ast.flat.FlatTreeExecutor;
+import com.inf5153.ast.parser.Lexer;
+import com.inf5153.ast.parser.Parser;
+import com.inf5153.ast.visitor.ASTBytecodeCompiler;
+import com.inf5153.ast.visitor.ASTClosureCompiler;
+import com.inf5153.ast.visitor.ASTCodeExecutor;
+import com.inf5153.ast.visitor.ASTExecutionTreeBuilder;
+import com.inf5153.ast.visitor.ASTRegisterCompiler;
+import com.inf5153.bytecode.CompiledProgram;
+import com.inf5153.closure.ClosureProgram;
+import com.inf5153.node.NodeProgram;
+import com.inf5153.register.RegisterProgram;
+
+/**
+ * Compares the execution backends on a loop-heavy program: walking the AST
+ * with the {@link ASTCodeExecutor}, running the tree of closures built by the
+ * {@link ASTClosureCompiler}, running the self-specialising nodes built by the
+ * {@link ASTExecutionTreeBuilder}, running the register bytecode built by
+ * the {@link ASTRegisterCompiler}, running the JVM bytecode built by the
+ * {@link ASTBytecodeCompiler}, and running the {@link FlatTree} with the
+ * {@link FlatTreeExecutor}. Compilation happens once, in the setup.
+ * <p>
+ * The program prints its result, which keeps the JIT from eliminating the
+ * compiled loops; standard output is discarded while the benchmark runs.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExecutorBenchmark {
+
+    @Param({ "10000" })
+    public int iterations;
+
+    private Block program;
+    private ClosureProgram closures;
+    private NodeProgram nodes;
+    private RegisterProgram registers;
+    private CompiledProgram bytecode;
+    private FlatTree flat;
+    private PrintStream standardOutput;
+
+    @Setup
+    public void setup() {
+        standardOutput = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        program = new Parser(new Lexer(SyntheticPrograms.nestedLoops(iterations)).tokenize()).parse();
+        closures = new ASTClosureCompiler().compile(program);
+        nodes = new ASTExecutionTreeBuilder().build(program);
+        registers = new ASTRegisterCompiler().compile(program);
+        bytecode = new ASTBytecodeCompiler().compile(program);
+        flat = new Parser(new Lexer(SyntheticPrograms.nestedLoops(iterations)).tokenize()).parseFlat();
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.setOut(standardOutput);
+    }
+
+    @Benchmark
+    public void treeWalking() {
+        program.accept(new ASTCodeExecutor());
+    }
+
+    @Benchmark
+    public void closures() {
+        closures.run();
+    }
+
+    @Benchmark
+    public void nodes() {
+        nodes.run();
+    }
+
+    @Benchmark
+    public void registers() {
+        registers.run();
+    }
+
+    @Benchmark
+    public void bytecode() {
+        bytecode.run();
+    }
+
+    @Benchmark
+    public void flatTree() {
+        new FlatTreeExecutor().execute(flat);
+    }
+}
@@ -0,0 +1,49 @@
+package com.inf5153.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.inf5153.ast.Block;
+import com.inf5153.ast.parser.Lexer;
+import com.inf5153.ast.parser.Parser;
+import com.inf5153.ast.visitor.ASTJavaClassGenerator;
+
+/**
+ * Measures the {@link ASTJavaClassGenerator}. The benchmark generates the
+ * source of the class in memory, which is what generateJavaClass does before
+ * writing it; the file write itself would only measure the disk.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GeneratorBenchmark {
+
+    @Param({ "1000", "100000" })
+    public int lines;
+
+    private Block program;
+
+    @Setup
+    public void setup() {
+        program = new Parser(new Lexer(SyntheticPrograms.mixedStatements(lines))).parse();
+    }
+
+    @Benchmark
+    public String generateSource() {
+        return new ASTJavaClassGenerator("GenBenchmark").generateSource(program);
+    }
+}
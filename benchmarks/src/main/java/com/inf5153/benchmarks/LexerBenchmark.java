@@ -0,0 +1,73 @@
+package com.inf5153.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.inf5153.ast.parser.Lexer;
+import com.inf5153.ast.parser.Token;
+
+/**
+ * Compares the throughput of the hand-written {@link Lexer} with the original
+ * {@link RegexLexer}. Besides the number of tokenize calls, the {@code tokens}
+ * counter reports the number of tokens produced per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LexerBenchmark {
+
+    @Param({ "1000", "100000" })
+    public int lines;
+
+    private String code;
+
+    /**
+     * Counts the tokens produced by each benchmark.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class TokenCounter {
+        public long tokens;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            tokens = 0;
+        }
+    }
+
+    @Setup
+    public void setup() {
+        code = SyntheticPrograms.mixedStatements(lines);
+    }
+
+    @Benchmark
+    public List<Token> handWrittenLexer(TokenCounter counter) {
+        List<Token> tokens = new Lexer(code).tokenize();
+        counter.tokens += tokens.size();
+        return tokens;
+    }
+
+    @Benchmark
+    public List<Token> regexLexer(TokenCounter counter) {
+        List<Token> tokens = new RegexLexer(code).tokenize();
+        counter.tokens += tokens.size();
+        return tokens;
+    }
+}
@@ -0,0 +1,89 @@
+package com.inf5153.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.inf5153.ast.Block;
+import com.inf5153.ast.flat.FlatTree;
+import com.inf5153.ast.parser.IncrementalParser;
+import com.inf5153.ast.parser.Lexer;
+import com.inf5153.ast.parser.Parser;
+import com.inf5153.ast.parser.Token;
+import com.inf5153.ast.visitor.ASTBinaryCodec;
+
+/**
+ * Measures the {@link Parser}: parsing a token list built beforehand, which
+ * isolates the parser, and parsing tokens pulled straight from the
+ * {@link Lexer}, which is how the pipeline parses when no token dump is
+ * asked for. Parsing the same token list into a {@link FlatTree} shows the
+ * cost of the objects of the tree, and decoding the tree encoded by the
+ * {@link ASTBinaryCodec} shows the cost of building them without parsing.
+ * Editing a statement in the middle of the program through an
+ * {@link IncrementalParser} shows the cost of keeping the tree of an edited
+ * source up to date.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParserBenchmark {
+
+    @Param({ "1000", "100000" })
+    public int lines;
+
+    private String code;
+    private List<Token> tokens;
+    private byte[] encoded;
+    private IncrementalParser incremental;
+    private int editOffset; // Offset of a digit in the middle of the program
+    private boolean edited; // Whether the digit is currently replaced
+
+    @Setup
+    public void setup() {
+        code = SyntheticPrograms.mixedStatements(lines);
+        tokens = new Lexer(code).tokenize();
+        encoded = new ASTBinaryCodec().encode(new Parser(tokens).parse());
+        incremental = new IncrementalParser(code);
+        editOffset = code.indexOf("value - 1;", code.length() / 2) + "value - ".length();
+    }
+
+    @Benchmark
+    public Block parseTokenList() {
+        return new Parser(tokens).parse();
+    }
+
+    @Benchmark
+    public Block lexAndParse() {
+        return new Parser(new Lexer(code)).parse();
+    }
+
+    @Benchmark
+    public FlatTree parseFlat() {
+        return new Parser(tokens).parseFlat();
+    }
+
+    @Benchmark
+    public Block reparseEdit() {
+        edited = !edited;
+        return incremental.edit(editOffset, 1, edited ? "2" : "1");
+    }
+
+    @Benchmark
+    public Block decodeBinary() {
+        return ASTBinaryCodec.decode(encoded);
+    }
+}
@@ -0,0 +1,72 @@
+package com.inf5153.benchmarks;
+
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.inf5153.ast.Block;
+import com.inf5153.ast.parser.Lexer;
+import com.inf5153.ast.parser.Parser;
+import com.inf5153.ast.visitor.ASTCodeExecutor;
+import com.inf5153.ast.visitor.ASTTreeMaker;
+import com.inf5153.utils.InputSource;
+import com.inf5153.utils.WriterOutputSink;
+
+/**
+ * Measures how the front end and the tree walkers scale with the size and the
+ * nesting depth of a program generated by the
+ * {@link com.inf5153.utils.ProgramGenerator}: lexing and parsing it, building
+ * and printing its tree with the {@link ASTTreeMaker}, and running it with
+ * the {@link ASTCodeExecutor}. Printed output is discarded.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScaleBenchmark {
+
+    @Param({ "10000", "100000" })
+    public int statements;
+
+    @Param({ "4", "64" })
+    public int depth;
+
+    private String code;
+    private Block program;
+
+    @Setup
+    public void setup() {
+        code = SyntheticPrograms.generated(statements, depth);
+        program = new Parser(new Lexer(code)).parse();
+    }
+
+    @Benchmark
+    public Block lexAndParse() {
+        return new Parser(new Lexer(code)).parse();
+    }
+
+    @Benchmark
+    public void treeMaker() {
+        ASTTreeMaker treeMaker = new ASTTreeMaker(new WriterOutputSink(Writer.nullWriter()));
+        program.accept(treeMaker);
+        treeMaker.printTree();
+    }
+
+    @Benchmark
+    public void execute() {
+        program.accept(new ASTCodeExecutor(new WriterOutputSink(Writer.nullWriter()), InputSource.of()));
+    }
+}
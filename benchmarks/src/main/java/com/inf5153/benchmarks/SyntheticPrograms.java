@@ -0,0 +1,83 @@
+package com.inf5153.benchmarks;
+
+import com.inf5153.utils.ProgramGenerator;
+
+/**
+ * Builds synthetic programs used as benchmark inputs.
+ */
+final class SyntheticPrograms {
+
+    private SyntheticPrograms() {
+    }
+
+    /**
+     * Builds a flat program mixing assignments, conditionals, string literals
+     * and loops.
+     *
+     * @param lines the number of statement lines of the program
+     * @return the source code of the program
+     */
+    static String mixedStatements(int lines) {
+        StringBuilder builder = new StringBuilder("{\n");
+        for (int i = 0; i < lines; i++) {
+            switch (i % 4) {
+                case 0:
+                    builder.append("    counter = counter + ").append(i).append(" * (value - 3);\n");
+                    break;
+                case 1:
+                    builder.append("    if (counter >= 100) then { counter = -1; } else { print(counter); }\n");
+                    break;
+                case 2:
+                    builder.append("    message = \"iteration number\";\n");
+                    break;
+                default:
+                    builder.append("    while (value != 0) { value = value - 1; }\n");
+            }
+        }
+        return builder.append("}\n").toString();
+    }
+
+    /**
+     * Builds a program made of two nested loops doing arithmetic and
+     * conditionals, printing a single value at the end, so that execution time
+     * is spent evaluating expressions.
+     *
+     * @param iterations the number of iterations of the outer loop; the inner
+     *                   loop runs ten times per iteration
+     * @return the source code of the program
+     */
+    static String nestedLoops(int iterations) {
+        return "{\n"
+                + "    i = 0;\n"
+                + "    total = 0;\n"
+                + "    while (i < " + iterations + ") {\n"
+                + "        j = 0;\n"
+                + "        while (j < 10) {\n"
+                + "            total = total + i * j - j / 3;\n"
+                + "            if (total > 100000) then { total = total - 100000; } else { total = total + 1; }\n"
+                + "            j = j + 1;\n"
+                + "        }\n"
+                + "        i = i + 1;\n"
+                + "    }\n"
+                + "    print(total);\n"
+                + "}\n";
+    }
+
+    /**
+     * Builds a random program with the {@link ProgramGenerator}, always the
+     * same for the same arguments. Loops are nested two deep and run three
+     * times, so that executing the program stays linear in its size.
+     *
+     * @param statements the number of statements of the program
+     * @param depth      the maximum nesting depth of its blocks
+     * @return the source code of the program
+     */
+    static String generated(int statements, int depth) {
+        return new ProgramGenerator(statements * 31L + depth)
+                .setStatements(statements)
+                .setDepth(depth)
+                .setLoopDepth(2)
+                .setTripCount(3)
+                .generate();
+    }
+}
@@ -0,0 +1,86 @@
+package com.inf5153.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.inf5153.ast.Block;
+import com.inf5153.ast.parser.Lexer;
+import com.inf5153.ast.parser.Parser;
+import com.inf5153.ast.parser.Token;
+import com.inf5153.ast.parser.TokenBuffer;
+import com.inf5153.ast.parser.TokenKind;
+
+/**
+ * Compares the Token object representation with the packed int array
+ * representation. Run it with the GC profiler ({@code -prof gc}) and compare
+ * the {@code gc.alloc.rate.norm} of each benchmark, in bytes per operation,
+ * divided by {@link #tokens} to get the allocations per token.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TokenRepresentationBenchmark {
+
+    @Param({ "10000" })
+    public int lines;
+
+    private String code;
+
+    /**
+     * The number of tokens of the benchmarked program.
+     */
+    public int tokens;
+
+    @Setup
+    public void setup() {
+        code = SyntheticPrograms.mixedStatements(lines);
+        tokens = new Lexer(code).tokenizePacked().size();
+    }
+
+    @Benchmark
+    public List<Token> tokenObjects() {
+        return new Lexer(code).tokenize();
+    }
+
+    @Benchmark
+    public TokenBuffer packedTokens() {
+        return new Lexer(code).tokenizePacked();
+    }
+
+    @Benchmark
+    public int streamedPackedTokens() {
+        Lexer lexer = new Lexer(code);
+        int sum = 0;
+        int kind;
+        do {
+            kind = lexer.nextKind();
+            sum += kind + lexer.tokenSymbol();
+        } while (kind != TokenKind.EOF);
+        return sum;
+    }
+
+    @Benchmark
+    public Block parseTokenObjects() {
+        return new Parser(new Lexer(code).tokenize()).parse();
+    }
+
+    @Benchmark
+    public Block parseStreamedPackedTokens() {
+        return new Parser(new Lexer(code)).parse();
+    }
+}
@@ -1,103 +1,368 @@
 package com.inf5153;
 
-import com.inf5153.ast.*;
-import com.inf5153.ast.parser.Lexer;
-import com.inf5153.ast.parser.Parser;
-import com.inf5153.ast.parser.Token;
-import com.inf5153.ast.visitor.ASTAssignmentsCollector;
-import com.inf5153.ast.visitor.ASTCodeExecutor;
-import com.inf5153.ast.visitor.ASTCodePrinter;
-import com.inf5153.ast.visitor.ASTTreeMaker;
-import com.inf5153.ast.visitor.ASTJavaClassGenerator;
+import com.inf5153.pipeline.CompileCache;
+import com.inf5153.pipeline.ExecutionFailedException;
+import com.inf5153.pipeline.Pipeline;
+import com.inf5153.pipeline.Stage;
+import com.inf5153.server.CompileClient;
+import com.inf5153.server.CompileServer;
 import com.inf5153.utils.FileUtils;
+import com.inf5153.utils.InputSource;
+import com.inf5153.utils.ThreadLocalOutputStream;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 /**
  * The main entry point.
  */
 public class App {
 
+    /**
+     * Runs the compiler on every file of a directory, "testFiles" by default.
+     * <p>
+     * Options:
+     * <ul>
+     * <li>"--batch" processes the files in parallel;</li>
+     * <li>"--only stage[,stage...]" runs only the given stages, such as
+     * "--only execute";</li>
+     * <li>"--emit stage" also runs the given stage, such as "--emit java", or
+     * "--emit run-java" to compile the generated Java class in memory and run
+     * it;</li>
+     * <li>"--input file" reads the values of the read statements from a file
+     * instead of the standard input. Each file then reads the values from the
+     * start, whereas the files reading the standard input share it, each one
+     * reading the values left by the previous ones;</li>
+     * <li>"--cache directory" keeps the parsed trees and generated classes in
+     * a directory, so that the next runs on unchanged files reuse them;</li>
+     * <li>"--serve socket" starts a compile server on a Unix domain socket
+     * instead of running the files, serving until the process is stopped;</li>
+     * <li>"--connect socket" runs the files on the compile server listening on
+     * a Unix domain socket, instead of in this process. The values read come
+     * from the "--input" file, if any, never from the standard input.</li>
+     * </ul>
+     * Without "--only" nor "--emit", every stage runs.
+     *
+     * @param args the options, then the optional directory path
+     */
     public static void main(String[] args) {
         String directoryPath = "testFiles";
+        boolean batch = false;
+        Set<Stage> stages = EnumSet.noneOf(Stage.class);
+        String inputPath = null;
+        String cachePath = null;
+        String servePath = null;
+        String connectPath = null;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("--batch")) {
+                    batch = true;
+                } else if (args[i].equals("--only") || args[i].equals("--emit")) {
+                    if (++i == args.length) {
+                        throw new IllegalArgumentException("Missing stage after " + args[i - 1]);
+                    }
+                    for (String name : args[i].split(",")) {
+                        stages.add(Stage.fromName(name));
+                    }
+                } else if (args[i].equals("--input")) {
+                    if (++i == args.length) {
+                        throw new IllegalArgumentException("Missing file after --input");
+                    }
+                    inputPath = args[i];
+                } else if (args[i].equals("--cache")) {
+                    if (++i == args.length) {
+                        throw new IllegalArgumentException("Missing directory after --cache");
+                    }
+                    cachePath = args[i];
+                } else if (args[i].equals("--serve") || args[i].equals("--connect")) {
+                    if (++i == args.length) {
+                        throw new IllegalArgumentException("Missing socket after " + args[i - 1]);
+                    }
+                    if (args[i - 1].equals("--serve")) {
+                        servePath = args[i];
+                    } else {
+                        connectPath = args[i];
+                    }
+                } else {
+                    directoryPath = args[i];
+                }
+            }
+            if (connectPath != null && (batch || servePath != null || cachePath != null)) {
+                throw new IllegalArgumentException("--connect cannot be used with --batch, --serve or --cache");
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            return;
+        }
+        CompileCache cache = null;
+        if (cachePath != null) {
+            try {
+                cache = new CompileCache(Paths.get(cachePath));
+            } catch (IOException e) {
+                System.err.println("Cache error: " + e.getMessage());
+                return;
+            }
+        }
+        if (servePath != null) {
+            serve(Paths.get(servePath), cache);
+            return;
+        }
+        if (stages.isEmpty()) {
+            stages = EnumSet.allOf(Stage.class);
+        }
+
         System.out.println("Running tests on test files in directory: " + directoryPath);
-        runTests(directoryPath);
+        File[] files = listTestFiles(directoryPath);
+        if (files == null) {
+            return;
+        }
+        if (connectPath != null) {
+            runOnServer(files, Paths.get(connectPath), stages, inputPath);
+            return;
+        }
+        Pipeline pipeline = new Pipeline(stages, inputPath, cache);
+        InputSource in = inputPath == null ? new SharedStandardInput() : null;
+        if (batch) {
+            runBatch(files, pipeline, in);
+        } else {
+            runTests(files, pipeline, in);
+        }
     }
 
     /**
-     * Run tests in directoryPath.
+     * Lists the test files of a directory.
      *
      * @param directoryPath the path of the directory containing the test files
+     * @return the test files, or null if there are none
      */
-    private static void runTests(String directoryPath) {
+    private static File[] listTestFiles(String directoryPath) {
         File directory = new File(directoryPath);
         if (!directory.exists() || !directory.isDirectory()) {
             System.err.println("Invalid directory: " + directoryPath);
-            return;
+            return null;
         }
 
         File[] files = directory.listFiles((dir, name) -> name.endsWith(".txt"));
         if (files == null || files.length == 0) {
             System.err.println("No test files found in directory: " + directoryPath);
-            return;
+            return null;
         }
+        Arrays.sort(files);
+        return files;
+    }
 
+    /**
+     * Run tests on files, one after the other.
+     *
+     * @param files    the test files
+     * @param pipeline the stages to run on each file
+     * @param in       the source of the values read by every file, or null
+     *                 for the one of the pipeline
+     */
+    private static void runTests(File[] files, Pipeline pipeline, InputSource in) {
         for (File file : files) {
             System.out.println("\n===> Testing file: " + file.getName() + " <===\n");
-            testWithFile(file.getPath());
+            testWithFile(file.getPath(), pipeline, in);
         }
     }
 
     /**
-     * Test: Tokens, Parsing, Basic code printer, AST tree maker, Code executor,
-     * Java class generator, Assignments collector
+     * Run tests on files in parallel, over a ForkJoinPool. The output of each
+     * file is buffered while it is processed, then printed in the order of the
+     * files, so the outputs of different files never interleave. The number
+     * of files and lines processed per second is reported at the end.
      *
-     * @param filePath the path of the file containing the source code to be tested
+     * @param files    the test files
+     * @param pipeline the stages to run on each file
+     * @param in       the source of the values read by every file, or null
+     *                 for the one of the pipeline
      */
-    private static void testWithFile(String filePath) {
+    private static void runBatch(File[] files, Pipeline pipeline, InputSource in) {
+        PrintStream out = System.out;
+        PrintStream err = System.err;
+        ThreadLocalOutputStream threadOut = new ThreadLocalOutputStream(out);
+        ThreadLocalOutputStream threadErr = new ThreadLocalOutputStream(err);
+        System.setOut(new PrintStream(threadOut, true));
+        System.setErr(new PrintStream(threadErr, true));
+        ForkJoinPool pool = new ForkJoinPool();
+        long start = System.nanoTime();
+        long lines = 0;
         try {
-            String code = FileUtils.readFile(filePath);
-
-            Lexer lexer = new Lexer(code);
-            List<Token> tokens = lexer.tokenize();
-
-            System.out.println("GENERATED TOKENS:");
-            for (Token token : tokens) {
-                System.out.println(token);
+            List<Future<BatchResult>> results = new ArrayList<>();
+            for (File file : files) {
+                results.add(pool.submit(() -> testInBatch(file, pipeline, in, threadOut, threadErr)));
             }
+            for (int i = 0; i < files.length; i++) {
+                try {
+                    BatchResult result = results.get(i).get();
+                    out.write(result.out, 0, result.out.length);
+                    err.write(result.err, 0, result.err.length);
+                    lines += result.lines;
+                } catch (ExecutionException e) {
+                    err.println("Batch error on " + files[i].getName() + ": " + e.getCause().getMessage());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            err.println("Batch interrupted");
+        } finally {
+            pool.shutdown();
+            System.setOut(out);
+            System.setErr(err);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        out.printf("%nProcessed %d files (%d lines) in %.3f s: %.1f files/s, %.1f lines/s%n",
+                files.length, lines, seconds, files.length / seconds, lines / seconds);
+    }
 
-            Parser parser = new Parser(tokens);
-            Block ast = parser.parse();
-
-            System.out.println("\nGENERATED CODE:");
-            ASTCodePrinter printer = new ASTCodePrinter();
-            ast.accept(printer);
+    /**
+     * Tests a file as part of a batch, capturing its output.
+     *
+     * @param file      the test file
+     * @param pipeline  the stages to run on the file
+     * @param in        the source of the values read, or null for the one of
+     *                  the pipeline
+     * @param threadOut the standard output, redirected per thread
+     * @param threadErr the standard error, redirected per thread
+     * @return the output of the test and the number of lines of the file
+     * @throws IOException if the lines of the file cannot be counted
+     */
+    private static BatchResult testInBatch(File file, Pipeline pipeline, InputSource in,
+            ThreadLocalOutputStream threadOut, ThreadLocalOutputStream threadErr) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        threadOut.redirect(out);
+        threadErr.redirect(err);
+        try {
+            System.out.println("\n===> Testing file: " + file.getName() + " <===\n");
+            testWithFile(file.getPath(), pipeline, in);
+        } finally {
+            threadOut.restore();
+            threadErr.restore();
+        }
+        return new BatchResult(out.toByteArray(), err.toByteArray(), FileUtils.countLines(file.getPath()));
+    }
 
-            System.out.println("\nGENERATED AST TREE:");
-            ASTTreeMaker treeMaker = new ASTTreeMaker();
-            ast.accept(treeMaker);
-            treeMaker.printTree();
+    /**
+     * The captured output of a file tested in a batch.
+     */
+    private static final class BatchResult {
+        private final byte[] out; // What the test printed to the standard output
+        private final byte[] err; // What the test printed to the standard error
+        private final int lines; // The number of lines of the file
 
-            System.out.println("\nEXECUTING CODE:");
-            ASTCodeExecutor executor = new ASTCodeExecutor();
-            ast.accept(executor);
+        private BatchResult(byte[] out, byte[] err, int lines) {
+            this.out = out;
+            this.err = err;
+            this.lines = lines;
+        }
+    }
 
-            System.out.println("\nGENERATING JAVA CLASS:");
-            String className = FileUtils.generateClassName(filePath);
-            ASTJavaClassGenerator javaGenerator = new ASTJavaClassGenerator(className);
-            javaGenerator.generateJavaClass(ast);
+    /**
+     * Serves the requests of the clients until the process is stopped.
+     *
+     * @param socket the path of the socket file of the server
+     * @param cache  the cache of the parsed trees and generated classes, or
+     *               null to compile every source from scratch
+     */
+    private static void serve(Path socket, CompileCache cache) {
+        CompileServer server;
+        try {
+            server = new CompileServer(socket, cache);
+        } catch (IOException e) {
+            System.err.println("Server error: " + e.getMessage());
+            return;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                server.close();
+            } catch (IOException e) {
+                // The socket file stays behind, and is replaced by the next server
+            }
+        }));
+        System.out.println("Serving on " + socket);
+        server.serve();
+    }
 
-            System.out.println("\nCOLLECTING ASSIGNMENTS:");
-            ASTAssignmentsCollector assignmentsCollector = new ASTAssignmentsCollector();
-            ast.accept(assignmentsCollector);
-            assignmentsCollector.printAssignments();
+    /**
+     * Run tests on files on a compile server, one after the other.
+     *
+     * @param files     the test files
+     * @param socket    the path of the socket file of the server
+     * @param stages    the stages to run on each file
+     * @param inputPath the path of the file supplying the values read, or null
+     */
+    private static void runOnServer(File[] files, Path socket, Set<Stage> stages, String inputPath) {
+        byte[] input;
+        try {
+            input = inputPath != null ? Files.readAllBytes(Paths.get(inputPath)) : new byte[0];
+        } catch (IOException e) {
+            System.err.println("File read error: " + e.getMessage());
+            return;
+        }
+        try (CompileClient client = new CompileClient(socket)) {
+            for (File file : files) {
+                System.out.println("\n===> Testing file: " + file.getName() + " <===\n");
+                client.run(stages, file.getPath(), input, System.out, System.err);
+            }
+        } catch (IOException e) {
+            System.err.println("Server error: " + e.getMessage());
+        }
+    }
 
+    /**
+     * Runs the stages of a pipeline on a file, reporting its errors.
+     *
+     * @param filePath the path of the file containing the source code to be tested
+     * @param pipeline the stages to run
+     * @param in       the source of the values read, or null for the one of
+     *                 the pipeline
+     */
+    private static void testWithFile(String filePath, Pipeline pipeline, InputSource in) {
+        try {
+            pipeline.run(filePath, in);
         } catch (IOException e) {
             System.err.println("File read error: " + e.getMessage());
+        } catch (ExecutionFailedException e) {
+            System.err.println("Runtime error: " + e.getMessage());
         } catch (RuntimeException e) {
             System.err.println("Parsing error: " + e.getMessage());
         }
     }
+
+    /**
+     * The standard input of the process, shared by the runs of all the files,
+     * so that the values buffered by a run are left for the next ones. It is
+     * opened on the first read, and its reads are synchronized, since the
+     * files of a batch run in parallel.
+     */
+    private static final class SharedStandardInput implements InputSource {
+        private InputSource in; // The standard input, null until the first read
+
+        @Override
+        public synchronized int readInt() {
+            if (in == null) {
+                in = InputSource.standardInput();
+            }
+            return in.readInt();
+        }
+
+        @Override
+        public boolean isInteractive() {
+            return true;
+        }
+    }
 }
@@ -62,7 +62,7 @@ public class Assignment extends Statement {
      */
     @Override
     public String toString() {
-        return identifier.getName() + " = " + expression.toString();
+        return identifier.getName() + " = " + Expression.render(expression);
     }
 
     // @Override
@@ -10,7 +10,7 @@ import com.inf5153.ast.visitor.Visitor;
 public class BinaryExpression extends Expression {
     private Expression left; // The left operand
     private Expression right; // The right operand
-    private String operator; // The operator
+    private BinaryOperator operator; // The operator
 
     /**
      * Constructs a BinaryExpression with the given left operand, operator, and
@@ -20,7 +20,7 @@ public class BinaryExpression extends Expression {
      * @param operator the operator used in the binary expression
      * @param right    the right operand of the binary expression
      */
-    public BinaryExpression(Expression left, String operator, Expression right) {
+    public BinaryExpression(Expression left, BinaryOperator operator, Expression right) {
         this.left = left;
         this.right = right;
         this.operator = operator;
@@ -49,7 +49,7 @@ public class BinaryExpression extends Expression {
      *
      * @return the operator
      */
-    public String getOperator() {
+    public BinaryOperator getOperator() {
         return operator;
     }
 
@@ -71,7 +71,7 @@ public class BinaryExpression extends Expression {
      */
     @Override
     public String toString() {
-        return "(" + left.toString() + " " + operator + " " + right.toString() + ")";
+        return render(this);
     }
 
     // @Override
@@ -0,0 +1,87 @@
+package com.inf5153.ast;
+
+/**
+ * Enumerates the operators of a {@link BinaryExpression}. Each operator knows
+ * its symbol in the source code and how to apply itself to two integers, so
+ * evaluating an expression never compares strings.
+ */
+public enum BinaryOperator {
+    ADD("+"),
+    SUBTRACT("-"),
+    MULTIPLY("*"),
+    DIVIDE("/");
+
+    private final String symbol; // The symbol of the operator in the source code
+
+    BinaryOperator(String symbol) {
+        this.symbol = symbol;
+    }
+
+    /**
+     * Returns the symbol of the operator in the source code.
+     *
+     * @return the symbol, such as "+"
+     */
+    public String getSymbol() {
+        return symbol;
+    }
+
+    /**
+     * Checks whether the operands of the operator can be swapped.
+     *
+     * @return true for addition and multiplication, false otherwise
+     */
+    public boolean isCommutative() {
+        return this == ADD || this == MULTIPLY;
+    }
+
+    /**
+     * Applies the operator to two integers.
+     *
+     * @param left  the left operand
+     * @param right the right operand
+     * @return the result of the operation
+     * @throws RuntimeException if a division by zero is attempted
+     */
+    public int apply(int left, int right) {
+        switch (this) {
+            case ADD:
+                return left + right;
+            case SUBTRACT:
+                return left - right;
+            case MULTIPLY:
+                return left * right;
+            default:
+                if (right == 0) {
+                    throw new RuntimeException("Division by zero!");
+                }
+                return left / right;
+        }
+    }
+
+    /**
+     * Returns the operator with the given symbol.
+     *
+     * @param symbol the symbol of the operator
+     * @return the operator
+     * @throws RuntimeException if no binary operator has this symbol
+     */
+    public static BinaryOperator fromSymbol(String symbol) {
+        for (BinaryOperator operator : values()) {
+            if (operator.symbol.equals(symbol)) {
+                return operator;
+            }
+        }
+        throw new RuntimeException("Unsupported operator: " + symbol);
+    }
+
+    /**
+     * Returns the symbol of the operator.
+     *
+     * @return the symbol of the operator
+     */
+    @Override
+    public String toString() {
+        return symbol;
+    }
+}
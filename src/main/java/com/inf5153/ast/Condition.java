@@ -10,7 +10,7 @@ import com.inf5153.ast.visitor.Visitor;
 public class Condition extends Node {
     private Expression left;    // The left operand of the condition
     private Expression right;   // The right operand of the condition
-    private String operator;    // The operator used in the condition (e.g., ==, !=, <, >)
+    private ConditionOperator operator;    // The operator used in the condition (e.g., ==, !=, <, >)
 
     /**
      * Constructs a Condition with the given left operand, operator, and right operand.
@@ -19,7 +19,7 @@ public class Condition extends Node {
      * @param operator the operator used in the condition
      * @param right the right operand of the condition
      */
-    public Condition(Expression left, String operator, Expression right) {
+    public Condition(Expression left, ConditionOperator operator, Expression right) {
         this.left = left;
         this.right = right;
         this.operator = operator;
@@ -48,7 +48,7 @@ public class Condition extends Node {
      *
      * @return the operator
      */
-    public String getOperator() {
+    public ConditionOperator getOperator() {
         return operator;
     }
 
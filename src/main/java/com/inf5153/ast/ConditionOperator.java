@@ -0,0 +1,80 @@
+package com.inf5153.ast;
+
+/**
+ * Enumerates the comparison operators of a {@link Condition}. Each operator
+ * knows its symbol in the source code and how to compare two integers, so
+ * evaluating a condition never compares strings.
+ */
+public enum ConditionOperator {
+    EQUAL("=="),
+    NOT_EQUAL("!="),
+    LESS("<"),
+    LESS_EQUAL("<="),
+    GREATER(">"),
+    GREATER_EQUAL(">=");
+
+    private final String symbol; // The symbol of the operator in the source code
+
+    ConditionOperator(String symbol) {
+        this.symbol = symbol;
+    }
+
+    /**
+     * Returns the symbol of the operator in the source code.
+     *
+     * @return the symbol, such as "&lt;="
+     */
+    public String getSymbol() {
+        return symbol;
+    }
+
+    /**
+     * Compares two integers with the operator.
+     *
+     * @param left  the left operand
+     * @param right the right operand
+     * @return true if the comparison holds, otherwise false
+     */
+    public boolean test(int left, int right) {
+        switch (this) {
+            case EQUAL:
+                return left == right;
+            case NOT_EQUAL:
+                return left != right;
+            case LESS:
+                return left < right;
+            case LESS_EQUAL:
+                return left <= right;
+            case GREATER:
+                return left > right;
+            default:
+                return left >= right;
+        }
+    }
+
+    /**
+     * Returns the operator with the given symbol.
+     *
+     * @param symbol the symbol of the operator
+     * @return the operator
+     * @throws RuntimeException if no comparison operator has this symbol
+     */
+    public static ConditionOperator fromSymbol(String symbol) {
+        for (ConditionOperator operator : values()) {
+            if (operator.symbol.equals(symbol)) {
+                return operator;
+            }
+        }
+        throw new RuntimeException("Unsupported condition operator: " + symbol);
+    }
+
+    /**
+     * Returns the symbol of the operator.
+     *
+     * @return the symbol of the operator
+     */
+    @Override
+    public String toString() {
+        return symbol;
+    }
+}
@@ -1,9 +1,45 @@
 package com.inf5153.ast;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
+
 /**
  * Represents an abstract base class for all types of expressions in the Abstract Syntax Tree (AST).
  * This class is used to define different kinds of expressions, such as literals, identifiers,
  * and binary expressions. It extends the Node class to integrate with the tree structure of the AST.
  */
 public abstract class Expression extends Node {
+
+    /**
+     * Returns the text of an expression, with each binary expression in
+     * parentheses. The operands are rendered with an explicit stack rather
+     * than by calling their toString, so that deeply nested expressions do not
+     * overflow the call stack.
+     *
+     * @param expression the expression to render
+     * @return the text of the expression
+     */
+    static String render(Expression expression) {
+        StringBuilder text = new StringBuilder();
+        Deque<Object> pending = new ArrayDeque<>(); // Expressions to render and text to append, in order
+        pending.push(expression);
+        while (!pending.isEmpty()) {
+            Object current = pending.pop();
+            if (current instanceof BinaryExpression) {
+                BinaryExpression binaryExpression = (BinaryExpression) current;
+                text.append('(');
+                pending.push(")");
+                pending.push(binaryExpression.getRight());
+                pending.push(" " + binaryExpression.getOperator() + " ");
+                pending.push(binaryExpression.getLeft());
+            } else if (current instanceof UnaryExpression) {
+                UnaryExpression unaryExpression = (UnaryExpression) current;
+                text.append(unaryExpression.getOperator());
+                pending.push(unaryExpression.getExpression());
+            } else {
+                text.append(current);
+            }
+        }
+        return text.toString();
+    }
 }
@@ -8,7 +8,7 @@ import com.inf5153.ast.visitor.Visitor;
  */
 public class UnaryExpression extends Expression {
     private Expression expression; // The expression to which the operator is applied
-    private String operator; // The unary operator
+    private UnaryOperator operator; // The unary operator
 
     /**
      * Constructs a UnaryExpression with the given expression and operator.
@@ -16,7 +16,7 @@ public class UnaryExpression extends Expression {
      * @param expression the expression to which the operator is applied
      * @param operator   the unary operator
      */
-    public UnaryExpression(Expression expression, String operator) {
+    public UnaryExpression(Expression expression, UnaryOperator operator) {
         this.expression = expression;
         this.operator = operator;
     }
@@ -35,7 +35,7 @@ public class UnaryExpression extends Expression {
      *
      * @return the operator
      */
-    public String getOperator() {
+    public UnaryOperator getOperator() {
         return operator;
     }
 
@@ -57,7 +57,7 @@ public class UnaryExpression extends Expression {
      */
     @Override
     public String toString() {
-        return operator + expression.toString();
+        return render(this);
     }
 
     // @Override
@@ -0,0 +1,59 @@
+package com.inf5153.ast;
+
+/**
+ * Enumerates the operators of a {@link UnaryExpression}.
+ */
+public enum UnaryOperator {
+    NEGATE("-");
+
+    private final String symbol; // The symbol of the operator in the source code
+
+    UnaryOperator(String symbol) {
+        this.symbol = symbol;
+    }
+
+    /**
+     * Returns the symbol of the operator in the source code.
+     *
+     * @return the symbol, such as "-"
+     */
+    public String getSymbol() {
+        return symbol;
+    }
+
+    /**
+     * Applies the operator to an integer.
+     *
+     * @param value the operand
+     * @return the result of the operation
+     */
+    public int apply(int value) {
+        return -value;
+    }
+
+    /**
+     * Returns the operator with the given symbol.
+     *
+     * @param symbol the symbol of the operator
+     * @return the operator
+     * @throws RuntimeException if no unary operator has this symbol
+     */
+    public static UnaryOperator fromSymbol(String symbol) {
+        for (UnaryOperator operator : values()) {
+            if (operator.symbol.equals(symbol)) {
+                return operator;
+            }
+        }
+        throw new RuntimeException("Unsupported unary operator: " + symbol);
+    }
+
+    /**
+     * Returns the symbol of the operator.
+     *
+     * @return the symbol of the operator
+     */
+    @Override
+    public String toString() {
+        return symbol;
+    }
+}
@@ -0,0 +1,485 @@
+package com.inf5153.ast.flat;
+
+import com.inf5153.ast.*;
+import com.inf5153.ast.parser.SymbolTable;
+import com.inf5153.ast.parser.TreeBuilder;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Represents an Abstract Syntax Tree stored in parallel int arrays rather than
+ * as one object per node. A node is an index: its {@link NodeKind}, operator
+ * and children are read from the arrays at that index. Identifiers hold the id
+ * of their name in the {@link SymbolTable} of the parser, which also serves as
+ * their slot.
+ * <p>
+ * Nodes are added children first, so a node always comes after its children,
+ * the root block is the last node, and the nodes of an expression or a
+ * condition occupy a contiguous range ending with its own index, in postfix
+ * order. Walking a tree thus mostly reads the arrays sequentially, and
+ * building it with {@link com.inf5153.ast.parser.Parser#parseFlat()}
+ * allocates only when an array grows.
+ * <p>
+ * The {@link #toBlock()} adapter builds the equivalent object AST, for the
+ * visitors working on {@link Node} objects. A tree can be encoded with
+ * {@link #toBytes()} and decoded with {@link #fromBytes(ByteBuffer)}, which is
+ * faster than parsing its source again.
+ * <p>
+ * The children of each kind of node are:
+ * <ul>
+ * <li>NUMBER: its value as first;</li>
+ * <li>STRING and PROMPT: the index of their text as first;</li>
+ * <li>IDENTIFIER: the symbol id of its name as first;</li>
+ * <li>UNARY: its operand as first;</li>
+ * <li>BINARY and CONDITION: their left and right operands as first and
+ * second;</li>
+ * <li>ASSIGNMENT: its identifier and expression as first and second;</li>
+ * <li>PRINT: its expression as first;</li>
+ * <li>READ: its prompt, or -1, and its identifier as first and second;</li>
+ * <li>IF: its condition, then block and else block, or -1, as first, second
+ * and third;</li>
+ * <li>WHILE: its condition and block as first and second;</li>
+ * <li>BLOCK: the offset of its statements in the statement list, and their
+ * number, as first and second.</li>
+ * </ul>
+ */
+public class FlatTree implements TreeBuilder {
+    private static final UnaryOperator[] UNARY_OPERATORS = UnaryOperator.values();
+    private static final BinaryOperator[] BINARY_OPERATORS = BinaryOperator.values();
+    private static final ConditionOperator[] CONDITION_OPERATORS = ConditionOperator.values();
+
+    private final SymbolTable symbols; // Names of the identifiers
+    private final List<String> texts = new ArrayList<>(); // Texts of the strings and prompts
+    private int[] kinds = new int[256]; // Kind of each node
+    private int[] operators = new int[256]; // Ordinal of the operator of each node, 0 if none
+    private int[] firsts = new int[256]; // First child or value of each node
+    private int[] seconds = new int[256]; // Second child of each node
+    private int[] thirds = new int[256]; // Third child of each node
+    private int[] starts = new int[256]; // First node of the postfix range of each expression
+    private int count = 0; // Number of nodes
+    private int[] statements = new int[64]; // Statements of the blocks, block after block
+    private int statementCount = 0; // Number of entries of the statement list
+
+    /**
+     * Constructs an empty FlatTree.
+     *
+     * @param symbols the table holding the names of the identifiers
+     */
+    public FlatTree(SymbolTable symbols) {
+        this.symbols = symbols;
+    }
+
+    @Override
+    public int addNumber(int value) {
+        return add(NodeKind.NUMBER, 0, value, 0, 0);
+    }
+
+    @Override
+    public int addString(String text) {
+        texts.add(text);
+        return add(NodeKind.STRING, 0, texts.size() - 1, 0, 0);
+    }
+
+    @Override
+    public int addPrompt(String text) {
+        texts.add(text);
+        return add(NodeKind.PROMPT, 0, texts.size() - 1, 0, 0);
+    }
+
+    @Override
+    public int addIdentifier(int symbol) {
+        return add(NodeKind.IDENTIFIER, 0, symbol, 0, 0);
+    }
+
+    @Override
+    public int addUnary(UnaryOperator operator, int operand) {
+        return add(NodeKind.UNARY, operator.ordinal(), operand, 0, 0);
+    }
+
+    @Override
+    public int addBinary(BinaryOperator operator, int left, int right) {
+        return add(NodeKind.BINARY, operator.ordinal(), left, right, 0);
+    }
+
+    @Override
+    public int addCondition(ConditionOperator operator, int left, int right) {
+        return add(NodeKind.CONDITION, operator.ordinal(), left, right, 0);
+    }
+
+    @Override
+    public int addAssignment(int identifier, int expression) {
+        return add(NodeKind.ASSIGNMENT, 0, identifier, expression, 0);
+    }
+
+    @Override
+    public int addPrint(int expression) {
+        return add(NodeKind.PRINT, 0, expression, 0, 0);
+    }
+
+    @Override
+    public int addRead(int prompt, int identifier) {
+        return add(NodeKind.READ, 0, prompt, identifier, 0);
+    }
+
+    @Override
+    public int addIf(int condition, int thenBlock, int elseBlock) {
+        return add(NodeKind.IF, 0, condition, thenBlock, elseBlock);
+    }
+
+    @Override
+    public int addWhile(int condition, int block) {
+        return add(NodeKind.WHILE, 0, condition, block, 0);
+    }
+
+    @Override
+    public int addBlock(int[] source, int from, int length) {
+        if (statementCount + length > statements.length) {
+            statements = Arrays.copyOf(statements, Math.max(statements.length * 2, statementCount + length));
+        }
+        System.arraycopy(source, from, statements, statementCount, length);
+        statementCount += length;
+        return add(NodeKind.BLOCK, 0, statementCount - length, length, 0);
+    }
+
+    /**
+     * Returns the number of nodes.
+     *
+     * @return the number of nodes
+     */
+    public int getNodeCount() {
+        return count;
+    }
+
+    /**
+     * Returns the root block, the last node added.
+     *
+     * @return the index of the root block
+     */
+    public int getRoot() {
+        return count - 1;
+    }
+
+    /**
+     * Returns the number of slots needed to hold the variables, one per
+     * symbol of the symbol table.
+     *
+     * @return the number of slots
+     */
+    public int getSlotCount() {
+        return symbols.size();
+    }
+
+    /**
+     * Returns the kind of a node.
+     *
+     * @param node the index of the node
+     * @return its {@link NodeKind}
+     */
+    public int kindOf(int node) {
+        return kinds[node];
+    }
+
+    /**
+     * Returns the first child of a node, or its value for a number, the symbol
+     * id of its name for an identifier, and the offset of its statements for a
+     * block.
+     *
+     * @param node the index of the node
+     * @return the first child or value
+     */
+    public int firstOf(int node) {
+        return firsts[node];
+    }
+
+    /**
+     * Returns the second child of a node, or the number of statements of a
+     * block.
+     *
+     * @param node the index of the node
+     * @return the second child
+     */
+    public int secondOf(int node) {
+        return seconds[node];
+    }
+
+    /**
+     * Returns the third child of an if statement: its else block, or -1.
+     *
+     * @param node the index of the node
+     * @return the third child
+     */
+    public int thirdOf(int node) {
+        return thirds[node];
+    }
+
+    /**
+     * Returns the first node of an expression or a condition: its nodes are
+     * those from this index to its own, in postfix order.
+     *
+     * @param node the index of the expression or condition
+     * @return the index of its first node
+     */
+    public int startOf(int node) {
+        return starts[node];
+    }
+
+    /**
+     * Returns a statement of a block.
+     *
+     * @param block the index of the block
+     * @param i     the position of the statement in the block
+     * @return the index of the statement
+     */
+    public int statementOf(int block, int i) {
+        return statements[firsts[block] + i];
+    }
+
+    /**
+     * Returns the operator of a unary expression.
+     *
+     * @param node the index of the expression
+     * @return the operator
+     */
+    public UnaryOperator unaryOperatorOf(int node) {
+        return UNARY_OPERATORS[operators[node]];
+    }
+
+    /**
+     * Returns the operator of a binary expression.
+     *
+     * @param node the index of the expression
+     * @return the operator
+     */
+    public BinaryOperator binaryOperatorOf(int node) {
+        return BINARY_OPERATORS[operators[node]];
+    }
+
+    /**
+     * Returns the operator of a condition.
+     *
+     * @param node the index of the condition
+     * @return the operator
+     */
+    public ConditionOperator conditionOperatorOf(int node) {
+        return CONDITION_OPERATORS[operators[node]];
+    }
+
+    /**
+     * Returns the text of a string or a prompt.
+     *
+     * @param node the index of the string or prompt
+     * @return its text
+     */
+    public String textOf(int node) {
+        return texts.get(firsts[node]);
+    }
+
+    /**
+     * Returns the name of an identifier.
+     *
+     * @param node the index of the identifier
+     * @return its name
+     */
+    public String nameOf(int node) {
+        return symbols.name(firsts[node]);
+    }
+
+    /**
+     * Encodes the tree: the names of its symbols, its texts, the statements of
+     * its blocks, then its nodes, one array after the other so that they are
+     * decoded in bulk.
+     *
+     * @return the encoded tree
+     */
+    public byte[] toBytes() {
+        byte[][] names = new byte[symbols.size()][];
+        byte[][] encodedTexts = new byte[texts.size()][];
+        int size = 4 * 4 + 4 * statementCount + count * (2 + 3 * 4);
+        for (int id = 0; id < names.length; id++) {
+            names[id] = symbols.name(id).getBytes(StandardCharsets.UTF_8);
+            size += 4 + names[id].length;
+        }
+        for (int i = 0; i < encodedTexts.length; i++) {
+            encodedTexts[i] = texts.get(i).getBytes(StandardCharsets.UTF_8);
+            size += 4 + encodedTexts[i].length;
+        }
+        ByteBuffer out = ByteBuffer.allocate(size);
+        putStrings(out, names);
+        putStrings(out, encodedTexts);
+        out.putInt(statementCount);
+        out.asIntBuffer().put(statements, 0, statementCount);
+        out.position(out.position() + 4 * statementCount);
+        out.putInt(count);
+        for (int i = 0; i < count; i++) {
+            out.put((byte) kinds[i]);
+        }
+        for (int i = 0; i < count; i++) {
+            out.put((byte) operators[i]);
+        }
+        for (int[] column : new int[][] { firsts, seconds, thirds }) {
+            out.asIntBuffer().put(column, 0, count);
+            out.position(out.position() + 4 * count);
+        }
+        return out.array();
+    }
+
+    /**
+     * Decodes a tree encoded by {@link #toBytes()}. The symbols get the same
+     * ids as in the encoded tree.
+     *
+     * @param in the encoded tree, read from its position
+     * @return the tree
+     * @throws java.nio.BufferUnderflowException if the encoded tree is
+     *                                           truncated
+     */
+    public static FlatTree fromBytes(ByteBuffer in) {
+        SymbolTable symbols = new SymbolTable();
+        for (String name : getStrings(in)) {
+            symbols.intern(name);
+        }
+        FlatTree tree = new FlatTree(symbols);
+        tree.texts.addAll(Arrays.asList(getStrings(in)));
+        tree.statementCount = in.getInt();
+        tree.statements = new int[Math.max(tree.statementCount, 1)];
+        in.asIntBuffer().get(tree.statements, 0, tree.statementCount);
+        in.position(in.position() + 4 * tree.statementCount);
+        int count = in.getInt();
+        int capacity = Math.max(count, 1);
+        tree.kinds = new int[capacity];
+        tree.operators = new int[capacity];
+        for (int i = 0; i < count; i++) {
+            tree.kinds[i] = in.get();
+        }
+        for (int i = 0; i < count; i++) {
+            tree.operators[i] = in.get();
+        }
+        tree.firsts = new int[capacity];
+        tree.seconds = new int[capacity];
+        tree.thirds = new int[capacity];
+        for (int[] column : new int[][] { tree.firsts, tree.seconds, tree.thirds }) {
+            in.asIntBuffer().get(column, 0, count);
+            in.position(in.position() + 4 * count);
+        }
+        tree.starts = new int[capacity];
+        for (int i = 0; i < count; i++) {
+            int kind = tree.kinds[i];
+            tree.starts[i] = kind == NodeKind.UNARY || kind == NodeKind.BINARY || kind == NodeKind.CONDITION
+                    ? tree.starts[tree.firsts[i]]
+                    : i;
+        }
+        tree.count = count;
+        return tree;
+    }
+
+    private static void putStrings(ByteBuffer out, byte[][] strings) {
+        out.putInt(strings.length);
+        for (byte[] string : strings) {
+            out.putInt(string.length);
+            out.put(string);
+        }
+    }
+
+    private static String[] getStrings(ByteBuffer in) {
+        String[] strings = new String[in.getInt()];
+        for (int i = 0; i < strings.length; i++) {
+            int length = in.getInt();
+            strings[i] = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+            in.position(in.position() + length);
+        }
+        return strings;
+    }
+
+    /**
+     * Builds the object AST equivalent to this tree. Since children come
+     * before their parents, the nodes are built in a single pass over the
+     * arrays, without recursion.
+     *
+     * @return the root block of the object AST
+     * @throws IllegalStateException if the tree is empty
+     */
+    public Block toBlock() {
+        if (count == 0) {
+            throw new IllegalStateException("The tree is empty.");
+        }
+        Node[] nodes = new Node[count];
+        for (int i = 0; i < count; i++) {
+            nodes[i] = toNode(i, nodes);
+        }
+        return (Block) nodes[count - 1];
+    }
+
+    /**
+     * Builds the object node for a node whose children are already built.
+     *
+     * @param i     the index of the node
+     * @param nodes the object nodes built so far
+     * @return the object node
+     */
+    private Node toNode(int i, Node[] nodes) {
+        int first = firsts[i];
+        int second = seconds[i];
+        switch (kinds[i]) {
+            case NodeKind.NUMBER:
+                return new LiteralNumber(first);
+            case NodeKind.STRING:
+            case NodeKind.PROMPT:
+                return new LiteralString(texts.get(first));
+            case NodeKind.IDENTIFIER:
+                return new Identifier(symbols.name(first));
+            case NodeKind.UNARY:
+                return new UnaryExpression((Expression) nodes[first], unaryOperatorOf(i));
+            case NodeKind.BINARY:
+                return new BinaryExpression((Expression) nodes[first], binaryOperatorOf(i), (Expression) nodes[second]);
+            case NodeKind.CONDITION:
+                return new Condition((Expression) nodes[first], conditionOperatorOf(i), (Expression) nodes[second]);
+            case NodeKind.ASSIGNMENT:
+                return new Assignment((Identifier) nodes[first], (Expression) nodes[second]);
+            case NodeKind.PRINT:
+                return new PrintStatement((Expression) nodes[first]);
+            case NodeKind.READ:
+                return new ReadStatement(first < 0 ? null : (LiteralString) nodes[first], (Identifier) nodes[second]);
+            case NodeKind.IF:
+                return new IfStatement((Condition) nodes[first], (Block) nodes[second],
+                        thirds[i] < 0 ? null : (Block) nodes[thirds[i]]);
+            case NodeKind.WHILE:
+                return new WhileStatement((Condition) nodes[first], (Block) nodes[second]);
+            default:
+                List<Statement> blockStatements = new ArrayList<>(second);
+                for (int j = 0; j < second; j++) {
+                    blockStatements.add((Statement) nodes[statements[first + j]]);
+                }
+                return new Block(blockStatements);
+        }
+    }
+
+    /**
+     * Appends a node to the arrays. An expression or condition with children
+     * starts where its first child starts.
+     *
+     * @return the index of the node
+     */
+    private int add(int kind, int operator, int first, int second, int third) {
+        if (count == kinds.length) {
+            int capacity = count * 2;
+            kinds = Arrays.copyOf(kinds, capacity);
+            operators = Arrays.copyOf(operators, capacity);
+            firsts = Arrays.copyOf(firsts, capacity);
+            seconds = Arrays.copyOf(seconds, capacity);
+            thirds = Arrays.copyOf(thirds, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+        }
+        kinds[count] = kind;
+        operators[count] = operator;
+        firsts[count] = first;
+        seconds[count] = second;
+        thirds[count] = third;
+        starts[count] = kind == NodeKind.UNARY || kind == NodeKind.BINARY || kind == NodeKind.CONDITION
+                ? starts[first]
+                : count;
+        return count++;
+    }
+}
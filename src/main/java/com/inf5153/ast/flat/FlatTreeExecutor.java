@@ -0,0 +1,266 @@
+package com.inf5153.ast.flat;
+
+import com.inf5153.utils.InputSource;
+import com.inf5153.utils.OutputSink;
+
+import java.util.Arrays;
+
+/**
+ * Executes a {@link FlatTree} directly, reading its arrays instead of walking
+ * objects, and behaves like the
+ * {@link com.inf5153.ast.visitor.ASTCodeExecutor}: it prints the same values
+ * and fails with the same errors.
+ * <p>
+ * Expressions and conditions are evaluated by scanning their nodes in postfix
+ * order, which is the order in which they are stored, with a stack of operand
+ * values. Blocks being executed are kept on an explicit stack. Running a
+ * program thus allocates nothing but these stacks and the variables, whatever
+ * its size or depth.
+ * <p>
+ * The slot of a variable is the symbol id of its name.
+ */
+public class FlatTreeExecutor {
+    private final OutputSink out; // Receives the printed values
+    private final InputSource in; // Supplies the values read
+    private FlatTree tree; // The tree being executed
+    private int[] values = new int[0]; // Integer value of each variable
+    private boolean[] defined = new boolean[0]; // Whether an integer was assigned to each variable
+    private String[] strings = new String[0]; // String value of each variable, null if none
+    private int[] operands = new int[64]; // Values of the evaluated operands
+    private int[] blocks = new int[64]; // Blocks being executed, the innermost on top
+    private int[] positions = new int[64]; // Position of the next statement of each block
+    private int[] loops = new int[64]; // While statement owning each block, -1 if none
+
+    /**
+     * Constructs a FlatTreeExecutor reading from the standard input and
+     * printing to the standard output.
+     */
+    public FlatTreeExecutor() {
+        this(OutputSink.standardOutput());
+    }
+
+    /**
+     * Constructs a FlatTreeExecutor reading from the standard input and
+     * printing to a sink.
+     *
+     * @param out the sink receiving the printed values
+     */
+    public FlatTreeExecutor(OutputSink out) {
+        this(out, InputSource.standardInput());
+    }
+
+    /**
+     * Constructs a FlatTreeExecutor reading from a source and printing to a
+     * sink.
+     *
+     * @param out the sink receiving the printed values
+     * @param in  the source supplying the values read
+     */
+    public FlatTreeExecutor(OutputSink out, InputSource in) {
+        this.out = out;
+        this.in = in;
+    }
+
+    /**
+     * Executes a tree, starting with no variable defined. The output is
+     * flushed when the program ends, even if it fails.
+     *
+     * @param tree the tree to execute
+     * @throws RuntimeException if the program fails, as the
+     *                          {@link com.inf5153.ast.visitor.ASTCodeExecutor}
+     *                          would
+     */
+    public void execute(FlatTree tree) {
+        this.tree = tree;
+        int slotCount = tree.getSlotCount();
+        values = new int[slotCount];
+        defined = new boolean[slotCount];
+        strings = new String[slotCount];
+        try {
+            run(tree.getRoot());
+        } finally {
+            out.flush();
+        }
+    }
+
+    /**
+     * Executes the statements of a block and of the blocks nested in it.
+     *
+     * @param root the index of the block
+     */
+    private void run(int root) {
+        int top = 0;
+        blocks[0] = root;
+        positions[0] = 0;
+        loops[0] = -1;
+        while (top >= 0) {
+            int block = blocks[top];
+            int position = positions[top];
+            if (position == tree.secondOf(block)) {
+                int loop = loops[top];
+                if (loop >= 0 && evaluateCondition(tree.firstOf(loop))) {
+                    positions[top] = 0;
+                } else {
+                    top--;
+                }
+                continue;
+            }
+            positions[top] = position + 1;
+            int statement = tree.statementOf(block, position);
+            int nested = -1;
+            int loop = -1;
+            switch (tree.kindOf(statement)) {
+                case NodeKind.ASSIGNMENT:
+                    assign(statement);
+                    break;
+                case NodeKind.PRINT:
+                    print(statement);
+                    break;
+                case NodeKind.READ:
+                    read(statement);
+                    break;
+                case NodeKind.IF:
+                    if (evaluateCondition(tree.firstOf(statement))) {
+                        nested = tree.secondOf(statement);
+                    } else {
+                        nested = tree.thirdOf(statement);
+                    }
+                    break;
+                case NodeKind.WHILE:
+                    if (evaluateCondition(tree.firstOf(statement))) {
+                        nested = tree.secondOf(statement);
+                        loop = statement;
+                    }
+                    break;
+                default:
+                    throw new IllegalStateException("Not a statement: " + statement);
+            }
+            if (nested >= 0) {
+                if (++top == blocks.length) {
+                    blocks = Arrays.copyOf(blocks, top * 2);
+                    positions = Arrays.copyOf(positions, top * 2);
+                    loops = Arrays.copyOf(loops, top * 2);
+                }
+                blocks[top] = nested;
+                positions[top] = 0;
+                loops[top] = loop;
+            }
+        }
+    }
+
+    /**
+     * Executes an assignment. A literal string is stored as the string of the
+     * variable; any other expression is evaluated into its integer value.
+     *
+     * @param statement the index of the assignment
+     */
+    private void assign(int statement) {
+        int slot = tree.firstOf(tree.firstOf(statement));
+        int expression = tree.secondOf(statement);
+        if (tree.kindOf(expression) == NodeKind.STRING) {
+            strings[slot] = tree.textOf(expression);
+        } else {
+            values[slot] = evaluate(expression);
+            defined[slot] = true;
+        }
+    }
+
+    /**
+     * Executes a print statement. A variable holding a string prints the
+     * string.
+     *
+     * @param statement the index of the print statement
+     */
+    private void print(int statement) {
+        int expression = tree.firstOf(statement);
+        if (tree.kindOf(expression) == NodeKind.IDENTIFIER) {
+            String string = strings[tree.firstOf(expression)];
+            if (string != null) {
+                out.println(string);
+                return;
+            }
+        }
+        out.println(evaluate(expression));
+    }
+
+    /**
+     * Executes a read statement, printing its prompt first.
+     *
+     * @param statement the index of the read statement
+     */
+    private void read(int statement) {
+        int prompt = tree.firstOf(statement);
+        if (prompt >= 0) {
+            out.print(tree.textOf(prompt) + " ");
+        }
+        if (in.isInteractive()) {
+            out.flush();
+        }
+        int value = in.readInt();
+        int slot = tree.firstOf(tree.secondOf(statement));
+        values[slot] = value;
+        defined[slot] = true;
+    }
+
+    /**
+     * Evaluates a condition.
+     *
+     * @param condition the index of the condition
+     * @return whether the condition is met
+     */
+    private boolean evaluateCondition(int condition) {
+        scan(tree.startOf(condition), condition);
+        return tree.conditionOperatorOf(condition).test(operands[0], operands[1]);
+    }
+
+    /**
+     * Evaluates an expression.
+     *
+     * @param expression the index of the expression
+     * @return its value
+     */
+    private int evaluate(int expression) {
+        scan(tree.startOf(expression), expression + 1);
+        return operands[0];
+    }
+
+    /**
+     * Evaluates the nodes of a postfix range, leaving the values of the
+     * operands not consumed within the range on the operand stack, from its
+     * bottom.
+     *
+     * @param from the index of the first node
+     * @param to   the index after the last node
+     * @throws RuntimeException if a variable is undefined, a division by zero
+     *                          occurs, or a string is used as a number
+     */
+    private void scan(int from, int to) {
+        if (operands.length < to - from) {
+            operands = new int[to - from];
+        }
+        int count = 0;
+        for (int node = from; node < to; node++) {
+            switch (tree.kindOf(node)) {
+                case NodeKind.NUMBER:
+                    operands[count++] = tree.firstOf(node);
+                    break;
+                case NodeKind.IDENTIFIER:
+                    int slot = tree.firstOf(node);
+                    if (!defined[slot]) {
+                        throw new RuntimeException("Error: Undefined variable - " + tree.nameOf(node));
+                    }
+                    operands[count++] = values[slot];
+                    break;
+                case NodeKind.UNARY:
+                    operands[count - 1] = tree.unaryOperatorOf(node).apply(operands[count - 1]);
+                    break;
+                case NodeKind.BINARY:
+                    count--;
+                    operands[count - 1] = tree.binaryOperatorOf(node).apply(operands[count - 1], operands[count]);
+                    break;
+                default:
+                    throw new RuntimeException("Unknown expression type");
+            }
+        }
+    }
+}
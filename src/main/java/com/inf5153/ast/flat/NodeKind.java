@@ -0,0 +1,24 @@
+package com.inf5153.ast.flat;
+
+/**
+ * The NodeKind class defines the integer codes identifying each kind of node
+ * in a {@link FlatTree}. Each code matches one class of the object AST.
+ */
+public final class NodeKind {
+    public static final int NUMBER = 0;
+    public static final int STRING = 1;
+    public static final int PROMPT = 2;
+    public static final int IDENTIFIER = 3;
+    public static final int UNARY = 4;
+    public static final int BINARY = 5;
+    public static final int CONDITION = 6;
+    public static final int ASSIGNMENT = 7;
+    public static final int PRINT = 8;
+    public static final int READ = 9;
+    public static final int IF = 10;
+    public static final int WHILE = 11;
+    public static final int BLOCK = 12;
+
+    private NodeKind() {
+    }
+}
@@ -0,0 +1,437 @@
+package com.inf5153.ast.parser;
+
+import com.inf5153.ast.*;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The IncrementalParser class keeps the Abstract Syntax Tree of a source
+ * up to date while the source is edited, re-parsing only what an edit
+ * touches.
+ * <p>
+ * The parser remembers where each block and statement lies in the source.
+ * For an edit, it finds the innermost block whose braces enclose the edited
+ * text, then lexes and parses again only the statements of that block the
+ * edit touches, from the end of the statement before them to the start of
+ * the statement after them. The statements out of that range, and every node
+ * outside of the block, are reused as they are; the block and the statements
+ * enclosing it are replaced by new nodes, so that a tree returned earlier is
+ * never modified. If the statements no longer parse on their own, for
+ * instance because the edit added a closing brace, the enclosing block is
+ * tried instead, and in the end the whole source.
+ * <p>
+ * Offsets are kept relative to the enclosing block, so that an edit only
+ * shifts the offsets of the statements following it in the blocks enclosing
+ * it.
+ */
+public class IncrementalParser {
+    private final StringBuilder source; // The current source
+    private Block tree; // The tree of the current source, null if it does not parse
+    private Span root; // Where the blocks and statements of the tree lie
+    private int reparsedLength = 0; // Number of characters lexed by the last edit
+
+    /**
+     * Constructs an IncrementalParser, parsing a source.
+     *
+     * @param source the source code
+     * @throws RuntimeException if the source cannot be parsed
+     */
+    public IncrementalParser(String source) {
+        this.source = new StringBuilder(source);
+        parseAll();
+    }
+
+    /**
+     * Returns the tree of the current source.
+     *
+     * @return the root block of the tree, or null if the last edit left a
+     *         source that does not parse
+     */
+    public Block getTree() {
+        return tree;
+    }
+
+    /**
+     * Returns the current source.
+     *
+     * @return the source code, with every edit applied
+     */
+    public String getSource() {
+        return source.toString();
+    }
+
+    /**
+     * Returns the number of characters lexed again by the last edit, which
+     * is the length of the whole source if it had to be parsed again.
+     *
+     * @return the number of characters
+     */
+    public int getReparsedLength() {
+        return reparsedLength;
+    }
+
+    /**
+     * Replaces a range of the source and updates the tree. The edit applies
+     * to the source even if the new source does not parse; the tree is then
+     * null, and the next edit parses the whole source.
+     *
+     * @param offset      the offset of the first character replaced
+     * @param length      the number of characters replaced
+     * @param replacement the text replacing them
+     * @return the root block of the new tree
+     * @throws IndexOutOfBoundsException if the range is not in the source
+     * @throws RuntimeException          if the new source cannot be parsed
+     */
+    public Block edit(int offset, int length, String replacement) {
+        if (offset < 0 || length < 0 || offset + length > source.length()) {
+            throw new IndexOutOfBoundsException("Edit of " + length + " characters at " + offset
+                    + " outside a source of " + source.length() + " characters");
+        }
+        source.replace(offset, offset + length, replacement);
+        reparsedLength = 0;
+        if (tree != null && reparse(offset, offset + length, replacement.length() - length)) {
+            return tree;
+        }
+        return parseAll();
+    }
+
+    /**
+     * Parses the whole source.
+     *
+     * @return the root block of the tree
+     * @throws RuntimeException if the source cannot be parsed
+     */
+    private Block parseAll() {
+        tree = null;
+        root = null;
+        reparsedLength += source.length();
+        SpanBuilder spans = new SpanBuilder();
+        Block block = new Parser(new Lexer(source.toString())).parse(spans);
+        root = spans.root;
+        tree = block;
+        return block;
+    }
+
+    /**
+     * Re-parses the statements touched by an edit already applied to the
+     * source, in the innermost block enclosing it that still parses.
+     *
+     * @param from  the offset of the first character replaced, before the edit
+     * @param to    the offset following the last character replaced, before
+     *              the edit
+     * @param delta the difference between the new and old lengths of the
+     *              source
+     * @return true if the tree is updated, false if the whole source must be
+     *         parsed again
+     */
+    private boolean reparse(int from, int to, int delta) {
+        // The blocks whose braces enclose the edit, outermost first, with
+        // the absolute offset of their opening brace and the index of the
+        // statement holding the next one
+        List<Span> spans = new ArrayList<>();
+        List<Block> blocks = new ArrayList<>();
+        int[] opens = new int[16];
+        int[] indices = new int[16];
+        Span span = root;
+        Block block = tree;
+        int open = root.open;
+        while (span != null && from > open && to <= open + span.close) {
+            int depth = spans.size();
+            if (depth == opens.length) {
+                opens = Arrays.copyOf(opens, depth * 2);
+                indices = Arrays.copyOf(indices, depth * 2);
+            }
+            spans.add(span);
+            blocks.add(block);
+            opens[depth] = open;
+            int index = span.lastStartingBefore(from - open);
+            indices[depth] = index;
+            if (index < 0 || to - open > span.ends[index]) {
+                break;
+            }
+            Statement statement = block.getStatements().get(index);
+            Span first = span.firsts[index];
+            Span second = span.seconds[index];
+            if (first != null && encloses(first, open + first.open, from, to)) {
+                open += first.open;
+                span = first;
+                block = statement instanceof IfStatement
+                        ? ((IfStatement) statement).getThenBlock()
+                        : ((WhileStatement) statement).getBlock();
+            } else if (second != null && encloses(second, open + second.open, from, to)) {
+                open += second.open;
+                span = second;
+                block = ((IfStatement) statement).getElseBlock();
+            } else {
+                span = null;
+            }
+        }
+
+        for (int depth = spans.size() - 1; depth >= 0; depth--) {
+            Block replaced = reparseStatements(spans.get(depth), blocks.get(depth), opens[depth], from, to, delta);
+            if (replaced == null) {
+                continue;
+            }
+            for (int outer = depth - 1; outer >= 0; outer--) {
+                Span enclosing = spans.get(outer);
+                int index = indices[outer];
+                enclosing.ends[index] += delta;
+                enclosing.shift(index + 1, delta);
+                replaced = replaceBlock(blocks.get(outer), index, blocks.get(outer + 1), replaced);
+            }
+            tree = replaced;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Re-parses the statements of a block touched by an edit, updating the
+     * offsets of the block.
+     *
+     * @param span  where the block and its statements lie
+     * @param block the block
+     * @param open  the absolute offset of its opening brace
+     * @param from  the offset of the first character replaced, before the edit
+     * @param to    the offset following the last character replaced, before
+     *              the edit
+     * @param delta the difference between the new and old lengths of the
+     *              source
+     * @return the new block, or null if the statements no longer parse on
+     *         their own
+     */
+    private Block reparseStatements(Span span, Block block, int open, int from, int to, int delta) {
+        int first = span.firstEndingAfter(from - open);
+        int last = span.lastStartingBefore(to - open);
+        int start = first > 0 ? open + span.ends[first - 1] : open + 1;
+        int end = (last < span.count - 1 ? open + span.starts[last + 1] : open + span.close) + delta;
+        reparsedLength += end - start;
+        Span inserted = new Span();
+        inserted.absolute = open - start;
+        List<Statement> statements;
+        try {
+            statements = new Parser(new Lexer(source.substring(start, end))).parseStatements(new SpanBuilder(inserted));
+        } catch (RuntimeException e) {
+            return null;
+        }
+        span.replace(first, last, inserted, delta);
+
+        List<Statement> old = block.getStatements();
+        List<Statement> updated = new ArrayList<>(old.size() - (last - first + 1) + statements.size());
+        updated.addAll(old.subList(0, first));
+        updated.addAll(statements);
+        updated.addAll(old.subList(last + 1, old.size()));
+        return new Block(updated);
+    }
+
+    /**
+     * Returns a copy of a block in which a block of one of its statements is
+     * replaced.
+     *
+     * @param block    the block
+     * @param index    the index of the statement holding the block replaced
+     * @param oldBlock the block replaced
+     * @param newBlock the block replacing it
+     * @return the new block
+     */
+    private static Block replaceBlock(Block block, int index, Block oldBlock, Block newBlock) {
+        Statement statement = block.getStatements().get(index);
+        Statement replaced;
+        if (statement instanceof WhileStatement) {
+            replaced = new WhileStatement(((WhileStatement) statement).getCondition(), newBlock);
+        } else {
+            IfStatement ifStatement = (IfStatement) statement;
+            replaced = ifStatement.getThenBlock() == oldBlock
+                    ? new IfStatement(ifStatement.getCondition(), newBlock, ifStatement.getElseBlock())
+                    : new IfStatement(ifStatement.getCondition(), ifStatement.getThenBlock(), newBlock);
+        }
+        List<Statement> statements = new ArrayList<>(block.getStatements());
+        statements.set(index, replaced);
+        return new Block(statements);
+    }
+
+    /**
+     * Checks whether the braces of a block enclose an edit, leaving both
+     * braces untouched.
+     */
+    private static boolean encloses(Span span, int open, int from, int to) {
+        return from > open && to <= open + span.close;
+    }
+
+    /**
+     * Where a block and its statements lie in the source.
+     */
+    private static final class Span {
+        int open; // Offset of the opening brace from the one of the enclosing block, or from the start of the source
+        int close; // Offset of the closing brace from the opening one
+        int count = 0; // Number of statements
+        int[] starts = new int[4]; // Offset of the start of each statement from the opening brace
+        int[] ends = new int[4]; // Offset of the end of each statement from the opening brace
+        Span[] firsts = new Span[4]; // The then block or the body of each statement, null if none
+        Span[] seconds = new Span[4]; // The else block of each statement, null if none
+
+        int absolute; // While building, the absolute offset of the opening brace
+        Span pendingFirst; // While building, the first block closed since the last statement
+        Span pendingSecond; // While building, the second block closed since the last statement
+
+        void add(int start, int end, Span first, Span second) {
+            if (count == starts.length) {
+                grow(count * 2);
+            }
+            starts[count] = start;
+            ends[count] = end;
+            firsts[count] = first;
+            seconds[count] = second;
+            count++;
+        }
+
+        /**
+         * Returns the index of the first statement ending at or after an
+         * offset, or the number of statements if there is none.
+         */
+        int firstEndingAfter(int offset) {
+            int low = 0;
+            int high = count;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (ends[middle] < offset) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * Returns the index of the last statement starting at or before an
+         * offset, or -1 if there is none.
+         */
+        int lastStartingBefore(int offset) {
+            int low = 0;
+            int high = count;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (starts[middle] <= offset) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low - 1;
+        }
+
+        /**
+         * Replaces the statements from first to last, both included, by
+         * those of another span with offsets from the same opening brace,
+         * and shifts the statements following them.
+         */
+        void replace(int first, int last, Span inserted, int delta) {
+            int tail = count - last - 1;
+            int size = first + inserted.count + tail;
+            if (size > starts.length) {
+                grow(Math.max(size, starts.length * 2));
+            }
+            int moved = first + inserted.count;
+            System.arraycopy(starts, last + 1, starts, moved, tail);
+            System.arraycopy(ends, last + 1, ends, moved, tail);
+            System.arraycopy(firsts, last + 1, firsts, moved, tail);
+            System.arraycopy(seconds, last + 1, seconds, moved, tail);
+            System.arraycopy(inserted.starts, 0, starts, first, inserted.count);
+            System.arraycopy(inserted.ends, 0, ends, first, inserted.count);
+            System.arraycopy(inserted.firsts, 0, firsts, first, inserted.count);
+            System.arraycopy(inserted.seconds, 0, seconds, first, inserted.count);
+            if (size < count) {
+                Arrays.fill(firsts, size, count, null);
+                Arrays.fill(seconds, size, count, null);
+            }
+            count = size;
+            shift(moved, delta);
+        }
+
+        /**
+         * Shifts the statements from an index on, and the closing brace.
+         */
+        void shift(int from, int delta) {
+            for (int i = from; i < count; i++) {
+                starts[i] += delta;
+                ends[i] += delta;
+                if (firsts[i] != null) {
+                    firsts[i].open += delta;
+                }
+                if (seconds[i] != null) {
+                    seconds[i].open += delta;
+                }
+            }
+            close += delta;
+        }
+
+        private void grow(int capacity) {
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            firsts = Arrays.copyOf(firsts, capacity);
+            seconds = Arrays.copyOf(seconds, capacity);
+        }
+    }
+
+    /**
+     * Builds the spans of the blocks and statements reported by a parser.
+     */
+    private static final class SpanBuilder implements SpanListener {
+        private final ArrayDeque<Span> open = new ArrayDeque<>(); // The blocks not closed yet, innermost first
+        private Span root; // The outermost block, once closed
+
+        /**
+         * Constructs a SpanBuilder for a whole source.
+         */
+        SpanBuilder() {
+        }
+
+        /**
+         * Constructs a SpanBuilder for statements parsed without their
+         * enclosing block, adding them to the span of that block.
+         *
+         * @param enclosing the span of the block, whose absolute offset is
+         *                  that of its opening brace in the parsed text
+         */
+        SpanBuilder(Span enclosing) {
+            open.push(enclosing);
+        }
+
+        @Override
+        public void openBlock(int offset) {
+            Span span = new Span();
+            span.absolute = offset;
+            open.push(span);
+        }
+
+        @Override
+        public void closeBlock(int offset) {
+            Span span = open.pop();
+            span.close = offset - span.absolute;
+            Span parent = open.peek();
+            if (parent == null) {
+                span.open = span.absolute;
+                root = span;
+            } else {
+                span.open = span.absolute - parent.absolute;
+                if (parent.pendingFirst == null) {
+                    parent.pendingFirst = span;
+                } else {
+                    parent.pendingSecond = span;
+                }
+            }
+        }
+
+        @Override
+        public void statement(int start, int end) {
+            Span span = open.peek();
+            span.add(start - span.absolute, end - span.absolute, span.pendingFirst, span.pendingSecond);
+            span.pendingFirst = null;
+            span.pendingSecond = null;
+        }
+    }
+}
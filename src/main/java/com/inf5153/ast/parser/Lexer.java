@@ -1,25 +1,88 @@
 package com.inf5153.ast.parser;
 
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Pattern;
-import java.util.regex.Matcher;
 
 /**
  * The Lexer class is responsible for tokenizing an input string.
- * It uses regular expressions to identify and categorize tokens.
+ * It is a hand-written, single-pass scanner working directly on the characters
+ * of the input, without copying them: each character is classified through a lookup table and the
+ * scanner moves from state to state without backtracking.
+ * <p>
+ * The input is either a string or a buffer of UTF-8 encoded bytes, such as a
+ * memory-mapped source file. Every token of the language is made of ASCII
+ * characters, so a byte buffer is scanned in place and only the content of
+ * string literals is decoded.
+ * <p>
+ * Tokens are produced in the compact form described by {@link TokenSource}:
+ * a {@link TokenKind} code, offsets into the input and an id in the
+ * {@link SymbolTable} for numbers, identifiers and string literals. They can be
+ * pulled one at a time, collected in a {@link TokenBuffer} with
+ * {@link #tokenizePacked()}, or materialised as {@link Token} objects with
+ * {@link #tokenize()}.
  */
-public class Lexer {
-    private static final Pattern TOKEN_PATTERN = Pattern.compile(
-            "\\s*(?<KEYWORD>if|then|else|while|print|read)|" + // Capture keywords first
-                    "\\s*(?<NUMBER>[0-9]+)|" + // Capture numbers
-                    "\\s*(?<STRINGLITERAL>\"([^\"]*)\")|" + // Capture string literals without quotes
-                    "\\s*(?<OPERATOR>(==|!=|<=|>=|[+\\-*/<=>!]))|" + // Capture operators
-                    "\\s*(?<PUNCTUATION>[;(){}])|" + // Capture punctuation
-                    "\\s*(?<IDENTIFIER>[a-zA-Z]+)" // Capture identifiers last
-    );
+public class Lexer implements TokenSource {
+    private static final byte OTHER = 0;
+    private static final byte SPACE = 1;
+    private static final byte DIGIT = 2;
+    private static final byte LETTER = 3;
+    private static final byte QUOTE = 4;
+    private static final byte OPERATOR = 5;
+    private static final byte PUNCTUATION = 6;
 
-    private Matcher matcher;
+    private static final byte[] CHAR_CLASSES = new byte[128];
+    private static final int[] SINGLE_CHAR_KINDS = new int[128];
+
+    static {
+        for (char c : " \t\n\u000B\f\r".toCharArray()) {
+            CHAR_CLASSES[c] = SPACE;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            CHAR_CLASSES[c] = DIGIT;
+        }
+        for (char c = 'a'; c <= 'z'; c++) {
+            CHAR_CLASSES[c] = LETTER;
+            CHAR_CLASSES[c - 'a' + 'A'] = LETTER;
+        }
+        CHAR_CLASSES['"'] = QUOTE;
+        for (char c : "+-*/<=>!".toCharArray()) {
+            CHAR_CLASSES[c] = OPERATOR;
+        }
+        for (char c : ";(){}".toCharArray()) {
+            CHAR_CLASSES[c] = PUNCTUATION;
+        }
+        SINGLE_CHAR_KINDS['+'] = TokenKind.PLUS;
+        SINGLE_CHAR_KINDS['-'] = TokenKind.MINUS;
+        SINGLE_CHAR_KINDS['*'] = TokenKind.STAR;
+        SINGLE_CHAR_KINDS['/'] = TokenKind.SLASH;
+        SINGLE_CHAR_KINDS['<'] = TokenKind.LESS;
+        SINGLE_CHAR_KINDS['='] = TokenKind.ASSIGN;
+        SINGLE_CHAR_KINDS['>'] = TokenKind.GREATER;
+        SINGLE_CHAR_KINDS['!'] = TokenKind.NOT;
+        SINGLE_CHAR_KINDS[';'] = TokenKind.SEMICOLON;
+        SINGLE_CHAR_KINDS['('] = TokenKind.LEFT_PAREN;
+        SINGLE_CHAR_KINDS[')'] = TokenKind.RIGHT_PAREN;
+        SINGLE_CHAR_KINDS['{'] = TokenKind.LEFT_BRACE;
+        SINGLE_CHAR_KINDS['}'] = TokenKind.RIGHT_BRACE;
+    }
+
+    private final String chars; // The input characters, or null when scanning bytes
+    private final ByteBuffer bytes; // The UTF-8 input bytes, or null when scanning characters
+    private final int length;
+    private final SymbolTable symbols = new SymbolTable();
+    private CharsetDecoder decoder;
+    private CharBuffer scratch; // Holds the ASCII text of a symbol scanned from bytes
+    private int position = 0;
+
+    private int tokenStart;
+    private int tokenEnd;
+    private int tokenSymbol;
 
     /**
      * Constructs a new Lexer instance with the provided input string.
@@ -27,33 +90,318 @@ public class Lexer {
      * @param input the input string to be tokenized
      */
     public Lexer(String input) {
-        matcher = TOKEN_PATTERN.matcher(input);
+        this.chars = input;
+        this.bytes = null;
+        this.length = input.length();
+    }
+
+    /**
+     * Constructs a new Lexer instance scanning the remaining bytes of the
+     * provided buffer, which must hold UTF-8 encoded text. The buffer is read
+     * with absolute accesses and is not modified.
+     *
+     * @param input the buffer to be tokenized
+     */
+    public Lexer(ByteBuffer input) {
+        this.chars = null;
+        this.bytes = input.slice();
+        this.length = bytes.limit();
     }
 
     /**
      * Tokenizes the input string and returns a list of tokens.
      *
      * @return a list of tokens extracted from the input string
+     * @throws RuntimeException if a string literal is not terminated
      */
     public List<Token> tokenize() {
         List<Token> tokens = new ArrayList<>();
-        while (matcher.find()) {
-            if (matcher.group("KEYWORD") != null) {
-                tokens.add(new Token(TokenType.KEYWORD, matcher.group("KEYWORD")));
-            } else if (matcher.group("NUMBER") != null) {
-                tokens.add(new Token(TokenType.NUMBER, matcher.group("NUMBER")));
-            } else if (matcher.group("STRINGLITERAL") != null) {
-                tokens.add(new Token(TokenType.STRINGLITERAL, matcher.group("STRINGLITERAL")));
-            } else if (matcher.group("OPERATOR") != null) {
-                tokens.add(new Token(TokenType.OPERATOR, matcher.group("OPERATOR")));
-            } else if (matcher.group("PUNCTUATION") != null) {
-                tokens.add(new Token(TokenType.PUNCTUATION, matcher.group("PUNCTUATION")));
-            } else if (matcher.group("IDENTIFIER") != null) {
-                tokens.add(new Token(TokenType.IDENTIFIER, matcher.group("IDENTIFIER")));
+        Token token;
+        do {
+            token = nextToken();
+            tokens.add(token);
+        } while (token.getType() != TokenType.EOF);
+
+        return tokens;
+    }
+
+    /**
+     * Tokenizes the input string into a compact {@link TokenBuffer}, ending with
+     * an EOF token.
+     *
+     * @return a buffer holding the tokens extracted from the input string
+     * @throws RuntimeException if a string literal is not terminated
+     */
+    public TokenBuffer tokenizePacked() {
+        TokenBuffer buffer = new TokenBuffer(symbols, length / 4); // Roughly one token every four characters
+        int kind;
+        do {
+            kind = nextKind();
+            buffer.add(kind, tokenStart, tokenEnd, tokenSymbol);
+        } while (kind != TokenKind.EOF);
+
+        return buffer;
+    }
+
+    /**
+     * Scans the next token of the input. Whitespace and characters that do not
+     * start any token are skipped.
+     *
+     * @return the kind of the next token, or EOF once the input is exhausted
+     * @throws RuntimeException if a string literal is not terminated
+     */
+    @Override
+    public int nextKind() {
+        tokenSymbol = -1;
+        while (position < length) {
+            char c = charAt(position);
+            tokenStart = position;
+            switch (classOf(c)) {
+                case DIGIT:
+                    return scanNumber();
+                case LETTER:
+                    return scanWord();
+                case QUOTE:
+                    return scanString();
+                case OPERATOR:
+                    return scanOperator(c);
+                case PUNCTUATION:
+                    position++;
+                    tokenEnd = position;
+                    return SINGLE_CHAR_KINDS[c];
+                default:
+                    position++; // Whitespace or unknown character
             }
         }
-        tokens.add(new Token(TokenType.EOF, "")); // Add the EOF token
+        tokenStart = length;
+        tokenEnd = length;
+        return TokenKind.EOF;
+    }
 
-        return tokens;
+    @Override
+    public int tokenStart() {
+        return tokenStart;
+    }
+
+    @Override
+    public int tokenEnd() {
+        return tokenEnd;
+    }
+
+    @Override
+    public int tokenSymbol() {
+        return tokenSymbol;
+    }
+
+    @Override
+    public SymbolTable getSymbols() {
+        return symbols;
+    }
+
+    /**
+     * Scans a sequence of digits.
+     *
+     * @return the NUMBER kind
+     */
+    private int scanNumber() {
+        while (position < length && classOf(charAt(position)) == DIGIT) {
+            position++;
+        }
+        tokenEnd = position;
+        tokenSymbol = internAscii(tokenStart, position);
+        return TokenKind.NUMBER;
+    }
+
+    /**
+     * Scans a sequence of letters and classifies it as a keyword or an
+     * identifier.
+     *
+     * @return a keyword kind or the IDENTIFIER kind
+     */
+    private int scanWord() {
+        while (position < length && classOf(charAt(position)) == LETTER) {
+            position++;
+        }
+        tokenEnd = position;
+        int keyword = keywordKind(tokenStart, position - tokenStart);
+        if (keyword != TokenKind.IDENTIFIER) {
+            return keyword;
+        }
+        tokenSymbol = internAscii(tokenStart, position);
+        return TokenKind.IDENTIFIER;
+    }
+
+    /**
+     * Scans a string literal. The text of the token keeps its surrounding
+     * quotes.
+     *
+     * @return the STRINGLITERAL kind
+     * @throws RuntimeException if the closing quote is missing or if the
+     *                          literal is not valid UTF-8
+     */
+    private int scanString() {
+        position++;
+        while (position < length && charAt(position) != '"') {
+            position++;
+        }
+        if (position >= length) {
+            throw new RuntimeException("Unterminated string literal at offset " + tokenStart);
+        }
+        position++;
+        tokenEnd = position;
+        if (chars != null) {
+            tokenSymbol = symbols.intern(chars, tokenStart, position - tokenStart);
+        } else {
+            tokenSymbol = symbols.intern(decode(tokenStart, position));
+        }
+        return TokenKind.STRINGLITERAL;
+    }
+
+    /**
+     * Scans a one or two character operator.
+     *
+     * @param c the first character of the operator
+     * @return an operator kind
+     */
+    private int scanOperator(char c) {
+        position++;
+        if (position < length && charAt(position) == '=') {
+            int kind;
+            switch (c) {
+                case '=':
+                    kind = TokenKind.EQUAL;
+                    break;
+                case '!':
+                    kind = TokenKind.NOT_EQUAL;
+                    break;
+                case '<':
+                    kind = TokenKind.LESS_EQUAL;
+                    break;
+                case '>':
+                    kind = TokenKind.GREATER_EQUAL;
+                    break;
+                default:
+                    kind = -1;
+            }
+            if (kind >= 0) {
+                position++;
+                tokenEnd = position;
+                return kind;
+            }
+        }
+        tokenEnd = position;
+        return SINGLE_CHAR_KINDS[c];
+    }
+
+    /**
+     * Returns the keyword kind matching the given slice of the input.
+     *
+     * @param start  the offset of the word
+     * @param length the length of the word
+     * @return the keyword kind, or IDENTIFIER if the word is not a keyword
+     */
+    private int keywordKind(int start, int length) {
+        switch (length) {
+            case 2:
+                return matches("if", start) ? TokenKind.IF : TokenKind.IDENTIFIER;
+            case 4:
+                if (matches("then", start)) {
+                    return TokenKind.THEN;
+                }
+                if (matches("else", start)) {
+                    return TokenKind.ELSE;
+                }
+                return matches("read", start) ? TokenKind.READ : TokenKind.IDENTIFIER;
+            case 5:
+                if (matches("while", start)) {
+                    return TokenKind.WHILE;
+                }
+                return matches("print", start) ? TokenKind.PRINT : TokenKind.IDENTIFIER;
+            default:
+                return TokenKind.IDENTIFIER;
+        }
+    }
+
+    /**
+     * Checks whether the input at the given offset starts with the given word.
+     *
+     * @param word  the word to compare with
+     * @param start the offset in the input
+     * @return true if the characters match, false otherwise
+     */
+    private boolean matches(String word, int start) {
+        for (int i = 0; i < word.length(); i++) {
+            if (charAt(start + i) != word.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the character at the given offset. When scanning bytes, bytes
+     * outside the ASCII range are returned as characters above 127, which never
+     * start a token.
+     *
+     * @param index the offset in the input
+     * @return the character at the offset
+     */
+    private char charAt(int index) {
+        if (chars != null) {
+            return chars.charAt(index);
+        }
+        return (char) (bytes.get(index) & 0xFF);
+    }
+
+    /**
+     * Interns the ASCII text of the input between two offsets.
+     *
+     * @param start the offset of the first character, inclusive
+     * @param end   the offset of the last character, exclusive
+     * @return the symbol id of the text
+     */
+    private int internAscii(int start, int end) {
+        if (chars != null) {
+            return symbols.intern(chars, start, end - start);
+        }
+        int count = end - start;
+        if (scratch == null || scratch.capacity() < count) {
+            scratch = CharBuffer.allocate(Math.max(count, 64));
+        }
+        for (int i = 0; i < count; i++) {
+            scratch.put(i, (char) bytes.get(start + i));
+        }
+        return symbols.intern(scratch, 0, count);
+    }
+
+    /**
+     * Decodes the UTF-8 bytes of the input between two offsets.
+     *
+     * @param start the offset of the first byte, inclusive
+     * @param end   the offset of the last byte, exclusive
+     * @return the decoded text
+     * @throws RuntimeException if the bytes are not valid UTF-8
+     */
+    private String decode(int start, int end) {
+        if (decoder == null) {
+            decoder = StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT);
+        }
+        try {
+            return decoder.decode(bytes.slice(start, end - start)).toString();
+        } catch (CharacterCodingException e) {
+            throw new RuntimeException("Invalid UTF-8 sequence at offset " + start);
+        }
+    }
+
+    /**
+     * Returns the character class of the given character.
+     *
+     * @param c the character to classify
+     * @return the character class
+     */
+    private static byte classOf(char c) {
+        return c < 128 ? CHAR_CLASSES[c] : OTHER;
     }
 }
@@ -0,0 +1,115 @@
+package com.inf5153.ast.parser;
+
+import com.inf5153.ast.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Builds the object AST for the {@link Parser}. Nodes are kept in an array
+ * until their parent is built, the index of a node being its position in the
+ * array.
+ */
+class NodeTreeBuilder implements TreeBuilder {
+    private final SymbolTable symbols; // Names of the identifiers
+    private Node[] nodes = new Node[256]; // The nodes built so far
+    private int count = 0; // Number of nodes built
+
+    /**
+     * Constructs a NodeTreeBuilder.
+     *
+     * @param symbols the table holding the names of the identifiers
+     */
+    NodeTreeBuilder(SymbolTable symbols) {
+        this.symbols = symbols;
+    }
+
+    /**
+     * Returns a node built so far.
+     *
+     * @param index the index of the node
+     * @return the node
+     */
+    Node nodeAt(int index) {
+        return nodes[index];
+    }
+
+    @Override
+    public int addNumber(int value) {
+        return add(new LiteralNumber(value));
+    }
+
+    @Override
+    public int addString(String text) {
+        return add(new LiteralString(text));
+    }
+
+    @Override
+    public int addPrompt(String text) {
+        return add(new LiteralString(text));
+    }
+
+    @Override
+    public int addIdentifier(int symbol) {
+        return add(new Identifier(symbols.name(symbol)));
+    }
+
+    @Override
+    public int addUnary(UnaryOperator operator, int operand) {
+        return add(new UnaryExpression((Expression) nodes[operand], operator));
+    }
+
+    @Override
+    public int addBinary(BinaryOperator operator, int left, int right) {
+        return add(new BinaryExpression((Expression) nodes[left], operator, (Expression) nodes[right]));
+    }
+
+    @Override
+    public int addCondition(ConditionOperator operator, int left, int right) {
+        return add(new Condition((Expression) nodes[left], operator, (Expression) nodes[right]));
+    }
+
+    @Override
+    public int addAssignment(int identifier, int expression) {
+        return add(new Assignment((Identifier) nodes[identifier], (Expression) nodes[expression]));
+    }
+
+    @Override
+    public int addPrint(int expression) {
+        return add(new PrintStatement((Expression) nodes[expression]));
+    }
+
+    @Override
+    public int addRead(int prompt, int identifier) {
+        return add(new ReadStatement(prompt < 0 ? null : (LiteralString) nodes[prompt], (Identifier) nodes[identifier]));
+    }
+
+    @Override
+    public int addIf(int condition, int thenBlock, int elseBlock) {
+        return add(new IfStatement((Condition) nodes[condition], (Block) nodes[thenBlock],
+                elseBlock < 0 ? null : (Block) nodes[elseBlock]));
+    }
+
+    @Override
+    public int addWhile(int condition, int block) {
+        return add(new WhileStatement((Condition) nodes[condition], (Block) nodes[block]));
+    }
+
+    @Override
+    public int addBlock(int[] source, int from, int length) {
+        List<Statement> statements = new ArrayList<>(length);
+        for (int i = from; i < from + length; i++) {
+            statements.add((Statement) nodes[source[i]]);
+        }
+        return add(new Block(statements));
+    }
+
+    private int add(Node node) {
+        if (count == nodes.length) {
+            nodes = Arrays.copyOf(nodes, count * 2);
+        }
+        nodes[count] = node;
+        return count++;
+    }
+}
@@ -1,18 +1,35 @@
 package com.inf5153.ast.parser;
 
 import com.inf5153.ast.*;
+import com.inf5153.ast.flat.FlatTree;
 
-import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.List;
 
 /**
- * The Parser class is responsible for parsing a list of tokens and
+ * The Parser class is responsible for parsing a stream of tokens and
  * constructing an Abstract Syntax Tree (AST) based on the language's
- * grammar rules.
+ * grammar rules. Tokens are pulled lazily from a {@link TokenStream}, so
+ * the whole token list does not need to be held in memory. The parser
+ * dispatches on the integer {@link TokenKind} codes of the tokens and only
+ * looks up the text of numbers, identifiers and string literals.
+ * <p>
+ * Nodes are handed to a {@link TreeBuilder}, which builds either the object
+ * AST, with {@link #parse()}, or a {@link FlatTree} stored in arrays, with
+ * {@link #parseFlat()}.
+ * <p>
+ * A {@link SpanListener} can be told where each block and statement lies in
+ * the source, which the {@link IncrementalParser} uses to re-parse only the
+ * statements touched by an edit.
  */
 public class Parser {
-    private final List<Token> tokens;
-    private int current = 0;
+    private final TokenStream tokens;
+    private final SymbolTable symbols;
+    private TreeBuilder tree; // Builds the tree being parsed
+    private SpanListener spans; // Told where the blocks and statements lie, null if none
+    private int[] pending = new int[64]; // Statements of the open blocks, innermost block last
+    private int pendingCount = 0; // Number of entries of the pending statements
 
     /**
      * Constructs a new Parser instance with the provided list of tokens.
@@ -20,7 +37,27 @@ public class Parser {
      * @param tokens the list of tokens to be parsed
      */
     public Parser(List<Token> tokens) {
+        this(TokenStream.of(tokens));
+    }
+
+    /**
+     * Constructs a new Parser instance pulling its tokens from the provided
+     * source, typically a {@link Lexer}.
+     *
+     * @param source the source of the tokens to be parsed
+     */
+    public Parser(TokenSource source) {
+        this(new TokenStream(source));
+    }
+
+    /**
+     * Constructs a new Parser instance reading the provided token stream.
+     *
+     * @param tokens the stream of tokens to be parsed
+     */
+    public Parser(TokenStream tokens) {
         this.tokens = tokens;
+        this.symbols = tokens.getSymbols();
     }
 
     /**
@@ -30,239 +67,333 @@ public class Parser {
      * @return the root Block node of the AST
      */
     public Block parse() {
-        return parseBlock();
+        return parse(null);
     }
 
     /**
-     * Parses a block of code enclosed in curly braces.
+     * Parses the list of tokens and returns the root of the Abstract Syntax
+     * Tree, telling a listener where its blocks and statements lie.
      *
-     * @return a Block node containing the statements within the block
+     * @param listener the listener, or null
+     * @return the root Block node of the AST
      */
-    private Block parseBlock() {
-        List<Statement> statements = new ArrayList<>();
-
-        consume(TokenType.PUNCTUATION, "{");
-
-        while (!check(TokenType.PUNCTUATION, "}") && !isAtEnd()) {
-            statements.add(parseStatement());
-        }
-
-        consume(TokenType.PUNCTUATION, "}");
-
-        return new Block(statements);
+    Block parse(SpanListener listener) {
+        NodeTreeBuilder builder = new NodeTreeBuilder(symbols);
+        tree = builder;
+        spans = listener;
+        pendingCount = 0;
+        return (Block) builder.nodeAt(parseBlock(true));
     }
 
     /**
-     * Parses a statement based on the token type.
+     * Parses the statements of a block without its braces, up to the end of
+     * the tokens, telling a listener where they lie.
      *
-     * @return a Statement node representing the parsed statement
+     * @param listener the listener, or null
+     * @return the statements
+     * @throws RuntimeException if the tokens are not a sequence of statements
      */
-    private Statement parseStatement() {
-        if (match(TokenType.KEYWORD, "if")) {
-            return parseIfStatement();
-        }
-        if (match(TokenType.KEYWORD, "while")) {
-            return parseWhileStatement();
-        }
-        if (match(TokenType.KEYWORD, "print")) {
-            return parsePrintStatement();
-        }
-        if (match(TokenType.KEYWORD, "read")) {
-            return parseReadStatement();
-        }
-        return parseAssignment();
+    List<Statement> parseStatements(SpanListener listener) {
+        NodeTreeBuilder builder = new NodeTreeBuilder(symbols);
+        tree = builder;
+        spans = listener;
+        pendingCount = 0;
+        return ((Block) builder.nodeAt(parseBlock(false))).getStatements();
     }
 
     /**
-     * Parses an 'if' statement with an optional 'else' block.
+     * Parses the list of tokens into a flat tree, whose root is its last
+     * node.
      *
-     * @return an IfStatement node representing the parsed if statement
+     * @return the flat tree
      */
-    private IfStatement parseIfStatement() {
-        Condition condition = parseCondition();
-        consume(TokenType.KEYWORD, "then");
-        Block thenBlock = parseBlock();
-        Block elseBlock = null;
-        if (match(TokenType.KEYWORD, "else")) {
-            elseBlock = parseBlock();
-        }
-        return new IfStatement(condition, thenBlock, elseBlock);
+    public FlatTree parseFlat() {
+        FlatTree flatTree = new FlatTree(symbols);
+        tree = flatTree;
+        spans = null;
+        pendingCount = 0;
+        parseBlock(true);
+        return flatTree;
     }
 
     /**
-     * Parses a 'while' statement.
+     * Parses a block of code enclosed in curly braces, with the blocks nested
+     * in its if and while statements. The blocks being parsed are kept on an
+     * explicit stack rather than on the call stack, so that programs of any
+     * nesting depth can be parsed.
      *
-     * @return a WhileStatement node representing the parsed while statement
+     * @param braced whether the outermost block is enclosed in braces; if
+     *               not, it ends with the tokens
+     * @return the index of the block node
      */
-    private WhileStatement parseWhileStatement() {
-        Condition condition = parseCondition();
-
-        Block body = parseBlock();
-        return new WhileStatement(condition, body);
+    private int parseBlock(boolean braced) {
+        ArrayDeque<OpenBlock> open = new ArrayDeque<>();
+        if (braced) {
+            consume(TokenKind.LEFT_BRACE);
+            openSpan();
+        }
+        open.push(new OpenBlock(OpenBlock.ROOT, -1, -1, pendingCount, -1));
+
+        while (true) {
+            OpenBlock current = open.peek();
+            int offset = tokens.peekStart();
+            switch (tokens.peekKind()) {
+                case TokenKind.IF:
+                    advance();
+                    int ifCondition = parseCondition();
+                    consume(TokenKind.THEN);
+                    consume(TokenKind.LEFT_BRACE);
+                    openSpan();
+                    open.push(new OpenBlock(OpenBlock.THEN, ifCondition, -1, pendingCount, offset));
+                    break;
+                case TokenKind.WHILE:
+                    advance();
+                    int whileCondition = parseCondition();
+                    consume(TokenKind.LEFT_BRACE);
+                    openSpan();
+                    open.push(new OpenBlock(OpenBlock.WHILE, whileCondition, -1, pendingCount, offset));
+                    break;
+                case TokenKind.PRINT:
+                    advance();
+                    addPending(parsePrintStatement(), offset);
+                    break;
+                case TokenKind.READ:
+                    advance();
+                    addPending(parseReadStatement(), offset);
+                    break;
+                case TokenKind.RIGHT_BRACE:
+                case TokenKind.EOF:
+                    if (!braced && current.owner == OpenBlock.ROOT) {
+                        if (!isAtEnd()) {
+                            throw new RuntimeException("Expected end of input but found }");
+                        }
+                        return tree.addBlock(pending, current.start, pendingCount - current.start);
+                    }
+                    consume(TokenKind.RIGHT_BRACE);
+                    if (spans != null) {
+                        spans.closeBlock(tokens.previousStart());
+                    }
+                    open.pop();
+                    int block = tree.addBlock(pending, current.start, pendingCount - current.start);
+                    pendingCount = current.start;
+                    int closed;
+                    switch (current.owner) {
+                        case OpenBlock.ROOT:
+                            return block;
+                        case OpenBlock.THEN:
+                            if (match(TokenKind.ELSE)) {
+                                consume(TokenKind.LEFT_BRACE);
+                                openSpan();
+                                open.push(new OpenBlock(OpenBlock.ELSE, current.condition, block, pendingCount,
+                                        current.offset));
+                                continue;
+                            }
+                            closed = tree.addIf(current.condition, block, -1);
+                            break;
+                        case OpenBlock.ELSE:
+                            closed = tree.addIf(current.condition, current.thenBlock, block);
+                            break;
+                        default:
+                            closed = tree.addWhile(current.condition, block);
+                    }
+                    addPending(closed, current.offset);
+                    break;
+                default:
+                    addPending(parseAssignment(), offset);
+            }
+        }
     }
 
     /**
-     * Parses a 'print' statement.
+     * Adds a statement to the innermost open block, once its last token is
+     * consumed.
      *
-     * @return a PrintStatement node representing the parsed print statement
+     * @param statement the index of the statement
+     * @param offset    the offset of its first token in the source
      */
-    private PrintStatement parsePrintStatement() {
-        consume(TokenType.PUNCTUATION, "(");
-        Expression expression = parseExpression();
-        consume(TokenType.PUNCTUATION, ")");
-        consume(TokenType.PUNCTUATION, ";");
-        return new PrintStatement(expression);
+    private void addPending(int statement, int offset) {
+        if (pendingCount == pending.length) {
+            pending = Arrays.copyOf(pending, pendingCount * 2);
+        }
+        pending[pendingCount++] = statement;
+        if (spans != null) {
+            spans.statement(offset, tokens.previousEnd());
+        }
     }
 
     /**
-     * Parses a 'read' statement.
-     *
-     * @return a ReadStatement node representing the parsed read statement
+     * Tells the listener, if any, that the brace just consumed opens a block.
      */
-    private ReadStatement parseReadStatement() {
-        LiteralString literalString = null;
-        consume(TokenType.PUNCTUATION, "(");
-        if (match(TokenType.STRINGLITERAL)) {
-            literalString = new LiteralString(previous().getValue());
+    private void openSpan() {
+        if (spans != null) {
+            spans.openBlock(tokens.previousStart());
         }
-        Identifier identifier = parseIdentifier();
-        consume(TokenType.PUNCTUATION, ")");
-        consume(TokenType.PUNCTUATION, ";");
-        return new ReadStatement(literalString, identifier);
     }
 
     /**
-     * Parses an assignment statement.
+     * Parses a 'print' statement.
      *
-     * @return an Assignment node representing the parsed assignment statement
+     * @return the index of the print statement node
      */
-    private Assignment parseAssignment() {
-        Identifier identifier = parseIdentifier();
-        consume(TokenType.OPERATOR, "=");
-        Expression value = parseExpression();
-        consume(TokenType.PUNCTUATION, ";");
-        return new Assignment(identifier, value);
+    private int parsePrintStatement() {
+        consume(TokenKind.LEFT_PAREN);
+        int expression = parseExpression();
+        consume(TokenKind.RIGHT_PAREN);
+        consume(TokenKind.SEMICOLON);
+        return tree.addPrint(expression);
     }
 
     /**
-     * Parses a condition expression within parentheses.
+     * Parses a 'read' statement.
      *
-     * @return a Condition node representing the parsed condition expression
+     * @return the index of the read statement node
      */
-    private Condition parseCondition() {
-        consume(TokenType.PUNCTUATION, "(");
-        Expression left = parseExpression();
-        Token operator = consume(TokenType.OPERATOR);
-        Expression right = parseExpression();
-        consume(TokenType.PUNCTUATION, ")");
-        return new Condition(left, operator.getValue(), right);
+    private int parseReadStatement() {
+        int prompt = -1;
+        consume(TokenKind.LEFT_PAREN);
+        if (match(TokenKind.STRINGLITERAL)) {
+            prompt = tree.addPrompt(previousText());
+        }
+        int identifier = parseIdentifier();
+        consume(TokenKind.RIGHT_PAREN);
+        consume(TokenKind.SEMICOLON);
+        return tree.addRead(prompt, identifier);
     }
 
     /**
-     * Parses an expression, which can include binary operations.
+     * Parses an assignment statement.
      *
-     * @return an Expression node representing the parsed expression
+     * @return the index of the assignment node
      */
-    private Expression parseExpression() {
-        return parseBinaryExpression();
+    private int parseAssignment() {
+        int identifier = parseIdentifier();
+        consume(TokenKind.ASSIGN);
+        int value = parseExpression();
+        consume(TokenKind.SEMICOLON);
+        return tree.addAssignment(identifier, value);
     }
 
     /**
-     * Parses a binary expression, handling operators like +, -, *, and /.
+     * Parses a condition expression within parentheses.
      *
-     * @return an Expression node representing the parsed binary expression
+     * @return the index of the condition node
+     * @throws RuntimeException if the operator is not a comparison operator
      */
-    private Expression parseBinaryExpression() {
-        Expression left = parseUnaryExpression();
-        while (match(TokenType.OPERATOR, "+") || match(TokenType.OPERATOR, "-") ||
-                match(TokenType.OPERATOR, "*") || match(TokenType.OPERATOR, "/")) {
-            Token operator = previous();
-            Expression right = parseUnaryExpression();
-            left = new BinaryExpression(left, operator.getValue(), right);
-        }
-        return left;
+    private int parseCondition() {
+        consume(TokenKind.LEFT_PAREN);
+        int left = parseExpression();
+        int operator = consumeOperator();
+        int right = parseExpression();
+        consume(TokenKind.RIGHT_PAREN);
+        return tree.addCondition(ConditionOperator.fromSymbol(TokenKind.textOf(operator)), left, right);
     }
 
     /**
-     * Parses a unary expression, handling unary operators like -.
+     * Parses an expression: operands separated by the binary operators +, -,
+     * * and /, applied from left to right, each operand being optionally
+     * negated. An operand in parentheses suspends the enclosing expression on
+     * an explicit stack until its closing parenthesis, so that expressions of
+     * any nesting depth can be parsed.
      *
-     * @return an Expression node representing the parsed unary expression
+     * @return the index of the expression node
      */
-    private Expression parseUnaryExpression() {
-        if (match(TokenType.OPERATOR, "-")) {
-            Token operator = previous();
-            Expression right = parsePrimary();
-            return new UnaryExpression(right, operator.getValue());
+    private int parseExpression() {
+        ArrayDeque<OpenParenthesis> open = null;
+        int left = -1;
+        BinaryOperator operator = null;
+        while (true) {
+            boolean negate = match(TokenKind.MINUS);
+            if (match(TokenKind.LEFT_PAREN)) {
+                if (open == null) {
+                    open = new ArrayDeque<>();
+                }
+                open.push(new OpenParenthesis(left, operator, negate));
+                left = -1;
+                operator = null;
+                continue;
+            }
+            int operand = parsePrimary();
+            while (true) {
+                if (negate) {
+                    operand = tree.addUnary(UnaryOperator.NEGATE, operand);
+                }
+                left = left < 0 ? operand : tree.addBinary(operator, left, operand);
+                if (isBinaryOperator(tokens.peekKind())) {
+                    operator = BinaryOperator.fromSymbol(TokenKind.textOf(tokens.next()));
+                    break;
+                }
+                if (open == null || open.isEmpty()) {
+                    return left;
+                }
+                consume(TokenKind.RIGHT_PAREN);
+                OpenParenthesis enclosing = open.pop();
+                operand = left;
+                negate = enclosing.negate;
+                left = enclosing.left;
+                operator = enclosing.operator;
+            }
         }
-        return parsePrimary();
     }
 
     /**
      * Parses a primary expression, which can be a number, string literal, or
-     * identifier.
+     * identifier. Parenthesized expressions are handled by
+     * {@link #parseExpression()}.
      *
-     * @return an Expression node representing the parsed primary expression
+     * @return the index of the primary expression node
      * @throws RuntimeException if an expected expression is not found
      */
-    private Expression parsePrimary() {
-        if (match(TokenType.PUNCTUATION, "(")) {
-            Expression expr = parseExpression();
-            consume(TokenType.PUNCTUATION, ")");
-            return expr;
+    private int parsePrimary() {
+        switch (tokens.peekKind()) {
+            case TokenKind.NUMBER:
+                advance();
+                return tree.addNumber(Integer.parseInt(previousText()));
+            case TokenKind.STRINGLITERAL:
+                advance();
+                // Remove the surrounding quotes
+                String value = previousText();
+                value = value.substring(1, value.length() - 1);
+                return tree.addString(value);
+            case TokenKind.IDENTIFIER:
+                advance();
+                return tree.addIdentifier(tokens.previousSymbol());
+            default:
+                throw new RuntimeException("Expected expression.");
         }
-        if (match(TokenType.NUMBER)) {
-            return new LiteralNumber(Integer.parseInt(previous().getValue()));
-        }
-        if (match(TokenType.STRINGLITERAL)) {
-            // Remove the surrounding quotes
-            String value = previous().getValue();
-            value = value.substring(1, value.length() - 1);
-            return new LiteralString(value);
-        }
-        if (match(TokenType.IDENTIFIER)) {
-            return new Identifier(previous().getValue());
-        }
-        throw new RuntimeException("Expected expression.");
     }
 
     /**
      * Parses an identifier token.
      *
-     * @return an Identifier node representing the parsed identifier
+     * @return the index of the identifier node
      * @throws RuntimeException if an identifier is not found
      */
-    private Identifier parseIdentifier() {
-        if (match(TokenType.IDENTIFIER)) {
-            return new Identifier(previous().getValue());
+    private int parseIdentifier() {
+        if (match(TokenKind.IDENTIFIER)) {
+            return tree.addIdentifier(tokens.previousSymbol());
         }
         throw new RuntimeException("Expected identifier.");
     }
 
     /**
-     * Checks if the next token matches the specified type and advances the token
-     * stream.
+     * Checks whether a kind is one of the binary arithmetic operators.
      *
-     * @param type the type of token to match
-     * @return true if the token matches the type, false otherwise
+     * @param kind the kind to check
+     * @return true for +, -, * and /, false otherwise
      */
-    private boolean match(TokenType type) {
-        if (check(type)) {
-            advance();
-            return true;
-        }
-        return false;
+    private static boolean isBinaryOperator(int kind) {
+        return kind >= TokenKind.PLUS && kind <= TokenKind.SLASH;
     }
 
     /**
-     * Checks if the next token matches the specified type and value, and advances
-     * the token stream.
+     * Checks if the next token is of the specified kind and advances the token
+     * stream.
      *
-     * @param type  the type of token to match
-     * @param value the value of the token to match
-     * @return true if the token matches the type and value, false otherwise
+     * @param kind the kind of token to match
+     * @return true if the token matches the kind, false otherwise
      */
-    private boolean match(TokenType type, String value) {
-        if (check(type, value)) {
+    private boolean match(int kind) {
+        if (check(kind)) {
             advance();
             return true;
         }
@@ -270,73 +401,56 @@ public class Parser {
     }
 
     /**
-     * Consumes the next token of the specified type and returns it.
+     * Consumes the next token of the specified kind.
      *
-     * @param type the type of token to consume
-     * @return the consumed token
-     * @throws RuntimeException if the token of the specified type is not found
+     * @param kind the kind of token to consume
+     * @throws RuntimeException if the next token is not of the specified kind
      */
-    private Token consume(TokenType type) {
-        if (check(type)) {
-            return advance();
+    private void consume(int kind) {
+        if (check(kind)) {
+            advance();
+            return;
         }
-        throw new RuntimeException("Expected " + type + " but found " + peek().getType());
-    }
-
-    /**
-     * Consumes the next token of the specified type and value, and returns it.
-     *
-     * @param type  the type of token to consume
-     * @param value the value of the token to consume
-     * @return the consumed token
-     * @throws RuntimeException if the token of the specified type and value is not
-     *                          found
-     */
-    private Token consume(TokenType type, String value) {
-        if (check(type, value)) {
-            return advance();
+        String expected = TokenKind.textOf(kind);
+        if (expected == null) {
+            throw new RuntimeException("Expected " + TokenKind.typeOf(kind) + " but found " + peek().getType());
         }
-        throw new RuntimeException("Expected '" + value + "' but found " + peek().getValue());
+        throw new RuntimeException("Expected '" + expected + "' but found " + peek().getValue());
     }
 
     /**
-     * Checks if the next token matches the specified type.
+     * Consumes the next token, which must be an operator, and returns its kind.
      *
-     * @param type the type of token to check
-     * @return true if the token matches the type, false otherwise
+     * @return the kind of the consumed operator
+     * @throws RuntimeException if the next token is not an operator
      */
-    private boolean check(TokenType type) {
-        if (isAtEnd()) {
-            return false;
+    private int consumeOperator() {
+        int kind = tokens.peekKind();
+        if (TokenKind.isOperator(kind)) {
+            advance();
+            return kind;
         }
-        return peek().getType() == type;
+        throw new RuntimeException("Expected " + TokenType.OPERATOR + " but found " + peek().getType());
     }
 
     /**
-     * Checks if the next token matches the specified type and value.
+     * Checks if the next token is of the specified kind.
      *
-     * @param type  the type of token to check
-     * @param value the value of the token to check
-     * @return true if the token matches the type and value, false otherwise
+     * @param kind the kind of token to check
+     * @return true if the token matches the kind, false otherwise
      */
-    private boolean check(TokenType type, String value) {
-        if (isAtEnd()) {
-            return false;
-        }
-        Token token = peek();
-        return token.getType() == type && token.getValue().equals(value);
+    private boolean check(int kind) {
+        int next = tokens.peekKind();
+        return next == kind && next != TokenKind.EOF;
     }
 
     /**
-     * Advances the token stream by one and returns the previous token.
-     *
-     * @return the previous token
+     * Advances the token stream by one, unless the end has been reached.
      */
-    private Token advance() {
+    private void advance() {
         if (!isAtEnd()) {
-            current++;
+            tokens.next();
         }
-        return previous();
     }
 
     /**
@@ -345,24 +459,67 @@ public class Parser {
      * @return true if the token stream is at the end, false otherwise
      */
     private boolean isAtEnd() {
-        return peek().getType() == TokenType.EOF;
+        return tokens.peekKind() == TokenKind.EOF;
     }
 
     /**
-     * Retrieves the next token in the token stream without advancing.
+     * Retrieves the next token in the token stream without advancing. Only used
+     * to report errors.
      *
      * @return the next token
      */
     private Token peek() {
-        return tokens.get(current);
+        return tokens.peek();
     }
 
     /**
-     * Retrieves the previous token in the token stream.
+     * Returns the text of the previous token, which must be a number, an
+     * identifier or a string literal.
      *
-     * @return the previous token
+     * @return the text of the previous token
+     */
+    private String previousText() {
+        return symbols.name(tokens.previousSymbol());
+    }
+
+    /**
+     * A block whose closing brace has not been parsed yet, with the statement
+     * it belongs to.
+     */
+    private static final class OpenBlock {
+        static final int ROOT = 0; // The block of the whole program
+        static final int THEN = 1; // The then block of an if statement
+        static final int ELSE = 2; // The else block of an if statement
+        static final int WHILE = 3; // The body of a while statement
+
+        final int owner; // The kind of statement the block belongs to
+        final int condition; // The condition of the if or while statement
+        final int thenBlock; // The then block, when parsing the else block
+        final int start; // The offset of its statements in the pending statements
+        final int offset; // The offset of the if or while statement in the source, -1 for the root
+
+        OpenBlock(int owner, int condition, int thenBlock, int start, int offset) {
+            this.owner = owner;
+            this.condition = condition;
+            this.thenBlock = thenBlock;
+            this.start = start;
+            this.offset = offset;
+        }
+    }
+
+    /**
+     * An expression suspended by an opening parenthesis, resumed once the
+     * parenthesized operand is parsed.
      */
-    private Token previous() {
-        return tokens.get(current - 1);
+    private static final class OpenParenthesis {
+        final int left; // The operands before the operator, -1 if none
+        final BinaryOperator operator; // The operator before the parenthesis, null if none
+        final boolean negate; // Whether the parenthesized operand is negated
+
+        OpenParenthesis(int left, BinaryOperator operator, boolean negate) {
+            this.left = left;
+            this.operator = operator;
+            this.negate = negate;
+        }
     }
 }
@@ -0,0 +1,33 @@
+package com.inf5153.ast.parser;
+
+/**
+ * Receives from the {@link Parser} the offsets in the source of the blocks
+ * and statements it parses. A block is opened, then its statements are
+ * reported, then it is closed; an if or while statement is reported once its
+ * blocks are closed, so that the blocks closed since the previous statement
+ * of a block belong to the next statement reported.
+ */
+interface SpanListener {
+
+    /**
+     * Called when the opening brace of a block is consumed.
+     *
+     * @param open the offset of the opening brace
+     */
+    void openBlock(int open);
+
+    /**
+     * Called when the closing brace of a block is consumed.
+     *
+     * @param close the offset of the closing brace
+     */
+    void closeBlock(int close);
+
+    /**
+     * Called when the last token of a statement is consumed.
+     *
+     * @param start the offset of the first character of the statement
+     * @param end   the offset following its last character
+     */
+    void statement(int start, int end);
+}
@@ -0,0 +1,132 @@
+package com.inf5153.ast.parser;
+
+import java.util.Arrays;
+
+/**
+ * The SymbolTable class interns the text of identifiers, numbers and string
+ * literals. Each distinct text receives a dense integer id, and a string is
+ * only allocated the first time a text is seen, so repeated occurrences of a
+ * name cost no allocation.
+ */
+public class SymbolTable {
+    private String[] names = new String[64]; // Text of each symbol, indexed by id
+    private int[] hashes = new int[64]; // Hash of each symbol, indexed by id
+    private int[] slots = new int[128]; // Open addressing table holding id + 1, 0 when empty
+    private int size = 0;
+
+    /**
+     * Interns the text made of a range of characters.
+     *
+     * @param chars  the sequence holding the characters
+     * @param offset the offset of the first character
+     * @param length the number of characters
+     * @return the id of the symbol
+     */
+    public int intern(CharSequence chars, int offset, int length) {
+        int hash = 0;
+        for (int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + chars.charAt(i);
+        }
+        int mask = slots.length - 1;
+        for (int index = mix(hash) & mask;; index = (index + 1) & mask) {
+            int entry = slots[index];
+            if (entry == 0) {
+                return add(index, hash, chars.subSequence(offset, offset + length).toString());
+            }
+            int id = entry - 1;
+            if (hashes[id] == hash && sameText(names[id], chars, offset, length)) {
+                return id;
+            }
+        }
+    }
+
+    /**
+     * Interns a string.
+     *
+     * @param text the text to intern
+     * @return the id of the symbol
+     */
+    public int intern(String text) {
+        int hash = text.hashCode(); // Same hash function as the char range variant
+        int mask = slots.length - 1;
+        for (int index = mix(hash) & mask;; index = (index + 1) & mask) {
+            int entry = slots[index];
+            if (entry == 0) {
+                return add(index, hash, text);
+            }
+            int id = entry - 1;
+            if (hashes[id] == hash && names[id].equals(text)) {
+                return id;
+            }
+        }
+    }
+
+    /**
+     * Returns the text of a symbol.
+     *
+     * @param id the id of the symbol
+     * @return the text of the symbol
+     */
+    public String name(int id) {
+        return names[id];
+    }
+
+    /**
+     * Returns the number of distinct symbols.
+     *
+     * @return the number of symbols
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Adds a new symbol in the given empty slot, growing the table when it
+     * becomes half full.
+     */
+    private int add(int index, int hash, String text) {
+        int id = size++;
+        if (id == names.length) {
+            names = Arrays.copyOf(names, id * 2);
+            hashes = Arrays.copyOf(hashes, id * 2);
+        }
+        names[id] = text;
+        hashes[id] = hash;
+        slots[index] = id + 1;
+        if (size * 2 > slots.length) {
+            rehash();
+        }
+        return id;
+    }
+
+    /**
+     * Doubles the open addressing table and reinserts every symbol.
+     */
+    private void rehash() {
+        slots = new int[slots.length * 2];
+        int mask = slots.length - 1;
+        for (int id = 0; id < size; id++) {
+            int index = mix(hashes[id]) & mask;
+            while (slots[index] != 0) {
+                index = (index + 1) & mask;
+            }
+            slots[index] = id + 1;
+        }
+    }
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean sameText(String name, CharSequence chars, int offset, int length) {
+        if (name.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (name.charAt(i) != chars.charAt(offset + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,200 @@
+package com.inf5153.ast.parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The TokenBuffer class stores a sequence of tokens as parallel int arrays
+ * (struct of arrays): the kind code, the start and end offsets in the source
+ * and the symbol id of each token. Storing a token costs four ints and no
+ * object allocation.
+ */
+public class TokenBuffer {
+    private final SymbolTable symbols;
+    private int[] kinds;
+    private int[] starts;
+    private int[] ends;
+    private int[] symbolIds;
+    private int size = 0;
+
+    /**
+     * Constructs an empty TokenBuffer whose token texts are held in the given
+     * symbol table.
+     *
+     * @param symbols         the symbol table of the tokens
+     * @param initialCapacity the number of tokens the buffer can hold before
+     *                        growing
+     */
+    public TokenBuffer(SymbolTable symbols, int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 16);
+        this.symbols = symbols;
+        this.kinds = new int[capacity];
+        this.starts = new int[capacity];
+        this.ends = new int[capacity];
+        this.symbolIds = new int[capacity];
+    }
+
+    /**
+     * Builds a TokenBuffer from a list of token objects. The offsets of the
+     * tokens are unknown and set to -1.
+     *
+     * @param tokens the tokens to store
+     * @return a buffer holding the tokens
+     */
+    public static TokenBuffer of(List<Token> tokens) {
+        TokenBuffer buffer = new TokenBuffer(new SymbolTable(), tokens.size());
+        for (Token token : tokens) {
+            int kind = TokenKind.of(token.getType(), token.getValue());
+            int symbol = TokenKind.textOf(kind) == null ? buffer.symbols.intern(token.getValue()) : -1;
+            buffer.add(kind, -1, -1, symbol);
+        }
+        return buffer;
+    }
+
+    /**
+     * Appends a token to the buffer.
+     *
+     * @param kind   the kind code of the token
+     * @param start  the start offset of the token
+     * @param end    the end offset of the token
+     * @param symbol the symbol id of the token, or -1
+     */
+    public void add(int kind, int start, int end, int symbol) {
+        if (size == kinds.length) {
+            int capacity = size + (size >> 1);
+            kinds = Arrays.copyOf(kinds, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            symbolIds = Arrays.copyOf(symbolIds, capacity);
+        }
+        kinds[size] = kind;
+        starts[size] = start;
+        ends[size] = end;
+        symbolIds[size] = symbol;
+        size++;
+    }
+
+    /**
+     * Returns the number of tokens in the buffer.
+     *
+     * @return the number of tokens
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the kind code of a token.
+     *
+     * @param index the index of the token
+     * @return the kind of the token
+     */
+    public int kind(int index) {
+        return kinds[index];
+    }
+
+    /**
+     * Returns the start offset of a token.
+     *
+     * @param index the index of the token
+     * @return the start offset of the token
+     */
+    public int start(int index) {
+        return starts[index];
+    }
+
+    /**
+     * Returns the end offset of a token.
+     *
+     * @param index the index of the token
+     * @return the end offset of the token
+     */
+    public int end(int index) {
+        return ends[index];
+    }
+
+    /**
+     * Returns the symbol id of a token.
+     *
+     * @param index the index of the token
+     * @return the symbol id of the token, or -1
+     */
+    public int symbol(int index) {
+        return symbolIds[index];
+    }
+
+    /**
+     * Returns the symbol table holding the text of the tokens.
+     *
+     * @return the symbol table
+     */
+    public SymbolTable getSymbols() {
+        return symbols;
+    }
+
+    /**
+     * Materialises a token as a {@link Token} object.
+     *
+     * @param index the index of the token
+     * @return the token object
+     */
+    public Token token(int index) {
+        int symbol = symbolIds[index];
+        String value = symbol >= 0 ? symbols.name(symbol) : TokenKind.textOf(kinds[index]);
+        return new Token(TokenKind.typeOf(kinds[index]), value);
+    }
+
+    /**
+     * Materialises every token of the buffer as {@link Token} objects.
+     *
+     * @return the list of tokens
+     */
+    public List<Token> toList() {
+        List<Token> tokens = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            tokens.add(token(i));
+        }
+        return tokens;
+    }
+
+    /**
+     * Returns a source reading the tokens of the buffer from the first one. The
+     * buffer must end with an EOF token.
+     *
+     * @return a token source over the buffer
+     */
+    public TokenSource source() {
+        return new TokenSource() {
+            private int index = -1;
+
+            @Override
+            public int nextKind() {
+                if (index < size - 1) {
+                    index++;
+                }
+                return kinds[index];
+            }
+
+            @Override
+            public int tokenStart() {
+                return starts[index];
+            }
+
+            @Override
+            public int tokenEnd() {
+                return ends[index];
+            }
+
+            @Override
+            public int tokenSymbol() {
+                return symbolIds[index];
+            }
+
+            @Override
+            public SymbolTable getSymbols() {
+                return symbols;
+            }
+        };
+    }
+}
@@ -0,0 +1,142 @@
+package com.inf5153.ast.parser;
+
+/**
+ * The TokenKind class defines the integer codes identifying each kind of token
+ * in the compact token representation. Unlike {@link TokenType}, a kind code
+ * identifies the exact keyword, operator or punctuation character, so the
+ * parser can dispatch on a single int comparison.
+ */
+public final class TokenKind {
+    public static final int EOF = 0;
+    public static final int NUMBER = 1;
+    public static final int IDENTIFIER = 2;
+    public static final int STRINGLITERAL = 3;
+
+    public static final int IF = 4;
+    public static final int THEN = 5;
+    public static final int ELSE = 6;
+    public static final int WHILE = 7;
+    public static final int PRINT = 8;
+    public static final int READ = 9;
+
+    public static final int PLUS = 10;
+    public static final int MINUS = 11;
+    public static final int STAR = 12;
+    public static final int SLASH = 13;
+    public static final int LESS = 14;
+    public static final int LESS_EQUAL = 15;
+    public static final int GREATER = 16;
+    public static final int GREATER_EQUAL = 17;
+    public static final int ASSIGN = 18;
+    public static final int EQUAL = 19;
+    public static final int NOT_EQUAL = 20;
+    public static final int NOT = 21;
+
+    public static final int SEMICOLON = 22;
+    public static final int LEFT_PAREN = 23;
+    public static final int RIGHT_PAREN = 24;
+    public static final int LEFT_BRACE = 25;
+    public static final int RIGHT_BRACE = 26;
+
+    private static final int COUNT = 27;
+
+    private static final TokenType[] TYPES = new TokenType[COUNT];
+    private static final String[] TEXTS = new String[COUNT];
+
+    static {
+        define(EOF, TokenType.EOF, "");
+        define(NUMBER, TokenType.NUMBER, null);
+        define(IDENTIFIER, TokenType.IDENTIFIER, null);
+        define(STRINGLITERAL, TokenType.STRINGLITERAL, null);
+        define(IF, TokenType.KEYWORD, "if");
+        define(THEN, TokenType.KEYWORD, "then");
+        define(ELSE, TokenType.KEYWORD, "else");
+        define(WHILE, TokenType.KEYWORD, "while");
+        define(PRINT, TokenType.KEYWORD, "print");
+        define(READ, TokenType.KEYWORD, "read");
+        define(PLUS, TokenType.OPERATOR, "+");
+        define(MINUS, TokenType.OPERATOR, "-");
+        define(STAR, TokenType.OPERATOR, "*");
+        define(SLASH, TokenType.OPERATOR, "/");
+        define(LESS, TokenType.OPERATOR, "<");
+        define(LESS_EQUAL, TokenType.OPERATOR, "<=");
+        define(GREATER, TokenType.OPERATOR, ">");
+        define(GREATER_EQUAL, TokenType.OPERATOR, ">=");
+        define(ASSIGN, TokenType.OPERATOR, "=");
+        define(EQUAL, TokenType.OPERATOR, "==");
+        define(NOT_EQUAL, TokenType.OPERATOR, "!=");
+        define(NOT, TokenType.OPERATOR, "!");
+        define(SEMICOLON, TokenType.PUNCTUATION, ";");
+        define(LEFT_PAREN, TokenType.PUNCTUATION, "(");
+        define(RIGHT_PAREN, TokenType.PUNCTUATION, ")");
+        define(LEFT_BRACE, TokenType.PUNCTUATION, "{");
+        define(RIGHT_BRACE, TokenType.PUNCTUATION, "}");
+    }
+
+    private TokenKind() {
+    }
+
+    private static void define(int kind, TokenType type, String text) {
+        TYPES[kind] = type;
+        TEXTS[kind] = text;
+    }
+
+    /**
+     * Returns the token type of a kind.
+     *
+     * @param kind the kind code
+     * @return the corresponding token type
+     */
+    public static TokenType typeOf(int kind) {
+        return TYPES[kind];
+    }
+
+    /**
+     * Returns the fixed text of a kind, such as "while" or "&lt;=".
+     *
+     * @param kind the kind code
+     * @return the text of the kind, or null for numbers, identifiers and string
+     *         literals whose text is held in the symbol table
+     */
+    public static String textOf(int kind) {
+        return TEXTS[kind];
+    }
+
+    /**
+     * Checks whether a kind is an operator.
+     *
+     * @param kind the kind code
+     * @return true if the kind is an operator, false otherwise
+     */
+    public static boolean isOperator(int kind) {
+        return kind >= PLUS && kind <= NOT;
+    }
+
+    /**
+     * Returns the kind of a token given its type and value.
+     *
+     * @param type  the type of the token
+     * @param value the value of the token
+     * @return the kind code of the token
+     * @throws IllegalArgumentException if no kind matches the type and value
+     */
+    public static int of(TokenType type, String value) {
+        switch (type) {
+            case EOF:
+                return EOF;
+            case NUMBER:
+                return NUMBER;
+            case IDENTIFIER:
+                return IDENTIFIER;
+            case STRINGLITERAL:
+                return STRINGLITERAL;
+            default:
+                for (int kind = IF; kind < COUNT; kind++) {
+                    if (TYPES[kind] == type && TEXTS[kind].equals(value)) {
+                        return kind;
+                    }
+                }
+                throw new IllegalArgumentException("Unknown " + type + " token: " + value);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.inf5153.ast.parser;
+
+/**
+ * The TokenSource interface represents a producer of tokens that can be
+ * pulled one at a time, such as the {@link Lexer}.
+ * <p>
+ * Tokens are exposed in a compact form: advancing returns the
+ * {@link TokenKind} code of the new token, while its offsets in the source and
+ * the id of its text in the {@link SymbolTable} are available through
+ * accessors. No object needs to be allocated per token.
+ */
+public interface TokenSource {
+
+    /**
+     * Advances to the next token. Once the end of the input has been reached,
+     * {@link TokenKind#EOF} is returned.
+     *
+     * @return the kind of the new current token
+     */
+    int nextKind();
+
+    /**
+     * Returns the offset of the first character of the current token.
+     *
+     * @return the start offset, or -1 if the source has no offsets
+     */
+    int tokenStart();
+
+    /**
+     * Returns the offset following the last character of the current token.
+     *
+     * @return the end offset, or -1 if the source has no offsets
+     */
+    int tokenEnd();
+
+    /**
+     * Returns the symbol id of the text of the current token.
+     *
+     * @return the symbol id for numbers, identifiers and string literals, or -1
+     *         for the other kinds of tokens
+     */
+    int tokenSymbol();
+
+    /**
+     * Returns the symbol table holding the text of the tokens.
+     *
+     * @return the symbol table
+     */
+    SymbolTable getSymbols();
+
+    /**
+     * Advances to the next token and returns it as a {@link Token} object.
+     *
+     * @return the next token
+     */
+    default Token nextToken() {
+        int kind = nextKind();
+        int symbol = tokenSymbol();
+        return new Token(TokenKind.typeOf(kind), symbol >= 0 ? getSymbols().name(symbol) : TokenKind.textOf(kind));
+    }
+}
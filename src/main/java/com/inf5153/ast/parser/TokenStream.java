@@ -0,0 +1,215 @@
+package com.inf5153.ast.parser;
+
+import java.util.List;
+
+/**
+ * The TokenStream class lazily pulls tokens from a {@link TokenSource} while
+ * they are consumed. Only a small ring buffer holding the previous token, the
+ * current token and a short lookahead is kept in memory, so the number of live
+ * tokens does not depend on the size of the input.
+ * <p>
+ * The ring buffer stores tokens in the same compact form as
+ * {@link TokenBuffer}: kind codes, offsets and symbol ids in parallel int
+ * arrays. {@link Token} objects are only created on request.
+ */
+public class TokenStream {
+    private static final int CAPACITY = 4; // Must be a power of two
+    private static final int MASK = CAPACITY - 1;
+
+    /**
+     * The maximum lookahead supported by {@link #peekKind(int)}.
+     */
+    public static final int MAX_LOOKAHEAD = CAPACITY - 2;
+
+    private final TokenSource source;
+    private final int[] kinds = new int[CAPACITY];
+    private final int[] starts = new int[CAPACITY];
+    private final int[] ends = new int[CAPACITY];
+    private final int[] symbols = new int[CAPACITY];
+    private int position = 0; // Index of the current token
+    private int fetched = 0; // Number of tokens pulled from the source
+    private boolean exhausted = false; // Whether the source has produced its EOF token
+
+    /**
+     * Constructs a new TokenStream pulling its tokens from the given source.
+     *
+     * @param source the source producing the tokens
+     */
+    public TokenStream(TokenSource source) {
+        this.source = source;
+    }
+
+    /**
+     * Constructs a new TokenStream over an already materialised list of tokens.
+     *
+     * @param tokens the list of tokens, ending with an EOF token
+     * @return a token stream reading the list
+     */
+    public static TokenStream of(List<Token> tokens) {
+        return new TokenStream(TokenBuffer.of(tokens).source());
+    }
+
+    /**
+     * Returns the kind of the current token without consuming it.
+     *
+     * @return the kind of the current token
+     */
+    public int peekKind() {
+        if (fetched == position) {
+            fetch();
+        }
+        return kinds[position & MASK];
+    }
+
+    /**
+     * Returns the kind of the token located offset positions after the current
+     * token without consuming anything.
+     *
+     * @param offset the distance from the current token, at most
+     *               {@link #MAX_LOOKAHEAD}
+     * @return the kind of the token at the given offset
+     * @throws IllegalArgumentException if the offset is outside the lookahead
+     *                                  window
+     */
+    public int peekKind(int offset) {
+        if (offset < 0 || offset > MAX_LOOKAHEAD) {
+            throw new IllegalArgumentException("Lookahead out of range: " + offset);
+        }
+        int index = position + offset;
+        while (fetched <= index) {
+            fetch();
+        }
+        return kinds[index & MASK];
+    }
+
+    /**
+     * Returns the current token as a {@link Token} object without consuming
+     * it.
+     *
+     * @return the current token
+     */
+    public Token peek() {
+        peekKind();
+        return token(position);
+    }
+
+    /**
+     * Returns the start offset of the current token.
+     *
+     * @return the start offset of the current token
+     */
+    public int peekStart() {
+        peekKind();
+        return starts[position & MASK];
+    }
+
+    /**
+     * Returns the kind of the last consumed token.
+     *
+     * @return the kind of the previous token
+     * @throws IllegalStateException if no token has been consumed yet
+     */
+    public int previousKind() {
+        return kinds[previousIndex() & MASK];
+    }
+
+    /**
+     * Returns the symbol id of the last consumed token.
+     *
+     * @return the symbol id of the previous token, or -1
+     * @throws IllegalStateException if no token has been consumed yet
+     */
+    public int previousSymbol() {
+        return symbols[previousIndex() & MASK];
+    }
+
+    /**
+     * Returns the start offset of the last consumed token.
+     *
+     * @return the start offset of the previous token
+     * @throws IllegalStateException if no token has been consumed yet
+     */
+    public int previousStart() {
+        return starts[previousIndex() & MASK];
+    }
+
+    /**
+     * Returns the end offset of the last consumed token.
+     *
+     * @return the end offset of the previous token
+     * @throws IllegalStateException if no token has been consumed yet
+     */
+    public int previousEnd() {
+        return ends[previousIndex() & MASK];
+    }
+
+    /**
+     * Returns the last consumed token as a {@link Token} object.
+     *
+     * @return the previous token
+     * @throws IllegalStateException if no token has been consumed yet
+     */
+    public Token previous() {
+        return token(previousIndex());
+    }
+
+    /**
+     * Consumes the current token.
+     *
+     * @return the kind of the consumed token
+     */
+    public int next() {
+        int kind = peekKind();
+        position++;
+        return kind;
+    }
+
+    /**
+     * Returns the symbol table holding the text of the tokens.
+     *
+     * @return the symbol table
+     */
+    public SymbolTable getSymbols() {
+        return source.getSymbols();
+    }
+
+    private int previousIndex() {
+        if (position == 0) {
+            throw new IllegalStateException("No token has been consumed yet");
+        }
+        return position - 1;
+    }
+
+    /**
+     * Materialises a buffered token.
+     */
+    private Token token(int index) {
+        int slot = index & MASK;
+        int symbol = symbols[slot];
+        String value = symbol >= 0 ? source.getSymbols().name(symbol) : TokenKind.textOf(kinds[slot]);
+        return new Token(TokenKind.typeOf(kinds[slot]), value);
+    }
+
+    /**
+     * Pulls one more token into the ring buffer. Once the source has produced
+     * its EOF token, the source is no longer called and EOF is repeated.
+     */
+    private void fetch() {
+        int slot = fetched & MASK;
+        if (exhausted) {
+            int last = (fetched - 1) & MASK;
+            kinds[slot] = TokenKind.EOF;
+            starts[slot] = starts[last];
+            ends[slot] = ends[last];
+            symbols[slot] = -1;
+        } else {
+            int kind = source.nextKind();
+            kinds[slot] = kind;
+            starts[slot] = source.tokenStart();
+            ends[slot] = source.tokenEnd();
+            symbols[slot] = source.tokenSymbol();
+            exhausted = kind == TokenKind.EOF;
+        }
+        fetched++;
+    }
+}
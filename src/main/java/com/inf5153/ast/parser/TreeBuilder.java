@@ -0,0 +1,130 @@
+package com.inf5153.ast.parser;
+
+import com.inf5153.ast.BinaryOperator;
+import com.inf5153.ast.ConditionOperator;
+import com.inf5153.ast.UnaryOperator;
+
+/**
+ * Receives the nodes recognised by the {@link Parser}, children first. Each
+ * node is identified by the int returned when it is added, which later nodes
+ * use to refer to it as a child, so the parser does not depend on how the
+ * tree is stored.
+ */
+public interface TreeBuilder {
+
+    /**
+     * Adds a literal number.
+     *
+     * @param value the value of the number
+     * @return the index of the node
+     */
+    int addNumber(int value);
+
+    /**
+     * Adds a literal string used as an expression.
+     *
+     * @param text the text of the string, without its quotes
+     * @return the index of the node
+     */
+    int addString(String text);
+
+    /**
+     * Adds the prompt of a read statement.
+     *
+     * @param text the text of the prompt
+     * @return the index of the node
+     */
+    int addPrompt(String text);
+
+    /**
+     * Adds an identifier.
+     *
+     * @param symbol the id of its name in the symbol table
+     * @return the index of the node
+     */
+    int addIdentifier(int symbol);
+
+    /**
+     * Adds a unary expression.
+     *
+     * @param operator the operator
+     * @param operand  the index of the operand
+     * @return the index of the node
+     */
+    int addUnary(UnaryOperator operator, int operand);
+
+    /**
+     * Adds a binary expression.
+     *
+     * @param operator the operator
+     * @param left     the index of the left operand
+     * @param right    the index of the right operand
+     * @return the index of the node
+     */
+    int addBinary(BinaryOperator operator, int left, int right);
+
+    /**
+     * Adds a condition.
+     *
+     * @param operator the comparison operator
+     * @param left     the index of the left operand
+     * @param right    the index of the right operand
+     * @return the index of the node
+     */
+    int addCondition(ConditionOperator operator, int left, int right);
+
+    /**
+     * Adds an assignment.
+     *
+     * @param identifier the index of the assigned identifier
+     * @param expression the index of the expression
+     * @return the index of the node
+     */
+    int addAssignment(int identifier, int expression);
+
+    /**
+     * Adds a print statement.
+     *
+     * @param expression the index of the printed expression
+     * @return the index of the node
+     */
+    int addPrint(int expression);
+
+    /**
+     * Adds a read statement.
+     *
+     * @param prompt     the index of the prompt, or -1 if none
+     * @param identifier the index of the identifier read
+     * @return the index of the node
+     */
+    int addRead(int prompt, int identifier);
+
+    /**
+     * Adds an if statement.
+     *
+     * @param condition the index of the condition
+     * @param thenBlock the index of the then block
+     * @param elseBlock the index of the else block, or -1 if none
+     * @return the index of the node
+     */
+    int addIf(int condition, int thenBlock, int elseBlock);
+
+    /**
+     * Adds a while statement.
+     *
+     * @param condition the index of the condition
+     * @param block     the index of the block
+     * @return the index of the node
+     */
+    int addWhile(int condition, int block);
+
+    /**
+     * Adds a block.
+     *
+     * @param source the array holding the indices of its statements
+     * @param from   the offset of the first statement in the array
+     * @param length the number of statements
+     * @return the index of the node
+     */
+    int addBlock(int[] source, int from, int length);
+}
@@ -1,8 +1,11 @@
 package com.inf5153.ast.visitor;
 
 import com.inf5153.ast.*;
+import com.inf5153.utils.OutputSink;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -10,11 +13,13 @@ import java.util.Set;
 /**
  * The ASTAssignmentsGenerator class is responsible for collecting all
  * assignment statements within an Abstract Syntax Tree (AST). It implements the
- * Visitor pattern to traverse the AST and gather assignments into a list.
+ * Visitor pattern to traverse the AST and gather assignments into a list. The
+ * AST is walked by a {@link Walker}, without recursion.
  */
-public class ASTAssignmentsCollector implements Visitor {
+public final class ASTAssignmentsCollector implements Visitor {
 
     private List<Assignment> assignments = new ArrayList<>();
+    private final Walker walker = new Walker(this);
 
     /**
      * Returns the list of assignments collected from the AST.
@@ -53,7 +58,7 @@ public class ASTAssignmentsCollector implements Visitor {
     @Override
     public void visit(Block block) {
         for (Statement statement : block.getStatements()) {
-            statement.accept(this);
+            walker.schedule(statement);
         }
     }
 
@@ -84,9 +89,9 @@ public class ASTAssignmentsCollector implements Visitor {
      */
     @Override
     public void visit(IfStatement ifStatement) {
-        ifStatement.getThenBlock().accept(this);
+        walker.schedule(ifStatement.getThenBlock());
         if (ifStatement.getElseBlock() != null) {
-            ifStatement.getElseBlock().accept(this);
+            walker.schedule(ifStatement.getElseBlock());
         }
     }
 
@@ -147,7 +152,7 @@ public class ASTAssignmentsCollector implements Visitor {
      */
     @Override
     public void visit(WhileStatement whileStatement) {
-        whileStatement.getBlock().accept(this);
+        walker.schedule(whileStatement.getBlock());
     }
 
     /**
@@ -158,14 +163,19 @@ public class ASTAssignmentsCollector implements Visitor {
      */
     private Set<String> extractVariablesFromExpression(Expression expression) {
         Set<String> variablesRead = new HashSet<>();
-        if (expression instanceof Identifier) {
-            variablesRead.add(((Identifier) expression).getName());
-        } else if (expression instanceof BinaryExpression) {
-            BinaryExpression binaryExpression = (BinaryExpression) expression;
-            variablesRead.addAll(extractVariablesFromExpression(binaryExpression.getLeft()));
-            variablesRead.addAll(extractVariablesFromExpression(binaryExpression.getRight()));
+        Deque<Expression> pending = new ArrayDeque<>();
+        pending.push(expression);
+        while (!pending.isEmpty()) {
+            Expression current = pending.pop();
+            if (current instanceof Identifier) {
+                variablesRead.add(((Identifier) current).getName());
+            } else if (current instanceof BinaryExpression) {
+                BinaryExpression binaryExpression = (BinaryExpression) current;
+                pending.push(binaryExpression.getRight());
+                pending.push(binaryExpression.getLeft());
+            }
+            // Handle other expression types if needed
         }
-        // Handle other expression types if needed
         return variablesRead;
     }
 
@@ -173,14 +183,26 @@ public class ASTAssignmentsCollector implements Visitor {
      * Prints out all the assignments collected from the AST in a readable format.
      */
     public void printAssignments() {
+        OutputSink out = OutputSink.standardOutput();
+        printAssignments(out);
+        out.flush();
+    }
+
+    /**
+     * Prints out all the assignments collected from the AST in a readable format
+     * to a sink.
+     *
+     * @param out the sink receiving the assignments
+     */
+    public void printAssignments(OutputSink out) {
         for (Assignment assignment : assignments) {
             String variableWritten = assignment.getIdentifier().getName();
             Set<String> variablesReadInAssignment = extractVariablesFromExpression(assignment.getExpression());
 
-            System.out.println("Assignment found: " + variableWritten +
+            out.println("Assignment found: " + variableWritten +
                     " = " + assignment.getExpression());
-            System.out.println("  Variable written: " + variableWritten);
-            System.out.println("  Variable(s) read: " + variablesReadInAssignment);
+            out.println("  Variable written: " + variableWritten);
+            out.println("  Variable(s) read: " + variablesReadInAssignment);
         }
     }
 
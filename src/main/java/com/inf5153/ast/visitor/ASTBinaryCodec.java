@@ -0,0 +1,443 @@
+package com.inf5153.ast.visitor;
+
+import com.inf5153.ast.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The ASTBinaryCodec class implements the Visitor pattern to encode an
+ * Abstract Syntax Tree into a compact binary form, and decodes that form back
+ * into a tree. Decoding is much faster than lexing and parsing the source
+ * again, so that encoded trees can be shipped as precompiled scripts or kept
+ * in a compile cache.
+ * <p>
+ * An encoded tree starts with a header of four bytes, followed by a string
+ * table holding once each identifier name and literal string of the tree,
+ * then by the nodes in post-order: each node is a tag byte, possibly
+ * followed by operands, and takes its children from the nodes decoded before
+ * it. Counts, lengths and indices in the string table are unsigned varints,
+ * seven bits per byte with the high bit set on all but the last byte; literal
+ * numbers are zigzag varints, so that small negative numbers stay small.
+ * <p>
+ * The nodes and their operands are:
+ * <ul>
+ * <li>literal number: the number;</li>
+ * <li>literal string, identifier: the index of the string or name;</li>
+ * <li>unary expression, binary expression, condition: no operand, the
+ * operator being part of the tag;</li>
+ * <li>assignment: the index of the name of the variable;</li>
+ * <li>read statement: the index of the name of the variable, then the index
+ * of the prompt if the tag says there is one;</li>
+ * <li>block: the number of statements;</li>
+ * <li>print, if and while statements: no operand, whether an if statement
+ * has an else block being part of the tag.</li>
+ * </ul>
+ * The tree is walked by a {@link Walker} and decoded with an explicit stack,
+ * so that trees of any depth can be encoded and decoded.
+ */
+public final class ASTBinaryCodec implements Visitor {
+    private static final byte[] HEADER = { 'M', 'L', 'A', 1 }; // Magic bytes, then the version of the format
+
+    private static final int NUMBER = 0;
+    private static final int STRING = 1;
+    private static final int IDENTIFIER = 2;
+    private static final int NEGATE = 3;
+    private static final int BINARY = 4; // Followed by the other binary operators, in the order of BinaryOperator
+    private static final int CONDITION = 8; // Followed by the other condition operators, in the order of ConditionOperator
+    private static final int ASSIGNMENT = 14;
+    private static final int PRINT = 15;
+    private static final int READ = 16;
+    private static final int READ_PROMPT = 17;
+    private static final int IF = 18;
+    private static final int IF_ELSE = 19;
+    private static final int WHILE = 20;
+    private static final int BLOCK = 21;
+
+    private final Walker walker = new Walker(this); // Walks the tree without recursion
+    private final Map<String, Integer> strings = new HashMap<>(); // Index of each string in the string table
+    private final List<String> table = new ArrayList<>(); // The string table
+    private byte[] nodes = new byte[256]; // The encoded nodes
+    private int size = 0; // Number of bytes of the nodes array
+
+    /**
+     * Encodes a tree.
+     *
+     * @param program The root block of the tree.
+     * @return The encoded tree.
+     */
+    public byte[] encode(Block program) {
+        strings.clear();
+        table.clear();
+        size = 0;
+        walker.walk(program);
+        byte[] body = Arrays.copyOf(nodes, size);
+
+        size = 0;
+        put(HEADER);
+        putVarint(table.size());
+        for (String string : table) {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            putVarint(bytes.length);
+            put(bytes);
+        }
+        put(body);
+        return Arrays.copyOf(nodes, size);
+    }
+
+    /**
+     * Decodes a tree encoded by {@link #encode(Block)}. Identifiers with the
+     * same name share a single string.
+     *
+     * @param bytes The encoded tree.
+     * @return The root block of the tree.
+     * @throws IllegalArgumentException If the bytes are not an encoded tree.
+     */
+    public static Block decode(byte[] bytes) {
+        try {
+            return new Decoder(bytes).decode();
+        } catch (IndexOutOfBoundsException | ClassCastException e) {
+            throw new IllegalArgumentException("Malformed encoded tree", e);
+        }
+    }
+
+    /**
+     * Encodes an assignment after its expression.
+     *
+     * @param assignment The assignment to encode.
+     */
+    @Override
+    public void visit(Assignment assignment) {
+        walker.schedule(assignment.getExpression());
+        walker.schedule(() -> {
+            put(ASSIGNMENT);
+            putString(assignment.getIdentifier().getName());
+        });
+    }
+
+    /**
+     * Encodes a binary expression after its operands.
+     *
+     * @param binaryExpression The binary expression to encode.
+     */
+    @Override
+    public void visit(BinaryExpression binaryExpression) {
+        walker.schedule(binaryExpression.getLeft());
+        walker.schedule(binaryExpression.getRight());
+        walker.schedule(() -> put(BINARY + binaryExpression.getOperator().ordinal()));
+    }
+
+    /**
+     * Encodes a block after its statements.
+     *
+     * @param block The block to encode.
+     */
+    @Override
+    public void visit(Block block) {
+        for (Statement statement : block.getStatements()) {
+            walker.schedule(statement);
+        }
+        walker.schedule(() -> {
+            put(BLOCK);
+            putVarint(block.getStatements().size());
+        });
+    }
+
+    /**
+     * Encodes a condition after its operands.
+     *
+     * @param condition The condition to encode.
+     */
+    @Override
+    public void visit(Condition condition) {
+        walker.schedule(condition.getLeft());
+        walker.schedule(condition.getRight());
+        walker.schedule(() -> put(CONDITION + condition.getOperator().ordinal()));
+    }
+
+    /**
+     * Encodes an identifier.
+     *
+     * @param identifier The identifier to encode.
+     */
+    @Override
+    public void visit(Identifier identifier) {
+        put(IDENTIFIER);
+        putString(identifier.getName());
+    }
+
+    /**
+     * Encodes an if statement after its condition and blocks.
+     *
+     * @param ifStatement The if statement to encode.
+     */
+    @Override
+    public void visit(IfStatement ifStatement) {
+        walker.schedule(ifStatement.getCondition());
+        walker.schedule(ifStatement.getThenBlock());
+        if (ifStatement.getElseBlock() != null) {
+            walker.schedule(ifStatement.getElseBlock());
+            walker.schedule(() -> put(IF_ELSE));
+        } else {
+            walker.schedule(() -> put(IF));
+        }
+    }
+
+    /**
+     * Encodes a literal number.
+     *
+     * @param literalNumber The literal number to encode.
+     */
+    @Override
+    public void visit(LiteralNumber literalNumber) {
+        int value = literalNumber.getValue();
+        put(NUMBER);
+        putVarint((value << 1) ^ (value >> 31));
+    }
+
+    /**
+     * Encodes a literal string.
+     *
+     * @param literalString The literal string to encode.
+     */
+    @Override
+    public void visit(LiteralString literalString) {
+        put(STRING);
+        putString(literalString.getValue());
+    }
+
+    /**
+     * Encodes a print statement after its expression.
+     *
+     * @param printStatement The print statement to encode.
+     */
+    @Override
+    public void visit(PrintStatement printStatement) {
+        walker.schedule(printStatement.getExpression());
+        walker.schedule(() -> put(PRINT));
+    }
+
+    /**
+     * Encodes a read statement.
+     *
+     * @param readStatement The read statement to encode.
+     */
+    @Override
+    public void visit(ReadStatement readStatement) {
+        LiteralString prompt = readStatement.getLiteralString();
+        put(prompt != null ? READ_PROMPT : READ);
+        putString(readStatement.getIdentifier().getName());
+        if (prompt != null) {
+            putString(prompt.getValue());
+        }
+    }
+
+    /**
+     * Encodes a unary expression after its operand.
+     *
+     * @param unaryExpression The unary expression to encode.
+     */
+    @Override
+    public void visit(UnaryExpression unaryExpression) {
+        walker.schedule(unaryExpression.getExpression());
+        walker.schedule(() -> put(NEGATE + unaryExpression.getOperator().ordinal()));
+    }
+
+    /**
+     * Encodes a while statement after its condition and block.
+     *
+     * @param whileStatement The while statement to encode.
+     */
+    @Override
+    public void visit(WhileStatement whileStatement) {
+        walker.schedule(whileStatement.getCondition());
+        walker.schedule(whileStatement.getBlock());
+        walker.schedule(() -> put(WHILE));
+    }
+
+    /**
+     * Encodes the index of a string, adding it to the string table if needed.
+     *
+     * @param string The string.
+     */
+    private void putString(String string) {
+        Integer index = strings.get(string);
+        if (index == null) {
+            index = table.size();
+            strings.put(string, index);
+            table.add(string);
+        }
+        putVarint(index);
+    }
+
+    private void putVarint(int value) {
+        while ((value & ~0x7F) != 0) {
+            put((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        put(value);
+    }
+
+    private void put(int b) {
+        if (size == nodes.length) {
+            nodes = Arrays.copyOf(nodes, size * 2);
+        }
+        nodes[size++] = (byte) b;
+    }
+
+    private void put(byte[] bytes) {
+        if (size + bytes.length > nodes.length) {
+            nodes = Arrays.copyOf(nodes, Math.max(nodes.length * 2, size + bytes.length));
+        }
+        System.arraycopy(bytes, 0, nodes, size, bytes.length);
+        size += bytes.length;
+    }
+
+    /**
+     * Decodes the nodes of an encoded tree onto a stack, each node replacing
+     * its children on top of the stack.
+     */
+    private static final class Decoder {
+        private static final BinaryOperator[] BINARY_OPERATORS = BinaryOperator.values();
+        private static final ConditionOperator[] CONDITION_OPERATORS = ConditionOperator.values();
+
+        private final byte[] bytes; // The encoded tree
+        private int position = 0; // Index of the next byte to decode
+        private Node[] stack = new Node[64]; // The decoded nodes not yet taken by their parent
+        private int size = 0; // Number of entries of the stack
+
+        private Decoder(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        private Block decode() {
+            for (int i = 0; i < HEADER.length; i++) {
+                if (bytes[position++] != HEADER[i]) {
+                    throw new IllegalArgumentException("Not an encoded tree, or encoded with another version");
+                }
+            }
+            int stringCount = getVarint();
+            if (stringCount < 0 || stringCount > bytes.length - position) {
+                // Each string takes at least the byte of its length
+                throw new IllegalArgumentException("String table of " + stringCount + " strings");
+            }
+            String[] strings = new String[stringCount];
+            for (int i = 0; i < strings.length; i++) {
+                int length = getVarint();
+                if (length < 0 || length > bytes.length - position) {
+                    throw new IndexOutOfBoundsException("String past the end of the bytes");
+                }
+                strings[i] = new String(bytes, position, length, StandardCharsets.UTF_8);
+                position += length;
+            }
+
+            while (position < bytes.length) {
+                int tag = bytes[position++];
+                Node node;
+                switch (tag) {
+                    case NUMBER:
+                        int zigzag = getVarint();
+                        node = new LiteralNumber((zigzag >>> 1) ^ -(zigzag & 1));
+                        break;
+                    case STRING:
+                        node = new LiteralString(strings[getVarint()]);
+                        break;
+                    case IDENTIFIER:
+                        node = new Identifier(strings[getVarint()]);
+                        break;
+                    case NEGATE:
+                        node = new UnaryExpression((Expression) stack[--size], UnaryOperator.NEGATE);
+                        break;
+                    case BINARY:
+                    case BINARY + 1:
+                    case BINARY + 2:
+                    case BINARY + 3: {
+                        Expression right = (Expression) stack[--size];
+                        node = new BinaryExpression((Expression) stack[--size], BINARY_OPERATORS[tag - BINARY], right);
+                        break;
+                    }
+                    case CONDITION:
+                    case CONDITION + 1:
+                    case CONDITION + 2:
+                    case CONDITION + 3:
+                    case CONDITION + 4:
+                    case CONDITION + 5: {
+                        Expression right = (Expression) stack[--size];
+                        node = new Condition((Expression) stack[--size], CONDITION_OPERATORS[tag - CONDITION], right);
+                        break;
+                    }
+                    case ASSIGNMENT:
+                        node = new Assignment(new Identifier(strings[getVarint()]), (Expression) stack[--size]);
+                        break;
+                    case PRINT:
+                        node = new PrintStatement((Expression) stack[--size]);
+                        break;
+                    case READ:
+                        node = new ReadStatement(null, new Identifier(strings[getVarint()]));
+                        break;
+                    case READ_PROMPT: {
+                        Identifier identifier = new Identifier(strings[getVarint()]);
+                        node = new ReadStatement(new LiteralString(strings[getVarint()]), identifier);
+                        break;
+                    }
+                    case IF: {
+                        Block thenBlock = (Block) stack[--size];
+                        node = new IfStatement((Condition) stack[--size], thenBlock, null);
+                        break;
+                    }
+                    case IF_ELSE: {
+                        Block elseBlock = (Block) stack[--size];
+                        Block thenBlock = (Block) stack[--size];
+                        node = new IfStatement((Condition) stack[--size], thenBlock, elseBlock);
+                        break;
+                    }
+                    case WHILE: {
+                        Block block = (Block) stack[--size];
+                        node = new WhileStatement((Condition) stack[--size], block);
+                        break;
+                    }
+                    case BLOCK: {
+                        int count = getVarint();
+                        if (count < 0 || count > size) {
+                            throw new IndexOutOfBoundsException("Block of " + count + " statements");
+                        }
+                        List<Statement> statements = new ArrayList<>(count);
+                        for (int i = size - count; i < size; i++) {
+                            statements.add((Statement) stack[i]);
+                        }
+                        Arrays.fill(stack, size - count, size, null);
+                        size -= count;
+                        node = new Block(statements);
+                        break;
+                    }
+                    default:
+                        throw new IllegalArgumentException("Unknown node tag: " + tag);
+                }
+                if (size == stack.length) {
+                    stack = Arrays.copyOf(stack, size * 2);
+                }
+                stack[size++] = node;
+            }
+            if (size != 1) {
+                throw new IllegalArgumentException("Encoded tree with " + size + " roots");
+            }
+            return (Block) stack[0];
+        }
+
+        private int getVarint() {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                byte b = bytes[position++];
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Varint longer than five bytes");
+        }
+    }
+}
@@ -0,0 +1,401 @@
+package com.inf5153.ast.visitor;
+
+import com.inf5153.ast.*;
+import com.inf5153.bytecode.ClassFileWriter;
+import com.inf5153.bytecode.CodeBuilder;
+import com.inf5153.bytecode.CompiledProgram;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The ASTBytecodeCompiler class implements the Visitor pattern to compile the
+ * code represented by an Abstract Syntax Tree into JVM bytecode. The program
+ * becomes the static method of a hidden class, loaded in-process, so its loops
+ * are JIT-compiled like any Java code. Running it behaves like the
+ * {@link ASTCodeExecutor}, including its error messages.
+ * <p>
+ * Each variable is held in JVM local variables: its integer value, a flag
+ * telling whether an integer was assigned, and its string value when the
+ * program assigns a string to it. Visiting an expression pushes its integer
+ * value on the operand stack; visiting a statement leaves the stack empty.
+ * <p>
+ * The method takes the {@link com.inf5153.bytecode.BytecodeRuntime} of the
+ * run as its only parameter, and passes it to the helpers printing and
+ * reading.
+ */
+public class ASTBytecodeCompiler implements Visitor {
+    private static final String RUNTIME = "com/inf5153/bytecode/BytecodeRuntime";
+    private static final String STRING = "java/lang/String";
+    private static final int RUNTIME_LOCAL = 0; // The parameter holding the runtime of the run
+
+    private final Map<String, Variable> variables = new LinkedHashMap<>();
+    private CodeBuilder code;
+
+    /**
+     * The JVM local variables holding a variable of the program, -1 when not
+     * needed.
+     */
+    private static final class Variable {
+        private int value = -1;
+        private int defined = -1;
+        private int string = -1;
+    }
+
+    /**
+     * Compiles a program and loads it.
+     *
+     * @param program The block of statements forming the program.
+     * @return The loaded program, ready to run.
+     * @throws IllegalStateException if the program is too large for a single
+     *                               JVM method, or nested deeper than
+     *                               {@link NestingLimit#MAX_DEPTH}
+     */
+    public CompiledProgram compile(Block program) {
+        NestingLimit.check(program, "bytecode compiler");
+        ClassFileWriter writer = new ClassFileWriter(CompiledProgram.PACKAGE + "Program");
+        code = new CodeBuilder(writer.getConstantPool());
+        code.declareReferenceLocal(RUNTIME);
+        variables.clear();
+        declareVariables(program);
+        initializeVariables();
+        program.accept(this);
+        code.returnVoid();
+        writer.addStaticMethod(CompiledProgram.ENTRY_POINT, CompiledProgram.ENTRY_POINT_DESCRIPTOR, code);
+        return new CompiledProgram(writer.toByteArray());
+    }
+
+    /**
+     * Compiles an assignment statement by storing the value of an expression in
+     * a variable.
+     *
+     * @param assignment The assignment statement to compile.
+     */
+    @Override
+    public void visit(Assignment assignment) {
+        Variable variable = variables.get(assignment.getIdentifier().getName());
+        if (assignment.getExpression() instanceof LiteralString) {
+            code.pushString(((LiteralString) assignment.getExpression()).getValue());
+            code.storeReference(variable.string);
+        } else {
+            assignment.getExpression().accept(this);
+            storeInt(variable);
+        }
+    }
+
+    /**
+     * Compiles a print statement. A variable holding a string prints the
+     * string; any other expression prints its integer value.
+     *
+     * @param printStatement The print statement to compile.
+     */
+    @Override
+    public void visit(PrintStatement printStatement) {
+        Expression expression = printStatement.getExpression();
+        Variable variable = expression instanceof Identifier
+                ? variables.get(((Identifier) expression).getName())
+                : null;
+        if (variable == null || variable.string < 0) {
+            expression.accept(this);
+            print("I");
+            return;
+        }
+        CodeBuilder.Label printInt = code.newLabel();
+        CodeBuilder.Label end = code.newLabel();
+        code.loadReference(variable.string);
+        code.jump(CodeBuilder.IFNULL, printInt);
+        code.loadReference(variable.string);
+        print("L" + STRING + ";");
+        code.jump(CodeBuilder.GOTO, end);
+        code.bind(printInt);
+        expression.accept(this);
+        print("I");
+        code.bind(end);
+    }
+
+    /**
+     * Prints the value on top of the operand stack.
+     *
+     * @param type The descriptor of the type of the value.
+     */
+    private void print(String type) {
+        code.loadReference(RUNTIME_LOCAL);
+        code.invokeStatic(RUNTIME, "print", "(" + type + "L" + RUNTIME + ";)V");
+    }
+
+    /**
+     * Compiles a read statement by reading an integer value from the input of
+     * the run and assigning it to the identifier.
+     *
+     * @param readStatement The read statement to compile.
+     */
+    @Override
+    public void visit(ReadStatement readStatement) {
+        if (readStatement.getLiteralString() != null) {
+            code.pushString(readStatement.getLiteralString().getValue());
+        } else {
+            code.pushNull();
+        }
+        code.loadReference(RUNTIME_LOCAL);
+        code.invokeStatic(RUNTIME, "read", "(L" + STRING + ";L" + RUNTIME + ";)I");
+        storeInt(variables.get(readStatement.getIdentifier().getName()));
+    }
+
+    /**
+     * Compiles an if statement into a conditional jump over the then block.
+     *
+     * @param ifStatement The if statement to compile.
+     */
+    @Override
+    public void visit(IfStatement ifStatement) {
+        CodeBuilder.Label otherwise = code.newLabel();
+        jumpIfFalse(ifStatement.getCondition(), otherwise);
+        ifStatement.getThenBlock().accept(this);
+        if (ifStatement.getElseBlock() == null) {
+            code.bind(otherwise);
+            return;
+        }
+        CodeBuilder.Label end = code.newLabel();
+        code.jump(CodeBuilder.GOTO, end);
+        code.bind(otherwise);
+        ifStatement.getElseBlock().accept(this);
+        code.bind(end);
+    }
+
+    /**
+     * Compiles a while statement into a loop testing its condition before each
+     * iteration.
+     *
+     * @param whileStatement The while statement to compile.
+     */
+    @Override
+    public void visit(WhileStatement whileStatement) {
+        CodeBuilder.Label start = code.newLabel();
+        CodeBuilder.Label end = code.newLabel();
+        code.bind(start);
+        jumpIfFalse(whileStatement.getCondition(), end);
+        whileStatement.getBlock().accept(this);
+        code.jump(CodeBuilder.GOTO, start);
+        code.bind(end);
+    }
+
+    /**
+     * Compiles a block by compiling all contained statements sequentially.
+     *
+     * @param block The block to compile.
+     */
+    @Override
+    public void visit(Block block) {
+        for (Statement statement : block.getStatements()) {
+            statement.accept(this);
+        }
+    }
+
+    /**
+     * Pushes the value of a literal number.
+     *
+     * @param literalNumber The literal number to compile.
+     */
+    @Override
+    public void visit(LiteralNumber literalNumber) {
+        code.pushInt(literalNumber.getValue());
+    }
+
+    /**
+     * Compiles a literal string used as an integer expression, which fails at
+     * run time.
+     *
+     * @param literalString The literal string to compile.
+     */
+    @Override
+    public void visit(LiteralString literalString) {
+        fail("Unknown expression type");
+    }
+
+    /**
+     * Pushes the integer value of a variable, failing at run time if no integer
+     * was assigned to it.
+     *
+     * @param identifier The identifier to compile.
+     */
+    @Override
+    public void visit(Identifier identifier) {
+        Variable variable = variables.get(identifier.getName());
+        if (variable == null || variable.value < 0) {
+            fail("Error: Undefined variable - " + identifier.getName());
+            return;
+        }
+        code.loadInt(variable.value);
+        code.loadInt(variable.defined);
+        code.pushString(identifier.getName());
+        code.invokeStatic(RUNTIME, "checkDefined", "(IIL" + STRING + ";)I");
+    }
+
+    /**
+     * Pushes the value of a unary expression.
+     *
+     * @param unaryExpression The unary expression to compile.
+     */
+    @Override
+    public void visit(UnaryExpression unaryExpression) {
+        unaryExpression.getExpression().accept(this);
+        switch (unaryExpression.getOperator()) {
+            case NEGATE:
+                code.negate();
+                break;
+        }
+    }
+
+    /**
+     * Pushes the value of a binary expression.
+     *
+     * @param binaryExpression The binary expression to compile.
+     */
+    @Override
+    public void visit(BinaryExpression binaryExpression) {
+        binaryExpression.getLeft().accept(this);
+        binaryExpression.getRight().accept(this);
+        switch (binaryExpression.getOperator()) {
+            case ADD:
+                code.add();
+                break;
+            case SUBTRACT:
+                code.subtract();
+                break;
+            case MULTIPLY:
+                code.multiply();
+                break;
+            case DIVIDE:
+                code.invokeStatic(RUNTIME, "divide", "(II)I");
+                break;
+        }
+    }
+
+    /**
+     * Handles a condition node. Conditions are compiled by
+     * {@link #jumpIfFalse(Condition, CodeBuilder.Label)}, so this method is
+     * unused.
+     *
+     * @param condition The condition to handle.
+     */
+    @Override
+    public void visit(Condition condition) {
+
+    }
+
+    /**
+     * Evaluates a condition and jumps to the given label when it is false.
+     *
+     * @param condition The condition to compile.
+     * @param target    The label to jump to when the condition is false.
+     */
+    private void jumpIfFalse(Condition condition, CodeBuilder.Label target) {
+        condition.getLeft().accept(this);
+        condition.getRight().accept(this);
+        switch (condition.getOperator()) {
+            case EQUAL:
+                code.jump(CodeBuilder.IF_ICMPNE, target);
+                break;
+            case NOT_EQUAL:
+                code.jump(CodeBuilder.IF_ICMPEQ, target);
+                break;
+            case LESS:
+                code.jump(CodeBuilder.IF_ICMPGE, target);
+                break;
+            case LESS_EQUAL:
+                code.jump(CodeBuilder.IF_ICMPGT, target);
+                break;
+            case GREATER:
+                code.jump(CodeBuilder.IF_ICMPLE, target);
+                break;
+            case GREATER_EQUAL:
+                code.jump(CodeBuilder.IF_ICMPLT, target);
+                break;
+        }
+    }
+
+    /**
+     * Pushes a value that fails at run time with the given message.
+     *
+     * @param message The error message.
+     */
+    private void fail(String message) {
+        code.pushInt(0);
+        code.pushInt(0);
+        code.pushString(message);
+        code.invokeStatic(RUNTIME, "fail", "(IIL" + STRING + ";)I");
+    }
+
+    /**
+     * Pops an integer into a variable and marks it as defined.
+     *
+     * @param variable The variable to assign.
+     */
+    private void storeInt(Variable variable) {
+        code.storeInt(variable.value);
+        code.pushInt(1);
+        code.storeInt(variable.defined);
+    }
+
+    /**
+     * Declares the local variables of every variable assigned in a block.
+     * Variables that are only read never get a value, so they need none.
+     *
+     * @param block The block to scan.
+     */
+    private void declareVariables(Block block) {
+        for (Statement statement : block.getStatements()) {
+            if (statement instanceof Assignment) {
+                Assignment assignment = (Assignment) statement;
+                Variable variable = variable(assignment.getIdentifier().getName());
+                if (assignment.getExpression() instanceof LiteralString) {
+                    if (variable.string < 0) {
+                        variable.string = code.declareReferenceLocal(STRING);
+                    }
+                } else {
+                    declareInt(variable);
+                }
+            } else if (statement instanceof ReadStatement) {
+                declareInt(variable(((ReadStatement) statement).getIdentifier().getName()));
+            } else if (statement instanceof IfStatement) {
+                IfStatement ifStatement = (IfStatement) statement;
+                declareVariables(ifStatement.getThenBlock());
+                if (ifStatement.getElseBlock() != null) {
+                    declareVariables(ifStatement.getElseBlock());
+                }
+            } else if (statement instanceof WhileStatement) {
+                declareVariables(((WhileStatement) statement).getBlock());
+            }
+        }
+    }
+
+    private Variable variable(String name) {
+        return variables.computeIfAbsent(name, key -> new Variable());
+    }
+
+    private void declareInt(Variable variable) {
+        if (variable.value < 0) {
+            variable.value = code.declareIntLocal();
+            variable.defined = code.declareIntLocal();
+        }
+    }
+
+    /**
+     * Initialises every declared local variable, so that all of them are
+     * assigned before the first branch target.
+     */
+    private void initializeVariables() {
+        for (Variable variable : variables.values()) {
+            if (variable.value >= 0) {
+                code.pushInt(0);
+                code.storeInt(variable.value);
+                code.pushInt(0);
+                code.storeInt(variable.defined);
+            }
+            if (variable.string >= 0) {
+                code.pushNull();
+                code.storeReference(variable.string);
+            }
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package com.inf5153.ast.visitor;
+
+import com.inf5153.ast.*;
+import com.inf5153.closure.ClosureProgram;
+import com.inf5153.closure.ConditionClosure;
+import com.inf5153.closure.IntClosure;
+import com.inf5153.closure.StatementClosure;
+
+import java.util.List;
+
+/**
+ * The ASTClosureCompiler class implements the Visitor pattern to compile an
+ * Abstract Syntax Tree into a tree of closures. Node types and operators are
+ * inspected once, at compile time, and each node becomes a closure specialised
+ * for its operator, so running the program is a chain of direct calls with no
+ * type test and no switch. Running it behaves like the {@link ASTCodeExecutor},
+ * including its error messages.
+ */
+public class ASTClosureCompiler implements Visitor {
+    private IntClosure expression; // The closure of the last expression visited
+    private ConditionClosure condition; // The closure of the last condition visited
+    private StatementClosure statement; // The closure of the last statement or block visited
+    private ASTVariableResolver resolver; // The slots of the variables of the program
+
+    /**
+     * Compiles a program.
+     *
+     * @param program The block of statements forming the program.
+     * @return The compiled program, ready to run.
+     * @throws IllegalStateException if the program is nested deeper than
+     *                               {@link NestingLimit#MAX_DEPTH}
+     */
+    public ClosureProgram compile(Block program) {
+        NestingLimit.check(program, "closure compiler");
+        resolver = new ASTVariableResolver();
+        program.accept(resolver);
+        return new ClosureProgram(compileStatement(program), resolver.getSlotCount());
+    }
+
+    /**
+     * Compiles an assignment statement.
+     *
+     * @param assignment The assignment statement to compile.
+     */
+    @Override
+    public void visit(Assignment assignment) {
+        int slot = resolver.getSlot(assignment.getIdentifier());
+        if (assignment.getExpression() instanceof LiteralString) {
+            String value = ((LiteralString) assignment.getExpression()).getValue();
+            statement = frame -> frame.strings[slot] = value;
+            return;
+        }
+        IntClosure value = compileExpression(assignment.getExpression());
+        statement = frame -> {
+            frame.values[slot] = value.evaluate(frame);
+            frame.defined[slot] = true;
+        };
+    }
+
+    /**
+     * Compiles a print statement. A variable holding a string prints the
+     * string; any other expression prints its integer value.
+     *
+     * @param printStatement The print statement to compile.
+     */
+    @Override
+    public void visit(PrintStatement printStatement) {
+        IntClosure value = compileExpression(printStatement.getExpression());
+        if (!(printStatement.getExpression() instanceof Identifier)) {
+            statement = frame -> frame.out.println(value.evaluate(frame));
+            return;
+        }
+        int slot = resolver.getSlot((Identifier) printStatement.getExpression());
+        statement = frame -> {
+            String string = frame.strings[slot];
+            if (string != null) {
+                frame.out.println(string);
+            } else {
+                frame.out.println(value.evaluate(frame));
+            }
+        };
+    }
+
+    /**
+     * Compiles a read statement.
+     *
+     * @param readStatement The read statement to compile.
+     */
+    @Override
+    public void visit(ReadStatement readStatement) {
+        String prompt = readStatement.getLiteralString() != null
+                ? readStatement.getLiteralString().getValue() + " "
+                : null;
+        int slot = resolver.getSlot(readStatement.getIdentifier());
+        statement = frame -> {
+            if (prompt != null) {
+                frame.out.print(prompt);
+            }
+            if (frame.in.isInteractive()) {
+                frame.out.flush();
+            }
+            frame.values[slot] = frame.in.readInt();
+            frame.defined[slot] = true;
+        };
+    }
+
+    /**
+     * Compiles an if statement.
+     *
+     * @param ifStatement The if statement to compile.
+     */
+    @Override
+    public void visit(IfStatement ifStatement) {
+        ConditionClosure test = compileCondition(ifStatement.getCondition());
+        StatementClosure thenBlock = compileStatement(ifStatement.getThenBlock());
+        if (ifStatement.getElseBlock() == null) {
+            statement = frame -> {
+                if (test.test(frame)) {
+                    thenBlock.execute(frame);
+                }
+            };
+            return;
+        }
+        StatementClosure elseBlock = compileStatement(ifStatement.getElseBlock());
+        statement = frame -> {
+            if (test.test(frame)) {
+                thenBlock.execute(frame);
+            } else {
+                elseBlock.execute(frame);
+            }
+        };
+    }
+
+    /**
+     * Compiles a while statement.
+     *
+     * @param whileStatement The while statement to compile.
+     */
+    @Override
+    public void visit(WhileStatement whileStatement) {
+        ConditionClosure test = compileCondition(whileStatement.getCondition());
+        StatementClosure body = compileStatement(whileStatement.getBlock());
+        statement = frame -> {
+            while (test.test(frame)) {
+                body.execute(frame);
+            }
+        };
+    }
+
+    /**
+     * Compiles a block into a closure executing its statements in order.
+     *
+     * @param block The block to compile.
+     */
+    @Override
+    public void visit(Block block) {
+        List<Statement> statements = block.getStatements();
+        StatementClosure[] closures = new StatementClosure[statements.size()];
+        for (int i = 0; i < closures.length; i++) {
+            closures[i] = compileStatement(statements.get(i));
+        }
+        switch (closures.length) {
+            case 0:
+                statement = frame -> {
+                };
+                break;
+            case 1:
+                statement = closures[0];
+                break;
+            default:
+                statement = frame -> {
+                    for (StatementClosure closure : closures) {
+                        closure.execute(frame);
+                    }
+                };
+        }
+    }
+
+    /**
+     * Compiles a literal number into a closure returning its value.
+     *
+     * @param literalNumber The literal number to compile.
+     */
+    @Override
+    public void visit(LiteralNumber literalNumber) {
+        int value = literalNumber.getValue();
+        expression = frame -> value;
+    }
+
+    /**
+     * Compiles a literal string used as an integer expression, which fails at
+     * run time.
+     *
+     * @param literalString The literal string to compile.
+     */
+    @Override
+    public void visit(LiteralString literalString) {
+        expression = frame -> {
+            throw new RuntimeException("Unknown expression type");
+        };
+    }
+
+    /**
+     * Compiles an identifier into a closure reading its slot, failing at run
+     * time if no integer was assigned to it.
+     *
+     * @param identifier The identifier to compile.
+     */
+    @Override
+    public void visit(Identifier identifier) {
+        int slot = resolver.getSlot(identifier);
+        String name = identifier.getName();
+        expression = frame -> {
+            if (!frame.defined[slot]) {
+                throw new RuntimeException("Error: Undefined variable - " + name);
+            }
+            return frame.values[slot];
+        };
+    }
+
+    /**
+     * Compiles a unary expression.
+     *
+     * @param unaryExpression The unary expression to compile.
+     */
+    @Override
+    public void visit(UnaryExpression unaryExpression) {
+        IntClosure operand = compileExpression(unaryExpression.getExpression());
+        switch (unaryExpression.getOperator()) {
+            case NEGATE:
+                expression = frame -> -operand.evaluate(frame);
+                break;
+        }
+    }
+
+    /**
+     * Compiles a binary expression into a closure specialised for its
+     * operator.
+     *
+     * @param binaryExpression The binary expression to compile.
+     */
+    @Override
+    public void visit(BinaryExpression binaryExpression) {
+        IntClosure left = compileExpression(binaryExpression.getLeft());
+        IntClosure right = compileExpression(binaryExpression.getRight());
+        switch (binaryExpression.getOperator()) {
+            case ADD:
+                expression = frame -> left.evaluate(frame) + right.evaluate(frame);
+                break;
+            case SUBTRACT:
+                expression = frame -> left.evaluate(frame) - right.evaluate(frame);
+                break;
+            case MULTIPLY:
+                expression = frame -> left.evaluate(frame) * right.evaluate(frame);
+                break;
+            case DIVIDE:
+                expression = frame -> {
+                    int leftValue = left.evaluate(frame);
+                    int rightValue = right.evaluate(frame);
+                    if (rightValue == 0) {
+                        throw new RuntimeException("Division by zero!");
+                    }
+                    return leftValue / rightValue;
+                };
+                break;
+        }
+    }
+
+    /**
+     * Compiles a condition into a closure specialised for its operator.
+     *
+     * @param condition The condition to compile.
+     */
+    @Override
+    public void visit(Condition condition) {
+        IntClosure left = compileExpression(condition.getLeft());
+        IntClosure right = compileExpression(condition.getRight());
+        switch (condition.getOperator()) {
+            case EQUAL:
+                this.condition = frame -> left.evaluate(frame) == right.evaluate(frame);
+                break;
+            case NOT_EQUAL:
+                this.condition = frame -> left.evaluate(frame) != right.evaluate(frame);
+                break;
+            case LESS:
+                this.condition = frame -> left.evaluate(frame) < right.evaluate(frame);
+                break;
+            case LESS_EQUAL:
+                this.condition = frame -> left.evaluate(frame) <= right.evaluate(frame);
+                break;
+            case GREATER:
+                this.condition = frame -> left.evaluate(frame) > right.evaluate(frame);
+                break;
+            case GREATER_EQUAL:
+                this.condition = frame -> left.evaluate(frame) >= right.evaluate(frame);
+                break;
+        }
+    }
+
+    /**
+     * Compiles an expression.
+     *
+     * @param node The expression to compile.
+     * @return The closure evaluating the expression.
+     */
+    private IntClosure compileExpression(Expression node) {
+        node.accept(this);
+        return expression;
+    }
+
+    /**
+     * Compiles a condition.
+     *
+     * @param node The condition to compile.
+     * @return The closure evaluating the condition.
+     */
+    private ConditionClosure compileCondition(Condition node) {
+        node.accept(this);
+        return condition;
+    }
+
+    /**
+     * Compiles a statement or a block.
+     *
+     * @param node The statement or block to compile.
+     * @return The closure executing the statement.
+     */
+    private StatementClosure compileStatement(Node node) {
+        node.accept(this);
+        return statement;
+    }
+}
@@ -1,20 +1,81 @@
 package com.inf5153.ast.visitor;
 
 import com.inf5153.ast.*;
+import com.inf5153.utils.InputSource;
+import com.inf5153.utils.OutputSink;
 
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Scanner;
+import java.util.Arrays;
 
 /**
- * The ASTCodeExecutor class implements the Visitor pattern to executes the code
- * (Java style)
- * represented by an Abstract Syntax Tree.
+ * The ASTCodeExecutor class implements the Visitor pattern to execute the code
+ * (Java style) represented by an Abstract Syntax Tree.
+ * <p>
+ * Before running a program, an {@link ASTSlotBinder} copies it, binding each
+ * identifier to the slot of its variable once and for all. Variables are then
+ * held in arrays indexed by slot, sized once for the whole run: integer
+ * values, whether an integer was assigned, and string values. Accessing a
+ * variable thus neither hashes its name nor grows the arrays. An executor
+ * runs a program from its root block.
+ * <p>
+ * Printed values go to an {@link OutputSink}, which is flushed before reading
+ * interactive input and when the outermost block ends, even if the program
+ * fails. Read values come from a single {@link InputSource} for the whole run.
+ * <p>
+ * Statements are executed by a {@link Walker}, so that programs nested
+ * arbitrarily deep do not overflow the Java stack. Expressions do not go
+ * through the walker, which would allocate an action for each operator
+ * evaluated: they are evaluated recursively, which is fastest, down to
+ * {@link #MAX_RECURSION} levels, and with an explicit operand stack below.
+ * <p>
+ * An executor holds the state of a single run. To run the same program many
+ * times, or from many threads at once, compile it with the
+ * {@link ASTClosureCompiler} or the {@link ASTRegisterCompiler}, whose
+ * programs keep each run's state apart; the
+ * {@link com.inf5153.pipeline.Pipeline} runs register programs. The executor
+ * remains the reference the compiled programs are checked against.
  */
-public class ASTCodeExecutor implements Visitor {
-    private final Map<String, Integer> variables = new HashMap<>();
-    private final Map<String, String> stringVariables = new HashMap<>();
+public final class ASTCodeExecutor implements Visitor {
+    private static final int MAX_RECURSION = 64; // Expression depth evaluated recursively
+    private int[] values = new int[0]; // Integer value of each variable
+    private boolean[] defined = new boolean[0]; // Whether an integer was assigned to each variable
+    private String[] strings = new String[0]; // String value of each variable, null if none
+    private final Walker walker = new Walker(this); // Executes the statements
+    private Expression[] pending = new Expression[16]; // Expressions being evaluated, the next one on top
+    private boolean[] applying = new boolean[16]; // Whether the operands of each pending expression are evaluated
+    private int[] operands = new int[16]; // Values of the evaluated operands
+    private final OutputSink out; // Receives the printed values
+    private final InputSource in; // Supplies the values read
+
+    /**
+     * Constructs an ASTCodeExecutor reading from the standard input and
+     * printing to the standard output.
+     */
+    public ASTCodeExecutor() {
+        this(OutputSink.standardOutput());
+    }
+
+    /**
+     * Constructs an ASTCodeExecutor reading from the standard input and
+     * printing to a sink.
+     *
+     * @param out the sink receiving the printed values
+     */
+    public ASTCodeExecutor(OutputSink out) {
+        this(out, InputSource.standardInput());
+    }
+
+    /**
+     * Constructs an ASTCodeExecutor reading from a source and printing to a
+     * sink.
+     *
+     * @param out the sink receiving the printed values
+     * @param in  the source supplying the values read
+     */
+    public ASTCodeExecutor(OutputSink out, InputSource in) {
+        this.out = out;
+        this.in = in;
+    }
 
     /**
      * Executes an assignment statement by storing the value of an expression in a
@@ -24,49 +85,53 @@ public class ASTCodeExecutor implements Visitor {
      */
     @Override
     public void visit(Assignment assignment) {
-        String identifier = assignment.getIdentifier().getName();
+        int slot = slotOf(assignment.getIdentifier());
         if (assignment.getExpression() instanceof LiteralString) {
-            String value = ((LiteralString) assignment.getExpression()).getValue();
-            stringVariables.put(identifier, value);
+            strings[slot] = ((LiteralString) assignment.getExpression()).getValue();
         } else {
-            int value = evaluateExpression(assignment.getExpression());
-            variables.put(identifier, value);
+            values[slot] = evaluateExpression(assignment.getExpression());
+            defined[slot] = true;
         }
     }
 
     /**
      * Executes a print statement by printing the evaluated value of an expression.
+     * A variable holding a string prints the string.
      *
      * @param printStatement The print statement to execute.
      */
     @Override
     public void visit(PrintStatement printStatement) {
         Expression ex = printStatement.getExpression();
-        String name = ((Identifier) ex).getName();
-        if (stringVariables.containsKey(name)) {
-            System.out.println(stringVariables.get(name));
-            return;
+        if (ex instanceof Identifier) {
+            String string = strings[slotOf((Identifier) ex)];
+            if (string != null) {
+                out.println(string);
+                return;
+            }
         }
         int value = evaluateExpression(printStatement.getExpression());
-        System.out.println(value);
+        out.println(value);
     }
 
     /**
-     * Executes a read statement by reading an integer value from standard input and
-     * assigning it to the identifier.
+     * Executes a read statement by reading an integer value from the input source
+     * and assigning it to the identifier.
      *
      * @param readStatement The read statement to execute.
      */
     @Override
     public void visit(ReadStatement readStatement) {
-        @SuppressWarnings("resource")
-        Scanner scanner = new Scanner(System.in);
         if (readStatement.getLiteralString() != null) {
-            System.out.print(readStatement.getLiteralString().getValue() + " ");
+            out.print(readStatement.getLiteralString().getValue() + " ");
+        }
+        if (in.isInteractive()) {
+            out.flush();
         }
-        int value = scanner.nextInt();
-        String identifier = readStatement.getIdentifier().getName();
-        variables.put(identifier, value);
+        int value = in.readInt();
+        int slot = slotOf(readStatement.getIdentifier());
+        values[slot] = value;
+        defined[slot] = true;
 
     }
 
@@ -80,102 +145,182 @@ public class ASTCodeExecutor implements Visitor {
     public void visit(IfStatement ifStatement) {
         boolean conditionResult = evaluateCondition(ifStatement.getCondition());
         if (conditionResult) {
-            ifStatement.getThenBlock().accept(this);
+            walker.schedule(ifStatement.getThenBlock());
         } else if (ifStatement.getElseBlock() != null) {
-            ifStatement.getElseBlock().accept(this);
+            walker.schedule(ifStatement.getElseBlock());
         }
     }
 
     /**
      * Executes a while statement by repeatedly executing the block while the
-     * condition is true.
+     * condition is true. When the walker cannot run the block right away, the
+     * block is scheduled once, followed by the while statement itself.
      *
      * @param whileStatement The while statement to execute.
      */
     @Override
     public void visit(WhileStatement whileStatement) {
-        while (evaluateCondition(whileStatement.getCondition())) {
-            whileStatement.getBlock().accept(this);
+        if (walker.runsNow()) {
+            while (evaluateCondition(whileStatement.getCondition())) {
+                walker.schedule(whileStatement.getBlock());
+            }
+        } else if (evaluateCondition(whileStatement.getCondition())) {
+            walker.schedule(whileStatement.getBlock());
+            walker.schedule(whileStatement);
         }
     }
 
     /**
-     * Executes a block by executing all contained statements sequentially.
+     * Executes a block by executing all contained statements sequentially. The
+     * outermost block is bound to slots before it runs.
      *
      * @param block The block to execute.
      */
     @Override
     public void visit(Block block) {
-        for (Statement statement : block.getStatements()) {
-            statement.accept(this);
+        if (walker.isWalking()) {
+            for (Statement statement : block.getStatements()) {
+                walker.schedule(statement);
+            }
+            return;
         }
+        ASTSlotBinder binder = new ASTSlotBinder();
+        Block program = binder.bind(block);
+        int slotCount = binder.getSlotCount();
+        values = new int[slotCount];
+        defined = new boolean[slotCount];
+        strings = new String[slotCount];
+        try {
+            walker.walk(program);
+        } finally {
+            out.flush();
+        }
+    }
+
+    /**
+     * Returns the slot of the variable named by an identifier of the bound
+     * program.
+     *
+     * @param identifier The identifier naming the variable.
+     * @return The slot of the variable.
+     */
+    private static int slotOf(Identifier identifier) {
+        return ((SlotIdentifier) identifier).getSlot();
     }
 
     /**
-     * Evaluates an expression and returns its integer value.
+     * Evaluates an expression and returns its integer value. Operands are
+     * evaluated from left to right.
      *
      * @param expression The expression to evaluate.
      * @return The evaluated value.
      */
     private int evaluateExpression(Expression expression) {
+        return evaluateExpression(expression, 0);
+    }
+
+    /**
+     * Evaluates an expression recursively, switching to an explicit stack
+     * past {@link #MAX_RECURSION} levels.
+     *
+     * @param expression The expression to evaluate.
+     * @param depth      The number of enclosing expressions evaluated recursively.
+     * @return The evaluated value.
+     */
+    private int evaluateExpression(Expression expression, int depth) {
         if (expression instanceof LiteralNumber) {
             return ((LiteralNumber) expression).getValue();
         } else if (expression instanceof Identifier) {
-            String name = ((Identifier) expression).getName();
-            if (!variables.containsKey(name)) {
-                throw new RuntimeException("Error: Undefined variable - " + name);
-            }
-            return variables.get(name);
-        } else if (expression instanceof UnaryExpression) {
-            UnaryExpression unaryExpression = (UnaryExpression) expression;
-            return evaluateUnaryExpression(unaryExpression);
+            return valueOf((Identifier) expression);
+        } else if (depth == MAX_RECURSION) {
+            return evaluateIteratively(expression);
         } else if (expression instanceof BinaryExpression) {
             BinaryExpression binaryExpression = (BinaryExpression) expression;
-            return evaluateBinaryExpression(binaryExpression);
+            int leftValue = evaluateExpression(binaryExpression.getLeft(), depth + 1);
+            int rightValue = evaluateExpression(binaryExpression.getRight(), depth + 1);
+            return binaryExpression.getOperator().apply(leftValue, rightValue);
+        } else if (expression instanceof UnaryExpression) {
+            UnaryExpression unaryExpression = (UnaryExpression) expression;
+            return unaryExpression.getOperator().apply(evaluateExpression(unaryExpression.getExpression(), depth + 1));
         }
         throw new RuntimeException("Unknown expression type");
     }
 
     /**
-     * Evaluates a unary expression and returns its integer value.
+     * Evaluates an expression with an explicit stack of pending expressions
+     * and one of operand values. An operator is applied once its operands are
+     * evaluated.
      *
-     * @param unaryExpression The unary expression to evaluate.
+     * @param expression The expression to evaluate.
      * @return The evaluated value.
      */
-    private int evaluateUnaryExpression(UnaryExpression unaryExpression) {
-        int value = evaluateExpression(unaryExpression.getExpression());
-        switch (unaryExpression.getOperator()) {
-            case "-":
-                return -value;
-            default:
-                throw new RuntimeException("Unsupported unary operator: " + unaryExpression.getOperator());
+    private int evaluateIteratively(Expression expression) {
+        int pendingCount = push(0, expression, false);
+        int operandCount = 0;
+        while (pendingCount > 0) {
+            Expression current = pending[--pendingCount];
+            if (operandCount + 1 >= operands.length) {
+                operands = Arrays.copyOf(operands, operands.length * 2);
+            }
+            if (applying[pendingCount]) {
+                if (current instanceof BinaryExpression) {
+                    int rightValue = operands[--operandCount];
+                    operands[operandCount - 1] = ((BinaryExpression) current).getOperator()
+                            .apply(operands[operandCount - 1], rightValue);
+                } else {
+                    operands[operandCount - 1] = ((UnaryExpression) current).getOperator()
+                            .apply(operands[operandCount - 1]);
+                }
+            } else if (current instanceof LiteralNumber) {
+                operands[operandCount++] = ((LiteralNumber) current).getValue();
+            } else if (current instanceof Identifier) {
+                operands[operandCount++] = valueOf((Identifier) current);
+            } else if (current instanceof UnaryExpression) {
+                pendingCount = push(pendingCount, current, true);
+                pendingCount = push(pendingCount, ((UnaryExpression) current).getExpression(), false);
+            } else if (current instanceof BinaryExpression) {
+                BinaryExpression binaryExpression = (BinaryExpression) current;
+                pendingCount = push(pendingCount, current, true);
+                pendingCount = push(pendingCount, binaryExpression.getRight(), false);
+                pendingCount = push(pendingCount, binaryExpression.getLeft(), false);
+            } else {
+                throw new RuntimeException("Unknown expression type");
+            }
         }
+        return operands[0];
     }
 
     /**
-     * Evaluates a binary expression and returns its integer value.
+     * Pushes an expression on the stack of pending expressions.
      *
-     * @param binaryExpression The binary expression to evaluate.
-     * @return The evaluated value.
+     * @param pendingCount The number of pending expressions.
+     * @param expression   The expression to push.
+     * @param isApplying   Whether its operands are evaluated.
+     * @return The new number of pending expressions.
      */
-    private int evaluateBinaryExpression(BinaryExpression binaryExpression) {
-        int leftValue = evaluateExpression(binaryExpression.getLeft());
-        int rightValue = evaluateExpression(binaryExpression.getRight());
-        switch (binaryExpression.getOperator()) {
-            case "+":
-                return leftValue + rightValue;
-            case "-":
-                return leftValue - rightValue;
-            case "*":
-                return leftValue * rightValue;
-            case "/":
-                if (rightValue == 0) {
-                    throw new RuntimeException("Division by zero!");
-                }
-                return leftValue / rightValue;
-            default:
-                throw new RuntimeException("Unsupported operator: " + binaryExpression.getOperator());
+    private int push(int pendingCount, Expression expression, boolean isApplying) {
+        if (pendingCount == pending.length) {
+            pending = Arrays.copyOf(pending, pendingCount * 2);
+            applying = Arrays.copyOf(applying, pendingCount * 2);
+        }
+        pending[pendingCount] = expression;
+        applying[pendingCount] = isApplying;
+        return pendingCount + 1;
+    }
+
+    /**
+     * Returns the integer value of a variable.
+     *
+     * @param identifier The identifier naming the variable.
+     * @return The value of the variable.
+     * @throws RuntimeException if no integer was assigned to the variable
+     */
+    private int valueOf(Identifier identifier) {
+        int slot = slotOf(identifier);
+        if (!defined[slot]) {
+            throw new RuntimeException("Error: Undefined variable - " + identifier.getName());
         }
+        return values[slot];
     }
 
     /**
@@ -187,22 +332,7 @@ public class ASTCodeExecutor implements Visitor {
     private boolean evaluateCondition(Condition condition) {
         int leftValue = evaluateExpression(condition.getLeft());
         int rightValue = evaluateExpression(condition.getRight());
-        switch (condition.getOperator()) {
-            case "==":
-                return leftValue == rightValue;
-            case "!=":
-                return leftValue != rightValue;
-            case "<":
-                return leftValue < rightValue;
-            case "<=":
-                return leftValue <= rightValue;
-            case ">":
-                return leftValue > rightValue;
-            case ">=":
-                return leftValue >= rightValue;
-            default:
-                throw new RuntimeException("Unsupported condition operator: " + condition.getOperator());
-        }
+        return condition.getOperator().test(leftValue, rightValue);
     }
 
     // Unused visit methods
@@ -4,17 +4,39 @@ import java.util.ArrayList;
 import java.util.List;
 
 import com.inf5153.ast.*;
+import com.inf5153.utils.OutputSink;
 
 
 /**
  * The ASTCodePrinter class implements the Visitor pattern to print the Abstract
  * Syntax Tree (AST) nodes in a formatted and indented manner. It also maintains
- * a list of nodes encountered during the traversal.
+ * a list of nodes encountered during the traversal. The code is printed to an
+ * {@link OutputSink}, flushed once the outermost block is printed. The tree is
+ * walked by a {@link Walker}, which prints the closing parts of a node once its
+ * children are printed, so that trees of any depth can be printed.
  */
-public class ASTCodePrinter implements Visitor {
+public final class ASTCodePrinter implements Visitor {
 
     private int indentationLevel = 0; // Current level of indentation for printing
     private List<Node> nodeList = new ArrayList<>(); // List of nodes visited during the traversal
+    private final OutputSink out; // Receives the printed code
+    private final Walker walker = new Walker(this); // Walks the tree without recursion
+
+    /**
+     * Constructs an ASTCodePrinter printing to the standard output.
+     */
+    public ASTCodePrinter() {
+        this(OutputSink.standardOutput());
+    }
+
+    /**
+     * Constructs an ASTCodePrinter printing to a sink.
+     *
+     * @param out the sink receiving the printed code
+     */
+    public ASTCodePrinter(OutputSink out) {
+        this.out = out;
+    }
 
     /**
      * Visits an Assignment node and prints its representation.
@@ -26,9 +48,9 @@ public class ASTCodePrinter implements Visitor {
     public void visit(Assignment assignment) {
         addNode(assignment);
         printIndentation();
-        System.out.print(assignment.getIdentifier().getName() + " = ");
-        assignment.getExpression().accept(this);
-        System.out.println(";");
+        out.print(assignment.getIdentifier().getName() + " = ");
+        walker.schedule(assignment.getExpression());
+        walker.schedule(() -> out.println(";"));
     }
 
     /**
@@ -40,11 +62,11 @@ public class ASTCodePrinter implements Visitor {
     @Override
     public void visit(BinaryExpression binaryExpression) {
         addNode(binaryExpression);
-        System.out.print("(");
-        binaryExpression.getLeft().accept(this);
-        System.out.print(" " + binaryExpression.getOperator() + " ");
-        binaryExpression.getRight().accept(this);
-        System.out.print(")");
+        out.print("(");
+        walker.schedule(binaryExpression.getLeft());
+        walker.schedule(() -> out.print(" " + binaryExpression.getOperator() + " "));
+        walker.schedule(binaryExpression.getRight());
+        walker.schedule(() -> out.print(")"));
     }
 
     /**
@@ -57,14 +79,19 @@ public class ASTCodePrinter implements Visitor {
     public void visit(Block block) {
         addNode(block);
         printIndentation();
-        System.out.println("{");
+        out.println("{");
         indentationLevel++;
         for (Statement statement : block.getStatements()) {
-            statement.accept(this);
+            walker.schedule(statement);
         }
-        indentationLevel--;
-        printIndentation();
-        System.out.println("}");
+        walker.schedule(() -> {
+            indentationLevel--;
+            printIndentation();
+            out.println("}");
+            if (indentationLevel == 0) {
+                out.flush();
+            }
+        });
     }
 
     /**
@@ -76,11 +103,11 @@ public class ASTCodePrinter implements Visitor {
     @Override
     public void visit(Condition condition) {
         addNode(condition);
-        System.out.print("(");
-        condition.getLeft().accept(this);
-        System.out.print(" " + condition.getOperator() + " ");
-        condition.getRight().accept(this);
-        System.out.print(")");
+        out.print("(");
+        walker.schedule(condition.getLeft());
+        walker.schedule(() -> out.print(" " + condition.getOperator() + " "));
+        walker.schedule(condition.getRight());
+        walker.schedule(() -> out.print(")"));
     }
 
     /**
@@ -92,7 +119,7 @@ public class ASTCodePrinter implements Visitor {
     @Override
     public void visit(Identifier identifier) {
         addNode(identifier);
-        System.out.print(identifier.getName());
+        out.print(identifier.getName());
     }
 
     /**
@@ -105,18 +132,22 @@ public class ASTCodePrinter implements Visitor {
     public void visit(IfStatement ifStatement) {
         addNode(ifStatement);
         printIndentation();
-        System.out.print("if (");
-        ifStatement.getCondition().accept(this);
-        System.out.println(") then ");
-        indentationLevel++;
-        ifStatement.getThenBlock().accept(this);
-        indentationLevel--;
-        if (ifStatement.getElseBlock() != null) {
-            printIndentation();
-            System.out.println("else ");
+        out.print("if (");
+        walker.schedule(ifStatement.getCondition());
+        walker.schedule(() -> {
+            out.println(") then ");
             indentationLevel++;
-            ifStatement.getElseBlock().accept(this);
-            indentationLevel--;
+        });
+        walker.schedule(ifStatement.getThenBlock());
+        walker.schedule(() -> indentationLevel--);
+        if (ifStatement.getElseBlock() != null) {
+            walker.schedule(() -> {
+                printIndentation();
+                out.println("else ");
+                indentationLevel++;
+            });
+            walker.schedule(ifStatement.getElseBlock());
+            walker.schedule(() -> indentationLevel--);
         }
     }
 
@@ -129,7 +160,7 @@ public class ASTCodePrinter implements Visitor {
     @Override
     public void visit(LiteralNumber literalNumber) {
         addNode(literalNumber);
-        System.out.print(literalNumber.getValue());
+        out.print(String.valueOf(literalNumber.getValue()));
     }
 
     /**
@@ -141,7 +172,7 @@ public class ASTCodePrinter implements Visitor {
     @Override
     public void visit(LiteralString literalString) {
         addNode(literalString);
-        System.out.print("\"" + literalString.getValue() + "\"");
+        out.print("\"" + literalString.getValue() + "\"");
     }
 
     /**
@@ -154,9 +185,9 @@ public class ASTCodePrinter implements Visitor {
     public void visit(PrintStatement printStatement) {
         addNode(printStatement);
         printIndentation();
-        System.out.print("print(");
-        printStatement.getExpression().accept(this);
-        System.out.println(");");
+        out.print("print(");
+        walker.schedule(printStatement.getExpression());
+        walker.schedule(() -> out.println(");"));
     }
 
     /**
@@ -169,9 +200,9 @@ public class ASTCodePrinter implements Visitor {
     public void visit(ReadStatement readStatement) {
         addNode(readStatement);
         printIndentation();
-        System.out.print("read(\"" + readStatement.getLiteralString().getValue() + "\", ");
-        readStatement.getIdentifier().accept(this);
-        System.out.println(");");
+        out.print("read(\"" + readStatement.getLiteralString().getValue() + "\", ");
+        walker.schedule(readStatement.getIdentifier());
+        walker.schedule(() -> out.println(");"));
     }
 
     /**
@@ -183,9 +214,9 @@ public class ASTCodePrinter implements Visitor {
     @Override
     public void visit(UnaryExpression unaryExpression) {
         addNode(unaryExpression);
-        System.out.print("(" + unaryExpression.getOperator());
-        unaryExpression.getExpression().accept(this);
-        System.out.print(")");
+        out.print("(" + unaryExpression.getOperator());
+        walker.schedule(unaryExpression.getExpression());
+        walker.schedule(() -> out.print(")"));
     }
 
     /**
@@ -198,12 +229,14 @@ public class ASTCodePrinter implements Visitor {
     public void visit(WhileStatement whileStatement) {
         addNode(whileStatement);
         printIndentation();
-        System.out.print("while (");
-        whileStatement.getCondition().accept(this);
-        System.out.println(") ");
-        indentationLevel++;
-        whileStatement.getBlock().accept(this);
-        indentationLevel--;
+        out.print("while (");
+        walker.schedule(whileStatement.getCondition());
+        walker.schedule(() -> {
+            out.println(") ");
+            indentationLevel++;
+        });
+        walker.schedule(whileStatement.getBlock());
+        walker.schedule(() -> indentationLevel--);
     }
 
     /**
@@ -212,7 +245,7 @@ public class ASTCodePrinter implements Visitor {
      */
     private void printIndentation() {
         for (int i = 0; i < indentationLevel; i++) {
-            System.out.print("  ");
+            out.print("  ");
         }
     }
 
@@ -231,9 +264,10 @@ public class ASTCodePrinter implements Visitor {
      * Each node is printed with its string representation.
      */
     public void printNodeList() {
-        System.out.println("\nNodes list:");
+        out.println("\nNodes list:");
         for (Node node : nodeList) {
-            System.out.println(node.toString());
+            out.println(node.toString());
         }
+        out.flush();
     }
 }
@@ -0,0 +1,419 @@
+package com.inf5153.ast.visitor;
+
+import com.inf5153.ast.*;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * The ASTConstantFolder class implements the Visitor pattern to simplify an
+ * Abstract Syntax Tree before it is executed or translated. It folds
+ * arithmetic on literal numbers, propagates the values of variables assigned a
+ * constant, removes the operations that have no effect (such as {@code x + 0}
+ * or {@code x * 1}), and removes the if and while statements whose condition
+ * is known at compile time.
+ * <p>
+ * The original tree is left untouched; the folded program is a new, smaller
+ * tree sharing the nodes that did not change. Running it behaves like running
+ * the original program, including its runtime errors: divisions by zero and
+ * reads of undefined variables are never folded away.
+ * <p>
+ * The tree is walked by a {@link Walker}, each node scheduling the work that
+ * uses the folded forms of its children after them, so that programs and
+ * expressions of any depth can be folded.
+ */
+public final class ASTConstantFolder implements Visitor {
+    private Map<String, Integer> constants = new HashMap<>(); // Known value of the variables holding a constant
+    private Set<String> stringVariables = new HashSet<>(); // Variables assigned a string somewhere in the program
+    private List<Statement> statements; // The folded statements of the block being visited
+    private Expression expression; // The folded form of the last expression visited
+    private Boolean decided; // The value of the last condition visited, null if not known at compile time
+    private Condition condition; // The folded form of the last condition visited
+    private final Walker walker = new Walker(this); // Walks the tree without recursion
+
+    /**
+     * Folds a program.
+     *
+     * @param program The block of statements forming the program.
+     * @return The folded program.
+     */
+    public Block fold(Block program) {
+        ASTAssignmentsCollector collector = new ASTAssignmentsCollector();
+        program.accept(collector);
+        stringVariables = new HashSet<>();
+        for (Assignment assignment : collector.getAssignments()) {
+            if (assignment.getExpression() instanceof LiteralString) {
+                stringVariables.add(assignment.getIdentifier().getName());
+            }
+        }
+        constants = new HashMap<>();
+        statements = new ArrayList<>();
+        walker.walk(program);
+        return (Block) statements.get(0);
+    }
+
+    /**
+     * Folds the expression of an assignment, and records the value of the
+     * variable if it becomes a constant.
+     *
+     * @param assignment The assignment statement to fold.
+     */
+    @Override
+    public void visit(Assignment assignment) {
+        if (assignment.getExpression() instanceof LiteralString) {
+            statements.add(assignment);
+            return;
+        }
+        foldExpression(assignment.getExpression(), value -> {
+            String name = assignment.getIdentifier().getName();
+            if (value instanceof LiteralNumber) {
+                constants.put(name, ((LiteralNumber) value).getValue());
+            } else {
+                constants.remove(name);
+            }
+            statements.add(value == assignment.getExpression()
+                    ? assignment
+                    : new Assignment(assignment.getIdentifier(), value));
+        });
+    }
+
+    /**
+     * Folds the expression of a print statement. A variable that may hold a
+     * string is printed as is, since its string would be printed instead of
+     * its value.
+     *
+     * @param printStatement The print statement to fold.
+     */
+    @Override
+    public void visit(PrintStatement printStatement) {
+        Expression printed = printStatement.getExpression();
+        if (printed instanceof Identifier && stringVariables.contains(((Identifier) printed).getName())) {
+            statements.add(printStatement);
+            return;
+        }
+        foldExpression(printed, value -> statements.add(value == printed ? printStatement : new PrintStatement(value)));
+    }
+
+    /**
+     * Keeps a read statement, whose variable is no longer a constant.
+     *
+     * @param readStatement The read statement to fold.
+     */
+    @Override
+    public void visit(ReadStatement readStatement) {
+        constants.remove(readStatement.getIdentifier().getName());
+        statements.add(readStatement);
+    }
+
+    /**
+     * Folds an if statement. When its condition is known, the statements of
+     * the taken block replace the if statement. Otherwise both blocks are
+     * folded, and only the constants agreed on by both are kept.
+     *
+     * @param ifStatement The if statement to fold.
+     */
+    @Override
+    public void visit(IfStatement ifStatement) {
+        foldCondition(ifStatement.getCondition(), () -> {
+            if (decided != null) {
+                Block taken = decided ? ifStatement.getThenBlock() : ifStatement.getElseBlock();
+                if (taken != null) {
+                    for (Statement statement : taken.getStatements()) {
+                        walker.schedule(statement);
+                    }
+                }
+                return;
+            }
+            Condition test = condition;
+            Map<String, Integer> before = new HashMap<>(constants);
+            foldBlock(ifStatement.getThenBlock(), thenBlock -> {
+                Map<String, Integer> afterThen = constants;
+                constants = before;
+                if (ifStatement.getElseBlock() == null) {
+                    mergeBranches(test, thenBlock, null, afterThen);
+                } else {
+                    foldBlock(ifStatement.getElseBlock(),
+                            elseBlock -> mergeBranches(test, thenBlock, elseBlock, afterThen));
+                }
+            });
+        });
+    }
+
+    /**
+     * Adds a folded if statement whose condition is not known, keeping only
+     * the constants agreed on by both of its blocks.
+     *
+     * @param test      The folded condition.
+     * @param thenBlock The folded then block.
+     * @param elseBlock The folded else block, or null if there is none.
+     * @param afterThen The constants known after the then block.
+     */
+    private void mergeBranches(Condition test, Block thenBlock, Block elseBlock, Map<String, Integer> afterThen) {
+        constants.entrySet().removeIf(entry -> !entry.getValue().equals(afterThen.get(entry.getKey())));
+        statements.add(new IfStatement(test, thenBlock, elseBlock));
+    }
+
+    /**
+     * Folds a while statement. The variables assigned in its body are not
+     * constants in its condition nor in its body, since they change from one
+     * iteration to the next. A loop whose condition is false is removed.
+     *
+     * @param whileStatement The while statement to fold.
+     */
+    @Override
+    public void visit(WhileStatement whileStatement) {
+        Set<String> assigned = new HashSet<>();
+        collectAssignedVariables(whileStatement.getBlock(), assigned);
+        constants.keySet().removeAll(assigned);
+        foldCondition(whileStatement.getCondition(), () -> {
+            if (Boolean.FALSE.equals(decided)) {
+                return;
+            }
+            Condition test = condition;
+            Map<String, Integer> before = new HashMap<>(constants);
+            foldBlock(whileStatement.getBlock(), body -> {
+                constants = before;
+                statements.add(new WhileStatement(test, body));
+            });
+        });
+    }
+
+    /**
+     * Folds a block nested in another block.
+     *
+     * @param block The block to fold.
+     */
+    @Override
+    public void visit(Block block) {
+        foldBlock(block, folded -> statements.add(folded));
+    }
+
+    /**
+     * Keeps a literal number.
+     *
+     * @param literalNumber The literal number to fold.
+     */
+    @Override
+    public void visit(LiteralNumber literalNumber) {
+        expression = literalNumber;
+    }
+
+    /**
+     * Keeps a literal string.
+     *
+     * @param literalString The literal string to fold.
+     */
+    @Override
+    public void visit(LiteralString literalString) {
+        expression = literalString;
+    }
+
+    /**
+     * Replaces a variable holding a constant by its value.
+     *
+     * @param identifier The identifier to fold.
+     */
+    @Override
+    public void visit(Identifier identifier) {
+        Integer value = constants.get(identifier.getName());
+        expression = value != null ? new LiteralNumber(value) : identifier;
+    }
+
+    /**
+     * Folds a unary expression, computing it if its operand is a literal
+     * number.
+     *
+     * @param unaryExpression The unary expression to fold.
+     */
+    @Override
+    public void visit(UnaryExpression unaryExpression) {
+        foldExpression(unaryExpression.getExpression(), operand -> {
+            if (operand instanceof LiteralNumber) {
+                expression = new LiteralNumber(unaryExpression.getOperator().apply(((LiteralNumber) operand).getValue()));
+            } else if (operand != unaryExpression.getExpression()) {
+                expression = new UnaryExpression(operand, unaryExpression.getOperator());
+            } else {
+                expression = unaryExpression;
+            }
+        });
+    }
+
+    /**
+     * Folds a binary expression, computing it if both operands are literal
+     * numbers, and removing the operations that have no effect.
+     *
+     * @param binaryExpression The binary expression to fold.
+     */
+    @Override
+    public void visit(BinaryExpression binaryExpression) {
+        foldExpression(binaryExpression.getLeft(), left -> foldExpression(binaryExpression.getRight(), right -> {
+            BinaryOperator operator = binaryExpression.getOperator();
+            if (left instanceof LiteralNumber && right instanceof LiteralNumber
+                    && !(operator == BinaryOperator.DIVIDE && isLiteral(right, 0))) {
+                expression = new LiteralNumber(operator.apply(((LiteralNumber) left).getValue(),
+                        ((LiteralNumber) right).getValue()));
+            } else if (isIdentity(operator, right, false) && !mayBeString(left)) {
+                expression = left;
+            } else if (isIdentity(operator, left, true) && !mayBeString(right)) {
+                expression = right;
+            } else if (left != binaryExpression.getLeft() || right != binaryExpression.getRight()) {
+                expression = new BinaryExpression(left, operator, right);
+            } else {
+                expression = binaryExpression;
+            }
+        }));
+    }
+
+    /**
+     * Folds a condition, deciding it if both operands are literal numbers.
+     *
+     * @param condition The condition to fold.
+     */
+    @Override
+    public void visit(Condition condition) {
+        foldExpression(condition.getLeft(), left -> foldExpression(condition.getRight(), right -> {
+            if (left instanceof LiteralNumber && right instanceof LiteralNumber) {
+                decided = condition.getOperator().test(((LiteralNumber) left).getValue(),
+                        ((LiteralNumber) right).getValue());
+            } else {
+                decided = null;
+            }
+            this.condition = left != condition.getLeft() || right != condition.getRight()
+                    ? new Condition(left, condition.getOperator(), right)
+                    : condition;
+        }));
+    }
+
+    /**
+     * Checks whether an expression may evaluate to a string: a literal string,
+     * or a variable assigned a string somewhere in the program. Removing the
+     * operation around such an operand would change what the program does,
+     * since a string is printed where its operation fails.
+     *
+     * @param expression The expression to check.
+     * @return true if the expression may be a string.
+     */
+    private boolean mayBeString(Expression expression) {
+        return expression instanceof LiteralString
+                || expression instanceof Identifier && stringVariables.contains(((Identifier) expression).getName());
+    }
+
+    /**
+     * Checks whether an operand leaves the other operand unchanged: 0 for an
+     * addition, or a subtraction on the right; 1 for a multiplication, or a
+     * division on the right.
+     *
+     * @param operator The operator of the expression.
+     * @param operand  The operand to check.
+     * @param isLeft   Whether the operand is the left one.
+     * @return true if the operation has no effect.
+     */
+    private static boolean isIdentity(BinaryOperator operator, Expression operand, boolean isLeft) {
+        switch (operator) {
+            case ADD:
+                return isLiteral(operand, 0);
+            case MULTIPLY:
+                return isLiteral(operand, 1);
+            case SUBTRACT:
+                return !isLeft && isLiteral(operand, 0);
+            default:
+                return !isLeft && isLiteral(operand, 1);
+        }
+    }
+
+    /**
+     * Checks whether an expression is the given literal number.
+     *
+     * @param expression The expression to check.
+     * @param value      The expected value.
+     * @return true if the expression is a literal number of this value.
+     */
+    private static boolean isLiteral(Expression expression, int value) {
+        return expression instanceof LiteralNumber && ((LiteralNumber) expression).getValue() == value;
+    }
+
+    /**
+     * Adds the names of the variables assigned or read in a statement to a
+     * set. Nested statements are kept on an explicit stack.
+     *
+     * @param statement The statement to inspect.
+     * @param names     The set receiving the names.
+     */
+    private static void collectAssignedVariables(Statement statement, Set<String> names) {
+        Deque<Statement> pending = new ArrayDeque<>();
+        pending.push(statement);
+        while (!pending.isEmpty()) {
+            Statement current = pending.pop();
+            if (current instanceof Assignment) {
+                names.add(((Assignment) current).getIdentifier().getName());
+            } else if (current instanceof ReadStatement) {
+                names.add(((ReadStatement) current).getIdentifier().getName());
+            } else if (current instanceof Block) {
+                for (Statement child : ((Block) current).getStatements()) {
+                    pending.push(child);
+                }
+            } else if (current instanceof IfStatement) {
+                IfStatement ifStatement = (IfStatement) current;
+                pending.push(ifStatement.getThenBlock());
+                if (ifStatement.getElseBlock() != null) {
+                    pending.push(ifStatement.getElseBlock());
+                }
+            } else if (current instanceof WhileStatement) {
+                pending.push(((WhileStatement) current).getBlock());
+            }
+        }
+    }
+
+    /**
+     * Schedules the folding of an expression, then an action receiving its
+     * folded form.
+     *
+     * @param node The expression to fold.
+     * @param then The action receiving the folded expression.
+     */
+    private void foldExpression(Expression node, Consumer<Expression> then) {
+        walker.schedule(node);
+        walker.schedule(() -> then.accept(expression));
+    }
+
+    /**
+     * Schedules the folding of a condition, then an action reading
+     * {@link #condition} and {@link #decided}.
+     *
+     * @param node The condition to fold.
+     * @param then The action using the folded condition.
+     */
+    private void foldCondition(Condition node, Runnable then) {
+        walker.schedule(node);
+        walker.schedule(then);
+    }
+
+    /**
+     * Schedules the folding of the statements of a block into a new block,
+     * then an action receiving the folded block. Since the statements are
+     * collected from now on, nothing else may be scheduled before by the
+     * current visit or action.
+     *
+     * @param block The block to fold.
+     * @param then  The action receiving the folded block.
+     */
+    private void foldBlock(Block block, Consumer<Block> then) {
+        List<Statement> outer = statements;
+        statements = new ArrayList<>();
+        for (Statement statement : block.getStatements()) {
+            walker.schedule(statement);
+        }
+        walker.schedule(() -> {
+            Block folded = new Block(statements);
+            statements = outer;
+            then.accept(folded);
+        });
+    }
+}
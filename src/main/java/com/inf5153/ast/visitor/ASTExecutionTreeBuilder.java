@@ -0,0 +1,239 @@
+package com.inf5153.ast.visitor;
+
+import com.inf5153.ast.*;
+import com.inf5153.node.AssignNode;
+import com.inf5153.node.AssignStringNode;
+import com.inf5153.node.BinaryNode;
+import com.inf5153.node.BlockNode;
+import com.inf5153.node.CompareNode;
+import com.inf5153.node.ConditionNode;
+import com.inf5153.node.ConstantNode;
+import com.inf5153.node.ExpressionNode;
+import com.inf5153.node.FailNode;
+import com.inf5153.node.IfNode;
+import com.inf5153.node.NegateNode;
+import com.inf5153.node.NodeProgram;
+import com.inf5153.node.PrintNode;
+import com.inf5153.node.ReadNode;
+import com.inf5153.node.StatementNode;
+import com.inf5153.node.VariableNode;
+import com.inf5153.node.WhileNode;
+
+import java.util.List;
+
+/**
+ * The ASTExecutionTreeBuilder class implements the Visitor pattern to build a
+ * tree of self-specialising execution nodes from an Abstract Syntax Tree.
+ * Binary expressions and conditions are built as uninitialized nodes that,
+ * on their first execution, rewrite themselves into nodes specialised for
+ * their operator and for a constant operand, so that a loop runs only
+ * specialised nodes after its first iteration. Running the tree behaves like
+ * the {@link ASTCodeExecutor}, including its error messages.
+ */
+public class ASTExecutionTreeBuilder implements Visitor {
+    private ExpressionNode expression; // The node of the last expression visited
+    private ConditionNode condition; // The node of the last condition visited
+    private StatementNode statement; // The node of the last statement or block visited
+    private ASTVariableResolver resolver; // The slots of the variables of the program
+
+    /**
+     * Builds the execution tree of a program.
+     *
+     * @param program The block of statements forming the program.
+     * @return The program, ready to run.
+     * @throws IllegalStateException if the program is nested deeper than
+     *                               {@link NestingLimit#MAX_DEPTH}
+     */
+    public NodeProgram build(Block program) {
+        NestingLimit.check(program, "execution tree builder");
+        resolver = new ASTVariableResolver();
+        program.accept(resolver);
+        return new NodeProgram(buildStatement(program), resolver.getSlotCount());
+    }
+
+    /**
+     * Builds the node of an assignment statement.
+     *
+     * @param assignment The assignment statement.
+     */
+    @Override
+    public void visit(Assignment assignment) {
+        int slot = resolver.getSlot(assignment.getIdentifier());
+        if (assignment.getExpression() instanceof LiteralString) {
+            statement = new AssignStringNode(slot, ((LiteralString) assignment.getExpression()).getValue());
+        } else {
+            statement = new AssignNode(slot, buildExpression(assignment.getExpression()));
+        }
+    }
+
+    /**
+     * Builds the node of a print statement.
+     *
+     * @param printStatement The print statement.
+     */
+    @Override
+    public void visit(PrintStatement printStatement) {
+        Expression printed = printStatement.getExpression();
+        int stringSlot = printed instanceof Identifier ? resolver.getSlot((Identifier) printed) : -1;
+        statement = new PrintNode(stringSlot, buildExpression(printed));
+    }
+
+    /**
+     * Builds the node of a read statement.
+     *
+     * @param readStatement The read statement.
+     */
+    @Override
+    public void visit(ReadStatement readStatement) {
+        String prompt = readStatement.getLiteralString() != null
+                ? readStatement.getLiteralString().getValue() + " "
+                : null;
+        statement = new ReadNode(resolver.getSlot(readStatement.getIdentifier()), prompt);
+    }
+
+    /**
+     * Builds the node of an if statement.
+     *
+     * @param ifStatement The if statement.
+     */
+    @Override
+    public void visit(IfStatement ifStatement) {
+        ConditionNode test = buildCondition(ifStatement.getCondition());
+        StatementNode thenBlock = buildStatement(ifStatement.getThenBlock());
+        StatementNode elseBlock = ifStatement.getElseBlock() != null
+                ? buildStatement(ifStatement.getElseBlock())
+                : null;
+        statement = new IfNode(test, thenBlock, elseBlock);
+    }
+
+    /**
+     * Builds the node of a while statement.
+     *
+     * @param whileStatement The while statement.
+     */
+    @Override
+    public void visit(WhileStatement whileStatement) {
+        ConditionNode test = buildCondition(whileStatement.getCondition());
+        statement = new WhileNode(test, buildStatement(whileStatement.getBlock()));
+    }
+
+    /**
+     * Builds the node of a block.
+     *
+     * @param block The block.
+     */
+    @Override
+    public void visit(Block block) {
+        List<Statement> statements = block.getStatements();
+        StatementNode[] nodes = new StatementNode[statements.size()];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = buildStatement(statements.get(i));
+        }
+        statement = new BlockNode(nodes);
+    }
+
+    /**
+     * Builds the node of a literal number.
+     *
+     * @param literalNumber The literal number.
+     */
+    @Override
+    public void visit(LiteralNumber literalNumber) {
+        expression = new ConstantNode(literalNumber.getValue());
+    }
+
+    /**
+     * Builds the node of a literal string used as an integer expression, which
+     * fails at run time.
+     *
+     * @param literalString The literal string.
+     */
+    @Override
+    public void visit(LiteralString literalString) {
+        expression = new FailNode("Unknown expression type");
+    }
+
+    /**
+     * Builds the node reading the variable named by an identifier.
+     *
+     * @param identifier The identifier.
+     */
+    @Override
+    public void visit(Identifier identifier) {
+        expression = new VariableNode(resolver.getSlot(identifier), identifier.getName());
+    }
+
+    /**
+     * Builds the node of a unary expression.
+     *
+     * @param unaryExpression The unary expression.
+     */
+    @Override
+    public void visit(UnaryExpression unaryExpression) {
+        ExpressionNode operand = buildExpression(unaryExpression.getExpression());
+        switch (unaryExpression.getOperator()) {
+            case NEGATE:
+                expression = new NegateNode(operand);
+                break;
+        }
+    }
+
+    /**
+     * Builds the node of a binary expression, which specialises itself when
+     * first executed.
+     *
+     * @param binaryExpression The binary expression.
+     */
+    @Override
+    public void visit(BinaryExpression binaryExpression) {
+        ExpressionNode left = buildExpression(binaryExpression.getLeft());
+        ExpressionNode right = buildExpression(binaryExpression.getRight());
+        expression = BinaryNode.create(binaryExpression.getOperator(), left, right);
+    }
+
+    /**
+     * Builds the node of a condition, which specialises itself when first
+     * executed.
+     *
+     * @param condition The condition.
+     */
+    @Override
+    public void visit(Condition condition) {
+        ExpressionNode left = buildExpression(condition.getLeft());
+        ExpressionNode right = buildExpression(condition.getRight());
+        this.condition = CompareNode.create(condition.getOperator(), left, right);
+    }
+
+    /**
+     * Builds the node of an expression.
+     *
+     * @param node The expression.
+     * @return The node evaluating the expression.
+     */
+    private ExpressionNode buildExpression(Expression node) {
+        node.accept(this);
+        return expression;
+    }
+
+    /**
+     * Builds the node of a condition.
+     *
+     * @param node The condition.
+     * @return The node evaluating the condition.
+     */
+    private ConditionNode buildCondition(Condition node) {
+        node.accept(this);
+        return condition;
+    }
+
+    /**
+     * Builds the node of a statement or a block.
+     *
+     * @param node The statement or block.
+     * @return The node executing the statement.
+     */
+    private StatementNode buildStatement(Node node) {
+        node.accept(this);
+        return statement;
+    }
+}
@@ -2,32 +2,63 @@ package com.inf5153.ast.visitor;
 
 import com.inf5153.ast.*;
 import com.inf5153.utils.FileUtils;
+import com.inf5153.utils.InMemoryJavaCompiler;
+import com.inf5153.utils.OutputSink;
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * The ASTJavaClassGenerator class implements the Visitor pattern to generate
  * Java source code from an Abstract Syntax Tree (AST).
- * It translates the AST nodes into Java code and writes the code to a file.
+ * It translates the AST nodes into Java code and writes the code to a file, or
+ * compiles it in memory and runs it right away. The tree is walked by a
+ * {@link Walker}, which appends the closing parts of a node once its children
+ * are appended, so that trees of any depth can be translated.
+ * <p>
+ * The code of the program goes in a static {@code run} method of the class,
+ * which hands the values printed to a {@link Consumer}. The {@code main}
+ * method runs it with {@code System.out::println}, so the written class runs
+ * on its own, while a class run in memory prints to the sink of the
+ * generator.
  */
-public class ASTJavaClassGenerator implements Visitor {
+public final class ASTJavaClassGenerator implements Visitor {
 
     private StringBuilder javaCode = new StringBuilder(); // StringBuilder to accumulate Java code
     private int indentationLevel = 2; // Current indentation level for formatting
     private String className; // Name of the generated Java class
+    private final OutputSink out; // Receives the path of the generated file, and the output of the classes run
+    private final Walker walker = new Walker(this); // Walks the tree without recursion
     private static final String PACKAGE_NAME = "com.inf5153.miniLang.javaGeneration"; // Package name
     private static final String BASE_PATH = "src/main/java"; // Base directory for saving the generated file
+    private static final String RUN_METHOD = "run"; // Method running the program
+    private static final String PRINTER = "$out"; // Parameter of the run method, not a valid variable of the language
 
     /**
-     * Constructs an ASTJavaClassGenerator with the specified class name.
+     * Constructs an ASTJavaClassGenerator with the specified class name,
+     * reporting the path of the generated file, and printing the output of the
+     * classes run, on the standard output.
      *
      * @param className the name of the Java class to generate
      */
     public ASTJavaClassGenerator(String className) {
+        this(className, OutputSink.standardOutput());
+    }
+
+    /**
+     * Constructs an ASTJavaClassGenerator with the specified class name,
+     * reporting the path of the generated file, and printing the output of the
+     * classes run, to a sink.
+     *
+     * @param className the name of the Java class to generate
+     * @param out       the sink receiving the path of the generated file and
+     *                  the output of the classes run
+     */
+    public ASTJavaClassGenerator(String className, OutputSink out) {
         this.className = className;
+        this.out = out;
     }
 
     /**
@@ -39,8 +70,8 @@ public class ASTJavaClassGenerator implements Visitor {
     public void visit(Assignment assignment) {
         addIndentation();
         javaCode.append(assignment.getIdentifier().getName()).append(" = ");
-        assignment.getExpression().accept(this);
-        javaCode.append(";\n");
+        walker.schedule(assignment.getExpression());
+        walker.schedule(() -> javaCode.append(";\n"));
     }
 
     /**
@@ -51,10 +82,10 @@ public class ASTJavaClassGenerator implements Visitor {
     @Override
     public void visit(BinaryExpression binaryExpression) {
         javaCode.append("(");
-        binaryExpression.getLeft().accept(this);
-        javaCode.append(" ").append(binaryExpression.getOperator()).append(" ");
-        binaryExpression.getRight().accept(this);
-        javaCode.append(")");
+        walker.schedule(binaryExpression.getLeft());
+        walker.schedule(() -> javaCode.append(" ").append(binaryExpression.getOperator()).append(" "));
+        walker.schedule(binaryExpression.getRight());
+        walker.schedule(() -> javaCode.append(")"));
     }
 
     /**
@@ -65,7 +96,7 @@ public class ASTJavaClassGenerator implements Visitor {
     @Override
     public void visit(Block block) {
         for (Statement statement : block.getStatements()) {
-            statement.accept(this);
+            walker.schedule(statement);
         }
     }
 
@@ -77,10 +108,10 @@ public class ASTJavaClassGenerator implements Visitor {
     @Override
     public void visit(Condition condition) {
         javaCode.append("(");
-        condition.getLeft().accept(this);
-        javaCode.append(" ").append(condition.getOperator()).append(" ");
-        condition.getRight().accept(this);
-        javaCode.append(")");
+        walker.schedule(condition.getLeft());
+        walker.schedule(() -> javaCode.append(" ").append(condition.getOperator()).append(" "));
+        walker.schedule(condition.getRight());
+        walker.schedule(() -> javaCode.append(")"));
     }
 
     /**
@@ -102,21 +133,21 @@ public class ASTJavaClassGenerator implements Visitor {
     public void visit(IfStatement ifStatement) {
         addIndentation();
         javaCode.append("if ");
-        ifStatement.getCondition().accept(this);
-        javaCode.append(" {\n");
-        indentationLevel++;
-        ifStatement.getThenBlock().accept(this);
-        indentationLevel--;
-        addIndentation();
-        javaCode.append("}\n");
-        if (ifStatement.getElseBlock() != null) {
-            addIndentation();
-            javaCode.append("else {\n");
+        walker.schedule(ifStatement.getCondition());
+        walker.schedule(() -> {
+            javaCode.append(" {\n");
             indentationLevel++;
-            ifStatement.getElseBlock().accept(this);
-            indentationLevel--;
-            addIndentation();
-            javaCode.append("}\n");
+        });
+        walker.schedule(ifStatement.getThenBlock());
+        walker.schedule(this::closeBlock);
+        if (ifStatement.getElseBlock() != null) {
+            walker.schedule(() -> {
+                addIndentation();
+                javaCode.append("else {\n");
+                indentationLevel++;
+            });
+            walker.schedule(ifStatement.getElseBlock());
+            walker.schedule(this::closeBlock);
         }
     }
 
@@ -148,9 +179,9 @@ public class ASTJavaClassGenerator implements Visitor {
     @Override
     public void visit(PrintStatement printStatement) {
         addIndentation();
-        javaCode.append("System.out.println(");
-        printStatement.getExpression().accept(this);
-        javaCode.append(");\n");
+        javaCode.append(PRINTER).append(".accept(");
+        walker.schedule(printStatement.getExpression());
+        walker.schedule(() -> javaCode.append(");\n"));
     }
 
     /**
@@ -172,8 +203,8 @@ public class ASTJavaClassGenerator implements Visitor {
     @Override
     public void visit(UnaryExpression unaryExpression) {
         javaCode.append("(").append(unaryExpression.getOperator());
-        unaryExpression.getExpression().accept(this);
-        javaCode.append(")");
+        walker.schedule(unaryExpression.getExpression());
+        walker.schedule(() -> javaCode.append(")"));
     }
 
     /**
@@ -185,13 +216,13 @@ public class ASTJavaClassGenerator implements Visitor {
     public void visit(WhileStatement whileStatement) {
         addIndentation();
         javaCode.append("while ");
-        whileStatement.getCondition().accept(this);
-        javaCode.append(" {\n");
-        indentationLevel++;
-        whileStatement.getBlock().accept(this);
-        indentationLevel--;
-        addIndentation();
-        javaCode.append("}\n");
+        walker.schedule(whileStatement.getCondition());
+        walker.schedule(() -> {
+            javaCode.append(" {\n");
+            indentationLevel++;
+        });
+        walker.schedule(whileStatement.getBlock());
+        walker.schedule(this::closeBlock);
     }
 
     /**
@@ -203,29 +234,134 @@ public class ASTJavaClassGenerator implements Visitor {
      * @throws IOException if an I/O error occurs while writing the file
      */
     public void generateJavaClass(Block rootBlock) throws IOException {
-        ASTAssignmentsCollector assignmentsGenerator = new ASTAssignmentsCollector();
-        rootBlock.accept(assignmentsGenerator);
-        List<Assignment> assignments = new ArrayList<>();
-        assignments = assignmentsGenerator.getAssignments();
+        generateJavaClass(rootBlock, collectAssignments(rootBlock));
+    }
+
+    /**
+     * Generates the Java class file based on the provided root Block, declaring
+     * the variables of assignments collected beforehand.
+     *
+     * @param rootBlock   the root Block of the AST
+     * @param assignments the assignments declaring the variables of the class
+     * @throws IOException if an I/O error occurs while writing the file
+     */
+    public void generateJavaClass(Block rootBlock, List<Assignment> assignments) throws IOException {
+        writeJavaClass(generateSource(rootBlock, assignments));
+    }
+
+    /**
+     * Writes the source code of the Java class to its file, such as a source
+     * generated earlier by {@link #generateSource(Block, List)}, then prints
+     * the path of the file to the sink of the generator and flushes it.
+     *
+     * @param source the source code of the Java class
+     * @throws IOException if an I/O error occurs while writing the file
+     */
+    public void writeJavaClass(String source) throws IOException {
+        String directoryPath = BASE_PATH + "/" + PACKAGE_NAME.replace('.', '/');
+        String filePath = directoryPath + "/" + className + ".java";
+        FileUtils.writeToFile(filePath, source);
+        out.println("Java class generated at: " + filePath);
+        out.flush();
+    }
+
+    /**
+     * Generates the Java class based on the provided root Block, compiles it in
+     * memory and runs it, without writing anything to disk.
+     *
+     * @param rootBlock the root Block of the AST
+     * @throws IllegalStateException if no Java compiler is available
+     * @throws RuntimeException      if the generated class does not compile, or
+     *                               if its execution fails
+     */
+    public void runJavaClass(Block rootBlock) {
+        runJavaClass(generateSource(rootBlock));
+    }
+
+    /**
+     * Compiles the source code of the Java class in memory, such as a source
+     * generated earlier by {@link #generateSource(Block, List)}, and runs it,
+     * printing to the sink of the generator, which is flushed once the run
+     * ends.
+     *
+     * @param source the source code of the Java class
+     * @throws IllegalStateException if no Java compiler is available
+     * @throws RuntimeException      if the class does not compile, or if its
+     *                               execution fails
+     */
+    public void runJavaClass(String source) {
+        Class<?> generatedClass = InMemoryJavaCompiler.compile(getQualifiedClassName(), source);
+        Consumer<Object> printer = value -> out.println(String.valueOf(value));
+        try {
+            InMemoryJavaCompiler.runStatic(generatedClass, RUN_METHOD, Consumer.class, printer);
+        } finally {
+            out.flush();
+        }
+    }
+
+    /**
+     * Generates the source code of the Java class based on the provided root
+     * Block, including the variable declarations.
+     *
+     * @param rootBlock the root Block of the AST
+     * @return the source code of the Java class
+     */
+    public String generateSource(Block rootBlock) {
+        return generateSource(rootBlock, collectAssignments(rootBlock));
+    }
+
+    /**
+     * Generates the source code of the Java class based on the provided root
+     * Block, declaring the variables of assignments collected beforehand.
+     *
+     * @param rootBlock   the root Block of the AST
+     * @param assignments the assignments declaring the variables of the class
+     * @return the source code of the Java class
+     */
+    public String generateSource(Block rootBlock, List<Assignment> assignments) {
+        javaCode = new StringBuilder();
+        indentationLevel = 2;
         addHeader();
         addVariableDeclarations(assignments);
-        rootBlock.accept(this);
+        walker.walk(rootBlock);
         javaCode.append("    }\n");
         javaCode.append("}\n");
-        String directoryPath = BASE_PATH + "/" + PACKAGE_NAME.replace('.', '/');
-        String filePath = directoryPath + "/" + className + ".java";
-        FileUtils.writeToFile(filePath, javaCode.toString());
-        System.out.println("Java class generated at: " + filePath);
+        return javaCode.toString();
     }
 
     /**
-     * Adds a header to the generated Java code, including the package declaration
-     * and main method.
+     * Returns the fully qualified name of the generated Java class.
+     *
+     * @return the package name followed by the class name
+     */
+    public String getQualifiedClassName() {
+        return PACKAGE_NAME + "." + className;
+    }
+
+    /**
+     * Collects the assignments of the provided root Block.
+     *
+     * @param rootBlock the root Block of the AST
+     * @return the assignments, in the order in which they appear
+     */
+    private static List<Assignment> collectAssignments(Block rootBlock) {
+        ASTAssignmentsCollector assignmentsCollector = new ASTAssignmentsCollector();
+        rootBlock.accept(assignmentsCollector);
+        return assignmentsCollector.getAssignments();
+    }
+
+    /**
+     * Adds a header to the generated Java code, including the package
+     * declaration, the main method, and the start of the run method.
      */
     private void addHeader() {
         javaCode.append("package ").append(PACKAGE_NAME).append(";\n\n");
         javaCode.append("public class ").append(className).append(" {\n");
         javaCode.append("    public static void main(String[] args) {\n");
+        javaCode.append("        ").append(RUN_METHOD).append("(System.out::println);\n");
+        javaCode.append("    }\n\n");
+        javaCode.append("    public static void ").append(RUN_METHOD)
+                .append("(java.util.function.Consumer<Object> ").append(PRINTER).append(") {\n");
     }
 
     /**
@@ -247,6 +383,16 @@ public class ASTJavaClassGenerator implements Visitor {
         }
     }
 
+    /**
+     * Closes the Java block of an if, else or while statement, decreasing the
+     * indentation level.
+     */
+    private void closeBlock() {
+        indentationLevel--;
+        addIndentation();
+        javaCode.append("}\n");
+    }
+
     /**
      * Adds indentation to the generated Java code based on the current indentation
      * level.
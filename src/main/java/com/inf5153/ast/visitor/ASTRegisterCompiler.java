@@ -0,0 +1,440 @@
+package com.inf5153.ast.visitor;
+
+import com.inf5153.ast.*;
+import com.inf5153.register.Opcode;
+import com.inf5153.register.RegisterProgram;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/**
+ * The ASTRegisterCompiler class implements the Visitor pattern to compile an
+ * Abstract Syntax Tree into register bytecode, run by a
+ * {@link RegisterProgram}. Running it behaves like the {@link ASTCodeExecutor},
+ * including its error messages, without the cost of generating and loading a
+ * class.
+ * <p>
+ * Variables live in the registers numbered by their slot, and each distinct
+ * literal number in a register loaded before the run, so that an operation
+ * reads its operands straight from the register file. Each operator of an
+ * expression writes its value to a temporary register, or straight to the
+ * assigned variable for the outermost one. A condition compiles into a single
+ * compare-and-jump instruction, and a while loop tests its condition at the
+ * bottom, so that an iteration costs one jump.
+ * <p>
+ * The compiler tracks the variables known to hold an integer at each point
+ * of the program: reading such a variable needs no check, and assigning it
+ * needs no record.
+ * <p>
+ * The tree is walked by a {@link Walker}, each node scheduling the code
+ * emitted after its children, so that programs and expressions of any depth
+ * can be compiled.
+ */
+public final class ASTRegisterCompiler implements Visitor {
+    private int[] code = new int[64]; // The instructions emitted so far
+    private int size = 0; // Number of entries of the code array
+    private int slotCount; // Number of variables
+    private ASTVariableResolver resolver; // The slots of the variables of the program
+    private final Map<Integer, Integer> constants = new HashMap<>(); // Register of each literal number
+    private final List<String> texts = new ArrayList<>(); // Texts referred to by the instructions
+    private int[] temporaries = new int[16]; // Positions of the code holding a temporary register
+    private int temporaryCount = 0; // Number of entries of the temporaries array
+    private int nextTemporary = 0; // Index of the next free temporary register
+    private int maxTemporary = 0; // Number of temporary registers used
+    private boolean[] known; // Whether each variable is known to hold an integer
+    private int target = -1; // The register to write the next expression to, -1 for any
+    private int result; // The register holding the value of the last expression visited
+    private int left; // The register holding the left operand of the last condition visited
+    private int right; // The register holding the right operand of the last condition visited
+    private final Walker walker = new Walker(this); // Walks the tree without recursion
+
+    /**
+     * Compiles a program.
+     *
+     * @param program The block of statements forming the program.
+     * @return The compiled program, ready to run.
+     */
+    public RegisterProgram compile(Block program) {
+        resolver = new ASTVariableResolver();
+        program.accept(resolver);
+        slotCount = resolver.getSlotCount();
+        known = new boolean[slotCount];
+        walker.walk(program);
+        emit(Opcode.HALT);
+
+        int firstTemporary = slotCount + constants.size();
+        for (int i = 0; i < temporaryCount; i++) {
+            code[temporaries[i]] += firstTemporary;
+        }
+        int[] registers = new int[firstTemporary + maxTemporary];
+        for (Map.Entry<Integer, Integer> constant : constants.entrySet()) {
+            registers[constant.getValue()] = constant.getKey();
+        }
+        String[] names = new String[slotCount];
+        for (int slot = 0; slot < slotCount; slot++) {
+            names[slot] = resolver.getName(slot);
+        }
+        return new RegisterProgram(Arrays.copyOf(code, size), registers, names, texts.toArray(new String[0]));
+    }
+
+    /**
+     * Compiles an assignment, computing its expression straight into the
+     * register of the variable.
+     *
+     * @param assignment The assignment statement to compile.
+     */
+    @Override
+    public void visit(Assignment assignment) {
+        int slot = resolver.getSlot(assignment.getIdentifier());
+        if (assignment.getExpression() instanceof LiteralString) {
+            emit(Opcode.SET_STRING, slot, text(((LiteralString) assignment.getExpression()).getValue()));
+            return;
+        }
+        compileExpression(assignment.getExpression(), slot, value -> {
+            if (value != slot) {
+                emit(Opcode.MOVE);
+                emitRegister(slot);
+                emitRegister(value);
+            }
+            if (!known[slot]) {
+                emit(Opcode.DEFINE, slot);
+                known[slot] = true;
+            }
+        });
+    }
+
+    /**
+     * Compiles a print statement. A variable holding a string prints the
+     * string; any other expression prints its integer value.
+     *
+     * @param printStatement The print statement to compile.
+     */
+    @Override
+    public void visit(PrintStatement printStatement) {
+        if (printStatement.getExpression() instanceof Identifier) {
+            emit(Opcode.PRINT_VARIABLE, resolver.getSlot((Identifier) printStatement.getExpression()));
+            return;
+        }
+        compileExpression(printStatement.getExpression(), -1, value -> {
+            emit(Opcode.PRINT);
+            emitRegister(value);
+        });
+    }
+
+    /**
+     * Compiles a read statement.
+     *
+     * @param readStatement The read statement to compile.
+     */
+    @Override
+    public void visit(ReadStatement readStatement) {
+        int slot = resolver.getSlot(readStatement.getIdentifier());
+        int prompt = readStatement.getLiteralString() != null
+                ? text(readStatement.getLiteralString().getValue())
+                : -1;
+        emit(Opcode.READ, slot, prompt);
+        known[slot] = true;
+    }
+
+    /**
+     * Compiles an if statement: a jump over the then block when the condition
+     * fails. After the statement, the variables known to hold an integer are
+     * those known after both blocks.
+     *
+     * @param ifStatement The if statement to compile.
+     */
+    @Override
+    public void visit(IfStatement ifStatement) {
+        compileJump(ifStatement.getCondition(), true, skipThen -> {
+            boolean[] before = known.clone();
+            walker.schedule(ifStatement.getThenBlock());
+            walker.schedule(() -> {
+                if (ifStatement.getElseBlock() == null) {
+                    code[skipThen] = size;
+                    known = before;
+                    return;
+                }
+                emit(Opcode.JUMP, 0);
+                int skipElse = size - 1;
+                code[skipThen] = size;
+                boolean[] afterThen = known;
+                known = before;
+                walker.schedule(ifStatement.getElseBlock());
+                walker.schedule(() -> {
+                    code[skipElse] = size;
+                    for (int slot = 0; slot < slotCount; slot++) {
+                        known[slot] &= afterThen[slot];
+                    }
+                });
+            });
+        });
+    }
+
+    /**
+     * Compiles a while statement: a jump to its condition, placed after its
+     * body, which jumps back to the body while it holds. Since the condition
+     * is reached before the first iteration too, it and the body are compiled
+     * knowing only the variables known before the loop.
+     *
+     * @param whileStatement The while statement to compile.
+     */
+    @Override
+    public void visit(WhileStatement whileStatement) {
+        emit(Opcode.JUMP, 0);
+        int toCondition = size - 1;
+        int body = size;
+        boolean[] before = known.clone();
+        walker.schedule(whileStatement.getBlock());
+        walker.schedule(() -> {
+            known = before;
+            code[toCondition] = size;
+            compileJump(whileStatement.getCondition(), false, toBody -> code[toBody] = body);
+        });
+    }
+
+    /**
+     * Compiles the statements of a block, in order.
+     *
+     * @param block The block to compile.
+     */
+    @Override
+    public void visit(Block block) {
+        for (Statement statement : block.getStatements()) {
+            walker.schedule(statement);
+        }
+    }
+
+    /**
+     * Compiles a literal number into the register holding its value.
+     *
+     * @param literalNumber The literal number to compile.
+     */
+    @Override
+    public void visit(LiteralNumber literalNumber) {
+        result = constants.computeIfAbsent(literalNumber.getValue(), value -> slotCount + constants.size());
+    }
+
+    /**
+     * Compiles a literal string used as an integer expression, which fails at
+     * run time.
+     *
+     * @param literalString The literal string to compile.
+     */
+    @Override
+    public void visit(LiteralString literalString) {
+        emit(Opcode.FAIL, text("Unknown expression type"));
+        result = destination();
+    }
+
+    /**
+     * Compiles an identifier into the register of its variable, checking
+     * first that an integer was assigned to it unless that is known.
+     *
+     * @param identifier The identifier to compile.
+     */
+    @Override
+    public void visit(Identifier identifier) {
+        int slot = resolver.getSlot(identifier);
+        if (!known[slot]) {
+            emit(Opcode.CHECK, slot);
+            known[slot] = true;
+        }
+        result = slot;
+    }
+
+    /**
+     * Compiles a unary expression.
+     *
+     * @param unaryExpression The unary expression to compile.
+     */
+    @Override
+    public void visit(UnaryExpression unaryExpression) {
+        int destination = target;
+        int mark = nextTemporary;
+        compileExpression(unaryExpression.getExpression(), -1, operand -> {
+            nextTemporary = mark;
+            target = destination;
+            switch (unaryExpression.getOperator()) {
+                case NEGATE:
+                    emit(Opcode.NEGATE);
+                    break;
+            }
+            result = destination();
+            emitRegister(result);
+            emitRegister(operand);
+        });
+    }
+
+    /**
+     * Compiles a binary expression into the instruction of its operator.
+     *
+     * @param binaryExpression The binary expression to compile.
+     */
+    @Override
+    public void visit(BinaryExpression binaryExpression) {
+        int destination = target;
+        int mark = nextTemporary;
+        compileExpression(binaryExpression.getLeft(), -1, leftValue ->
+                compileExpression(binaryExpression.getRight(), -1, rightValue -> {
+                    nextTemporary = mark;
+                    target = destination;
+                    switch (binaryExpression.getOperator()) {
+                        case ADD:
+                            emit(Opcode.ADD);
+                            break;
+                        case SUBTRACT:
+                            emit(Opcode.SUBTRACT);
+                            break;
+                        case MULTIPLY:
+                            emit(Opcode.MULTIPLY);
+                            break;
+                        case DIVIDE:
+                            emit(Opcode.DIVIDE);
+                            break;
+                    }
+                    result = destination();
+                    emitRegister(result);
+                    emitRegister(leftValue);
+                    emitRegister(rightValue);
+                }));
+    }
+
+    /**
+     * Compiles the operands of a condition, setting {@link #left} and
+     * {@link #right}. The instruction comparing them is emitted by the
+     * statement owning the condition.
+     *
+     * @param condition The condition to compile.
+     */
+    @Override
+    public void visit(Condition condition) {
+        compileExpression(condition.getLeft(), -1, leftValue -> {
+            left = leftValue;
+            compileExpression(condition.getRight(), -1, rightValue -> right = rightValue);
+        });
+    }
+
+    /**
+     * Schedules the compilation of an expression, then an action receiving
+     * the register holding its value. Since the destination is set right
+     * away, nothing else may be scheduled before by the current visit or
+     * action.
+     *
+     * @param node        The expression to compile.
+     * @param destination The register to write the value to if it is computed,
+     *                    or -1 for a temporary register.
+     * @param then        The action receiving the register holding the value,
+     *                    which is not the destination for a literal number
+     *                    nor an identifier.
+     */
+    private void compileExpression(Expression node, int destination, IntConsumer then) {
+        target = destination;
+        walker.schedule(node);
+        walker.schedule(() -> then.accept(result));
+    }
+
+    /**
+     * Schedules the compilation of a condition into a compare-and-jump
+     * instruction, then an action patching its target.
+     *
+     * @param condition The condition to compile.
+     * @param ifFalse   Whether to jump when the condition fails rather than
+     *                  when it holds.
+     * @param then      The action receiving the position of the target in the
+     *                  code array.
+     */
+    private void compileJump(Condition condition, boolean ifFalse, IntConsumer then) {
+        int mark = nextTemporary;
+        walker.schedule(condition);
+        walker.schedule(() -> {
+            nextTemporary = mark;
+            ConditionOperator operator = ifFalse ? negation(condition.getOperator()) : condition.getOperator();
+            emit(Opcode.JUMP_EQUAL + operator.ordinal());
+            emitRegister(left);
+            emitRegister(right);
+            emit(0);
+            then.accept(size - 1);
+        });
+    }
+
+    /**
+     * Returns the operator holding exactly when the given one fails.
+     *
+     * @param operator The operator to negate.
+     * @return The negated operator.
+     */
+    private static ConditionOperator negation(ConditionOperator operator) {
+        switch (operator) {
+            case EQUAL:
+                return ConditionOperator.NOT_EQUAL;
+            case NOT_EQUAL:
+                return ConditionOperator.EQUAL;
+            case LESS:
+                return ConditionOperator.GREATER_EQUAL;
+            case LESS_EQUAL:
+                return ConditionOperator.GREATER;
+            case GREATER:
+                return ConditionOperator.LESS_EQUAL;
+            default:
+                return ConditionOperator.LESS;
+        }
+    }
+
+    /**
+     * Returns the register to write the current expression to: the target if
+     * there is one, a new temporary register otherwise.
+     *
+     * @return The register.
+     */
+    private int destination() {
+        if (target >= 0) {
+            return target;
+        }
+        int temporary = -1 - nextTemporary++;
+        maxTemporary = Math.max(maxTemporary, nextTemporary);
+        return temporary;
+    }
+
+    /**
+     * Adds a text to the texts of the program.
+     *
+     * @param text The text.
+     * @return The index of the text.
+     */
+    private int text(String text) {
+        texts.add(text);
+        return texts.size() - 1;
+    }
+
+    /**
+     * Emits a register operand. Temporary registers, numbered from -1
+     * downwards while compiling, are renumbered after the constants once
+     * their number is known.
+     *
+     * @param register The register.
+     */
+    private void emitRegister(int register) {
+        if (register < 0) {
+            if (temporaryCount == temporaries.length) {
+                temporaries = Arrays.copyOf(temporaries, temporaryCount * 2);
+            }
+            temporaries[temporaryCount++] = size;
+            emit(-1 - register);
+        } else {
+            emit(register);
+        }
+    }
+
+    private void emit(int... words) {
+        if (size + words.length > code.length) {
+            code = Arrays.copyOf(code, Math.max(code.length * 2, size + words.length));
+        }
+        for (int word : words) {
+            code[size++] = word;
+        }
+    }
+}
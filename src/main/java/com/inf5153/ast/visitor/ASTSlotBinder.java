@@ -0,0 +1,222 @@
+package com.inf5153.ast.visitor;
+
+import com.inf5153.ast.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The ASTSlotBinder class implements the Visitor pattern to copy an Abstract
+ * Syntax Tree, replacing each identifier by a {@link SlotIdentifier} holding
+ * the slot given to its variable by an {@link ASTVariableResolver}. An
+ * executor running the copy then reaches every variable by index, without
+ * hashing its name.
+ * <p>
+ * The tree given is left untouched, so that it can be shared, and its
+ * literals are shared with the copy. The tree is walked by a {@link Walker},
+ * each node pushing its copy on a stack once the copies of its children are
+ * pushed, so that trees of any depth can be bound.
+ */
+public final class ASTSlotBinder implements Visitor {
+    private final ASTVariableResolver resolver = new ASTVariableResolver(); // Gives the slots
+    private final Walker walker = new Walker(this); // Walks the tree without recursion
+    private Node[] copies = new Node[64]; // Copies of the nodes walked, the last one on top
+    private int size = 0; // Number of entries of the copies stack
+
+    /**
+     * Copies a program, binding its identifiers to slots.
+     *
+     * @param program the root block of the program
+     * @return the copy of the program
+     */
+    public Block bind(Block program) {
+        walker.walk(program);
+        return (Block) pop();
+    }
+
+    /**
+     * Returns the number of slots given so far.
+     *
+     * @return the number of distinct variables of the programs bound
+     */
+    public int getSlotCount() {
+        return resolver.getSlotCount();
+    }
+
+    /**
+     * Copies an Assignment node.
+     *
+     * @param assignment the Assignment node to copy
+     */
+    @Override
+    public void visit(Assignment assignment) {
+        walker.schedule(assignment.getExpression());
+        walker.schedule(() -> push(new Assignment(bind(assignment.getIdentifier()), (Expression) pop())));
+    }
+
+    /**
+     * Copies a BinaryExpression node.
+     *
+     * @param binaryExpression the BinaryExpression node to copy
+     */
+    @Override
+    public void visit(BinaryExpression binaryExpression) {
+        walker.schedule(binaryExpression.getLeft());
+        walker.schedule(binaryExpression.getRight());
+        walker.schedule(() -> {
+            Expression right = (Expression) pop();
+            push(new BinaryExpression((Expression) pop(), binaryExpression.getOperator(), right));
+        });
+    }
+
+    /**
+     * Copies a Block node and its statements.
+     *
+     * @param block the Block node to copy
+     */
+    @Override
+    public void visit(Block block) {
+        for (Statement statement : block.getStatements()) {
+            walker.schedule(statement);
+        }
+        walker.schedule(() -> {
+            int count = block.getStatements().size();
+            List<Statement> statements = new ArrayList<>(count);
+            for (int i = size - count; i < size; i++) {
+                statements.add((Statement) copies[i]);
+            }
+            Arrays.fill(copies, size - count, size, null);
+            size -= count;
+            push(new Block(statements));
+        });
+    }
+
+    /**
+     * Copies a Condition node.
+     *
+     * @param condition the Condition node to copy
+     */
+    @Override
+    public void visit(Condition condition) {
+        walker.schedule(condition.getLeft());
+        walker.schedule(condition.getRight());
+        walker.schedule(() -> {
+            Expression right = (Expression) pop();
+            push(new Condition((Expression) pop(), condition.getOperator(), right));
+        });
+    }
+
+    /**
+     * Copies an Identifier node, binding it to its slot.
+     *
+     * @param identifier the Identifier node to copy
+     */
+    @Override
+    public void visit(Identifier identifier) {
+        push(bind(identifier));
+    }
+
+    /**
+     * Copies an IfStatement node and its blocks.
+     *
+     * @param ifStatement the IfStatement node to copy
+     */
+    @Override
+    public void visit(IfStatement ifStatement) {
+        walker.schedule(ifStatement.getCondition());
+        walker.schedule(ifStatement.getThenBlock());
+        if (ifStatement.getElseBlock() != null) {
+            walker.schedule(ifStatement.getElseBlock());
+        }
+        walker.schedule(() -> {
+            Block elseBlock = ifStatement.getElseBlock() != null ? (Block) pop() : null;
+            Block thenBlock = (Block) pop();
+            push(new IfStatement((Condition) pop(), thenBlock, elseBlock));
+        });
+    }
+
+    /**
+     * Shares a LiteralNumber node, which holds no variable.
+     *
+     * @param literalNumber the LiteralNumber node
+     */
+    @Override
+    public void visit(LiteralNumber literalNumber) {
+        push(literalNumber);
+    }
+
+    /**
+     * Shares a LiteralString node, which holds no variable.
+     *
+     * @param literalString the LiteralString node
+     */
+    @Override
+    public void visit(LiteralString literalString) {
+        push(literalString);
+    }
+
+    /**
+     * Copies a PrintStatement node.
+     *
+     * @param printStatement the PrintStatement node to copy
+     */
+    @Override
+    public void visit(PrintStatement printStatement) {
+        walker.schedule(printStatement.getExpression());
+        walker.schedule(() -> push(new PrintStatement((Expression) pop())));
+    }
+
+    /**
+     * Copies a ReadStatement node.
+     *
+     * @param readStatement the ReadStatement node to copy
+     */
+    @Override
+    public void visit(ReadStatement readStatement) {
+        push(new ReadStatement(readStatement.getLiteralString(), bind(readStatement.getIdentifier())));
+    }
+
+    /**
+     * Copies a UnaryExpression node.
+     *
+     * @param unaryExpression the UnaryExpression node to copy
+     */
+    @Override
+    public void visit(UnaryExpression unaryExpression) {
+        walker.schedule(unaryExpression.getExpression());
+        walker.schedule(() -> push(new UnaryExpression((Expression) pop(), unaryExpression.getOperator())));
+    }
+
+    /**
+     * Copies a WhileStatement node and its block.
+     *
+     * @param whileStatement the WhileStatement node to copy
+     */
+    @Override
+    public void visit(WhileStatement whileStatement) {
+        walker.schedule(whileStatement.getCondition());
+        walker.schedule(whileStatement.getBlock());
+        walker.schedule(() -> {
+            Block block = (Block) pop();
+            push(new WhileStatement((Condition) pop(), block));
+        });
+    }
+
+    private SlotIdentifier bind(Identifier identifier) {
+        return new SlotIdentifier(identifier.getName(), resolver.getSlot(identifier));
+    }
+
+    private void push(Node copy) {
+        if (size == copies.length) {
+            copies = Arrays.copyOf(copies, size * 2);
+        }
+        copies[size++] = copy;
+    }
+
+    private Node pop() {
+        Node copy = copies[--size];
+        copies[size] = null;
+        return copy;
+    }
+}
@@ -1,5 +1,6 @@
 package com.inf5153.ast.visitor;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -19,20 +20,35 @@ import com.inf5153.ast.ReadStatement;
 import com.inf5153.ast.Statement;
 import com.inf5153.ast.UnaryExpression;
 import com.inf5153.ast.WhileStatement;
+import com.inf5153.utils.OutputSink;
 
 /**
  * The ASTTreeMaker class implements the Visitor pattern to construct and print an Abstract Syntax Tree (AST).
  * It builds a tree representation of the AST nodes and allows printing the tree structure.
+ * Both the AST and the tree are walked with explicit stacks, so that trees of any depth can be printed.
  */
-public class ASTTreeMaker implements Visitor {
+public final class ASTTreeMaker implements Visitor {
     private Map<Node, List<Node>> tree;  // Map to hold the parent-child relationships between nodes
     private Node root;  // The root node of the AST
+    private final OutputSink out;  // Receives the printed tree
+    private final Walker walker = new Walker(this);  // Walks the tree without recursion
 
     /**
-     * Initializes the ASTTreeMaker with an empty tree.
+     * Initializes the ASTTreeMaker with an empty tree, printed to the standard
+     * output.
      */
     public ASTTreeMaker() {
+        this(OutputSink.standardOutput());
+    }
+
+    /**
+     * Initializes the ASTTreeMaker with an empty tree, printed to a sink.
+     *
+     * @param out the sink receiving the printed tree
+     */
+    public ASTTreeMaker(OutputSink out) {
         tree = new HashMap<>();
+        this.out = out;
     }
 
     /**
@@ -48,7 +64,7 @@ public class ASTTreeMaker implements Visitor {
         }
         for (Statement statement : block.getStatements()) {
             addChild(block, statement);
-            statement.accept(this);
+            walker.schedule(statement);
         }
     }
 
@@ -61,8 +77,8 @@ public class ASTTreeMaker implements Visitor {
     public void visit(Assignment assignment) {
         addChild(assignment, assignment.getIdentifier());
         addChild(assignment, assignment.getExpression());
-        assignment.getIdentifier().accept(this);
-        assignment.getExpression().accept(this);
+        walker.schedule(assignment.getIdentifier());
+        walker.schedule(assignment.getExpression());
     }
 
     /**
@@ -74,8 +90,8 @@ public class ASTTreeMaker implements Visitor {
     public void visit(BinaryExpression binaryExpression) {
         addChild(binaryExpression, binaryExpression.getLeft());
         addChild(binaryExpression, binaryExpression.getRight());
-        binaryExpression.getLeft().accept(this);
-        binaryExpression.getRight().accept(this);
+        walker.schedule(binaryExpression.getLeft());
+        walker.schedule(binaryExpression.getRight());
     }
 
     /**
@@ -86,7 +102,7 @@ public class ASTTreeMaker implements Visitor {
     @Override
     public void visit(UnaryExpression unaryExpression) {
         addChild(unaryExpression, unaryExpression.getExpression());
-        unaryExpression.getExpression().accept(this);
+        walker.schedule(unaryExpression.getExpression());
     }
 
     /**
@@ -128,8 +144,8 @@ public class ASTTreeMaker implements Visitor {
     public void visit(Condition condition) {
         addChild(condition, condition.getLeft());
         addChild(condition, condition.getRight());
-        condition.getLeft().accept(this);
-        condition.getRight().accept(this);
+        walker.schedule(condition.getLeft());
+        walker.schedule(condition.getRight());
     }
 
     /**
@@ -144,10 +160,10 @@ public class ASTTreeMaker implements Visitor {
         if (ifStatement.getElseBlock() != null) {
             addChild(ifStatement, ifStatement.getElseBlock());
         }
-        ifStatement.getCondition().accept(this);
-        ifStatement.getThenBlock().accept(this);
+        walker.schedule(ifStatement.getCondition());
+        walker.schedule(ifStatement.getThenBlock());
         if (ifStatement.getElseBlock() != null) {
-            ifStatement.getElseBlock().accept(this);
+            walker.schedule(ifStatement.getElseBlock());
         }
     }
 
@@ -160,8 +176,8 @@ public class ASTTreeMaker implements Visitor {
     public void visit(WhileStatement whileStatement) {
         addChild(whileStatement, whileStatement.getCondition());
         addChild(whileStatement, whileStatement.getBlock());
-        whileStatement.getCondition().accept(this);
-        whileStatement.getBlock().accept(this);
+        walker.schedule(whileStatement.getCondition());
+        walker.schedule(whileStatement.getBlock());
     }
 
     /**
@@ -172,7 +188,7 @@ public class ASTTreeMaker implements Visitor {
     @Override
     public void visit(PrintStatement printStatement) {
         addChild(printStatement, printStatement.getExpression());
-        printStatement.getExpression().accept(this);
+        walker.schedule(printStatement.getExpression());
     }
 
     /**
@@ -184,10 +200,10 @@ public class ASTTreeMaker implements Visitor {
     public void visit(ReadStatement readStatement) {
         if (readStatement.getLiteralString() != null) {
             addChild(readStatement, readStatement.getLiteralString());
-            readStatement.getLiteralString().accept(this);
+            walker.schedule(readStatement.getLiteralString());
         }
         addChild(readStatement, readStatement.getIdentifier());
-        readStatement.getIdentifier().accept(this);
+        walker.schedule(readStatement.getIdentifier());
     }
 
     /**
@@ -206,38 +222,61 @@ public class ASTTreeMaker implements Visitor {
      */
     public void printTree() {
         if (root == null) {
-            System.out.println("The tree is empty.");
-            return;
+            out.println("The tree is empty.");
+        } else {
+            printNode(root, "", true);
         }
-        printNode(root, "", true);
+        out.flush();
     }
 
     /**
-     * Prints a node and its children with appropriate indentation.
+     * Prints a node and its descendants with appropriate indentation, depth
+     * first.
      *
      * @param node    the node to print
      * @param indent  the current indentation
      * @param isLast  boolean indicating if the node is the last child of its parent
      */
     private void printNode(Node node, String indent, boolean isLast) {
-        if (node == null)
-            return;
+        ArrayDeque<PendingNode> pending = new ArrayDeque<>();
+        pending.push(new PendingNode(node, indent, isLast));
+        while (!pending.isEmpty()) {
+            PendingNode current = pending.pop();
+            if (current.node == null)
+                continue;
 
-        System.out.print(indent);
-        if (isLast) {
-            System.out.print("└── ");
-            indent += "    ";
-        } else {
-            System.out.print("├── ");
-            indent += "│   ";
-        }
-        System.out.println(node.toString());
+            String childIndent;
+            out.print(current.indent);
+            if (current.isLast) {
+                out.print("└── ");
+                childIndent = current.indent + "    ";
+            } else {
+                out.print("├── ");
+                childIndent = current.indent + "│   ";
+            }
+            out.println(current.node.toString());
 
-        List<Node> children = tree.get(node);
-        if (children != null) {
-            for (int i = 0; i < children.size(); i++) {
-                printNode(children.get(i), indent, i == children.size() - 1);
+            List<Node> children = tree.get(current.node);
+            if (children != null) {
+                for (int i = children.size() - 1; i >= 0; i--) {
+                    pending.push(new PendingNode(children.get(i), childIndent, i == children.size() - 1));
+                }
             }
         }
     }
+
+    /**
+     * A node waiting to be printed, with its indentation.
+     */
+    private static final class PendingNode {
+        final Node node;  // The node to print
+        final String indent;  // The indentation of its line
+        final boolean isLast;  // Whether it is the last child of its parent
+
+        PendingNode(Node node, String indent, boolean isLast) {
+            this.node = node;
+            this.indent = indent;
+            this.isLast = isLast;
+        }
+    }
 }
@@ -0,0 +1,206 @@
+package com.inf5153.ast.visitor;
+
+import com.inf5153.ast.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The ASTVariableResolver class implements the Visitor pattern to give every
+ * variable of an Abstract Syntax Tree (AST) a slot: a dense index into the
+ * frames of an executor. Compilers look up the slot of each identifier once,
+ * so that variables are accessed by index at run time instead of by name.
+ * <p>
+ * The slots are kept by the resolver, never written into the tree, so that a
+ * tree, or the subtrees it shares with a folded tree, can be resolved by
+ * several compilers at once. Resolving several trees with the same resolver
+ * keeps the slots of the names already seen and appends the new ones. The
+ * tree is walked by a {@link Walker}, so that its depth is not limited by the
+ * Java stack.
+ */
+public final class ASTVariableResolver implements Visitor {
+
+    private final Map<String, Integer> slots = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+    private final Walker walker = new Walker(this);
+
+    /**
+     * Returns the number of slots assigned so far.
+     *
+     * @return the number of distinct variables
+     */
+    public int getSlotCount() {
+        return names.size();
+    }
+
+    /**
+     * Returns the slot of the variable named by an identifier, assigning a new
+     * slot the first time a name is seen.
+     *
+     * @param identifier the identifier naming the variable
+     * @return the index of the variable in an execution frame
+     */
+    public int getSlot(Identifier identifier) {
+        Integer slot = slots.get(identifier.getName());
+        if (slot == null) {
+            slot = names.size();
+            slots.put(identifier.getName(), slot);
+            names.add(identifier.getName());
+        }
+        return slot;
+    }
+
+    /**
+     * Returns the slots assigned so far, by name.
+     *
+     * @return an unmodifiable view of the slot of each name
+     */
+    public Map<String, Integer> getSlots() {
+        return Collections.unmodifiableMap(slots);
+    }
+
+    /**
+     * Returns the name of the variable held in a slot.
+     *
+     * @param slot the slot of the variable
+     * @return the name of the variable
+     */
+    public String getName(int slot) {
+        return names.get(slot);
+    }
+
+    /**
+     * Visits an Assignment node and resolves the assigned variable and the
+     * variables of the expression.
+     *
+     * @param assignment the Assignment node to visit
+     */
+    @Override
+    public void visit(Assignment assignment) {
+        walker.schedule(assignment.getIdentifier());
+        walker.schedule(assignment.getExpression());
+    }
+
+    /**
+     * Visits a BinaryExpression node and resolves both operands.
+     *
+     * @param binaryExpression the BinaryExpression node to visit
+     */
+    @Override
+    public void visit(BinaryExpression binaryExpression) {
+        walker.schedule(binaryExpression.getLeft());
+        walker.schedule(binaryExpression.getRight());
+    }
+
+    /**
+     * Visits a Block node and resolves each statement within the block.
+     *
+     * @param block the Block node to visit
+     */
+    @Override
+    public void visit(Block block) {
+        for (Statement statement : block.getStatements()) {
+            walker.schedule(statement);
+        }
+    }
+
+    /**
+     * Visits a Condition node and resolves both operands.
+     *
+     * @param condition the Condition node to visit
+     */
+    @Override
+    public void visit(Condition condition) {
+        walker.schedule(condition.getLeft());
+        walker.schedule(condition.getRight());
+    }
+
+    /**
+     * Visits an Identifier node and assigns a slot to its name, if it has none
+     * yet.
+     *
+     * @param identifier the Identifier node to visit
+     */
+    @Override
+    public void visit(Identifier identifier) {
+        getSlot(identifier);
+    }
+
+    /**
+     * Visits an IfStatement node and resolves its condition and blocks.
+     *
+     * @param ifStatement the IfStatement node to visit
+     */
+    @Override
+    public void visit(IfStatement ifStatement) {
+        walker.schedule(ifStatement.getCondition());
+        walker.schedule(ifStatement.getThenBlock());
+        if (ifStatement.getElseBlock() != null) {
+            walker.schedule(ifStatement.getElseBlock());
+        }
+    }
+
+    /**
+     * Visits a LiteralNumber node. This method is empty because
+     * literal numbers hold no variable.
+     *
+     * @param literalNumber the LiteralNumber node to visit
+     */
+    @Override
+    public void visit(LiteralNumber literalNumber) {
+    }
+
+    /**
+     * Visits a LiteralString node. This method is empty because
+     * literal strings hold no variable.
+     *
+     * @param literalString the LiteralString node to visit
+     */
+    @Override
+    public void visit(LiteralString literalString) {
+    }
+
+    /**
+     * Visits a PrintStatement node and resolves its expression.
+     *
+     * @param printStatement the PrintStatement node to visit
+     */
+    @Override
+    public void visit(PrintStatement printStatement) {
+        walker.schedule(printStatement.getExpression());
+    }
+
+    /**
+     * Visits a ReadStatement node and resolves the variable read.
+     *
+     * @param readStatement the ReadStatement node to visit
+     */
+    @Override
+    public void visit(ReadStatement readStatement) {
+        walker.schedule(readStatement.getIdentifier());
+    }
+
+    /**
+     * Visits a UnaryExpression node and resolves its operand.
+     *
+     * @param unaryExpression the UnaryExpression node to visit
+     */
+    @Override
+    public void visit(UnaryExpression unaryExpression) {
+        walker.schedule(unaryExpression.getExpression());
+    }
+
+    /**
+     * Visits a WhileStatement node and resolves its condition and block.
+     *
+     * @param whileStatement the WhileStatement node to visit
+     */
+    @Override
+    public void visit(WhileStatement whileStatement) {
+        walker.schedule(whileStatement.getCondition());
+        walker.schedule(whileStatement.getBlock());
+    }
+}
@@ -0,0 +1,84 @@
+package com.inf5153.ast.visitor;
+
+import com.inf5153.ast.*;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Bounds the nesting depth of the programs given to the back-ends whose
+ * compiled form nests like the tree: the closures of the
+ * {@link ASTClosureCompiler} and the nodes of the
+ * {@link ASTExecutionTreeBuilder} call their children, and the code of the
+ * {@link ASTBytecodeCompiler} holds one operand per nested expression. These
+ * back-ends refuse deeper programs with a clear error rather than overflowing
+ * the stack while compiling or running them.
+ */
+final class NestingLimit {
+    static final int MAX_DEPTH = 1000; // The deepest node accepted, the program being at depth 1
+
+    private NestingLimit() {
+    }
+
+    /**
+     * Checks the nesting depth of a program. The tree is traversed with an
+     * explicit stack, so that the check itself does not overflow.
+     *
+     * @param program  the block of statements forming the program
+     * @param compiler the name of the back-end, for the error message
+     * @throws IllegalStateException if a node is nested deeper than
+     *                               {@link #MAX_DEPTH}
+     */
+    static void check(Block program, String compiler) {
+        Deque<Node> pending = new ArrayDeque<>();
+        Deque<Integer> depths = new ArrayDeque<>(); // The depth of each pending node
+        pending.push(program);
+        depths.push(1);
+        while (!pending.isEmpty()) {
+            Node current = pending.pop();
+            int depth = depths.pop();
+            if (depth > MAX_DEPTH) {
+                throw new IllegalStateException("Program too deeply nested for the " + compiler
+                        + ": more than " + MAX_DEPTH + " levels");
+            }
+            for (Node child : children(current)) {
+                pending.push(child);
+                depths.push(depth + 1);
+            }
+        }
+    }
+
+    /**
+     * Returns the children of a node.
+     *
+     * @param node the node
+     * @return its children, without the missing else block
+     */
+    private static Node[] children(Node node) {
+        if (node instanceof Block) {
+            return ((Block) node).getStatements().toArray(new Node[0]);
+        } else if (node instanceof Assignment) {
+            return new Node[] { ((Assignment) node).getExpression() };
+        } else if (node instanceof PrintStatement) {
+            return new Node[] { ((PrintStatement) node).getExpression() };
+        } else if (node instanceof IfStatement) {
+            IfStatement ifStatement = (IfStatement) node;
+            if (ifStatement.getElseBlock() == null) {
+                return new Node[] { ifStatement.getCondition(), ifStatement.getThenBlock() };
+            }
+            return new Node[] { ifStatement.getCondition(), ifStatement.getThenBlock(), ifStatement.getElseBlock() };
+        } else if (node instanceof WhileStatement) {
+            WhileStatement whileStatement = (WhileStatement) node;
+            return new Node[] { whileStatement.getCondition(), whileStatement.getBlock() };
+        } else if (node instanceof Condition) {
+            Condition condition = (Condition) node;
+            return new Node[] { condition.getLeft(), condition.getRight() };
+        } else if (node instanceof BinaryExpression) {
+            BinaryExpression binaryExpression = (BinaryExpression) node;
+            return new Node[] { binaryExpression.getLeft(), binaryExpression.getRight() };
+        } else if (node instanceof UnaryExpression) {
+            return new Node[] { ((UnaryExpression) node).getExpression() };
+        }
+        return new Node[0];
+    }
+}
@@ -0,0 +1,32 @@
+package com.inf5153.ast.visitor;
+
+import com.inf5153.ast.Identifier;
+
+/**
+ * An identifier bound to the slot of its variable by the
+ * {@link ASTSlotBinder}, so that an executor reaches the variable by index
+ * without looking its name up.
+ */
+final class SlotIdentifier extends Identifier {
+    private final int slot; // The index of the variable in an execution frame
+
+    /**
+     * Constructs a SlotIdentifier.
+     *
+     * @param name the name of the identifier
+     * @param slot the slot of the variable it names
+     */
+    SlotIdentifier(String name, int slot) {
+        super(name);
+        this.slot = slot;
+    }
+
+    /**
+     * Returns the slot of the variable named by the identifier.
+     *
+     * @return the index of the variable in an execution frame
+     */
+    int getSlot() {
+        return slot;
+    }
+}
@@ -0,0 +1,154 @@
+package com.inf5153.ast.visitor;
+
+import com.inf5153.ast.Node;
+
+import java.util.Arrays;
+
+/**
+ * Walks an Abstract Syntax Tree for a visitor using an explicit work stack
+ * instead of the Java call stack, so that trees of any depth can be walked.
+ * <p>
+ * A visitor opts in by scheduling work instead of recursing: rather than
+ * calling {@code accept} on the children of the node it visits, it calls
+ * {@link #schedule(Node)} for each child, and {@link #schedule(Runnable)} for
+ * the work to do between or after them. Once the visit method returns, the
+ * walker runs the scheduled work in the order it was scheduled, before any
+ * work scheduled earlier. A visit can thus do its pre-order work directly and
+ * schedule its post-order work after its children.
+ * <p>
+ * Since a visit through the stack costs more than a plain call, work
+ * scheduled when nothing else is pending runs right away, before
+ * {@code schedule} returns, as long as fewer than {@link #MAX_DEPTH} walks are
+ * nested; deeper work waits on the stack. The Java stack used by a walk is
+ * thus bounded whatever the depth of the tree. Work scheduled while no walk is
+ * in progress also runs right away, so a visitor that opted in can still be
+ * entered with {@code node.accept(visitor)}.
+ */
+public class Walker {
+    private static final int MAX_DEPTH = 128; // Number of walks nested on the Java stack
+    private final Visitor visitor; // Visits the scheduled nodes
+    private Object[] stack = new Object[64]; // Scheduled nodes and actions, the next one on top
+    private int size = 0; // Number of entries of the stack
+    private int mark = -1; // Size of the stack when the current work started, -1 when not walking
+    private int depth = 0; // Number of walks in progress
+
+    /**
+     * Constructs a Walker for a visitor.
+     *
+     * @param visitor the visitor visiting the nodes of the tree
+     */
+    public Walker(Visitor visitor) {
+        this.visitor = visitor;
+    }
+
+    /**
+     * Walks a tree: visits its root, then runs all the work scheduled from
+     * there, and returns once no work is left. If the walk fails, the work
+     * still scheduled is dropped.
+     *
+     * @param root the root node of the tree
+     */
+    public void walk(Node root) {
+        int base = size;
+        int outerMark = mark;
+        depth++;
+        try {
+            Object work = root;
+            while (true) {
+                mark = size;
+                if (work instanceof Node) {
+                    ((Node) work).accept(visitor);
+                } else {
+                    ((Runnable) work).run();
+                }
+                if (size == base) {
+                    break;
+                }
+                reverse(mark, size);
+                work = stack[--size];
+                stack[size] = null;
+            }
+        } finally {
+            if (size > base) {
+                Arrays.fill(stack, base, size, null);
+                size = base;
+            }
+            mark = outerMark;
+            depth--;
+        }
+    }
+
+    /**
+     * Schedules the visit of a node, after the work already scheduled by the
+     * current visit or action. The node is visited right away if
+     * {@link #runsNow()}.
+     *
+     * @param node the node to visit
+     */
+    public void schedule(Node node) {
+        if (runsNow()) {
+            walk(node);
+        } else {
+            push(node);
+        }
+    }
+
+    /**
+     * Schedules an action, after the work already scheduled by the current
+     * visit or action. The action runs right away if {@link #runsNow()}.
+     * Actions can schedule work themselves.
+     *
+     * @param action the action to run
+     */
+    public void schedule(Runnable action) {
+        if (runsNow()) {
+            action.run();
+        } else {
+            push(action);
+        }
+    }
+
+    /**
+     * Checks whether work scheduled now runs before {@code schedule} returns:
+     * when no walk is in progress, or when the current visit or action has
+     * nothing pending and the walks nested on the Java stack are not too
+     * deep. A visitor can then repeat work in a plain loop, such as the body
+     * of a while statement.
+     *
+     * @return true if scheduled work runs right away
+     */
+    public boolean runsNow() {
+        return mark < 0 || (size == mark && depth < MAX_DEPTH);
+    }
+
+    /**
+     * Checks whether a walk is in progress.
+     *
+     * @return true while walking a tree
+     */
+    public boolean isWalking() {
+        return mark >= 0;
+    }
+
+    private void push(Object work) {
+        if (size == stack.length) {
+            stack = Arrays.copyOf(stack, size * 2);
+        }
+        stack[size++] = work;
+    }
+
+    /**
+     * Reverses entries of the stack, so that the work scheduled first is on
+     * top.
+     *
+     * @param from the index of the first entry
+     * @param to   the index after the last entry
+     */
+    private void reverse(int from, int to) {
+        for (int i = from, j = to - 1; i < j; i++, j--) {
+            Object work = stack[i];
+            stack[i] = stack[j];
+            stack[j] = work;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.inf5153.bytecode;
+
+import com.inf5153.utils.InputSource;
+import com.inf5153.utils.OutputSink;
+
+/**
+ * The BytecodeRuntime class holds the static helpers called by compiled
+ * programs. Keeping input, output and error reporting here keeps the generated
+ * code small and gives it exactly the behaviour of the
+ * {@link com.inf5153.ast.visitor.ASTCodeExecutor}.
+ * <p>
+ * An instance holds the input and output of a single run. It is passed to
+ * the entry point of the program, which hands it to the helpers printing and
+ * reading, so that runs of the same program have their own sinks and
+ * sources.
+ * <p>
+ * Helpers that only throw still declare an int result, so that the generated
+ * code can use them as expressions without needing an athrow instruction.
+ */
+public final class BytecodeRuntime {
+    private final OutputSink out; // Receives the printed values
+    private final InputSource in; // Supplies the values read
+
+    /**
+     * Constructs the runtime of a run.
+     *
+     * @param out the sink receiving the printed values
+     * @param in  the source supplying the values read
+     */
+    BytecodeRuntime(OutputSink out, InputSource in) {
+        this.out = out;
+        this.in = in;
+    }
+
+    /**
+     * Prints an integer value on its own line.
+     *
+     * @param value   the value to print
+     * @param runtime the runtime of the run
+     */
+    public static void print(int value, BytecodeRuntime runtime) {
+        runtime.out.println(value);
+    }
+
+    /**
+     * Prints a string value on its own line.
+     *
+     * @param value   the value to print
+     * @param runtime the runtime of the run
+     */
+    public static void print(String value, BytecodeRuntime runtime) {
+        runtime.out.println(value);
+    }
+
+    /**
+     * Reads an integer from the input of the run, after printing the prompt if
+     * there is one.
+     *
+     * @param prompt  the prompt to print, or null
+     * @param runtime the runtime of the run
+     * @return the integer read
+     */
+    public static int read(String prompt, BytecodeRuntime runtime) {
+        if (prompt != null) {
+            runtime.out.print(prompt + " ");
+        }
+        if (runtime.in.isInteractive()) {
+            runtime.out.flush();
+        }
+        return runtime.in.readInt();
+    }
+
+    /**
+     * Returns the value of a variable after checking that it was assigned.
+     *
+     * @param value   the value of the variable
+     * @param defined 1 if the variable was assigned, 0 otherwise
+     * @param name    the name of the variable
+     * @return the value of the variable
+     * @throws RuntimeException if the variable was never assigned
+     */
+    public static int checkDefined(int value, int defined, String name) {
+        if (defined == 0) {
+            throw new RuntimeException("Error: Undefined variable - " + name);
+        }
+        return value;
+    }
+
+    /**
+     * Divides two integers.
+     *
+     * @param left  the dividend
+     * @param right the divisor
+     * @return the quotient
+     * @throws RuntimeException if the divisor is zero
+     */
+    public static int divide(int left, int right) {
+        if (right == 0) {
+            throw new RuntimeException("Division by zero!");
+        }
+        return left / right;
+    }
+
+    /**
+     * Reports an error found while evaluating an expression, once its operands
+     * have been evaluated.
+     *
+     * @param left    the value of the left operand, ignored
+     * @param right   the value of the right operand, ignored
+     * @param message the error message
+     * @return never returns normally
+     * @throws RuntimeException always
+     */
+    public static int fail(int left, int right, String message) {
+        throw new RuntimeException(message);
+    }
+}
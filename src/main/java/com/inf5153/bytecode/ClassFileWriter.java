@@ -0,0 +1,98 @@
+package com.inf5153.bytecode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The ClassFileWriter class writes a minimal class file made of public static
+ * methods, in the Java 8 class file format. It only supports what the
+ * generated programs need: no fields, no constructor and no interfaces.
+ */
+public class ClassFileWriter {
+    private static final int MAGIC = 0xCAFEBABE;
+    private static final int JAVA_8 = 52;
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_STATIC = 0x0008;
+    private static final int ACC_FINAL = 0x0010;
+    private static final int ACC_SUPER = 0x0020;
+
+    private final ConstantPool pool = new ConstantPool();
+    private final String internalName;
+    private final List<Object[]> methods = new ArrayList<>(); // name, descriptor, code
+
+    /**
+     * Constructs a ClassFileWriter for a class with the given name.
+     *
+     * @param internalName the internal name of the class, such as
+     *                     "com/inf5153/bytecode/Program"
+     */
+    public ClassFileWriter(String internalName) {
+        this.internalName = internalName;
+    }
+
+    /**
+     * Returns the constant pool of the class, to be shared with the
+     * {@link CodeBuilder}s of its methods.
+     *
+     * @return the constant pool
+     */
+    public ConstantPool getConstantPool() {
+        return pool;
+    }
+
+    /**
+     * Adds a public static method.
+     *
+     * @param name       the name of the method
+     * @param descriptor the descriptor of the method
+     * @param code       the code of the method
+     */
+    public void addStaticMethod(String name, String descriptor, CodeBuilder code) {
+        methods.add(new Object[] { name, descriptor, code });
+    }
+
+    /**
+     * Writes the class file.
+     *
+     * @return the bytes of the class file
+     * @throws IllegalStateException if a method is too large
+     */
+    public byte[] toByteArray() {
+        try {
+            int thisClass = pool.classRef(internalName);
+            int superClass = pool.classRef("java/lang/Object");
+            ByteArrayOutputStream methodBytes = new ByteArrayOutputStream();
+            DataOutputStream methodOut = new DataOutputStream(methodBytes);
+            for (Object[] method : methods) {
+                methodOut.writeShort(ACC_PUBLIC | ACC_STATIC);
+                methodOut.writeShort(pool.utf8((String) method[0]));
+                methodOut.writeShort(pool.utf8((String) method[1]));
+                methodOut.writeShort(1);
+                ((CodeBuilder) method[2]).writeCodeAttribute(methodOut);
+            }
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(MAGIC);
+            out.writeShort(0);
+            out.writeShort(JAVA_8);
+            out.writeShort(pool.count());
+            pool.writeTo(out);
+            out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(0); // Interfaces
+            out.writeShort(0); // Fields
+            out.writeShort(methods.size());
+            methodBytes.writeTo(out);
+            out.writeShort(0); // Attributes
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,425 @@
+package com.inf5153.bytecode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * The CodeBuilder class assembles the bytecode of a single method. It resolves
+ * branch offsets, tracks the maximum operand stack depth and produces the
+ * StackMapTable required by the verifier.
+ * <p>
+ * To keep frames trivial, generated code follows two rules: every local
+ * variable is declared up front and initialised before the first branch, and
+ * the operand stack is empty at every branch target. All frames are therefore
+ * identical.
+ */
+public class CodeBuilder {
+    public static final int IFEQ = 0x99;
+    public static final int IFNE = 0x9A;
+    public static final int IFNULL = 0xC6;
+    public static final int IF_ICMPEQ = 0x9F;
+    public static final int IF_ICMPNE = 0xA0;
+    public static final int IF_ICMPLT = 0xA1;
+    public static final int IF_ICMPGE = 0xA2;
+    public static final int IF_ICMPGT = 0xA3;
+    public static final int IF_ICMPLE = 0xA4;
+    public static final int GOTO = 0xA7;
+
+    private static final int ICONST_0 = 0x03;
+    private static final int ACONST_NULL = 0x01;
+    private static final int BIPUSH = 0x10;
+    private static final int SIPUSH = 0x11;
+    private static final int LDC = 0x12;
+    private static final int LDC_W = 0x13;
+    private static final int ILOAD = 0x15;
+    private static final int ALOAD = 0x19;
+    private static final int ISTORE = 0x36;
+    private static final int ASTORE = 0x3A;
+    private static final int IADD = 0x60;
+    private static final int ISUB = 0x64;
+    private static final int IMUL = 0x68;
+    private static final int INEG = 0x74;
+    private static final int RETURN = 0xB1;
+    private static final int INVOKESTATIC = 0xB8;
+    private static final int WIDE = 0xC4;
+
+    /**
+     * The largest code size for which every 16-bit branch offset is valid.
+     */
+    public static final int MAX_CODE_LENGTH = Short.MAX_VALUE;
+
+    private final ConstantPool pool;
+    private final List<String> locals = new ArrayList<>(); // Verification type of each local
+    private final TreeSet<Integer> frames = new TreeSet<>(); // Offsets of the branch targets
+    private byte[] code = new byte[256];
+    private int length = 0;
+    private int stack = 0;
+    private int maxStack = 0;
+
+    /**
+     * A position in the code, used as a branch target.
+     */
+    public static final class Label {
+        private int position = -1;
+        private final List<Integer> fixups = new ArrayList<>(); // Offsets of branch instructions to patch
+    }
+
+    /**
+     * Constructs a CodeBuilder adding its constants to the given pool.
+     *
+     * @param pool the constant pool of the class being generated
+     */
+    public CodeBuilder(ConstantPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Declares a new int local variable.
+     *
+     * @return the index of the local variable
+     */
+    public int declareIntLocal() {
+        locals.add("I");
+        return locals.size() - 1;
+    }
+
+    /**
+     * Declares a new local variable holding references of the given class.
+     *
+     * @param internalName the internal name of the class of the variable
+     * @return the index of the local variable
+     */
+    public int declareReferenceLocal(String internalName) {
+        locals.add(internalName);
+        return locals.size() - 1;
+    }
+
+    /**
+     * Returns the number of local variables declared.
+     *
+     * @return the number of local variables
+     */
+    public int maxLocals() {
+        return locals.size();
+    }
+
+    /**
+     * Returns the maximum depth of the operand stack.
+     *
+     * @return the maximum stack depth
+     */
+    public int maxStack() {
+        return maxStack;
+    }
+
+    /**
+     * Creates a new, unbound label.
+     *
+     * @return the new label
+     */
+    public Label newLabel() {
+        return new Label();
+    }
+
+    /**
+     * Binds a label to the current position and patches the branches already
+     * targeting it. The operand stack must be empty.
+     *
+     * @param label the label to bind
+     */
+    public void bind(Label label) {
+        label.position = length;
+        frames.add(length);
+        for (int instruction : label.fixups) {
+            patchBranch(instruction, label.position);
+        }
+        label.fixups.clear();
+    }
+
+    /**
+     * Emits a conditional or unconditional branch.
+     *
+     * @param opcode the branch opcode, such as {@link #IF_ICMPGE} or
+     *               {@link #GOTO}
+     * @param target the label to branch to
+     */
+    public void jump(int opcode, Label target) {
+        int instruction = length;
+        emit(opcode);
+        emit16(0);
+        if (opcode >= IF_ICMPEQ && opcode <= IF_ICMPLE) {
+            adjustStack(-2);
+        } else if (opcode != GOTO) {
+            adjustStack(-1);
+        }
+        if (target.position >= 0) {
+            patchBranch(instruction, target.position);
+        } else {
+            target.fixups.add(instruction);
+        }
+    }
+
+    /**
+     * Pushes an int constant.
+     *
+     * @param value the constant
+     */
+    public void pushInt(int value) {
+        if (value >= -1 && value <= 5) {
+            emit(ICONST_0 + value);
+        } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+            emit(BIPUSH);
+            emit(value);
+        } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+            emit(SIPUSH);
+            emit16(value);
+        } else {
+            loadConstant(pool.integer(value));
+        }
+        adjustStack(1);
+    }
+
+    /**
+     * Pushes a string constant.
+     *
+     * @param value the constant
+     */
+    public void pushString(String value) {
+        loadConstant(pool.string(value));
+        adjustStack(1);
+    }
+
+    /**
+     * Pushes null.
+     */
+    public void pushNull() {
+        emit(ACONST_NULL);
+        adjustStack(1);
+    }
+
+    /**
+     * Pushes the value of an int local variable.
+     *
+     * @param local the index of the local variable
+     */
+    public void loadInt(int local) {
+        emitLocal(ILOAD, local);
+        adjustStack(1);
+    }
+
+    /**
+     * Pops an int into a local variable.
+     *
+     * @param local the index of the local variable
+     */
+    public void storeInt(int local) {
+        emitLocal(ISTORE, local);
+        adjustStack(-1);
+    }
+
+    /**
+     * Pushes the value of a reference local variable.
+     *
+     * @param local the index of the local variable
+     */
+    public void loadReference(int local) {
+        emitLocal(ALOAD, local);
+        adjustStack(1);
+    }
+
+    /**
+     * Pops a reference into a local variable.
+     *
+     * @param local the index of the local variable
+     */
+    public void storeReference(int local) {
+        emitLocal(ASTORE, local);
+        adjustStack(-1);
+    }
+
+    /**
+     * Adds the two ints on top of the stack.
+     */
+    public void add() {
+        emit(IADD);
+        adjustStack(-1);
+    }
+
+    /**
+     * Subtracts the int on top of the stack from the one below it.
+     */
+    public void subtract() {
+        emit(ISUB);
+        adjustStack(-1);
+    }
+
+    /**
+     * Multiplies the two ints on top of the stack.
+     */
+    public void multiply() {
+        emit(IMUL);
+        adjustStack(-1);
+    }
+
+    /**
+     * Negates the int on top of the stack.
+     */
+    public void negate() {
+        emit(INEG);
+    }
+
+    /**
+     * Returns from a void method.
+     */
+    public void returnVoid() {
+        emit(RETURN);
+    }
+
+    /**
+     * Calls a static method.
+     *
+     * @param owner      the internal name of the class declaring the method
+     * @param name       the name of the method
+     * @param descriptor the descriptor of the method; only int, boolean and
+     *                   reference types are supported
+     */
+    public void invokeStatic(String owner, String name, String descriptor) {
+        emit(INVOKESTATIC);
+        emit16(pool.methodRef(owner, name, descriptor));
+        int arguments = 0;
+        int index = 1;
+        while (descriptor.charAt(index) != ')') {
+            if (descriptor.charAt(index) == 'L') {
+                index = descriptor.indexOf(';', index);
+            }
+            arguments++;
+            index++;
+        }
+        adjustStack(-arguments + (descriptor.charAt(index + 1) == 'V' ? 0 : 1));
+    }
+
+    /**
+     * Returns the length of the code emitted so far.
+     *
+     * @return the code length in bytes
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Writes the Code attribute of the method, including its StackMapTable.
+     *
+     * @param out the stream to write to
+     * @throws IOException           if an I/O error occurs
+     * @throws IllegalStateException if the code is too large for a method
+     */
+    public void writeCodeAttribute(DataOutputStream out) throws IOException {
+        if (length > MAX_CODE_LENGTH) {
+            throw new IllegalStateException("Method too large: " + length + " bytes of code");
+        }
+        byte[] stackMapTable = stackMapTable();
+        out.writeShort(pool.utf8("Code"));
+        out.writeInt(12 + length + (stackMapTable == null ? 0 : 6 + stackMapTable.length));
+        out.writeShort(maxStack);
+        out.writeShort(locals.size());
+        out.writeInt(length);
+        out.write(code, 0, length);
+        out.writeShort(0); // No exception table
+        if (stackMapTable == null) {
+            out.writeShort(0);
+        } else {
+            out.writeShort(1);
+            out.writeShort(pool.utf8("StackMapTable"));
+            out.writeInt(stackMapTable.length);
+            out.write(stackMapTable);
+        }
+    }
+
+    /**
+     * Builds the StackMapTable: a full frame for the first branch target, then
+     * same frames, since every frame has the same locals and an empty stack.
+     */
+    private byte[] stackMapTable() throws IOException {
+        if (frames.isEmpty()) {
+            return null;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeShort(frames.size());
+        int previous = -1;
+        for (int offset : frames) {
+            int delta = previous < 0 ? offset : offset - previous - 1;
+            if (previous < 0) {
+                out.writeByte(255); // full_frame
+                out.writeShort(delta);
+                out.writeShort(locals.size());
+                for (String type : locals) {
+                    if (type.equals("I")) {
+                        out.writeByte(1); // Integer
+                    } else {
+                        out.writeByte(7); // Object
+                        out.writeShort(pool.classRef(type));
+                    }
+                }
+                out.writeShort(0);
+            } else if (delta < 64) {
+                out.writeByte(delta); // same_frame
+            } else {
+                out.writeByte(251); // same_frame_extended
+                out.writeShort(delta);
+            }
+            previous = offset;
+        }
+        return bytes.toByteArray();
+    }
+
+    private void loadConstant(int index) {
+        if (index < 256) {
+            emit(LDC);
+            emit(index);
+        } else {
+            emit(LDC_W);
+            emit16(index);
+        }
+    }
+
+    private void emitLocal(int opcode, int local) {
+        if (local < 256) {
+            emit(opcode);
+            emit(local);
+        } else {
+            emit(WIDE);
+            emit(opcode);
+            emit16(local);
+        }
+    }
+
+    private void patchBranch(int instruction, int target) {
+        int offset = target - instruction;
+        code[instruction + 1] = (byte) (offset >> 8);
+        code[instruction + 2] = (byte) offset;
+    }
+
+    private void adjustStack(int delta) {
+        stack += delta;
+        maxStack = Math.max(maxStack, stack);
+    }
+
+    private void emit(int value) {
+        if (length == code.length) {
+            code = Arrays.copyOf(code, length * 2);
+        }
+        code[length++] = (byte) value;
+    }
+
+    private void emit16(int value) {
+        emit(value >> 8);
+        emit(value);
+    }
+}
@@ -0,0 +1,86 @@
+package com.inf5153.bytecode;
+
+import com.inf5153.utils.InputSource;
+import com.inf5153.utils.OutputSink;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Represents a program compiled to JVM bytecode and loaded as a hidden class.
+ * The class is unloaded once the program is no longer referenced.
+ */
+public class CompiledProgram {
+    /**
+     * The package in which compiled programs are defined.
+     */
+    public static final String PACKAGE = "com/inf5153/bytecode/";
+
+    /**
+     * The name of the static method running the program.
+     */
+    public static final String ENTRY_POINT = "run";
+
+    /**
+     * The descriptor of the entry point, taking the {@link BytecodeRuntime}
+     * of the run.
+     */
+    public static final String ENTRY_POINT_DESCRIPTOR = "(Lcom/inf5153/bytecode/BytecodeRuntime;)V";
+
+    private final MethodHandle entryPoint;
+
+    /**
+     * Loads the given class file as a hidden class and looks up its entry
+     * point.
+     *
+     * @param classFile the bytes of a class declared in {@link #PACKAGE} with a
+     *                  public static {@link #ENTRY_POINT} method of
+     *                  descriptor {@link #ENTRY_POINT_DESCRIPTOR}
+     * @throws RuntimeException if the class cannot be loaded
+     */
+    public CompiledProgram(byte[] classFile) {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(classFile, true);
+            this.entryPoint = lookup.findStatic(lookup.lookupClass(), ENTRY_POINT,
+                    MethodType.methodType(void.class, BytecodeRuntime.class));
+        } catch (IllegalAccessException | NoSuchMethodException | LinkageError e) {
+            throw new RuntimeException("Could not load the compiled program: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Runs the program reading from the standard input and printing to the
+     * standard output.
+     *
+     * @throws RuntimeException if the program fails, as the
+     *                          {@link com.inf5153.ast.visitor.ASTCodeExecutor}
+     *                          would
+     */
+    public void run() {
+        run(OutputSink.standardOutput(), InputSource.standardInput());
+    }
+
+    /**
+     * Runs the program. Each run starts with no variable defined. The output
+     * is flushed when the program ends, even if it fails.
+     *
+     * @param out the sink receiving the printed values
+     * @param in  the source supplying the values read
+     * @throws RuntimeException if the program fails, as the
+     *                          {@link com.inf5153.ast.visitor.ASTCodeExecutor}
+     *                          would
+     */
+    public void run(OutputSink out, InputSource in) {
+        BytecodeRuntime runtime = new BytecodeRuntime(out, in);
+        try {
+            entryPoint.invokeExact(runtime);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        } finally {
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.inf5153.bytecode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The ConstantPool class builds the constant pool of a class file. Each
+ * constant is added once; adding the same constant again returns the index of
+ * the existing entry.
+ */
+public class ConstantPool {
+    private static final int UTF8 = 1;
+    private static final int INTEGER = 3;
+    private static final int CLASS = 7;
+    private static final int STRING = 8;
+    private static final int METHODREF = 10;
+    private static final int NAME_AND_TYPE = 12;
+
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    private final DataOutputStream out = new DataOutputStream(bytes);
+    private final Map<String, Integer> entries = new HashMap<>();
+    private int count = 1; // Index 0 is never used
+
+    /**
+     * Adds a UTF-8 string constant.
+     *
+     * @param value the string
+     * @return the index of the constant
+     */
+    public int utf8(String value) {
+        Integer index = entries.get("U" + value);
+        if (index != null) {
+            return index;
+        }
+        try {
+            out.writeByte(UTF8);
+            out.writeUTF(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return register("U" + value);
+    }
+
+    /**
+     * Adds an integer constant.
+     *
+     * @param value the integer
+     * @return the index of the constant
+     */
+    public int integer(int value) {
+        Integer index = entries.get("I" + value);
+        if (index != null) {
+            return index;
+        }
+        write(INTEGER, value >>> 16, value & 0xFFFF);
+        return register("I" + value);
+    }
+
+    /**
+     * Adds a class reference.
+     *
+     * @param internalName the internal name of the class, such as
+     *                     "java/lang/String"
+     * @return the index of the constant
+     */
+    public int classRef(String internalName) {
+        Integer index = entries.get("C" + internalName);
+        if (index != null) {
+            return index;
+        }
+        int name = utf8(internalName);
+        write(CLASS, name);
+        return register("C" + internalName);
+    }
+
+    /**
+     * Adds a string constant, as loaded by the ldc instruction.
+     *
+     * @param value the string
+     * @return the index of the constant
+     */
+    public int string(String value) {
+        Integer index = entries.get("S" + value);
+        if (index != null) {
+            return index;
+        }
+        int utf8 = utf8(value);
+        write(STRING, utf8);
+        return register("S" + value);
+    }
+
+    /**
+     * Adds a reference to a method.
+     *
+     * @param owner      the internal name of the class declaring the method
+     * @param name       the name of the method
+     * @param descriptor the descriptor of the method
+     * @return the index of the constant
+     */
+    public int methodRef(String owner, String name, String descriptor) {
+        String key = "M" + owner + "." + name + descriptor;
+        Integer index = entries.get(key);
+        if (index != null) {
+            return index;
+        }
+        int classIndex = classRef(owner);
+        int nameAndType = nameAndType(name, descriptor);
+        write(METHODREF, classIndex, nameAndType);
+        return register(key);
+    }
+
+    /**
+     * Returns the number of entries of the pool, as written in the class file.
+     *
+     * @return the constant pool count
+     */
+    public int count() {
+        return count;
+    }
+
+    /**
+     * Writes the entries of the pool.
+     *
+     * @param target the stream to write to
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeTo(DataOutputStream target) throws IOException {
+        bytes.writeTo(target);
+    }
+
+    private int nameAndType(String name, String descriptor) {
+        String key = "N" + name + ":" + descriptor;
+        Integer index = entries.get(key);
+        if (index != null) {
+            return index;
+        }
+        int nameIndex = utf8(name);
+        int descriptorIndex = utf8(descriptor);
+        write(NAME_AND_TYPE, nameIndex, descriptorIndex);
+        return register(key);
+    }
+
+    private void write(int tag, int... shorts) {
+        try {
+            out.writeByte(tag);
+            for (int value : shorts) {
+                out.writeShort(value);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private int register(String key) {
+        if (count >= 0xFFFF) {
+            throw new IllegalStateException("Constant pool overflow");
+        }
+        entries.put(key, count);
+        return count++;
+    }
+}
@@ -0,0 +1,56 @@
+package com.inf5153.closure;
+
+import com.inf5153.utils.InputSource;
+import com.inf5153.utils.OutputSink;
+
+/**
+ * Represents a program compiled into a tree of closures. The closures hold no
+ * state: each run keeps its variables, input and output in its own
+ * {@link Frame}. The same program can thus be run any number of times, and by
+ * any number of threads at once.
+ */
+public class ClosureProgram {
+    private final StatementClosure body;
+    private final int slotCount;
+
+    /**
+     * Constructs a ClosureProgram.
+     *
+     * @param body      the compiled statements of the program
+     * @param slotCount the number of variables of the program
+     */
+    public ClosureProgram(StatementClosure body, int slotCount) {
+        this.body = body;
+        this.slotCount = slotCount;
+    }
+
+    /**
+     * Runs the program reading from the standard input and printing to the
+     * standard output.
+     *
+     * @throws RuntimeException if the program fails, as the
+     *                          {@link com.inf5153.ast.visitor.ASTCodeExecutor}
+     *                          would
+     */
+    public void run() {
+        run(OutputSink.standardOutput(), InputSource.standardInput());
+    }
+
+    /**
+     * Runs the program in a new frame, in which no variable is defined. The
+     * output is flushed when the program ends, even if it fails.
+     *
+     * @param out the sink receiving the printed values
+     * @param in  the source supplying the values read
+     * @throws RuntimeException if the program fails, as the
+     *                          {@link com.inf5153.ast.visitor.ASTCodeExecutor}
+     *                          would
+     */
+    public void run(OutputSink out, InputSource in) {
+        try {
+            body.execute(new Frame(slotCount, out, in));
+        } finally {
+            out.flush();
+        }
+    }
+}
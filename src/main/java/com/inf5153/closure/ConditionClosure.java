@@ -0,0 +1,16 @@
+package com.inf5153.closure;
+
+/**
+ * Represents a compiled condition.
+ */
+@FunctionalInterface
+public interface ConditionClosure {
+
+    /**
+     * Evaluates the condition.
+     *
+     * @param frame the variables of the running program
+     * @return true if the condition is met, otherwise false
+     */
+    boolean test(Frame frame);
+}
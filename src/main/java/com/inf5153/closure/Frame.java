@@ -0,0 +1,36 @@
+package com.inf5153.closure;
+
+import com.inf5153.utils.InputSource;
+import com.inf5153.utils.OutputSink;
+
+/**
+ * Represents the state of a run of a program: its variables, indexed by the
+ * slots given by the {@link com.inf5153.ast.visitor.ASTVariableResolver}, and
+ * its input and output. The fields are exposed directly so that compiled
+ * closures access them without any call.
+ * <p>
+ * Since a run keeps all its state in its frame, runs of the same compiled
+ * program in different frames do not share anything they write.
+ */
+public final class Frame {
+    public final int[] values; // Integer value of each variable
+    public final boolean[] defined; // Whether an integer was assigned to each variable
+    public final String[] strings; // String value of each variable, null if none
+    public final OutputSink out; // Receives the printed values
+    public final InputSource in; // Supplies the values read
+
+    /**
+     * Constructs a Frame in which no variable is defined.
+     *
+     * @param size the number of variables
+     * @param out  the sink receiving the printed values
+     * @param in   the source supplying the values read
+     */
+    public Frame(int size, OutputSink out, InputSource in) {
+        this.values = new int[size];
+        this.defined = new boolean[size];
+        this.strings = new String[size];
+        this.out = out;
+        this.in = in;
+    }
+}
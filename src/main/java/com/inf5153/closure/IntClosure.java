@@ -0,0 +1,16 @@
+package com.inf5153.closure;
+
+/**
+ * Represents a compiled expression, evaluating to an integer.
+ */
+@FunctionalInterface
+public interface IntClosure {
+
+    /**
+     * Evaluates the expression.
+     *
+     * @param frame the variables of the running program
+     * @return the value of the expression
+     */
+    int evaluate(Frame frame);
+}
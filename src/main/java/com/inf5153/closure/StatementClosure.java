@@ -0,0 +1,15 @@
+package com.inf5153.closure;
+
+/**
+ * Represents a compiled statement or block of statements.
+ */
+@FunctionalInterface
+public interface StatementClosure {
+
+    /**
+     * Executes the statement.
+     *
+     * @param frame the variables of the running program
+     */
+    void execute(Frame frame);
+}
@@ -0,0 +1,33 @@
+package com.inf5153.node;
+
+import com.inf5153.closure.Frame;
+
+/**
+ * Represents the assignment of an integer expression to a variable.
+ */
+public final class AssignNode extends StatementNode {
+    private final int slot; // The slot of the assigned variable
+    private ExpressionNode value; // The assigned expression
+
+    /**
+     * Constructs an AssignNode.
+     *
+     * @param slot  the slot of the assigned variable
+     * @param value the assigned expression
+     */
+    public AssignNode(int slot, ExpressionNode value) {
+        this.slot = slot;
+        this.value = adopt(value);
+    }
+
+    @Override
+    public void execute(Frame frame) {
+        frame.values[slot] = value.execute(frame);
+        frame.defined[slot] = true;
+    }
+
+    @Override
+    void replaceChild(ExecutionNode child, ExecutionNode replacement) {
+        value = (ExpressionNode) replacement;
+    }
+}
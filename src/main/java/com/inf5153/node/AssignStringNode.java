@@ -0,0 +1,27 @@
+package com.inf5153.node;
+
+import com.inf5153.closure.Frame;
+
+/**
+ * Represents the assignment of a string literal to a variable.
+ */
+public final class AssignStringNode extends StatementNode {
+    private final int slot; // The slot of the assigned variable
+    private final String value; // The assigned string
+
+    /**
+     * Constructs an AssignStringNode.
+     *
+     * @param slot  the slot of the assigned variable
+     * @param value the assigned string
+     */
+    public AssignStringNode(int slot, String value) {
+        this.slot = slot;
+        this.value = value;
+    }
+
+    @Override
+    public void execute(Frame frame) {
+        frame.strings[slot] = value;
+    }
+}
@@ -0,0 +1,134 @@
+package com.inf5153.node;
+
+import com.inf5153.ast.BinaryOperator;
+import com.inf5153.closure.Frame;
+
+/**
+ * Represents a binary operation between two expressions. A binary expression
+ * starts as an {@link Uninitialized} node which, on its first execution,
+ * replaces itself with a node specialised for its operator: a
+ * {@link ConstantOperandNode} when one operand is a constant, or one of the
+ * nodes below otherwise.
+ */
+public abstract class BinaryNode extends ExpressionNode {
+    ExpressionNode left; // The left operand
+    ExpressionNode right; // The right operand
+
+    BinaryNode(ExpressionNode left, ExpressionNode right) {
+        this.left = adopt(left);
+        this.right = adopt(right);
+    }
+
+    @Override
+    void replaceChild(ExecutionNode child, ExecutionNode replacement) {
+        if (left == child) {
+            left = (ExpressionNode) replacement;
+        } else {
+            right = (ExpressionNode) replacement;
+        }
+    }
+
+    /**
+     * Creates the node of a binary expression, which specialises itself when
+     * first executed.
+     *
+     * @param operator the operator of the expression
+     * @param left     the left operand
+     * @param right    the right operand
+     * @return the node of the expression
+     */
+    public static ExpressionNode create(BinaryOperator operator, ExpressionNode left, ExpressionNode right) {
+        return new Uninitialized(operator, left, right);
+    }
+
+    /**
+     * A binary expression not executed yet.
+     */
+    static final class Uninitialized extends BinaryNode {
+        private final BinaryOperator operator;
+
+        Uninitialized(BinaryOperator operator, ExpressionNode left, ExpressionNode right) {
+            super(left, right);
+            this.operator = operator;
+        }
+
+        @Override
+        public int execute(Frame frame) {
+            return replace(specialise()).execute(frame);
+        }
+
+        /**
+         * Builds the node specialised for the operator and operands.
+         */
+        private ExpressionNode specialise() {
+            ExpressionNode node = null;
+            if (right instanceof ConstantNode) {
+                node = ConstantOperandNode.create(operator, left, ((ConstantNode) right).getValue());
+            } else if (left instanceof ConstantNode && operator.isCommutative()) {
+                node = ConstantOperandNode.create(operator, right, ((ConstantNode) left).getValue());
+            }
+            if (node != null) {
+                return node;
+            }
+            switch (operator) {
+                case ADD:
+                    return new AddNode(left, right);
+                case SUBTRACT:
+                    return new SubtractNode(left, right);
+                case MULTIPLY:
+                    return new MultiplyNode(left, right);
+                default:
+                    return new DivideNode(left, right);
+            }
+        }
+    }
+
+    static final class AddNode extends BinaryNode {
+        AddNode(ExpressionNode left, ExpressionNode right) {
+            super(left, right);
+        }
+
+        @Override
+        public int execute(Frame frame) {
+            return left.execute(frame) + right.execute(frame);
+        }
+    }
+
+    static final class SubtractNode extends BinaryNode {
+        SubtractNode(ExpressionNode left, ExpressionNode right) {
+            super(left, right);
+        }
+
+        @Override
+        public int execute(Frame frame) {
+            return left.execute(frame) - right.execute(frame);
+        }
+    }
+
+    static final class MultiplyNode extends BinaryNode {
+        MultiplyNode(ExpressionNode left, ExpressionNode right) {
+            super(left, right);
+        }
+
+        @Override
+        public int execute(Frame frame) {
+            return left.execute(frame) * right.execute(frame);
+        }
+    }
+
+    static final class DivideNode extends BinaryNode {
+        DivideNode(ExpressionNode left, ExpressionNode right) {
+            super(left, right);
+        }
+
+        @Override
+        public int execute(Frame frame) {
+            int leftValue = left.execute(frame);
+            int rightValue = right.execute(frame);
+            if (rightValue == 0) {
+                throw new RuntimeException("Division by zero!");
+            }
+            return leftValue / rightValue;
+        }
+    }
+}
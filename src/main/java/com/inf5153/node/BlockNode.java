@@ -0,0 +1,29 @@
+package com.inf5153.node;
+
+import com.inf5153.closure.Frame;
+
+/**
+ * Represents a block of statements, executed in order.
+ */
+public final class BlockNode extends StatementNode {
+    private final StatementNode[] statements; // The statements of the block
+
+    /**
+     * Constructs a BlockNode.
+     *
+     * @param statements the statements of the block
+     */
+    public BlockNode(StatementNode[] statements) {
+        this.statements = statements;
+        for (StatementNode statement : statements) {
+            adopt(statement);
+        }
+    }
+
+    @Override
+    public void execute(Frame frame) {
+        for (StatementNode statement : statements) {
+            statement.execute(frame);
+        }
+    }
+}
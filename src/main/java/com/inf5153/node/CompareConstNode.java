@@ -0,0 +1,115 @@
+package com.inf5153.node;
+
+import com.inf5153.ast.ConditionOperator;
+import com.inf5153.closure.Frame;
+
+/**
+ * Represents a comparison whose right operand is a constant, such as
+ * {@code i < 10}. The constant is held in a field, so only the left operand is
+ * executed.
+ */
+public abstract class CompareConstNode extends ConditionNode {
+    ExpressionNode operand; // The left operand
+    final int constant; // The value of the right operand
+
+    CompareConstNode(ExpressionNode operand, int constant) {
+        this.operand = adopt(operand);
+        this.constant = constant;
+    }
+
+    @Override
+    void replaceChild(ExecutionNode child, ExecutionNode replacement) {
+        operand = (ExpressionNode) replacement;
+    }
+
+    /**
+     * Creates the node comparing an operand with a constant.
+     *
+     * @param operator the comparison operator
+     * @param operand  the left operand
+     * @param constant the value of the right operand
+     * @return the node of the comparison
+     */
+    static ConditionNode create(ConditionOperator operator, ExpressionNode operand, int constant) {
+        switch (operator) {
+            case EQUAL:
+                return new EqualConstNode(operand, constant);
+            case NOT_EQUAL:
+                return new NotEqualConstNode(operand, constant);
+            case LESS:
+                return new LessConstNode(operand, constant);
+            case LESS_EQUAL:
+                return new LessEqualConstNode(operand, constant);
+            case GREATER:
+                return new GreaterConstNode(operand, constant);
+            default:
+                return new GreaterEqualConstNode(operand, constant);
+        }
+    }
+
+    static final class EqualConstNode extends CompareConstNode {
+        EqualConstNode(ExpressionNode operand, int constant) {
+            super(operand, constant);
+        }
+
+        @Override
+        public boolean execute(Frame frame) {
+            return operand.execute(frame) == constant;
+        }
+    }
+
+    static final class NotEqualConstNode extends CompareConstNode {
+        NotEqualConstNode(ExpressionNode operand, int constant) {
+            super(operand, constant);
+        }
+
+        @Override
+        public boolean execute(Frame frame) {
+            return operand.execute(frame) != constant;
+        }
+    }
+
+    static final class LessConstNode extends CompareConstNode {
+        LessConstNode(ExpressionNode operand, int constant) {
+            super(operand, constant);
+        }
+
+        @Override
+        public boolean execute(Frame frame) {
+            return operand.execute(frame) < constant;
+        }
+    }
+
+    static final class LessEqualConstNode extends CompareConstNode {
+        LessEqualConstNode(ExpressionNode operand, int constant) {
+            super(operand, constant);
+        }
+
+        @Override
+        public boolean execute(Frame frame) {
+            return operand.execute(frame) <= constant;
+        }
+    }
+
+    static final class GreaterConstNode extends CompareConstNode {
+        GreaterConstNode(ExpressionNode operand, int constant) {
+            super(operand, constant);
+        }
+
+        @Override
+        public boolean execute(Frame frame) {
+            return operand.execute(frame) > constant;
+        }
+    }
+
+    static final class GreaterEqualConstNode extends CompareConstNode {
+        GreaterEqualConstNode(ExpressionNode operand, int constant) {
+            super(operand, constant);
+        }
+
+        @Override
+        public boolean execute(Frame frame) {
+            return operand.execute(frame) >= constant;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.inf5153.node;
+
+import com.inf5153.ast.ConditionOperator;
+import com.inf5153.closure.Frame;
+
+/**
+ * Represents a comparison between two expressions. A condition starts as an
+ * {@link Uninitialized} node which, on its first execution, replaces itself
+ * with a node specialised for its operator: a {@link CompareConstNode} when
+ * the right operand is a constant, or one of the nodes below otherwise.
+ */
+public abstract class CompareNode extends ConditionNode {
+    ExpressionNode left; // The left operand
+    ExpressionNode right; // The right operand
+
+    CompareNode(ExpressionNode left, ExpressionNode right) {
+        this.left = adopt(left);
+        this.right = adopt(right);
+    }
+
+    @Override
+    void replaceChild(ExecutionNode child, ExecutionNode replacement) {
+        if (left == child) {
+            left = (ExpressionNode) replacement;
+        } else {
+            right = (ExpressionNode) replacement;
+        }
+    }
+
+    /**
+     * Creates the node of a condition, which specialises itself when first
+     * executed.
+     *
+     * @param operator the comparison operator
+     * @param left     the left operand
+     * @param right    the right operand
+     * @return the node of the condition
+     */
+    public static ConditionNode create(ConditionOperator operator, ExpressionNode left, ExpressionNode right) {
+        return new Uninitialized(operator, left, right);
+    }
+
+    /**
+     * A condition not executed yet.
+     */
+    static final class Uninitialized extends CompareNode {
+        private final ConditionOperator operator;
+
+        Uninitialized(ConditionOperator operator, ExpressionNode left, ExpressionNode right) {
+            super(left, right);
+            this.operator = operator;
+        }
+
+        @Override
+        public boolean execute(Frame frame) {
+            return replace(specialise()).execute(frame);
+        }
+
+        /**
+         * Builds the node specialised for the operator and operands.
+         */
+        private ConditionNode specialise() {
+            if (right instanceof ConstantNode) {
+                return CompareConstNode.create(operator, left, ((ConstantNode) right).getValue());
+            }
+            switch (operator) {
+            case EQUAL:
+                return new EqualNode(left, right);
+            case NOT_EQUAL:
+                return new NotEqualNode(left, right);
+            case LESS:
+                return new LessNode(left, right);
+            case LESS_EQUAL:
+                return new LessEqualNode(left, right);
+            case GREATER:
+                return new GreaterNode(left, right);
+            default:
+                return new GreaterEqualNode(left, right);
+            }
+        }
+    }
+
+    static final class EqualNode extends CompareNode {
+        EqualNode(ExpressionNode left, ExpressionNode right) {
+            super(left, right);
+        }
+
+        @Override
+        public boolean execute(Frame frame) {
+            return left.execute(frame) == right.execute(frame);
+        }
+    }
+
+    static final class NotEqualNode extends CompareNode {
+        NotEqualNode(ExpressionNode left, ExpressionNode right) {
+            super(left, right);
+        }
+
+        @Override
+        public boolean execute(Frame frame) {
+            return left.execute(frame) != right.execute(frame);
+        }
+    }
+
+    static final class LessNode extends CompareNode {
+        LessNode(ExpressionNode left, ExpressionNode right) {
+            super(left, right);
+        }
+
+        @Override
+        public boolean execute(Frame frame) {
+            return left.execute(frame) < right.execute(frame);
+        }
+    }
+
+    static final class LessEqualNode extends CompareNode {
+        LessEqualNode(ExpressionNode left, ExpressionNode right) {
+            super(left, right);
+        }
+
+        @Override
+        public boolean execute(Frame frame) {
+            return left.execute(frame) <= right.execute(frame);
+        }
+    }
+
+    static final class GreaterNode extends CompareNode {
+        GreaterNode(ExpressionNode left, ExpressionNode right) {
+            super(left, right);
+        }
+
+        @Override
+        public boolean execute(Frame frame) {
+            return left.execute(frame) > right.execute(frame);
+        }
+    }
+
+    static final class GreaterEqualNode extends CompareNode {
+        GreaterEqualNode(ExpressionNode left, ExpressionNode right) {
+            super(left, right);
+        }
+
+        @Override
+        public boolean execute(Frame frame) {
+            return left.execute(frame) >= right.execute(frame);
+        }
+    }
+}
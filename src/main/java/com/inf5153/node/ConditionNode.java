@@ -0,0 +1,17 @@
+package com.inf5153.node;
+
+import com.inf5153.closure.Frame;
+
+/**
+ * Represents an execution node evaluating a condition.
+ */
+public abstract class ConditionNode extends ExecutionNode {
+
+    /**
+     * Evaluates the condition.
+     *
+     * @param frame the variables of the running program
+     * @return true if the condition is met, otherwise false
+     */
+    public abstract boolean execute(Frame frame);
+}
@@ -0,0 +1,33 @@
+package com.inf5153.node;
+
+import com.inf5153.closure.Frame;
+
+/**
+ * Represents an integer constant.
+ */
+public final class ConstantNode extends ExpressionNode {
+    private final int value; // The value of the constant
+
+    /**
+     * Constructs a ConstantNode.
+     *
+     * @param value the value of the constant
+     */
+    public ConstantNode(int value) {
+        this.value = value;
+    }
+
+    /**
+     * Returns the value of the constant.
+     *
+     * @return the value of the constant
+     */
+    public int getValue() {
+        return value;
+    }
+
+    @Override
+    public int execute(Frame frame) {
+        return value;
+    }
+}
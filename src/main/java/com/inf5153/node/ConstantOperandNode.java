@@ -0,0 +1,80 @@
+package com.inf5153.node;
+
+import com.inf5153.ast.BinaryOperator;
+import com.inf5153.closure.Frame;
+
+/**
+ * Represents a binary operation whose right operand is a constant, such as
+ * {@code i + 1}. The constant is held in a field, so only the other operand
+ * is executed.
+ */
+public abstract class ConstantOperandNode extends ExpressionNode {
+    ExpressionNode operand; // The operand which is not constant
+    final int constant; // The value of the constant operand
+
+    ConstantOperandNode(ExpressionNode operand, int constant) {
+        this.operand = adopt(operand);
+        this.constant = constant;
+    }
+
+    @Override
+    void replaceChild(ExecutionNode child, ExecutionNode replacement) {
+        operand = (ExpressionNode) replacement;
+    }
+
+    /**
+     * Creates the node applying an operator to an operand and a constant
+     * right operand. Subtracting a constant is done by adding its opposite.
+     *
+     * @param operator the operator
+     * @param operand  the left operand
+     * @param constant the value of the right operand
+     * @return the node, or null for a division by zero, which must fail at
+     *         run time once its left operand is evaluated
+     */
+    static ExpressionNode create(BinaryOperator operator, ExpressionNode operand, int constant) {
+        switch (operator) {
+            case ADD:
+                return new AddConstNode(operand, constant);
+            case SUBTRACT:
+                return new AddConstNode(operand, -constant);
+            case MULTIPLY:
+                return new MultiplyConstNode(operand, constant);
+            default:
+                return constant != 0 ? new DivideConstNode(operand, constant) : null;
+        }
+    }
+
+    static final class AddConstNode extends ConstantOperandNode {
+        AddConstNode(ExpressionNode operand, int constant) {
+            super(operand, constant);
+        }
+
+        @Override
+        public int execute(Frame frame) {
+            return operand.execute(frame) + constant;
+        }
+    }
+
+    static final class MultiplyConstNode extends ConstantOperandNode {
+        MultiplyConstNode(ExpressionNode operand, int constant) {
+            super(operand, constant);
+        }
+
+        @Override
+        public int execute(Frame frame) {
+            return operand.execute(frame) * constant;
+        }
+    }
+
+    static final class DivideConstNode extends ConstantOperandNode {
+        DivideConstNode(ExpressionNode operand, int constant) {
+            super(operand, constant);
+        }
+
+        @Override
+        public int execute(Frame frame) {
+            return operand.execute(frame) / constant;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.inf5153.node;
+
+/**
+ * Represents a node of an execution tree, built from the Abstract Syntax Tree
+ * by the {@link com.inf5153.ast.visitor.ASTExecutionTreeBuilder}.
+ * <p>
+ * A node may rewrite itself into a node specialised for what it saw on its
+ * first execution: it asks its parent to replace it, and later executions of
+ * the parent call the specialised node directly.
+ */
+public abstract class ExecutionNode {
+    private ExecutionNode parent; // The node holding this node as a child, null for the root
+
+    /**
+     * Makes this node the parent of a child node.
+     *
+     * @param child the child node
+     * @return the child node
+     */
+    final <T extends ExecutionNode> T adopt(T child) {
+        ((ExecutionNode) child).parent = this;
+        return child;
+    }
+
+    /**
+     * Replaces this node by another in its parent.
+     *
+     * @param replacement the node replacing this node
+     * @return the replacement node
+     */
+    final <T extends ExecutionNode> T replace(T replacement) {
+        parent.replaceChild(this, parent.adopt(replacement));
+        return replacement;
+    }
+
+    /**
+     * Replaces a child of this node by another node.
+     *
+     * @param child       the child to replace
+     * @param replacement the node replacing the child
+     * @throws IllegalStateException if the node has no child that can be
+     *                               replaced
+     */
+    void replaceChild(ExecutionNode child, ExecutionNode replacement) {
+        throw new IllegalStateException(getClass().getSimpleName() + " has no replaceable child");
+    }
+}
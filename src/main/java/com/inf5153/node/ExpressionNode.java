@@ -0,0 +1,17 @@
+package com.inf5153.node;
+
+import com.inf5153.closure.Frame;
+
+/**
+ * Represents an execution node evaluating to an integer.
+ */
+public abstract class ExpressionNode extends ExecutionNode {
+
+    /**
+     * Evaluates the expression.
+     *
+     * @param frame the variables of the running program
+     * @return the value of the expression
+     */
+    public abstract int execute(Frame frame);
+}
@@ -0,0 +1,25 @@
+package com.inf5153.node;
+
+import com.inf5153.closure.Frame;
+
+/**
+ * Represents an expression that cannot be evaluated, such as a string literal
+ * used as an integer. Evaluating it fails at run time.
+ */
+public final class FailNode extends ExpressionNode {
+    private final String message; // The error message
+
+    /**
+     * Constructs a FailNode.
+     *
+     * @param message the error message
+     */
+    public FailNode(String message) {
+        this.message = message;
+    }
+
+    @Override
+    public int execute(Frame frame) {
+        throw new RuntimeException(message);
+    }
+}
@@ -0,0 +1,39 @@
+package com.inf5153.node;
+
+import com.inf5153.closure.Frame;
+
+/**
+ * Represents an if statement, with an optional else block.
+ */
+public final class IfNode extends StatementNode {
+    private ConditionNode condition; // The tested condition
+    private final StatementNode thenBlock; // The block executed when the condition is true
+    private final StatementNode elseBlock; // The block executed otherwise, null if none
+
+    /**
+     * Constructs an IfNode.
+     *
+     * @param condition the tested condition
+     * @param thenBlock the block executed when the condition is true
+     * @param elseBlock the block executed otherwise, or null
+     */
+    public IfNode(ConditionNode condition, StatementNode thenBlock, StatementNode elseBlock) {
+        this.condition = adopt(condition);
+        this.thenBlock = adopt(thenBlock);
+        this.elseBlock = elseBlock != null ? adopt(elseBlock) : null;
+    }
+
+    @Override
+    public void execute(Frame frame) {
+        if (condition.execute(frame)) {
+            thenBlock.execute(frame);
+        } else if (elseBlock != null) {
+            elseBlock.execute(frame);
+        }
+    }
+
+    @Override
+    void replaceChild(ExecutionNode child, ExecutionNode replacement) {
+        condition = (ConditionNode) replacement;
+    }
+}
@@ -0,0 +1,29 @@
+package com.inf5153.node;
+
+import com.inf5153.closure.Frame;
+
+/**
+ * Represents the negation of an expression.
+ */
+public final class NegateNode extends ExpressionNode {
+    private ExpressionNode operand; // The negated expression
+
+    /**
+     * Constructs a NegateNode.
+     *
+     * @param operand the negated expression
+     */
+    public NegateNode(ExpressionNode operand) {
+        this.operand = adopt(operand);
+    }
+
+    @Override
+    public int execute(Frame frame) {
+        return -operand.execute(frame);
+    }
+
+    @Override
+    void replaceChild(ExecutionNode child, ExecutionNode replacement) {
+        operand = (ExpressionNode) replacement;
+    }
+}
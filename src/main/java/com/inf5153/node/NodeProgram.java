@@ -0,0 +1,57 @@
+package com.inf5153.node;
+
+import com.inf5153.closure.Frame;
+import com.inf5153.utils.InputSource;
+import com.inf5153.utils.OutputSink;
+
+/**
+ * Represents a program built into a tree of self-specialising execution
+ * nodes. Nodes hold no variable, so the same program can be run any number of
+ * times; later runs reuse the nodes specialised by earlier ones. Since a run
+ * rewrites the nodes, runs of the same program must not overlap.
+ */
+public class NodeProgram {
+    private final StatementNode body;
+    private final int slotCount;
+
+    /**
+     * Constructs a NodeProgram.
+     *
+     * @param body      the root node of the program
+     * @param slotCount the number of variables of the program
+     */
+    public NodeProgram(StatementNode body, int slotCount) {
+        this.body = body;
+        this.slotCount = slotCount;
+    }
+
+    /**
+     * Runs the program reading from the standard input and printing to the
+     * standard output.
+     *
+     * @throws RuntimeException if the program fails, as the
+     *                          {@link com.inf5153.ast.visitor.ASTCodeExecutor}
+     *                          would
+     */
+    public void run() {
+        run(OutputSink.standardOutput(), InputSource.standardInput());
+    }
+
+    /**
+     * Runs the program in a new frame, in which no variable is defined. The
+     * output is flushed when the program ends, even if it fails.
+     *
+     * @param out the sink receiving the printed values
+     * @param in  the source supplying the values read
+     * @throws RuntimeException if the program fails, as the
+     *                          {@link com.inf5153.ast.visitor.ASTCodeExecutor}
+     *                          would
+     */
+    public void run(OutputSink out, InputSource in) {
+        try {
+            body.execute(new Frame(slotCount, out, in));
+        } finally {
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.inf5153.node;
+
+import com.inf5153.closure.Frame;
+
+/**
+ * Represents a print statement. When the printed expression is a variable
+ * holding a string, the string is printed; otherwise the integer value of the
+ * expression is.
+ */
+public final class PrintNode extends StatementNode {
+    private final int stringSlot; // The slot of the printed variable, -1 if the expression is not a variable
+    private ExpressionNode value; // The printed expression
+
+    /**
+     * Constructs a PrintNode.
+     *
+     * @param stringSlot the slot of the printed variable, or -1 if the printed
+     *                   expression is not a variable
+     * @param value      the printed expression
+     */
+    public PrintNode(int stringSlot, ExpressionNode value) {
+        this.stringSlot = stringSlot;
+        this.value = adopt(value);
+    }
+
+    @Override
+    public void execute(Frame frame) {
+        if (stringSlot >= 0) {
+            String string = frame.strings[stringSlot];
+            if (string != null) {
+                frame.out.println(string);
+                return;
+            }
+        }
+        frame.out.println(value.execute(frame));
+    }
+
+    @Override
+    void replaceChild(ExecutionNode child, ExecutionNode replacement) {
+        value = (ExpressionNode) replacement;
+    }
+}
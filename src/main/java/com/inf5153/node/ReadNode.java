@@ -0,0 +1,35 @@
+package com.inf5153.node;
+
+import com.inf5153.closure.Frame;
+
+/**
+ * Represents a read statement, assigning an integer read from the input of
+ * the run to a variable.
+ */
+public final class ReadNode extends StatementNode {
+    private final int slot; // The slot of the read variable
+    private final String prompt; // The text printed before reading, null if none
+
+    /**
+     * Constructs a ReadNode.
+     *
+     * @param slot   the slot of the read variable
+     * @param prompt the text printed before reading, or null
+     */
+    public ReadNode(int slot, String prompt) {
+        this.slot = slot;
+        this.prompt = prompt;
+    }
+
+    @Override
+    public void execute(Frame frame) {
+        if (prompt != null) {
+            frame.out.print(prompt);
+        }
+        if (frame.in.isInteractive()) {
+            frame.out.flush();
+        }
+        frame.values[slot] = frame.in.readInt();
+        frame.defined[slot] = true;
+    }
+}
@@ -0,0 +1,16 @@
+package com.inf5153.node;
+
+import com.inf5153.closure.Frame;
+
+/**
+ * Represents an execution node executing a statement or a block of statements.
+ */
+public abstract class StatementNode extends ExecutionNode {
+
+    /**
+     * Executes the statement.
+     *
+     * @param frame the variables of the running program
+     */
+    public abstract void execute(Frame frame);
+}
@@ -0,0 +1,40 @@
+package com.inf5153.node;
+
+import com.inf5153.closure.Frame;
+
+/**
+ * Represents a read of an integer variable. The read fails if no integer was
+ * assigned to the variable; the error message is only built then.
+ */
+public final class VariableNode extends ExpressionNode {
+    private final int slot; // The slot of the variable in the frame
+    private final String name; // The name of the variable, for error messages
+
+    /**
+     * Constructs a VariableNode.
+     *
+     * @param slot the slot of the variable in the frame
+     * @param name the name of the variable
+     */
+    public VariableNode(int slot, String name) {
+        this.slot = slot;
+        this.name = name;
+    }
+
+    /**
+     * Returns the slot of the variable in the frame.
+     *
+     * @return the slot of the variable
+     */
+    public int getSlot() {
+        return slot;
+    }
+
+    @Override
+    public int execute(Frame frame) {
+        if (!frame.defined[slot]) {
+            throw new RuntimeException("Error: Undefined variable - " + name);
+        }
+        return frame.values[slot];
+    }
+}
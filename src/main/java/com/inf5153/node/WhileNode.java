@@ -0,0 +1,36 @@
+package com.inf5153.node;
+
+import com.inf5153.closure.Frame;
+
+/**
+ * Represents a while loop. Its condition and the expressions of its body
+ * specialise themselves on the first iteration, so later iterations only
+ * execute specialised nodes.
+ */
+public final class WhileNode extends StatementNode {
+    private ConditionNode condition; // The condition of the loop
+    private final StatementNode body; // The body of the loop
+
+    /**
+     * Constructs a WhileNode.
+     *
+     * @param condition the condition of the loop
+     * @param body      the body of the loop
+     */
+    public WhileNode(ConditionNode condition, StatementNode body) {
+        this.condition = adopt(condition);
+        this.body = adopt(body);
+    }
+
+    @Override
+    public void execute(Frame frame) {
+        while (condition.execute(frame)) {
+            body.execute(frame);
+        }
+    }
+
+    @Override
+    void replaceChild(ExecutionNode child, ExecutionNode replacement) {
+        condition = (ConditionNode) replacement;
+    }
+}
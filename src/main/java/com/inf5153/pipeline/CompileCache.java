@@ -0,0 +1,242 @@
+package com.inf5153.pipeline;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The CompileCache class keeps the artefacts compiled from source files in a
+ * directory, so that later runs, even in another process, can reuse them
+ * instead of compiling the same source again.
+ * <p>
+ * Each artefact is a file named after its key, which combines the kind of the
+ * artefact with a SHA-256 hash of the source text and of whatever else it was
+ * compiled from: an edited source gets a new key, and its old artefacts are
+ * never read again. The total size of the artefacts is capped; when it is
+ * exceeded, the least recently used artefacts are deleted. Recency is kept in
+ * the modification time of the files, so that it survives restarts.
+ * <p>
+ * A cache can be shared by the threads of a process. Artefacts are written
+ * to a temporary file first, then renamed, so that a reader never sees a
+ * partial artefact.
+ */
+public class CompileCache {
+    /**
+     * The default cap on the total size of the artefacts, in bytes.
+     */
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+    private static final String SUFFIX = ".bin"; // Extension of the artefact files
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Path directory; // The directory holding the artefacts
+    private final long maxBytes; // The cap on the total size of the artefacts
+    private final LinkedHashMap<String, Long> sizes = new LinkedHashMap<>(16, 0.75f, true); // Size of each artefact, least recently used first
+    private long totalBytes = 0; // The total size of the artefacts
+    private int hits = 0; // Number of artefacts found
+    private int misses = 0; // Number of artefacts not found
+
+    /**
+     * Opens a cache with the default size cap, creating its directory if
+     * needed.
+     *
+     * @param directory the directory holding the artefacts
+     * @throws IOException if the directory cannot be created or listed
+     */
+    public CompileCache(Path directory) throws IOException {
+        this(directory, DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * Opens a cache, creating its directory if needed. The artefacts left by
+     * earlier runs are kept, ordered by their last use.
+     *
+     * @param directory the directory holding the artefacts
+     * @param maxBytes  the cap on the total size of the artefacts, in bytes
+     * @throws IOException if the directory cannot be created or listed
+     */
+    public CompileCache(Path directory, long maxBytes) throws IOException {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        Files.createDirectories(directory);
+        List<Path> files = new ArrayList<>();
+        Map<Path, FileTime> times = new HashMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path file : stream) {
+                files.add(file);
+                times.put(file, Files.getLastModifiedTime(file));
+            }
+        }
+        files.sort(Comparator.comparing(times::get));
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            long size = Files.size(file);
+            sizes.put(name.substring(0, name.length() - SUFFIX.length()), size);
+            totalBytes += size;
+        }
+        evict();
+    }
+
+    /**
+     * Computes the key of an artefact.
+     *
+     * @param kind   the kind of the artefact, such as "ast"; changing the
+     *               format of an artefact must change its kind
+     * @param source the source text, which is left unchanged
+     * @param extras whatever else the artefact depends on, such as a class name
+     * @return the key
+     */
+    public static String key(String kind, ByteBuffer source, String... extras) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        digest.update(source.duplicate());
+        for (String extra : extras) {
+            digest.update((byte) 0);
+            digest.update(extra.getBytes(StandardCharsets.UTF_8));
+        }
+        StringBuilder key = new StringBuilder(kind).append('-');
+        for (byte b : digest.digest()) {
+            key.append(HEX[(b >> 4) & 0xF]).append(HEX[b & 0xF]);
+        }
+        return key.toString();
+    }
+
+    /**
+     * Returns an artefact, marking it as the most recently used.
+     *
+     * @param key the key of the artefact
+     * @return the content of the artefact, or null if it is not in the cache
+     */
+    public byte[] get(String key) {
+        synchronized (this) {
+            if (sizes.get(key) == null) {
+                misses++;
+                return null;
+            }
+        }
+        Path file = fileOf(key);
+        try {
+            byte[] content = Files.readAllBytes(file);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            synchronized (this) {
+                hits++;
+            }
+            return content;
+        } catch (NoSuchFileException e) {
+            remove(key);
+        } catch (IOException e) {
+            // An unreadable artefact is compiled again
+        }
+        synchronized (this) {
+            misses++;
+        }
+        return null;
+    }
+
+    /**
+     * Stores an artefact, replacing any artefact with the same key, then
+     * deletes the least recently used artefacts if the cache is too large.
+     *
+     * @param key     the key of the artefact
+     * @param content the content of the artefact
+     * @throws IOException if the artefact cannot be written
+     */
+    public void put(String key, byte[] content) throws IOException {
+        Path temporary = Files.createTempFile(directory, key, ".tmp");
+        try {
+            Files.write(temporary, content);
+            Files.move(temporary, fileOf(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+        synchronized (this) {
+            Long previous = sizes.put(key, (long) content.length);
+            totalBytes += content.length - (previous != null ? previous : 0);
+            evict();
+        }
+    }
+
+    /**
+     * Returns the number of artefacts in the cache.
+     *
+     * @return the number of artefacts
+     */
+    public synchronized int size() {
+        return sizes.size();
+    }
+
+    /**
+     * Returns the total size of the artefacts in the cache.
+     *
+     * @return the size, in bytes
+     */
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * Returns the number of artefacts found since the cache was opened.
+     *
+     * @return the number of hits
+     */
+    public synchronized int getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of artefacts not found since the cache was opened.
+     *
+     * @return the number of misses
+     */
+    public synchronized int getMisses() {
+        return misses;
+    }
+
+    /**
+     * Deletes the least recently used artefacts until the cache fits its cap.
+     * The most recently used artefact is always kept.
+     */
+    private synchronized void evict() {
+        Iterator<Map.Entry<String, Long>> entries = sizes.entrySet().iterator();
+        while (totalBytes > maxBytes && sizes.size() > 1) {
+            Map.Entry<String, Long> eldest = entries.next();
+            try {
+                Files.deleteIfExists(fileOf(eldest.getKey()));
+            } catch (IOException e) {
+                // A file that cannot be deleted is forgotten, and will be overwritten if stored again
+            }
+            totalBytes -= eldest.getValue();
+            entries.remove();
+        }
+    }
+
+    private synchronized void remove(String key) {
+        Long size = sizes.remove(key);
+        if (size != null) {
+            totalBytes -= size;
+        }
+    }
+
+    private Path fileOf(String key) {
+        return directory.resolve(key + SUFFIX);
+    }
+}
@@ -0,0 +1,20 @@
+package com.inf5153.pipeline;
+
+/**
+ * Thrown by a {@link Pipeline} when the execution of a program fails, such as
+ * on a division by zero or an undefined variable, so that such failures can be
+ * told apart from the sources that do not parse. The message is the one of the
+ * failure, which is kept as the cause.
+ */
+public class ExecutionFailedException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructs an ExecutionFailedException.
+     *
+     * @param cause the failure of the execution
+     */
+    public ExecutionFailedException(RuntimeException cause) {
+        super(cause.getMessage(), cause);
+    }
+}
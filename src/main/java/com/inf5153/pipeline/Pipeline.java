@@ -0,0 +1,381 @@
+package com.inf5153.pipeline;
+
+import com.inf5153.ast.Block;
+import com.inf5153.ast.parser.Lexer;
+import com.inf5153.ast.parser.Parser;
+import com.inf5153.ast.parser.Token;
+import com.inf5153.ast.visitor.ASTAssignmentsCollector;
+import com.inf5153.ast.visitor.ASTBinaryCodec;
+import com.inf5153.ast.visitor.ASTCodePrinter;
+import com.inf5153.ast.visitor.ASTConstantFolder;
+import com.inf5153.ast.visitor.ASTJavaClassGenerator;
+import com.inf5153.ast.visitor.ASTRegisterCompiler;
+import com.inf5153.ast.visitor.ASTTreeMaker;
+import com.inf5153.register.RegisterProgram;
+import com.inf5153.utils.FileUtils;
+import com.inf5153.utils.InputSource;
+import com.inf5153.utils.OutputSink;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The Pipeline class runs a chosen set of {@link Stage}s on source files. Only
+ * the work the chosen stages depend on is done: the token list is only built
+ * when the tokens are printed, the parser otherwise pulling tokens straight
+ * from the lexer; the code is only folded when it is printed, executed or
+ * translated; the assignments are collected at most once, then shared by
+ * the Java class generator and the assignments report; and the Java class is
+ * generated at most once, then written, run in memory, or both.
+ * <p>
+ * When several stages run, the output of each one is preceded by a title.
+ * A pipeline running a single stage prints nothing but the output of that
+ * stage, so that running a script only prints what the script prints.
+ * All the stages print to a single buffered {@link OutputSink}, flushed when
+ * the run ends.
+ * <p>
+ * With a {@link CompileCache}, the tree parsed from a source, encoded by the
+ * {@link ASTBinaryCodec}, and the Java class generated from it are stored in
+ * the cache, and taken from there by the later runs on the same source,
+ * which then neither lex nor parse it.
+ * <p>
+ * The code is executed by compiling the folded tree into a
+ * {@link RegisterProgram}. Since such a program holds no state, a pipeline
+ * given a map of programs keeps the program of each source there, and the
+ * later runs on the same source, on any thread, run it again with their own
+ * sinks; a run that only executes the code then neither parses nor compiles
+ * it.
+ */
+public class Pipeline {
+    private static final String AST_ARTEFACT = "ast2"; // Kind of the cached trees, to change with their format
+    private static final String JAVA_ARTEFACT = "java2"; // Kind of the cached Java classes, to change with the generator
+    private static final String PROGRAM_ARTEFACT = "registers1"; // Kind of the kept programs, to change with the compiler
+
+    private final Set<Stage> stages;
+    private final String inputPath; // The file supplying the values read, null for the standard input
+    private final CompileCache cache; // The artefacts of earlier runs, null if not cached
+    private final Map<String, RegisterProgram> programs; // The programs compiled by earlier runs, null if not kept
+
+    /**
+     * Constructs a Pipeline running the given stages, reading from the
+     * standard input.
+     *
+     * @param stages the stages to run
+     * @throws IllegalArgumentException if no stage is given
+     */
+    public Pipeline(Set<Stage> stages) {
+        this(stages, null);
+    }
+
+    /**
+     * Constructs a Pipeline running the given stages, reading the values of
+     * the read statements from a file.
+     *
+     * @param stages    the stages to run
+     * @param inputPath the path of the file supplying the values read, or null
+     *                  to read from the standard input
+     * @throws IllegalArgumentException if no stage is given
+     */
+    public Pipeline(Set<Stage> stages, String inputPath) {
+        this(stages, inputPath, null);
+    }
+
+    /**
+     * Constructs a Pipeline running the given stages, reading the values of
+     * the read statements from a file, and reusing the artefacts of a cache.
+     *
+     * @param stages    the stages to run
+     * @param inputPath the path of the file supplying the values read, or null
+     *                  to read from the standard input
+     * @param cache     the cache of the parsed trees and generated classes, or
+     *                  null to compile every source from scratch
+     * @throws IllegalArgumentException if no stage is given
+     */
+    public Pipeline(Set<Stage> stages, String inputPath, CompileCache cache) {
+        this(stages, inputPath, cache, null);
+    }
+
+    /**
+     * Constructs a Pipeline running the given stages, reading the values of
+     * the read statements from a file, reusing the artefacts of a cache and
+     * the programs compiled by earlier runs.
+     *
+     * @param stages    the stages to run
+     * @param inputPath the path of the file supplying the values read, or null
+     *                  to read from the standard input
+     * @param cache     the cache of the parsed trees and generated classes, or
+     *                  null to compile every source from scratch
+     * @param programs  the compiled programs, by source, shared with the other
+     *                  pipelines using it and thus safe for concurrent use, or
+     *                  null to compile the program of every run
+     * @throws IllegalArgumentException if no stage is given
+     */
+    public Pipeline(Set<Stage> stages, String inputPath, CompileCache cache, Map<String, RegisterProgram> programs) {
+        if (stages.isEmpty()) {
+            throw new IllegalArgumentException("No stage to run");
+        }
+        this.stages = EnumSet.copyOf(stages);
+        this.inputPath = inputPath;
+        this.cache = cache;
+        this.programs = programs;
+    }
+
+    /**
+     * Returns a pipeline running every stage.
+     *
+     * @return the pipeline
+     */
+    public static Pipeline all() {
+        return new Pipeline(EnumSet.allOf(Stage.class));
+    }
+
+    /**
+     * Returns the stages run by this pipeline.
+     *
+     * @return the stages, in the order in which they run
+     */
+    public Set<Stage> getStages() {
+        return EnumSet.copyOf(stages);
+    }
+
+    /**
+     * Runs the stages of the pipeline on a source file.
+     *
+     * @param filePath the path of the file containing the source code
+     * @throws IOException              if the file cannot be read, or if the
+     *                                  Java class cannot be written
+     * @throws ExecutionFailedException if the execution of the code fails
+     * @throws RuntimeException         if the source cannot be parsed
+     */
+    public void run(String filePath) throws IOException {
+        run(filePath, null);
+    }
+
+    /**
+     * Runs the stages of the pipeline on a source file, the read statements
+     * reading from a given source rather than from the one of the pipeline.
+     * A pipeline reading from the standard input opens a buffered source on it
+     * for each run, so a caller running several files on the standard input
+     * passes them all a single source, lest a run buffer the values of the
+     * next ones.
+     *
+     * @param filePath the path of the file containing the source code
+     * @param in       the source of the values read, or null for the one of
+     *                 the pipeline
+     * @throws IOException              if the file cannot be read, or if the
+     *                                  Java class cannot be written
+     * @throws ExecutionFailedException if the execution of the code fails
+     * @throws RuntimeException         if the source cannot be parsed
+     */
+    public void run(String filePath, InputSource in) throws IOException {
+        OutputSink out = OutputSink.standardOutput();
+        try {
+            run(filePath, out, in);
+        } finally {
+            out.flush();
+        }
+    }
+
+    /**
+     * Runs the stages of the pipeline on a source file, printing to a sink.
+     * The sink is not flushed when the run ends, which is left to the caller.
+     *
+     * @param filePath the path of the file containing the source code
+     * @param out      the sink receiving the output of the stages
+     * @param in       the source of the values read, or null for the one of
+     *                 the pipeline
+     * @throws IOException              if the file cannot be read, or if the
+     *                                  Java class cannot be written
+     * @throws ExecutionFailedException if the execution of the code fails
+     * @throws RuntimeException         if the source cannot be parsed
+     */
+    public void run(String filePath, OutputSink out, InputSource in) throws IOException {
+        ByteBuffer source = FileUtils.mapFile(filePath);
+        String programKey = null;
+        RegisterProgram program = null;
+        if (programs != null && stages.contains(Stage.EXECUTE)) {
+            programKey = CompileCache.key(PROGRAM_ARTEFACT, source);
+            program = programs.get(programKey);
+            if (program != null && stages.size() == 1) {
+                execute(program, out, in);
+                return;
+            }
+        }
+
+        Block ast;
+        if (stages.contains(Stage.TOKENS)) {
+            List<Token> tokens = new Lexer(source).tokenize();
+            title(out, Stage.TOKENS, "GENERATED TOKENS:");
+            for (Token token : tokens) {
+                out.println(token.toString());
+            }
+            if (stages.size() == 1) {
+                return;
+            }
+            ast = new Parser(tokens).parse();
+        } else if (cache != null) {
+            ast = parseCached(source);
+        } else {
+            ast = new Parser(new Lexer(source)).parse();
+        }
+
+        if (stages.contains(Stage.CODE)) {
+            title(out, Stage.CODE, "GENERATED CODE:");
+            ast.accept(new ASTCodePrinter(out));
+        }
+
+        if (stages.contains(Stage.TREE)) {
+            title(out, Stage.TREE, "GENERATED AST TREE:");
+            ASTTreeMaker treeMaker = new ASTTreeMaker(out);
+            ast.accept(treeMaker);
+            treeMaker.printTree();
+        }
+
+        Block folded = null;
+        boolean java = stages.contains(Stage.JAVA) || stages.contains(Stage.RUN_JAVA);
+        if (stages.contains(Stage.FOLDED) || stages.contains(Stage.EXECUTE) || java) {
+            folded = new ASTConstantFolder().fold(ast);
+        }
+
+        if (stages.contains(Stage.FOLDED)) {
+            title(out, Stage.FOLDED, "FOLDED CODE:");
+            folded.accept(new ASTCodePrinter(out));
+        }
+
+        if (stages.contains(Stage.EXECUTE)) {
+            title(out, Stage.EXECUTE, "EXECUTING CODE:");
+            if (program == null) {
+                program = new ASTRegisterCompiler().compile(folded);
+                if (programs != null) {
+                    programs.put(programKey, program);
+                }
+            }
+            execute(program, out, in);
+        }
+
+        // Folding only removes assignments, so the assignments of the source
+        // declare every variable of the folded code
+        ASTAssignmentsCollector assignmentsCollector = null;
+        if (java || stages.contains(Stage.ASSIGNMENTS)) {
+            assignmentsCollector = new ASTAssignmentsCollector();
+            ast.accept(assignmentsCollector);
+        }
+
+        if (java) {
+            String className = FileUtils.generateClassName(filePath);
+            ASTJavaClassGenerator generator = new ASTJavaClassGenerator(className, out);
+            String key = cache != null ? CompileCache.key(JAVA_ARTEFACT, source, className) : null;
+            byte[] cached = cache != null ? cache.get(key) : null;
+            String javaSource;
+            if (cached != null) {
+                javaSource = new String(cached, StandardCharsets.UTF_8);
+            } else {
+                javaSource = generator.generateSource(folded, assignmentsCollector.getAssignments());
+                if (cache != null) {
+                    store(key, javaSource.getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            if (stages.contains(Stage.JAVA)) {
+                title(out, Stage.JAVA, "GENERATING JAVA CLASS:");
+                generator.writeJavaClass(javaSource);
+            }
+            if (stages.contains(Stage.RUN_JAVA)) {
+                title(out, Stage.RUN_JAVA, "RUNNING JAVA CLASS:");
+                try {
+                    generator.runJavaClass(javaSource);
+                } catch (RuntimeException e) {
+                    throw new ExecutionFailedException(e);
+                }
+            }
+        }
+
+        if (stages.contains(Stage.ASSIGNMENTS)) {
+            title(out, Stage.ASSIGNMENTS, "COLLECTING ASSIGNMENTS:");
+            assignmentsCollector.printAssignments(out);
+        }
+    }
+
+    /**
+     * Runs a compiled program.
+     *
+     * @param program the program
+     * @param out     the sink receiving the printed values
+     * @param in      the source of the values read, or null for the one of
+     *                the pipeline
+     * @throws IOException              if the file supplying the values read
+     *                                  cannot be read
+     * @throws ExecutionFailedException if the execution fails
+     */
+    private void execute(RegisterProgram program, OutputSink out, InputSource in) throws IOException {
+        if (in == null) {
+            in = inputPath != null ? InputSource.fromFile(inputPath) : InputSource.standardInput();
+        }
+        try {
+            program.run(out, in);
+        } catch (RuntimeException e) {
+            throw new ExecutionFailedException(e);
+        }
+    }
+
+    /**
+     * Parses a source, or loads its tree from the cache if the same source was
+     * parsed before. A source that does not parse is not cached, so that the
+     * error is reported again by the next run.
+     *
+     * @param source the source code
+     * @return the root block of the AST
+     * @throws RuntimeException if the source cannot be parsed
+     */
+    private Block parseCached(ByteBuffer source) {
+        String key = CompileCache.key(AST_ARTEFACT, source);
+        byte[] cached = cache.get(key);
+        if (cached != null) {
+            try {
+                return ASTBinaryCodec.decode(cached);
+            } catch (RuntimeException e) {
+                // A damaged artefact is parsed again, and replaced
+            }
+        }
+        Block ast = new Parser(new Lexer(source)).parse();
+        store(key, new ASTBinaryCodec().encode(ast));
+        return ast;
+    }
+
+    /**
+     * Stores an artefact in the cache. An artefact that cannot be stored is
+     * compiled again by the next run, which is not an error.
+     *
+     * @param key     the key of the artefact
+     * @param content the content of the artefact
+     */
+    private void store(String key, byte[] content) {
+        try {
+            cache.put(key, content);
+        } catch (IOException e) {
+            // Compiled again by the next run
+        }
+    }
+
+    /**
+     * Prints the title of a stage when several stages run, preceded by a blank
+     * line unless the stage is the first one.
+     *
+     * @param out   the sink receiving the title
+     * @param stage the stage
+     * @param title the title of the stage
+     */
+    private void title(OutputSink out, Stage stage, String title) {
+        if (stages.size() == 1) {
+            return;
+        }
+        if (stage != stages.iterator().next()) {
+            out.println("");
+        }
+        out.println(title);
+    }
+}
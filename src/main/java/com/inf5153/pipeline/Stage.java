@@ -0,0 +1,47 @@
+package com.inf5153.pipeline;
+
+/**
+ * Enumerates the stages a {@link Pipeline} can run on a source file, in the
+ * order in which they run.
+ */
+public enum Stage {
+    TOKENS("tokens"), // Prints the tokens of the source
+    CODE("code"), // Prints the parsed code
+    TREE("tree"), // Prints the tree of the AST
+    FOLDED("folded"), // Prints the code after constant folding
+    EXECUTE("execute"), // Executes the folded code
+    JAVA("java"), // Generates the Java class of the folded code
+    RUN_JAVA("run-java"), // Compiles the Java class of the folded code in memory and runs it
+    ASSIGNMENTS("assignments"); // Prints the assignments of the code
+
+    private final String name; // The name of the stage on the command line
+
+    Stage(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Returns the name of the stage on the command line.
+     *
+     * @return the name of the stage, such as "execute"
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the stage with the given name.
+     *
+     * @param name the name of the stage
+     * @return the stage
+     * @throws IllegalArgumentException if no stage has this name
+     */
+    public static Stage fromName(String name) {
+        for (Stage stage : values()) {
+            if (stage.name.equals(name)) {
+                return stage;
+            }
+        }
+        throw new IllegalArgumentException("Unknown stage: " + name);
+    }
+}
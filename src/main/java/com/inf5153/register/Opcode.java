@@ -0,0 +1,124 @@
+package com.inf5153.register;
+
+/**
+ * Lists the instructions of a {@link RegisterProgram}. An instruction is its
+ * opcode followed by its operands in the code array; registers are indices
+ * in the register file, targets are indices in the code array.
+ * <p>
+ * The registers of the variables come first, numbered by their slot, so that
+ * instructions read and write variables directly.
+ */
+public final class Opcode {
+    /**
+     * {@code MOVE dst src}: copies a register.
+     */
+    public static final int MOVE = 0;
+
+    /**
+     * {@code CHECK slot}: fails if no integer was assigned to a variable.
+     */
+    public static final int CHECK = 1;
+
+    /**
+     * {@code DEFINE slot}: records that an integer was assigned to a variable.
+     */
+    public static final int DEFINE = 2;
+
+    /**
+     * {@code ADD dst left right}.
+     */
+    public static final int ADD = 3;
+
+    /**
+     * {@code SUBTRACT dst left right}.
+     */
+    public static final int SUBTRACT = 4;
+
+    /**
+     * {@code MULTIPLY dst left right}.
+     */
+    public static final int MULTIPLY = 5;
+
+    /**
+     * {@code DIVIDE dst left right}: fails if the right operand is zero.
+     */
+    public static final int DIVIDE = 6;
+
+    /**
+     * {@code NEGATE dst src}.
+     */
+    public static final int NEGATE = 7;
+
+    /**
+     * {@code JUMP target}.
+     */
+    public static final int JUMP = 8;
+
+    /**
+     * {@code JUMP_EQUAL left right target}: jumps if the operands are equal.
+     * The other comparisons follow, in the order of
+     * {@link com.inf5153.ast.ConditionOperator}.
+     */
+    public static final int JUMP_EQUAL = 9;
+
+    /**
+     * {@code JUMP_NOT_EQUAL left right target}.
+     */
+    public static final int JUMP_NOT_EQUAL = 10;
+
+    /**
+     * {@code JUMP_LESS left right target}.
+     */
+    public static final int JUMP_LESS = 11;
+
+    /**
+     * {@code JUMP_LESS_EQUAL left right target}.
+     */
+    public static final int JUMP_LESS_EQUAL = 12;
+
+    /**
+     * {@code JUMP_GREATER left right target}.
+     */
+    public static final int JUMP_GREATER = 13;
+
+    /**
+     * {@code JUMP_GREATER_EQUAL left right target}.
+     */
+    public static final int JUMP_GREATER_EQUAL = 14;
+
+    /**
+     * {@code SET_STRING slot text}: assigns a text of the program to a
+     * variable.
+     */
+    public static final int SET_STRING = 15;
+
+    /**
+     * {@code PRINT src}: prints the integer in a register.
+     */
+    public static final int PRINT = 16;
+
+    /**
+     * {@code PRINT_VARIABLE slot}: prints the string of a variable if it holds
+     * one, and its integer otherwise, failing if it has none.
+     */
+    public static final int PRINT_VARIABLE = 17;
+
+    /**
+     * {@code READ slot prompt}: prints a text of the program, unless prompt
+     * is -1, then reads an integer into a variable.
+     */
+    public static final int READ = 18;
+
+    /**
+     * {@code FAIL message}: fails with a text of the program as message.
+     */
+    public static final int FAIL = 19;
+
+    /**
+     * {@code HALT}: ends the program.
+     */
+    public static final int HALT = 20;
+
+    private Opcode() {
+    }
+}
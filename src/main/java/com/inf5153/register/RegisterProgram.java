@@ -0,0 +1,192 @@
+package com.inf5153.register;
+
+import com.inf5153.utils.InputSource;
+import com.inf5153.utils.OutputSink;
+
+/**
+ * Represents a program compiled into register bytecode: a code array of
+ * {@link Opcode} instructions, run by a single dispatch loop over a register
+ * file of ints. The program holds no state, so the same program can be run
+ * any number of times.
+ * <p>
+ * The register file holds the variables, numbered by slot, then the constants
+ * of the program, then the temporaries of the expressions. Each run starts
+ * from a copy of the initial registers, in which the constants are already
+ * loaded.
+ */
+public class RegisterProgram {
+    private final int[] code; // The instructions
+    private final int[] initialRegisters; // The register file before the run, constants loaded
+    private final String[] names; // Name of each variable, by slot
+    private final String[] texts; // Texts of the program: string values, prompts and messages
+
+    /**
+     * Constructs a RegisterProgram.
+     *
+     * @param code             the instructions, ending with {@link Opcode#HALT}
+     * @param initialRegisters the register file before the run
+     * @param names            the name of each variable, by slot
+     * @param texts            the texts referred to by the instructions
+     */
+    public RegisterProgram(int[] code, int[] initialRegisters, String[] names, String[] texts) {
+        this.code = code;
+        this.initialRegisters = initialRegisters;
+        this.names = names;
+        this.texts = texts;
+    }
+
+    /**
+     * Returns the instructions of the program.
+     *
+     * @return a copy of the code array
+     */
+    public int[] getCode() {
+        return code.clone();
+    }
+
+    /**
+     * Returns the number of registers of the program.
+     *
+     * @return the size of the register file
+     */
+    public int getRegisterCount() {
+        return initialRegisters.length;
+    }
+
+    /**
+     * Runs the program reading from the standard input and printing to the
+     * standard output.
+     *
+     * @throws RuntimeException if the program fails, as the
+     *                          {@link com.inf5153.ast.visitor.ASTCodeExecutor}
+     *                          would
+     */
+    public void run() {
+        run(OutputSink.standardOutput(), InputSource.standardInput());
+    }
+
+    /**
+     * Runs the program, starting with no variable defined. The output is
+     * flushed when the program ends, even if it fails.
+     *
+     * @param out the sink receiving the printed values
+     * @param in  the source supplying the values read
+     * @throws RuntimeException if the program fails, as the
+     *                          {@link com.inf5153.ast.visitor.ASTCodeExecutor}
+     *                          would
+     */
+    public void run(OutputSink out, InputSource in) {
+        try {
+            execute(out, in);
+        } finally {
+            out.flush();
+        }
+    }
+
+    private void execute(OutputSink out, InputSource in) {
+        int[] code = this.code;
+        int[] registers = initialRegisters.clone();
+        boolean[] defined = new boolean[names.length];
+        String[] strings = new String[names.length];
+        int pc = 0;
+        while (true) {
+            switch (code[pc]) {
+                case Opcode.MOVE:
+                    registers[code[pc + 1]] = registers[code[pc + 2]];
+                    pc += 3;
+                    break;
+                case Opcode.CHECK:
+                    if (!defined[code[pc + 1]]) {
+                        throw new RuntimeException("Error: Undefined variable - " + names[code[pc + 1]]);
+                    }
+                    pc += 2;
+                    break;
+                case Opcode.DEFINE:
+                    defined[code[pc + 1]] = true;
+                    pc += 2;
+                    break;
+                case Opcode.ADD:
+                    registers[code[pc + 1]] = registers[code[pc + 2]] + registers[code[pc + 3]];
+                    pc += 4;
+                    break;
+                case Opcode.SUBTRACT:
+                    registers[code[pc + 1]] = registers[code[pc + 2]] - registers[code[pc + 3]];
+                    pc += 4;
+                    break;
+                case Opcode.MULTIPLY:
+                    registers[code[pc + 1]] = registers[code[pc + 2]] * registers[code[pc + 3]];
+                    pc += 4;
+                    break;
+                case Opcode.DIVIDE:
+                    int divisor = registers[code[pc + 3]];
+                    if (divisor == 0) {
+                        throw new RuntimeException("Division by zero!");
+                    }
+                    registers[code[pc + 1]] = registers[code[pc + 2]] / divisor;
+                    pc += 4;
+                    break;
+                case Opcode.NEGATE:
+                    registers[code[pc + 1]] = -registers[code[pc + 2]];
+                    pc += 3;
+                    break;
+                case Opcode.JUMP:
+                    pc = code[pc + 1];
+                    break;
+                case Opcode.JUMP_EQUAL:
+                    pc = registers[code[pc + 1]] == registers[code[pc + 2]] ? code[pc + 3] : pc + 4;
+                    break;
+                case Opcode.JUMP_NOT_EQUAL:
+                    pc = registers[code[pc + 1]] != registers[code[pc + 2]] ? code[pc + 3] : pc + 4;
+                    break;
+                case Opcode.JUMP_LESS:
+                    pc = registers[code[pc + 1]] < registers[code[pc + 2]] ? code[pc + 3] : pc + 4;
+                    break;
+                case Opcode.JUMP_LESS_EQUAL:
+                    pc = registers[code[pc + 1]] <= registers[code[pc + 2]] ? code[pc + 3] : pc + 4;
+                    break;
+                case Opcode.JUMP_GREATER:
+                    pc = registers[code[pc + 1]] > registers[code[pc + 2]] ? code[pc + 3] : pc + 4;
+                    break;
+                case Opcode.JUMP_GREATER_EQUAL:
+                    pc = registers[code[pc + 1]] >= registers[code[pc + 2]] ? code[pc + 3] : pc + 4;
+                    break;
+                case Opcode.SET_STRING:
+                    strings[code[pc + 1]] = texts[code[pc + 2]];
+                    pc += 3;
+                    break;
+                case Opcode.PRINT:
+                    out.println(registers[code[pc + 1]]);
+                    pc += 2;
+                    break;
+                case Opcode.PRINT_VARIABLE:
+                    int slot = code[pc + 1];
+                    if (strings[slot] != null) {
+                        out.println(strings[slot]);
+                    } else if (defined[slot]) {
+                        out.println(registers[slot]);
+                    } else {
+                        throw new RuntimeException("Error: Undefined variable - " + names[slot]);
+                    }
+                    pc += 2;
+                    break;
+                case Opcode.READ:
+                    if (code[pc + 2] >= 0) {
+                        out.print(texts[code[pc + 2]] + " ");
+                    }
+                    if (in.isInteractive()) {
+                        out.flush();
+                    }
+                    registers[code[pc + 1]] = in.readInt();
+                    defined[code[pc + 1]] = true;
+                    pc += 3;
+                    break;
+                case Opcode.FAIL:
+                    throw new RuntimeException(texts[code[pc + 1]]);
+                case Opcode.HALT:
+                    return;
+                default:
+                    throw new IllegalStateException("Unknown opcode " + code[pc] + " at " + pc);
+            }
+        }
+    }
+}
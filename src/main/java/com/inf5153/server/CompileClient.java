@@ -0,0 +1,95 @@
+package com.inf5153.server;
+
+import com.inf5153.pipeline.Stage;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Set;
+import java.util.StringJoiner;
+
+/**
+ * The CompileClient class sends the source files to run to a
+ * {@link CompileServer}, and copies what the server prints while running
+ * them. Requests are sent one after the other over a single connection.
+ */
+public class CompileClient implements Closeable {
+    private final SocketChannel channel; // The connection to the server
+
+    /**
+     * Connects to a server.
+     *
+     * @param socket the path of the socket file of the server
+     * @throws IOException if no server listens on the socket
+     */
+    public CompileClient(Path socket) throws IOException {
+        channel = SocketChannel.open(UnixDomainSocketAddress.of(socket));
+    }
+
+    /**
+     * Runs stages on a source file on the server, waiting for them to end.
+     * The path of the file is resolved against the current directory of the
+     * client, not the one of the server.
+     *
+     * @param stages   the stages to run
+     * @param filePath the path of the source file
+     * @param input    the text supplying the values of the read statements
+     * @param out      the stream receiving what the stages print to the
+     *                 standard output
+     * @param err      the stream receiving what the stages print to the
+     *                 standard error, including the errors of the request
+     * @return true if the request succeeded, false if the server reported an
+     *         error
+     * @throws IOException if the connection to the server fails
+     */
+    public boolean run(Set<Stage> stages, String filePath, byte[] input, OutputStream out, OutputStream err)
+            throws IOException {
+        StringJoiner names = new StringJoiner(",");
+        for (Stage stage : stages) {
+            names.add(stage.getName());
+        }
+        byte[] stageNames = names.toString().getBytes(StandardCharsets.UTF_8);
+        byte[] path = Paths.get(filePath).toAbsolutePath().toString().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer request = ByteBuffer.allocate(12 + stageNames.length + path.length + input.length);
+        request.putInt(stageNames.length).put(stageNames);
+        request.putInt(path.length).put(path);
+        request.putInt(input.length).put(input);
+        Frames.write(channel, Frames.REQUEST, request.array(), 0, request.capacity());
+
+        while (true) {
+            ByteBuffer frame = Frames.read(channel);
+            if (frame == null) {
+                throw new EOFException("The server closed the connection");
+            }
+            byte type = frame.get();
+            if (type == Frames.OUT) {
+                out.write(frame.array(), frame.position(), frame.remaining());
+            } else if (type == Frames.ERR) {
+                err.write(frame.array(), frame.position(), frame.remaining());
+            } else if (type == Frames.DONE && frame.remaining() == 1) {
+                out.flush();
+                err.flush();
+                return frame.get() == 0;
+            } else {
+                throw new IOException("Unexpected frame from the server");
+            }
+        }
+    }
+
+    /**
+     * Disconnects from the server.
+     *
+     * @throws IOException if the connection cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
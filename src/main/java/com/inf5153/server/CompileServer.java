@@ -0,0 +1,290 @@
+package com.inf5153.server;
+
+import com.inf5153.pipeline.CompileCache;
+import com.inf5153.pipeline.ExecutionFailedException;
+import com.inf5153.pipeline.Pipeline;
+import com.inf5153.pipeline.Stage;
+import com.inf5153.register.RegisterProgram;
+import com.inf5153.utils.OutputSink;
+import com.inf5153.utils.StreamInputSource;
+import com.inf5153.utils.WriterOutputSink;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The CompileServer class is a long-running compile server: it runs the
+ * stages of a {@link Pipeline} on source files for clients connected to a
+ * Unix domain socket, such as the {@link CompileClient}. Since the server
+ * does not exit between requests, a request does not pay for starting a JVM,
+ * and runs code the JIT compiler has already warmed up, with the artefacts of
+ * the {@link CompileCache} already indexed. The programs compiled to execute
+ * the sources are kept in memory, so that the later requests on a source run
+ * its program right away, their runs sharing nothing else.
+ * <p>
+ * Each client is served on its own virtual thread, so that many clients are
+ * served at once, and can send any number of requests, one after the other,
+ * over its connection. A request names the stages to run, the source file and
+ * the values to read. Each request prints to its own {@link OutputSink}s, one
+ * for the output of the stages and one for its errors, which send what they
+ * receive to the client in frames whenever their buffer is full, and when the
+ * request ends, followed by whether the request succeeded. The requests thus
+ * share no stream, and {@link System#out} is left alone.
+ */
+public class CompileServer implements Closeable {
+    private static final int MAX_PROGRAMS = 256; // Number of compiled programs kept
+    private final Path socket; // The path of the socket file
+    private final ServerSocketChannel server; // Accepts the connections of the clients
+    private final CompileCache cache; // The artefacts shared by the requests, null if not cached
+    private final Set<SocketChannel> clients = ConcurrentHashMap.newKeySet(); // The connected clients
+    private final Map<String, RegisterProgram> programs = Collections.synchronizedMap(new ProgramMap()); // By source
+
+    /**
+     * Opens a server on a Unix domain socket. A socket file left by a server
+     * that no longer runs is replaced.
+     *
+     * @param socket the path of the socket file
+     * @param cache  the cache of the parsed trees and generated classes, or
+     *               null to compile every source from scratch
+     * @throws IOException if a server already listens on the socket, or if
+     *                     the socket cannot be bound
+     */
+    public CompileServer(Path socket, CompileCache cache) throws IOException {
+        this.socket = socket;
+        this.cache = cache;
+        UnixDomainSocketAddress address = UnixDomainSocketAddress.of(socket);
+        if (Files.exists(socket)) {
+            boolean listening;
+            try {
+                SocketChannel probe = SocketChannel.open(address);
+                probe.close();
+                listening = true;
+            } catch (IOException e) {
+                listening = false;
+            }
+            if (listening) {
+                throw new IOException("A server already listens on " + socket);
+            }
+            Files.delete(socket);
+        }
+        server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        server.bind(address);
+    }
+
+    /**
+     * Serves the clients until the server is closed. Once it is closed, waits
+     * for the requests in progress to end.
+     */
+    public void serve() {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            while (true) {
+                SocketChannel client;
+                try {
+                    client = server.accept();
+                } catch (IOException e) {
+                    break; // Closed
+                }
+                clients.add(client);
+                executor.submit(() -> serve(client));
+            }
+        }
+    }
+
+    /**
+     * Stops accepting clients, disconnects the connected ones and deletes the
+     * socket file.
+     *
+     * @throws IOException if the socket file cannot be deleted
+     */
+    @Override
+    public void close() throws IOException {
+        server.close();
+        for (SocketChannel client : clients) {
+            try {
+                client.close();
+            } catch (IOException e) {
+                // Already disconnected
+            }
+        }
+        Files.deleteIfExists(socket);
+    }
+
+    /**
+     * Serves the requests of a client until it disconnects.
+     *
+     * @param client the connection of the client
+     */
+    private void serve(SocketChannel client) {
+        try (client) {
+            ByteBuffer request;
+            while ((request = Frames.read(client)) != null) {
+                OutputSink out = sink(client, Frames.OUT);
+                OutputSink err = sink(client, Frames.ERR);
+                boolean succeeded = handle(request, out, err);
+                try {
+                    out.flush();
+                    err.flush();
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+                Frames.write(client, Frames.DONE, new byte[] { (byte) (succeeded ? 0 : 1) }, 0, 1);
+            }
+        } catch (IOException e) {
+            // The client disconnected, or sent a malformed frame
+        } finally {
+            clients.remove(client);
+        }
+    }
+
+    /**
+     * Runs a request, reporting its errors like the application does.
+     *
+     * @param request the request frame
+     * @param out     the sink receiving the output of the stages
+     * @param err     the sink receiving the errors of the request
+     * @return true if the request succeeded
+     * @throws IOException if the request is malformed
+     */
+    private boolean handle(ByteBuffer request, OutputSink out, OutputSink err) throws IOException {
+        if (request.get() != Frames.REQUEST) {
+            throw new IOException("Expected a request");
+        }
+        String stageNames = new String(field(request), StandardCharsets.UTF_8);
+        String filePath = new String(field(request), StandardCharsets.UTF_8);
+        byte[] input = field(request);
+
+        Set<Stage> stages = EnumSet.noneOf(Stage.class);
+        Pipeline pipeline;
+        try {
+            for (String name : stageNames.split(",")) {
+                stages.add(Stage.fromName(name));
+            }
+            pipeline = new Pipeline(stages, null, cache, programs);
+        } catch (IllegalArgumentException e) {
+            err.println(e.getMessage());
+            return false;
+        }
+        try {
+            pipeline.run(filePath, out, new StreamInputSource(new ByteArrayInputStream(input), false));
+            return true;
+        } catch (IOException e) {
+            err.println("File read error: " + e.getMessage());
+        } catch (ExecutionFailedException e) {
+            err.println("Runtime error: " + e.getMessage());
+        } catch (RuntimeException e) {
+            err.println("Parsing error: " + e.getMessage());
+        }
+        return false;
+    }
+
+    /**
+     * Returns a sink sending what it receives to a client, in frames of a
+     * given type.
+     *
+     * @param client the connection of the client
+     * @param type   the type of the frames
+     * @return the sink
+     */
+    private static OutputSink sink(SocketChannel client, byte type) {
+        return new WriterOutputSink(new OutputStreamWriter(new FrameOutputStream(client, type), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reads a field of a request: its length, then its bytes.
+     */
+    private static byte[] field(ByteBuffer request) throws IOException {
+        if (request.remaining() < 4) {
+            throw new IOException("Truncated request");
+        }
+        int length = request.getInt();
+        if (length < 0 || length > request.remaining()) {
+            throw new IOException("Truncated request");
+        }
+        byte[] field = new byte[length];
+        request.get(field);
+        return field;
+    }
+
+    /**
+     * A map of compiled programs, dropping the least recently used one once
+     * it holds more than {@link #MAX_PROGRAMS} programs.
+     */
+    private static final class ProgramMap extends LinkedHashMap<String, RegisterProgram> {
+        private static final long serialVersionUID = 1L;
+
+        private ProgramMap() {
+            super(16, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, RegisterProgram> eldest) {
+            return size() > MAX_PROGRAMS;
+        }
+    }
+
+    /**
+     * An output stream sending what it receives to a client, in frames of a
+     * given type. Bytes are buffered until flushed, or until the buffer is
+     * full; a write larger than the buffer is sent as a frame of its own.
+     */
+    private static final class FrameOutputStream extends OutputStream {
+        private final SocketChannel channel; // The connection of the client
+        private final byte type; // The type of the frames
+        private final byte[] buffer = new byte[8192]; // The bytes not sent yet
+        private int size = 0; // Number of bytes in the buffer
+
+        private FrameOutputStream(SocketChannel channel, byte type) {
+            this.channel = channel;
+            this.type = type;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (size == buffer.length) {
+                flush();
+            }
+            buffer[size++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len > buffer.length - size) {
+                flush();
+                if (len > buffer.length) {
+                    Frames.write(channel, type, b, off, len);
+                    return;
+                }
+            }
+            System.arraycopy(b, off, buffer, size, len);
+            size += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (size > 0) {
+                Frames.write(channel, type, buffer, 0, size);
+                size = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.inf5153.server;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Reads and writes the frames exchanged by the {@link CompileServer} and the
+ * {@link CompileClient}. A frame is a type byte, the length of its payload as
+ * an int, then the payload.
+ */
+final class Frames {
+    /**
+     * A request: the names of the stages separated by commas, the path of the
+     * source file, then the text supplying the values read, each one preceded
+     * by its length as an int.
+     */
+    static final byte REQUEST = 0;
+
+    /**
+     * Text printed to the standard output.
+     */
+    static final byte OUT = 1;
+
+    /**
+     * Text printed to the standard error.
+     */
+    static final byte ERR = 2;
+
+    /**
+     * The end of the response to a request: a byte, 0 if the request
+     * succeeded and 1 if it failed.
+     */
+    static final byte DONE = 3;
+
+    static final int MAX_LENGTH = 64 * 1024 * 1024; // Longest payload accepted
+
+    private Frames() {
+    }
+
+    /**
+     * Writes a frame.
+     *
+     * @param channel the channel
+     * @param type    the type of the frame
+     * @param payload the array holding the payload
+     * @param offset  the offset of the payload in the array
+     * @param length  the length of the payload
+     * @throws IOException if the channel cannot be written
+     */
+    static void write(SocketChannel channel, byte type, byte[] payload, int offset, int length) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(5).put(type).putInt(length).flip();
+        ByteBuffer body = ByteBuffer.wrap(payload, offset, length);
+        ByteBuffer[] buffers = { header, body };
+        while (body.hasRemaining() || header.hasRemaining()) {
+            channel.write(buffers);
+        }
+    }
+
+    /**
+     * Reads a frame.
+     *
+     * @param channel the channel
+     * @return the type of the frame followed by its payload, or null if the
+     *         channel was closed before the frame
+     * @throws IOException if the channel cannot be read, is closed in the
+     *                     middle of the frame, or if the frame is too long
+     */
+    static ByteBuffer read(SocketChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(5);
+        if (!readFully(channel, header, true)) {
+            return null;
+        }
+        header.flip();
+        byte type = header.get();
+        int length = header.getInt();
+        if (length < 0 || length > MAX_LENGTH) {
+            throw new IOException("Invalid frame length: " + length);
+        }
+        ByteBuffer frame = ByteBuffer.allocate(1 + length).put(type);
+        readFully(channel, frame, false);
+        return frame.flip();
+    }
+
+    /**
+     * Reads bytes until a buffer is full.
+     *
+     * @param channel the channel
+     * @param buffer  the buffer
+     * @param atStart whether the channel may be closed before the first byte
+     * @return false if the channel was closed before the first byte
+     * @throws IOException if the channel cannot be read, or is closed after
+     *                     the first byte
+     */
+    private static boolean readFully(SocketChannel channel, ByteBuffer buffer, boolean atStart) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                if (atStart && buffer.position() == 0) {
+                    return false;
+                }
+                throw new EOFException("Connection closed in the middle of a frame");
+            }
+        }
+        return true;
+    }
+}
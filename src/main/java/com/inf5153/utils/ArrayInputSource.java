@@ -0,0 +1,28 @@
+package com.inf5153.utils;
+
+import java.util.NoSuchElementException;
+
+/**
+ * An input source supplying integers from an array.
+ */
+public class ArrayInputSource implements InputSource {
+    private final int[] values; // The integers to supply
+    private int position = 0; // The index of the next integer to supply
+
+    /**
+     * Constructs an ArrayInputSource.
+     *
+     * @param values the integers to supply, in order
+     */
+    public ArrayInputSource(int[] values) {
+        this.values = values;
+    }
+
+    @Override
+    public int readInt() {
+        if (position == values.length) {
+            throw new NoSuchElementException("No more input");
+        }
+        return values[position++];
+    }
+}
@@ -3,17 +3,23 @@ package com.inf5153.utils;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 
 /**
  * Provides utility methods for file operations.
- * This class contains methods to read the contents of a file into a string.
+ * This class contains methods to read the contents of a file into a string
+ * or to map it directly in memory.
  */
 public class FileUtils {
 
     /**
-     * Reads the contents of a file specified by the file path into a string.
+     * Reads the contents of a UTF-8 encoded file specified by the file path into
+     * a string.
      *
      * @param filePath the path of the file to read
      * @return the contents of the file as a string
@@ -24,7 +30,57 @@ public class FileUtils {
         if (filePath == null || filePath.isEmpty()) {
             throw new IllegalArgumentException("filePath is null or empty");
         }
-        return new String(Files.readAllBytes(Paths.get(filePath)));
+        return new String(Files.readAllBytes(Paths.get(filePath)), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Maps the contents of the file specified by the file path in memory. The
+     * returned buffer is backed by the file itself, so no copy of the contents
+     * is made on the heap; it stays valid after the underlying channel is
+     * closed.
+     *
+     * @param filePath the path of the file to map
+     * @return a read-only buffer over the contents of the file
+     * @throws IOException              if an I/O error occurs while mapping the
+     *                                  file, or if the file is larger than 2 GB
+     * @throws IllegalArgumentException if the filePath is null or empty
+     */
+    public static MappedByteBuffer mapFile(String filePath) throws IOException {
+        if (filePath == null || filePath.isEmpty()) {
+            throw new IllegalArgumentException("filePath is null or empty");
+        }
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("File too large to be mapped: " + filePath);
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+    }
+
+    /**
+     * Counts the lines of a file. A last line without a line terminator is
+     * counted too.
+     *
+     * @param filePath the path of the file
+     * @return the number of lines of the file
+     * @throws IOException              if an I/O error occurs while mapping the
+     *                                  file
+     * @throws IllegalArgumentException if the filePath is null or empty
+     */
+    public static int countLines(String filePath) throws IOException {
+        MappedByteBuffer buffer = mapFile(filePath);
+        int limit = buffer.limit();
+        int lines = 0;
+        for (int i = 0; i < limit; i++) {
+            if (buffer.get(i) == '\n') {
+                lines++;
+            }
+        }
+        if (limit > 0 && buffer.get(limit - 1) != '\n') {
+            lines++;
+        }
+        return lines;
     }
 
     /**
@@ -79,7 +135,8 @@ public class FileUtils {
         File file = new File(filePath);
         File parentDir = file.getParentFile();
         if (parentDir != null && !parentDir.exists()) {
-            if (!parentDir.mkdirs()) {
+            // Another thread may create the directories at the same time
+            if (!parentDir.mkdirs() && !parentDir.isDirectory()) {
                 throw new IOException("Failed to create directories: " + parentDir.getAbsolutePath());
             }
         }
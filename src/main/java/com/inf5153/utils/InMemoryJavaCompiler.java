@@ -0,0 +1,230 @@
+package com.inf5153.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+/**
+ * Provides utility methods to compile Java source code and run it without
+ * touching the disk. The source is handed to the system Java compiler through
+ * an in-memory file manager, and the resulting class files are loaded by a
+ * dedicated class loader, so each compiled class can be unloaded once it is no
+ * longer referenced.
+ */
+public class InMemoryJavaCompiler {
+    private static final List<String> OPTIONS = Arrays.asList("-proc:none", "-g:none", "-nowarn");
+
+    /**
+     * Compiles a single compilation unit and loads the class it declares.
+     *
+     * @param className the fully qualified name of the class declared by the
+     *                  source
+     * @param source    the Java source code
+     * @return the loaded class
+     * @throws IllegalStateException if no Java compiler is available, as when
+     *                               running on a JRE
+     * @throws RuntimeException      if the source does not compile
+     */
+    public static Class<?> compile(String className, String source) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IllegalStateException("No Java compiler available, a JDK is required");
+        }
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        JavaFileObject unit = new SourceFile(className, source);
+        Map<String, ClassFile> classFiles;
+        boolean success;
+        try (MemoryFileManager fileManager = new MemoryFileManager(
+                compiler.getStandardFileManager(diagnostics, Locale.ROOT, null))) {
+            success = compiler.getTask(null, fileManager, diagnostics, OPTIONS, null, List.of(unit)).call();
+            classFiles = fileManager.classFiles;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (!success) {
+            StringBuilder message = new StringBuilder("Compilation of " + className + " failed:");
+            for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+                if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+                    message.append("\n  line ").append(diagnostic.getLineNumber()).append(": ")
+                            .append(diagnostic.getMessage(Locale.ROOT));
+                }
+            }
+            throw new RuntimeException(message.toString());
+        }
+        try {
+            return new MemoryClassLoader(classFiles).loadClass(className);
+        } catch (ClassNotFoundException e) {
+            throw new RuntimeException("Compiled source does not declare " + className, e);
+        }
+    }
+
+    /**
+     * Invokes the {@code public static void main(String[])} method of a class
+     * with no arguments.
+     *
+     * @param mainClass the class declaring the main method
+     * @throws RuntimeException if the class has no main method, or the
+     *                          exception thrown by the main method if it fails
+     */
+    public static void runMain(Class<?> mainClass) {
+        runStatic(mainClass, "main", String[].class, new String[0]);
+    }
+
+    /**
+     * Invokes a public static method of a class taking a single parameter.
+     *
+     * @param declaringClass the class declaring the method
+     * @param methodName     the name of the method
+     * @param parameterType  the type of the parameter of the method
+     * @param argument       the argument passed to the method
+     * @throws RuntimeException if the class has no such method, or the
+     *                          exception thrown by the method if it fails
+     */
+    public static void runStatic(Class<?> declaringClass, String methodName, Class<?> parameterType,
+            Object argument) {
+        Method method;
+        try {
+            method = declaringClass.getMethod(methodName, parameterType);
+        } catch (NoSuchMethodException e) {
+            throw new RuntimeException("No " + methodName + " method in " + declaringClass.getName(), e);
+        }
+        try {
+            method.invoke(null, argument);
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException("Cannot access the " + methodName + " method of " + declaringClass.getName(), e);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+
+    /**
+     * Returns the URI identifying a class in memory.
+     */
+    private static URI uriOf(String className, JavaFileObject.Kind kind) {
+        return URI.create("memory:///" + className.replace('.', '/') + kind.extension);
+    }
+
+    /**
+     * A compilation unit held in a string.
+     */
+    private static final class SourceFile extends SimpleJavaFileObject {
+        private final String source;
+
+        private SourceFile(String className, String source) {
+            super(uriOf(className, Kind.SOURCE), Kind.SOURCE);
+            this.source = source;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return source;
+        }
+    }
+
+    /**
+     * A class file written to a byte array.
+     */
+    private static final class ClassFile extends SimpleJavaFileObject {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        private ClassFile(String className) {
+            super(uriOf(className, Kind.CLASS), Kind.CLASS);
+        }
+
+        @Override
+        public OutputStream openOutputStream() {
+            return bytes;
+        }
+    }
+
+    /**
+     * A file manager keeping the class files produced by the compiler in
+     * memory, including those of nested classes.
+     */
+    private static final class MemoryFileManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
+        private final Map<String, ClassFile> classFiles = new HashMap<>();
+
+        private MemoryFileManager(StandardJavaFileManager fileManager) {
+            super(fileManager);
+        }
+
+        @Override
+        public JavaFileObject getJavaFileForOutput(JavaFileManager.Location location, String className,
+                JavaFileObject.Kind kind, FileObject sibling) {
+            ClassFile classFile = new ClassFile(className);
+            classFiles.put(className, classFile);
+            return classFile;
+        }
+    }
+
+    /**
+     * A class loader defining the classes compiled in memory, and delegating
+     * every other class to the loader of the application.
+     */
+    private static final class MemoryClassLoader extends ClassLoader {
+        private final Map<String, ClassFile> classFiles;
+
+        private MemoryClassLoader(Map<String, ClassFile> classFiles) {
+            super(InMemoryJavaCompiler.class.getClassLoader());
+            this.classFiles = classFiles;
+        }
+
+        /**
+         * Loads the classes compiled in memory before asking the parent loader,
+         * so a stale class of the same name on the class path is never used.
+         */
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> loaded = findLoadedClass(name);
+                if (loaded == null && classFiles.containsKey(name)) {
+                    loaded = findClass(name);
+                }
+                if (loaded == null) {
+                    return super.loadClass(name, resolve);
+                }
+                if (resolve) {
+                    resolveClass(loaded);
+                }
+                return loaded;
+            }
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            ClassFile classFile = classFiles.get(name);
+            if (classFile == null) {
+                throw new ClassNotFoundException(name);
+            }
+            byte[] bytes = classFile.bytes.toByteArray();
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+}
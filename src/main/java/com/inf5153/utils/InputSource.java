@@ -0,0 +1,68 @@
+package com.inf5153.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * Supplies the integers read by read statements. A single source is meant to
+ * be shared by all the reads of a run, so that input buffered by one read is
+ * not lost for the next one.
+ * <p>
+ * Sources are not thread-safe; each run of a program is expected to own its
+ * source.
+ */
+public interface InputSource {
+
+    /**
+     * Reads the next integer.
+     *
+     * @return the integer read
+     * @throws java.util.NoSuchElementException  if the input is exhausted
+     * @throws java.util.InputMismatchException if the next token is not an
+     *                                          integer
+     */
+    int readInt();
+
+    /**
+     * Checks whether the input may be typed by a user, in which case the
+     * output must be flushed before reading, so that the user sees the prompt.
+     *
+     * @return true if the input may be typed by a user, false if it is
+     *         supplied beforehand
+     */
+    default boolean isInteractive() {
+        return false;
+    }
+
+    /**
+     * Returns a buffered source reading from the current {@link System#in}.
+     *
+     * @return the source
+     */
+    static InputSource standardInput() {
+        return new StreamInputSource(System.in, true);
+    }
+
+    /**
+     * Returns a source supplying the given integers, in order.
+     *
+     * @param values the integers to supply
+     * @return the source
+     */
+    static InputSource of(int... values) {
+        return new ArrayInputSource(values);
+    }
+
+    /**
+     * Returns a source reading the whitespace-separated integers of a file.
+     *
+     * @param filePath the path of the file
+     * @return the source
+     * @throws IOException if the file cannot be read
+     */
+    static InputSource fromFile(String filePath) throws IOException {
+        return new StreamInputSource(new ByteArrayInputStream(Files.readAllBytes(Paths.get(filePath))), false);
+    }
+}
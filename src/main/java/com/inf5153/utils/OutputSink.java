@@ -0,0 +1,47 @@
+package com.inf5153.utils;
+
+/**
+ * Receives the text printed by the executor and the printers. A sink may
+ * buffer what it receives: nothing is guaranteed to be written before
+ * {@link #flush()} is called.
+ * <p>
+ * Sinks are not thread-safe; each run of a visitor is expected to own its
+ * sink.
+ */
+public interface OutputSink {
+
+    /**
+     * Prints a string.
+     *
+     * @param text the string to print
+     */
+    void print(String text);
+
+    /**
+     * Prints a string followed by a line separator.
+     *
+     * @param text the string to print
+     */
+    void println(String text);
+
+    /**
+     * Prints an integer followed by a line separator.
+     *
+     * @param value the integer to print
+     */
+    void println(int value);
+
+    /**
+     * Writes everything printed so far to the underlying output.
+     */
+    void flush();
+
+    /**
+     * Returns a buffered sink writing to the current {@link System#out}.
+     *
+     * @return the sink
+     */
+    static OutputSink standardOutput() {
+        return new WriterOutputSink(System.out);
+    }
+}
@@ -0,0 +1,270 @@
+package com.inf5153.utils;
+
+import java.util.Random;
+
+/**
+ * Generates random, valid programs of the mini language, to feed benchmarks
+ * and stress tests. The size of the programs, their nesting depth, the number
+ * of iterations of their loops and the number of their variables can be
+ * tuned; the same seed always generates the same program.
+ * <p>
+ * Generated programs always terminate and never fail: every variable is
+ * assigned before the first statement that reads it, divisions are by
+ * non-zero literals, and each loop counts up to its trip count with a counter
+ * that its body never assigns. Integer overflows are allowed, since they wrap
+ * in every backend.
+ * <p>
+ * Loops are nested at most {@link #setLoopDepth(int) loopDepth} deep, so that
+ * the number of executed statements stays under control; deeper blocks are
+ * if statements. At least one chain of blocks reaches the full
+ * {@link #setDepth(int) depth}.
+ */
+public class ProgramGenerator {
+    private final Random random;
+    private int statements = 100; // The number of statements to generate
+    private int depth = 3; // The maximum nesting depth of blocks
+    private int loopDepth = 2; // The maximum nesting depth of loops
+    private int tripCount = 10; // The number of iterations of each loop
+    private int variables = 8; // The number of variables
+    private StringBuilder code; // The source being generated
+    private int remaining; // The number of statements left to generate
+    private boolean deepestReached; // Whether a block of the maximum depth was generated
+
+    /**
+     * Constructs a ProgramGenerator.
+     *
+     * @param seed the seed of the random choices
+     */
+    public ProgramGenerator(long seed) {
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Sets the number of statements to generate, counting the statements of
+     * all the blocks and the statements managing the loop counters.
+     *
+     * @param statements the number of statements, at least 1
+     * @return this generator
+     */
+    public ProgramGenerator setStatements(int statements) {
+        this.statements = Math.max(1, statements);
+        return this;
+    }
+
+    /**
+     * Sets the maximum nesting depth of blocks.
+     *
+     * @param depth the maximum number of nested if and while statements
+     * @return this generator
+     */
+    public ProgramGenerator setDepth(int depth) {
+        this.depth = Math.max(0, depth);
+        return this;
+    }
+
+    /**
+     * Sets the maximum nesting depth of loops.
+     *
+     * @param loopDepth the maximum number of nested while statements
+     * @return this generator
+     */
+    public ProgramGenerator setLoopDepth(int loopDepth) {
+        this.loopDepth = Math.max(0, loopDepth);
+        return this;
+    }
+
+    /**
+     * Sets the number of iterations of each loop.
+     *
+     * @param tripCount the number of iterations
+     * @return this generator
+     */
+    public ProgramGenerator setTripCount(int tripCount) {
+        this.tripCount = Math.max(0, tripCount);
+        return this;
+    }
+
+    /**
+     * Sets the number of variables, besides the loop counters.
+     *
+     * @param variables the number of variables, at least 1
+     * @return this generator
+     */
+    public ProgramGenerator setVariables(int variables) {
+        this.variables = Math.max(1, variables);
+        return this;
+    }
+
+    /**
+     * Generates a program.
+     *
+     * @return the source code of the program
+     */
+    public String generate() {
+        code = new StringBuilder("{\n");
+        remaining = statements;
+        deepestReached = depth == 0;
+        for (int i = 0; i < variables; i++) {
+            indent(1);
+            code.append(variable(i)).append(" = ").append(random.nextInt(100)).append(";\n");
+        }
+        remaining -= variables;
+        do {
+            statement(0, 0);
+        } while (remaining > 0);
+        indent(1);
+        code.append("print(").append(variable(0)).append(");\n");
+        code.append("}\n");
+        return code.toString();
+    }
+
+    /**
+     * Generates a statement inside a block.
+     *
+     * @param level     the nesting depth of the enclosing block
+     * @param loopLevel the number of loops enclosing the statement
+     */
+    private void statement(int level, int loopLevel) {
+        boolean canNest = level < depth && remaining > 1;
+        int choice = random.nextInt(10);
+        if (canNest && (!deepestReached || choice < 3)) {
+            if (loopLevel < loopDepth && (choice % 2 == 0 || level + 1 > depth - (loopDepth - loopLevel))) {
+                loop(level + 1, loopLevel + 1);
+            } else {
+                conditional(level + 1, loopLevel);
+            }
+        } else if (choice < 2) {
+            remaining--;
+            indent(level + 1);
+            code.append("print(").append(expression(2)).append(");\n");
+        } else {
+            remaining--;
+            indent(level + 1);
+            code.append(variable(random.nextInt(variables))).append(" = ").append(expression(3)).append(";\n");
+        }
+    }
+
+    /**
+     * Generates a loop counting up to the trip count.
+     *
+     * @param level     the nesting depth of the loop body
+     * @param loopLevel the number of loops enclosing the loop body
+     */
+    private void loop(int level, int loopLevel) {
+        String counter = name('n', loopLevel - 1);
+        remaining -= 3;
+        indent(level);
+        code.append(counter).append(" = 0;\n");
+        indent(level);
+        code.append("while (").append(counter).append(" < ").append(tripCount).append(") {\n");
+        block(level, loopLevel);
+        indent(level + 1);
+        code.append(counter).append(" = ").append(counter).append(" + 1;\n");
+        indent(level);
+        code.append("}\n");
+    }
+
+    /**
+     * Generates an if statement, with an else block half of the time.
+     *
+     * @param level     the nesting depth of the blocks
+     * @param loopLevel the number of loops enclosing the statement
+     */
+    private void conditional(int level, int loopLevel) {
+        remaining--;
+        indent(level);
+        code.append("if (").append(expression(1)).append(' ').append(comparison()).append(' ')
+                .append(expression(1)).append(") then {\n");
+        block(level, loopLevel);
+        if (random.nextBoolean() && remaining > 0) {
+            indent(level);
+            code.append("} else {\n");
+            block(level, loopLevel);
+        }
+        indent(level);
+        code.append("}\n");
+    }
+
+    /**
+     * Generates the statements of a block, at least one.
+     *
+     * @param level     the nesting depth of the block
+     * @param loopLevel the number of loops enclosing the block
+     */
+    private void block(int level, int loopLevel) {
+        if (level == depth) {
+            deepestReached = true;
+        }
+        int size = 1 + random.nextInt(4);
+        for (int i = 0; i < size && (i == 0 || remaining > 0); i++) {
+            statement(level, loopLevel);
+        }
+    }
+
+    /**
+     * Generates an integer expression reading only initialised variables.
+     *
+     * @param size the maximum number of operators
+     * @return the expression
+     */
+    private String expression(int size) {
+        String expression = operand();
+        int operators = random.nextInt(size + 1);
+        for (int i = 0; i < operators; i++) {
+            switch (random.nextInt(5)) {
+                case 0:
+                    expression = expression + " + " + operand();
+                    break;
+                case 1:
+                    expression = expression + " - " + operand();
+                    break;
+                case 2:
+                    expression = expression + " * " + operand();
+                    break;
+                case 3:
+                    expression = expression + " / " + (1 + random.nextInt(9));
+                    break;
+                default:
+                    expression = "-" + operand() + " + " + expression;
+            }
+        }
+        return expression;
+    }
+
+    private String operand() {
+        return random.nextInt(3) == 0 ? String.valueOf(random.nextInt(50)) : variable(random.nextInt(variables));
+    }
+
+    private String comparison() {
+        String[] operators = { "==", "!=", "<", "<=", ">", ">=" };
+        return operators[random.nextInt(operators.length)];
+    }
+
+    private static String variable(int index) {
+        return name('v', index);
+    }
+
+    /**
+     * Builds a name from a prefix and an index written in letters, since
+     * identifiers cannot contain digits: 0 is "a", 25 is "z", 26 is "ba".
+     * The prefixes used never start a keyword.
+     *
+     * @param prefix the first letter of the name
+     * @param index  the index of the name
+     * @return the name
+     */
+    private static String name(char prefix, int index) {
+        StringBuilder letters = new StringBuilder();
+        do {
+            letters.insert(0, (char) ('a' + index % 26));
+            index /= 26;
+        } while (index > 0);
+        return prefix + letters.toString();
+    }
+
+    private void indent(int level) {
+        for (int i = 0; i < level; i++) {
+            code.append("    ");
+        }
+    }
+}
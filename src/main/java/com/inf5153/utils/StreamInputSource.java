@@ -0,0 +1,110 @@
+package com.inf5153.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.InputMismatchException;
+import java.util.NoSuchElementException;
+
+/**
+ * An input source parsing whitespace-separated decimal integers from a byte
+ * stream. The stream is read through a byte buffer, and integers are parsed
+ * directly from its bytes, without regular expressions nor intermediate
+ * strings. Only what is needed for the next integer is read, so input typed
+ * on a terminal is read as soon as its line is entered.
+ */
+public class StreamInputSource implements InputSource {
+    private static final int BUFFER_SIZE = 1 << 13; // The size of the buffer, in bytes
+
+    private final InputStream in;
+    private final boolean interactive; // Whether the stream may be typed by a user
+    private byte[] buffer; // The bytes read from the stream, allocated on the first read
+    private int position = 0; // The index of the next byte to parse
+    private int limit = 0; // The number of bytes in the buffer
+
+    /**
+     * Constructs a StreamInputSource.
+     *
+     * @param in          the stream to read from
+     * @param interactive whether the stream may be typed by a user, such as
+     *                    the standard input
+     */
+    public StreamInputSource(InputStream in, boolean interactive) {
+        this.in = in;
+        this.interactive = interactive;
+    }
+
+    @Override
+    public boolean isInteractive() {
+        return interactive;
+    }
+
+    @Override
+    public int readInt() {
+        int c = read();
+        while (c != -1 && isWhitespace(c)) {
+            c = read();
+        }
+        if (c == -1) {
+            throw new NoSuchElementException("No more input");
+        }
+        boolean negative = c == '-';
+        if (c == '-' || c == '+') {
+            c = read();
+        }
+        if (c < '0' || c > '9') {
+            throw mismatch(c);
+        }
+        long value = 0;
+        while (c >= '0' && c <= '9') {
+            value = value * 10 + (c - '0');
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                throw new InputMismatchException("Integer out of range");
+            }
+            c = read();
+        }
+        if (c != -1 && !isWhitespace(c)) {
+            throw mismatch(c);
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            throw new InputMismatchException("Integer out of range");
+        }
+        return (int) value;
+    }
+
+    /**
+     * Returns the next byte of the stream, refilling the buffer when it is
+     * empty.
+     *
+     * @return the next byte, or -1 at the end of the stream
+     */
+    private int read() {
+        if (position == limit) {
+            if (buffer == null) {
+                buffer = new byte[BUFFER_SIZE];
+            }
+            try {
+                limit = in.read(buffer, 0, buffer.length);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return buffer[position++] & 0xFF;
+    }
+
+    private static boolean isWhitespace(int c) {
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t' || c == '\f';
+    }
+
+    private static InputMismatchException mismatch(int c) {
+        return new InputMismatchException(c == -1
+                ? "Expected an integer"
+                : "Expected an integer but found '" + (char) c + "'");
+    }
+}
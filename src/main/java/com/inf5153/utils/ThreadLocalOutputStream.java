@@ -0,0 +1,61 @@
+package com.inf5153.utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * An output stream writing to a stream chosen by the current thread. Installed
+ * behind {@link System#out}, it lets tasks running in parallel each capture
+ * their own output, while the threads that did not redirect their output keep
+ * writing to the fallback stream.
+ */
+public class ThreadLocalOutputStream extends OutputStream {
+    private final OutputStream fallback; // The stream of the threads without a redirection
+    private final ThreadLocal<OutputStream> target = new ThreadLocal<>(); // The stream of the current thread
+
+    /**
+     * Constructs a ThreadLocalOutputStream.
+     *
+     * @param fallback the stream written to by the threads that did not
+     *                 redirect their output
+     */
+    public ThreadLocalOutputStream(OutputStream fallback) {
+        this.fallback = fallback;
+    }
+
+    /**
+     * Redirects the output of the current thread.
+     *
+     * @param out the stream receiving the output of the current thread
+     */
+    public void redirect(OutputStream out) {
+        target.set(out);
+    }
+
+    /**
+     * Sends the output of the current thread back to the fallback stream.
+     */
+    public void restore() {
+        target.remove();
+    }
+
+    private OutputStream current() {
+        OutputStream out = target.get();
+        return out != null ? out : fallback;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        current().write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        current().write(b, off, len);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        current().flush();
+    }
+}
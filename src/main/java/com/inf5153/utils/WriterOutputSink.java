@@ -0,0 +1,71 @@
+package com.inf5153.utils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+/**
+ * An output sink writing through a {@link BufferedWriter}. Unlike a
+ * {@link PrintStream}, it takes no lock and never flushes on its own until its
+ * buffer is full, so printing many short lines costs one write per buffer
+ * instead of one per line.
+ */
+public class WriterOutputSink implements OutputSink {
+    private static final int BUFFER_SIZE = 1 << 16; // The size of the buffer, in characters
+
+    private final BufferedWriter writer;
+
+    /**
+     * Constructs a WriterOutputSink writing to a writer.
+     *
+     * @param writer the writer receiving the output
+     */
+    public WriterOutputSink(Writer writer) {
+        this.writer = new BufferedWriter(writer, BUFFER_SIZE);
+    }
+
+    /**
+     * Constructs a WriterOutputSink writing to a print stream, in its charset.
+     *
+     * @param stream the print stream receiving the output
+     */
+    public WriterOutputSink(PrintStream stream) {
+        this(new OutputStreamWriter(stream, stream.charset()));
+    }
+
+    @Override
+    public void print(String text) {
+        try {
+            writer.write(text);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void println(String text) {
+        try {
+            writer.write(text);
+            writer.newLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void println(int value) {
+        println(Integer.toString(value));
+    }
+
+    @Override
+    public void flush() {
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -1,5 +1,14 @@
 package com.inf5153;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
 import junit.framework.Test;
 import junit.framework.TestCase;
 import junit.framework.TestSuite;
@@ -35,4 +44,64 @@ public class AppTest
     {
         assertTrue( true );
     }
+
+    /**
+     * The files reading the standard input share it, each one reading the
+     * values left by the previous ones.
+     */
+    public void testFilesShareTheStandardInput() throws IOException
+    {
+        String[] output = runApp( "4 5", "{ read(x); print(x * 2); }", "{ read(y); print(y + 1); }" );
+        assertEquals( "", output[1] );
+        assertTrue( output[0], output[0].contains( "a.txt <===\n\n8\n" ) );
+        assertTrue( output[0], output[0].contains( "b.txt <===\n\n6\n" ) );
+    }
+
+    /**
+     * The failures of the execution are not reported as parsing errors.
+     */
+    public void testRuntimeErrors() throws IOException
+    {
+        String[] output = runApp( "", "{ print(x); }", "{ print(1 }" );
+        assertEquals( "Runtime error: Error: Undefined variable - x\n"
+                + "Parsing error: Expected ')' but found }\n", output[1] );
+    }
+
+    /**
+     * Runs the application on files holding the given sources, executing
+     * them only, and returns what it printed on the standard output and on
+     * the standard error.
+     */
+    private static String[] runApp( String input, String... sources ) throws IOException
+    {
+        Path directory = Files.createTempDirectory( "app" );
+        PrintStream out = System.out;
+        PrintStream err = System.err;
+        InputStream in = System.in;
+        ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+        ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+        try
+        {
+            for ( int i = 0; i < sources.length; i++ )
+            {
+                Files.writeString( directory.resolve( (char) ( 'a' + i ) + ".txt" ), sources[i] );
+            }
+            System.setOut( new PrintStream( stdout, true, StandardCharsets.UTF_8 ) );
+            System.setErr( new PrintStream( stderr, true, StandardCharsets.UTF_8 ) );
+            System.setIn( new ByteArrayInputStream( input.getBytes( StandardCharsets.UTF_8 ) ) );
+            App.main( new String[] { "--only", "execute", directory.toString() } );
+        }
+        finally
+        {
+            System.setOut( out );
+            System.setErr( err );
+            System.setIn( in );
+            for ( int i = 0; i < sources.length; i++ )
+            {
+                Files.deleteIfExists( directory.resolve( (char) ( 'a' + i ) + ".txt" ) );
+            }
+            Files.delete( directory );
+        }
+        return new String[] { stdout.toString( StandardCharsets.UTF_8 ), stderr.toString( StandardCharsets.UTF_8 ) };
+    }
 }
@@ -0,0 +1,212 @@
+package com.inf5153.ast.parser;
+
+import com.inf5153.ast.Block;
+import com.inf5153.ast.IfStatement;
+import com.inf5153.ast.WhileStatement;
+import com.inf5153.ast.visitor.ASTBinaryCodec;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit tests for the IncrementalParser.
+ */
+public class IncrementalParserTest
+    extends TestCase
+{
+    private static final String[] SNIPPETS = {
+        "x = 1; ", "y = x * (2 - z); ", "print(x); ", "read(\"n?\", n); ", "if (x < y) then { ", "} else { ",
+        "while (n != 0) { ", "}", "{", ";", "1", "a", " ", "\"", "(", ")", "-", "if", "then",
+    };
+
+    /**
+     * Create the test case
+     *
+     * @param testName name of the test case
+     */
+    public IncrementalParserTest( String testName )
+    {
+        super( testName );
+    }
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite()
+    {
+        return new TestSuite( IncrementalParserTest.class );
+    }
+
+    /**
+     * An edit inside a nested block only re-parses the statement it touches,
+     * and the statements it does not touch are reused.
+     */
+    public void testEditReusesUntouchedStatements()
+    {
+        String code = "{ a = 1; while (a < 10) { b = a * 2; print(b); a = a + 1; } if (a == 10) then { print(a); } c = 3; }";
+        IncrementalParser parser = new IncrementalParser( code );
+        Block before = parser.getTree();
+        WhileStatement loop = (WhileStatement) before.getStatements().get( 1 );
+
+        Block after = parser.edit( code.indexOf( "* 2" ) + 2, 1, "42" );
+
+        assertEquals( "b = (a * 42)", ( (WhileStatement) after.getStatements().get( 1 ) ).getBlock().getStatements().get( 0 ).toString() );
+        assertEquals( " b = a * 42; ".length(), parser.getReparsedLength() );
+        assertNotSame( loop, after.getStatements().get( 1 ) );
+        assertSame( before.getStatements().get( 0 ), after.getStatements().get( 0 ) );
+        assertSame( before.getStatements().get( 2 ), after.getStatements().get( 2 ) );
+        assertSame( loop.getBlock().getStatements().get( 1 ),
+                ( (WhileStatement) after.getStatements().get( 1 ) ).getBlock().getStatements().get( 1 ) );
+        assertEquals( "b = (a * 2)", loop.getBlock().getStatements().get( 0 ).toString() ); // Earlier trees are unchanged
+        assertSameTree( parser );
+    }
+
+    /**
+     * Statements can be inserted between statements, blocks can be opened
+     * and closed, and an edit leaving a source that does not parse is
+     * reported, then fixed by a later edit.
+     */
+    public void testStructuralEdits()
+    {
+        IncrementalParser parser = new IncrementalParser( "{ a = 1; if (a < 2) then { b = 2; } c = 3; }" );
+
+        parser.edit( parser.getSource().indexOf( " c = 3" ), 0, " print(a);" );
+        assertEquals( 4, parser.getTree().getStatements().size() );
+        assertSameTree( parser );
+
+        parser.edit( parser.getSource().indexOf( "} print" ) + 1, 0, " else { b = 4; }" );
+        assertNotNull( ( (IfStatement) parser.getTree().getStatements().get( 1 ) ).getElseBlock() );
+        assertSameTree( parser );
+
+        parser.edit( parser.getSource().indexOf( "b = 2;" ) + 6, 0, " } x = 1; if (x > 0) then {" );
+        assertSameTree( parser );
+
+        try
+        {
+            parser.edit( parser.getSource().indexOf( "x = 1" ), 0, "(" );
+            fail( "Parsed an invalid source" );
+        }
+        catch ( RuntimeException e )
+        {
+            assertNull( parser.getTree() );
+        }
+        parser.edit( parser.getSource().indexOf( "(x = 1" ), 1, "" );
+        assertSameTree( parser );
+    }
+
+    /**
+     * A long sequence of random edits keeps the tree equal to the tree of
+     * the edited source, and the edits that break the source are rejected
+     * like a full parse would. Edits leaving anything but a single block
+     * are undone, so that the edits keep landing inside the program; the
+     * edits kept never parse the whole source again.
+     */
+    public void testRandomEdits()
+    {
+        Random random = new Random( 5153 );
+        StringBuilder code = new StringBuilder( "{ " );
+        for ( int i = 0; i < 50; i++ )
+        {
+            code.append( "x = " ).append( i ).append( "; while (x > 0) { x = x - 1; if (x == 3) then { print(x); } } " );
+        }
+        code.append( "}" );
+        IncrementalParser parser = new IncrementalParser( code.toString() );
+        int kept = 0;
+
+        for ( int i = 0; i < 1500; i++ )
+        {
+            String source = parser.getSource();
+            int offset = random.nextInt( source.length() + 1 );
+            int length = random.nextInt( 3 ) == 0 ? Math.min( random.nextInt( 12 ), source.length() - offset ) : 0;
+            String replacement = length > 0 && random.nextBoolean() ? "" : SNIPPETS[random.nextInt( SNIPPETS.length )];
+            String edited = source.substring( 0, offset ) + replacement + source.substring( offset + length );
+
+            byte[] expected;
+            try
+            {
+                expected = encode( new Parser( new Lexer( edited ) ).parse() );
+            }
+            catch ( RuntimeException e )
+            {
+                expected = null;
+            }
+            try
+            {
+                Block tree = parser.edit( offset, length, replacement );
+                assertNotNull( "Parsed an invalid source: " + edited, expected );
+                assertTrue( edited, Arrays.equals( expected, encode( tree ) ) );
+            }
+            catch ( RuntimeException e )
+            {
+                assertNull( "Failed to parse a valid source: " + edited + ": " + e.getMessage(), expected );
+                assertNull( parser.getTree() );
+            }
+            assertEquals( edited, parser.getSource() );
+            if ( expected == null || !isSingleBlock( edited ) )
+            {
+                parser.edit( offset, replacement.length(), source.substring( offset, offset + length ) );
+                assertEquals( source, parser.getSource() );
+                assertSameTree( parser );
+            }
+            else
+            {
+                assertTrue( "Parsed the whole source again: " + edited, parser.getReparsedLength() < edited.length() );
+                kept++;
+            }
+        }
+        assertTrue( "Only " + kept + " edits kept", kept > 100 );
+    }
+
+    /**
+     * Edits out of the source are rejected.
+     */
+    public void testEditOutOfBounds()
+    {
+        IncrementalParser parser = new IncrementalParser( "{ a = 1; }" );
+        try
+        {
+            parser.edit( 5, 10, "" );
+            fail( "Applied an edit out of the source" );
+        }
+        catch ( IndexOutOfBoundsException e )
+        {
+            assertEquals( "{ a = 1; }", parser.getSource() );
+        }
+    }
+
+    private static void assertSameTree( IncrementalParser parser )
+    {
+        Block expected = new Parser( new Lexer( parser.getSource() ) ).parse();
+        assertTrue( parser.getSource(), Arrays.equals( encode( expected ), encode( parser.getTree() ) ) );
+    }
+
+    /**
+     * Checks whether a source is a block with nothing after its closing
+     * brace, which the parser would ignore.
+     */
+    private static boolean isSingleBlock( String source )
+    {
+        if ( !source.startsWith( "{" ) || !source.endsWith( "}" ) )
+        {
+            return false;
+        }
+        try
+        {
+            new Parser( new Lexer( source.substring( 1, source.length() - 1 ) ) ).parseStatements( null );
+            return true;
+        }
+        catch ( RuntimeException e )
+        {
+            return false;
+        }
+    }
+
+    private static byte[] encode( Block program )
+    {
+        return new ASTBinaryCodec().encode( program );
+    }
+}
@@ -0,0 +1,154 @@
+package com.inf5153.ast.parser;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import com.inf5153.utils.FileUtils;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit tests for the hand-written Lexer.
+ */
+public class LexerTest
+    extends TestCase
+{
+    /**
+     * Create the test case
+     *
+     * @param testName name of the test case
+     */
+    public LexerTest( String testName )
+    {
+        super( testName );
+    }
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite()
+    {
+        return new TestSuite( LexerTest.class );
+    }
+
+    /**
+     * The tokens of every program of the testFiles/ directory cover the whole
+     * program, whitespace aside, and end with a single EOF token.
+     */
+    public void testTestFilesAreCovered() throws IOException
+    {
+        File[] files = new File( "testFiles" ).listFiles( ( dir, name ) -> name.endsWith( ".txt" ) );
+        assertNotNull( files );
+        for ( File file : files )
+        {
+            String code = FileUtils.readFile( file.getPath() );
+            List<Token> tokens = new Lexer( code ).tokenize();
+            StringBuilder text = new StringBuilder();
+            for ( int i = 0; i < tokens.size() - 1; i++ )
+            {
+                assertFalse( file.getName(), tokens.get( i ).getType() == TokenType.EOF );
+                text.append( tokens.get( i ).getValue() );
+            }
+            assertEquals( TokenType.EOF, tokens.get( tokens.size() - 1 ).getType() );
+            assertEquals( file.getName(), code.replaceAll( "\\s", "" ), text.toString().replaceAll( "\\s", "" ) );
+        }
+    }
+
+    /**
+     * Two character operators, string literals and skipped characters.
+     */
+    public void testOperatorsAndLiterals()
+    {
+        String code = "{ a=-1; if (a<=b) then { print(\"x y\"); } b >= 2 != 3 == 4 # c ; }";
+        assertSameTokens( List.of(
+                new Token( TokenType.PUNCTUATION, "{" ),
+                new Token( TokenType.IDENTIFIER, "a" ),
+                new Token( TokenType.OPERATOR, "=" ),
+                new Token( TokenType.OPERATOR, "-" ),
+                new Token( TokenType.NUMBER, "1" ),
+                new Token( TokenType.PUNCTUATION, ";" ),
+                new Token( TokenType.KEYWORD, "if" ),
+                new Token( TokenType.PUNCTUATION, "(" ),
+                new Token( TokenType.IDENTIFIER, "a" ),
+                new Token( TokenType.OPERATOR, "<=" ),
+                new Token( TokenType.IDENTIFIER, "b" ),
+                new Token( TokenType.PUNCTUATION, ")" ),
+                new Token( TokenType.KEYWORD, "then" ),
+                new Token( TokenType.PUNCTUATION, "{" ),
+                new Token( TokenType.KEYWORD, "print" ),
+                new Token( TokenType.PUNCTUATION, "(" ),
+                new Token( TokenType.STRINGLITERAL, "\"x y\"" ),
+                new Token( TokenType.PUNCTUATION, ")" ),
+                new Token( TokenType.PUNCTUATION, ";" ),
+                new Token( TokenType.PUNCTUATION, "}" ),
+                new Token( TokenType.IDENTIFIER, "b" ),
+                new Token( TokenType.OPERATOR, ">=" ),
+                new Token( TokenType.NUMBER, "2" ),
+                new Token( TokenType.OPERATOR, "!=" ),
+                new Token( TokenType.NUMBER, "3" ),
+                new Token( TokenType.OPERATOR, "==" ),
+                new Token( TokenType.NUMBER, "4" ),
+                new Token( TokenType.IDENTIFIER, "c" ),
+                new Token( TokenType.PUNCTUATION, ";" ),
+                new Token( TokenType.PUNCTUATION, "}" ),
+                new Token( TokenType.EOF, "" ) ), new Lexer( code ).tokenize() );
+    }
+
+    /**
+     * Words starting with a keyword are identifiers, not a keyword followed by
+     * an identifier.
+     */
+    public void testKeywordPrefixIsIdentifier()
+    {
+        List<Token> tokens = new Lexer( "iffy readme" ).tokenize();
+        assertEquals( 3, tokens.size() );
+        assertEquals( TokenType.IDENTIFIER, tokens.get( 0 ).getType() );
+        assertEquals( "iffy", tokens.get( 0 ).getValue() );
+        assertEquals( "readme", tokens.get( 1 ).getValue() );
+        assertEquals( TokenType.EOF, tokens.get( 2 ).getType() );
+    }
+
+    /**
+     * Scanning UTF-8 bytes, as done for memory-mapped files, gives the same
+     * tokens as scanning the decoded string.
+     */
+    public void testByteBufferInput()
+    {
+        String code = "{ msg = \"héllo wörld ✓\"; é x = 1; }";
+        ByteBuffer bytes = ByteBuffer.wrap( code.getBytes( StandardCharsets.UTF_8 ) );
+        List<Token> tokens = new Lexer( bytes ).tokenize();
+        assertSameTokens( new Lexer( code ).tokenize(), tokens );
+        assertEquals( "\"héllo wörld ✓\"", tokens.get( 3 ).getValue() );
+    }
+
+    /**
+     * An unterminated string literal is reported.
+     */
+    public void testUnterminatedString()
+    {
+        try
+        {
+            new Lexer( "{ a = \"abc; }" ).tokenize();
+            fail( "Expected an exception" );
+        }
+        catch ( RuntimeException e )
+        {
+            assertTrue( e.getMessage().startsWith( "Unterminated string literal" ) );
+        }
+    }
+
+    private static void assertSameTokens( List<Token> expected, List<Token> actual )
+    {
+        assertEquals( expected.size(), actual.size() );
+        for ( int i = 0; i < expected.size(); i++ )
+        {
+            assertEquals( expected.get( i ).getType(), actual.get( i ).getType() );
+            assertEquals( expected.get( i ).getValue(), actual.get( i ).getValue() );
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.inf5153.ast.parser;
+
+import com.inf5153.ast.Assignment;
+import com.inf5153.ast.BinaryExpression;
+import com.inf5153.ast.BinaryOperator;
+import com.inf5153.ast.Block;
+import com.inf5153.ast.Expression;
+import com.inf5153.ast.IfStatement;
+import com.inf5153.ast.LiteralNumber;
+import com.inf5153.ast.Statement;
+import com.inf5153.ast.UnaryExpression;
+import com.inf5153.ast.WhileStatement;
+import com.inf5153.ast.flat.FlatTree;
+import com.inf5153.ast.flat.NodeKind;
+
+import java.nio.ByteBuffer;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit tests for the Parser.
+ */
+public class ParserTest
+    extends TestCase
+{
+    private static final int DEPTH = 100000;
+
+    /**
+     * Create the test case
+     *
+     * @param testName name of the test case
+     */
+    public ParserTest( String testName )
+    {
+        super( testName );
+    }
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite()
+    {
+        return new TestSuite( ParserTest.class );
+    }
+
+    /**
+     * Operators apply from left to right, negation applies to a single
+     * operand, and parentheses group.
+     */
+    public void testExpressions()
+    {
+        assertEquals( "((a + (b * c)) - -d)", assignedValue( "{ x = a + (b * c) - -d; }" ).toString() );
+        assertEquals( "-((1 - 2) / 3)", assignedValue( "{ x = -(((1 - 2)) / 3); }" ).toString() );
+        assertEquals( "(((a + b) * c) / 2)", assignedValue( "{ x = a + b * c / 2; }" ).toString() );
+    }
+
+    /**
+     * Else blocks attach to their if statement, and statements following a
+     * nested block belong to the enclosing one.
+     */
+    public void testNestedBlocks()
+    {
+        Block program = parse( "{ if (a < b) then { while (a != 0) { a = a - 1; } b = 1; } else { print(b); } c = 2; }" );
+        assertEquals( 2, program.getStatements().size() );
+        IfStatement ifStatement = (IfStatement) program.getStatements().get( 0 );
+        assertEquals( 2, ifStatement.getThenBlock().getStatements().size() );
+        assertTrue( ifStatement.getThenBlock().getStatements().get( 0 ) instanceof WhileStatement );
+        assertEquals( 1, ifStatement.getElseBlock().getStatements().size() );
+        assertEquals( "c = 2", program.getStatements().get( 1 ).toString() );
+    }
+
+    /**
+     * Syntax errors are reported with the token found.
+     */
+    public void testErrors()
+    {
+        assertError( "Expected '}' but found ", "{ if (a < b) then { x = 1; }" );
+        assertError( "Expected ')' but found ;", "{ x = (a + b; }" );
+        assertError( "Expected ';' but found c", "{ x = (a + b) c; }" );
+        assertError( "Expected expression.", "{ x = --1; }" );
+        assertError( "Expected 'then' but found {", "{ if (a < b) { } }" );
+    }
+
+    /**
+     * Deeply nested blocks are parsed without overflowing the stack.
+     */
+    public void testDeeplyNestedBlocks()
+    {
+        StringBuilder code = new StringBuilder( "{ " );
+        for ( int i = 0; i < DEPTH; i++ )
+        {
+            code.append( i % 2 == 0 ? "if (a < b) then { " : "while (a > b) { " );
+        }
+        code.append( "x = 1; " );
+        for ( int i = 0; i < DEPTH; i++ )
+        {
+            code.append( "} " );
+        }
+        code.append( "}" );
+        Statement statement = parse( code.toString() ).getStatements().get( 0 );
+        for ( int i = 0; i < DEPTH; i++ )
+        {
+            Block block = statement instanceof IfStatement
+                    ? ( (IfStatement) statement ).getThenBlock()
+                    : ( (WhileStatement) statement ).getBlock();
+            assertEquals( 1, block.getStatements().size() );
+            statement = block.getStatements().get( 0 );
+        }
+        assertEquals( "x = 1", statement.toString() );
+    }
+
+    /**
+     * Deeply nested parentheses are parsed without overflowing the stack.
+     */
+    public void testDeeplyNestedParentheses()
+    {
+        StringBuilder code = new StringBuilder( "{ x = " );
+        for ( int i = 0; i < DEPTH; i++ )
+        {
+            code.append( "-(1 + " );
+        }
+        code.append( "2" );
+        for ( int i = 0; i < DEPTH; i++ )
+        {
+            code.append( ")" );
+        }
+        code.append( "; }" );
+        Expression expression = assignedValue( code.toString() );
+        for ( int i = 0; i < DEPTH; i++ )
+        {
+            expression = ( (BinaryExpression) ( (UnaryExpression) expression ).getExpression() ).getRight();
+        }
+        assertEquals( 2, ( (LiteralNumber) expression ).getValue() );
+    }
+
+    /**
+     * The flat tree stores expressions in postfix order, and its adapter
+     * builds the same tree as the parser, also once encoded and decoded.
+     */
+    public void testFlatTree()
+    {
+        String code = "{ read(\"n?\" n); x = -(n + 2) * 3; if (x < n) then { print(x); } else { while (n > 0) { n = n - 1; } } }";
+        FlatTree tree = new Parser( new Lexer( code ) ).parseFlat();
+        assertEquals( parse( code ).toString(), tree.toBlock().toString() );
+        assertEquals( parse( code ).toString(), FlatTree.fromBytes( ByteBuffer.wrap( tree.toBytes() ) ).toBlock().toString() );
+        int assignment = tree.statementOf( tree.getRoot(), 1 );
+        int expression = tree.secondOf( assignment );
+        StringBuilder kinds = new StringBuilder();
+        for ( int node = tree.startOf( expression ); node <= expression; node++ )
+        {
+            kinds.append( tree.kindOf( node ) ).append( ' ' );
+        }
+        assertEquals( NodeKind.IDENTIFIER + " " + NodeKind.NUMBER + " " + NodeKind.BINARY + " " + NodeKind.UNARY + " "
+                + NodeKind.NUMBER + " " + NodeKind.BINARY + " ", kinds.toString() );
+        assertEquals( "n", tree.nameOf( tree.startOf( expression ) ) );
+        assertEquals( BinaryOperator.MULTIPLY, tree.binaryOperatorOf( expression ) );
+    }
+
+    private static Block parse( String code )
+    {
+        return new Parser( new Lexer( code ) ).parse();
+    }
+
+    private static Expression assignedValue( String code )
+    {
+        return ( (Assignment) parse( code ).getStatements().get( 0 ) ).getExpression();
+    }
+
+    private static void assertError( String message, String code )
+    {
+        try
+        {
+            parse( code );
+            fail( code );
+        }
+        catch ( RuntimeException e )
+        {
+            assertEquals( message, e.getMessage() );
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.inf5153.ast.parser;
+
+import java.util.List;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit tests for the TokenStream.
+ */
+public class TokenStreamTest
+    extends TestCase
+{
+    /**
+     * Create the test case
+     *
+     * @param testName name of the test case
+     */
+    public TokenStreamTest( String testName )
+    {
+        super( testName );
+    }
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite()
+    {
+        return new TestSuite( TokenStreamTest.class );
+    }
+
+    /**
+     * The stream gives the same tokens as the list produced by the lexer,
+     * well past the capacity of its ring buffer, with the previous token and
+     * the lookahead still correct after the ring wraps around.
+     */
+    public void testRingWrapsAround()
+    {
+        String code = "{ a = 1; b = a * (2 - c); while (b != 0) { print(b); b = b - 1; } }";
+        List<Token> tokens = new Lexer( code ).tokenize();
+        Lexer positions = new Lexer( code );
+        TokenStream stream = new TokenStream( new Lexer( code ) );
+
+        for ( int i = 0; i < tokens.size() - 1; i++ )
+        {
+            for ( int offset = 0; offset <= TokenStream.MAX_LOOKAHEAD && i + offset < tokens.size(); offset++ )
+            {
+                Token expected = tokens.get( i + offset );
+                assertEquals( TokenKind.of( expected.getType(), expected.getValue() ), stream.peekKind( offset ) );
+            }
+            assertEquals( tokens.get( i ).toString(), stream.peek().toString() );
+            positions.nextKind();
+            assertEquals( positions.tokenStart(), stream.peekStart() );
+
+            stream.next();
+            assertEquals( tokens.get( i ).toString(), stream.previous().toString() );
+            assertEquals( positions.tokenStart(), stream.previousStart() );
+            assertEquals( positions.tokenEnd(), stream.previousEnd() );
+            assertEquals( positions.tokenSymbol(), stream.previousSymbol() );
+        }
+        assertEquals( TokenKind.EOF, stream.peekKind() );
+    }
+
+    /**
+     * The lookahead is limited to {@link TokenStream#MAX_LOOKAHEAD} tokens
+     * after the current one.
+     */
+    public void testLookaheadBounds()
+    {
+        TokenStream stream = new TokenStream( new Lexer( "a = 1 + 2;" ) );
+        assertEquals( TokenKind.IDENTIFIER, stream.peekKind( 0 ) );
+        assertEquals( TokenKind.NUMBER, stream.peekKind( TokenStream.MAX_LOOKAHEAD ) );
+        try
+        {
+            stream.peekKind( TokenStream.MAX_LOOKAHEAD + 1 );
+            fail( "Looked ahead past the ring buffer" );
+        }
+        catch ( IllegalArgumentException e )
+        {
+            assertEquals( TokenKind.IDENTIFIER, stream.peekKind() );
+        }
+        try
+        {
+            stream.peekKind( -1 );
+            fail( "Looked behind the current token" );
+        }
+        catch ( IllegalArgumentException e )
+        {
+            assertEquals( TokenKind.IDENTIFIER, stream.next() );
+        }
+    }
+
+    /**
+     * Once the source has produced its EOF token, EOF is repeated at the end
+     * offset of the source without calling the source again.
+     */
+    public void testEofIsRepeated()
+    {
+        CountingSource source = new CountingSource( new Lexer( "print(x)" ) );
+        TokenStream stream = new TokenStream( source );
+        for ( int i = 0; i < 4; i++ )
+        {
+            stream.next();
+        }
+        assertEquals( TokenKind.EOF, stream.peekKind( TokenStream.MAX_LOOKAHEAD ) );
+        int calls = source.calls;
+
+        for ( int i = 0; i < 10; i++ )
+        {
+            assertEquals( TokenKind.EOF, stream.peekKind( TokenStream.MAX_LOOKAHEAD ) );
+            assertEquals( TokenKind.EOF, stream.next() );
+            assertEquals( TokenType.EOF, stream.previous().getType() );
+            assertEquals( 8, stream.previousStart() );
+            assertEquals( -1, stream.previousSymbol() );
+        }
+        assertEquals( calls, source.calls );
+    }
+
+    /**
+     * The previous token is undefined until a token is consumed.
+     */
+    public void testNoPreviousToken()
+    {
+        TokenStream stream = new TokenStream( new Lexer( "x" ) );
+        stream.peekKind( TokenStream.MAX_LOOKAHEAD );
+        try
+        {
+            stream.previousKind();
+            fail( "Returned a previous token before consuming any" );
+        }
+        catch ( IllegalStateException e )
+        {
+            stream.next();
+            assertEquals( TokenKind.IDENTIFIER, stream.previousKind() );
+        }
+    }
+
+    /**
+     * A token source counting how many tokens are pulled from it.
+     */
+    private static final class CountingSource
+        implements TokenSource
+    {
+        private final TokenSource source;
+        private int calls = 0;
+
+        private CountingSource( TokenSource source )
+        {
+            this.source = source;
+        }
+
+        @Override
+        public int nextKind()
+        {
+            calls++;
+            return source.nextKind();
+        }
+
+        @Override
+        public int tokenStart()
+        {
+            return source.tokenStart();
+        }
+
+        @Override
+        public int tokenEnd()
+        {
+            return source.tokenEnd();
+        }
+
+        @Override
+        public int tokenSymbol()
+        {
+            return source.tokenSymbol();
+        }
+
+        @Override
+        public SymbolTable getSymbols()
+        {
+            return source.getSymbols();
+        }
+    }
+}
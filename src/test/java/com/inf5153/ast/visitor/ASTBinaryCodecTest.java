@@ -0,0 +1,189 @@
+package com.inf5153.ast.visitor;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import com.inf5153.ast.Assignment;
+import com.inf5153.ast.Block;
+import com.inf5153.ast.Identifier;
+import com.inf5153.ast.LiteralNumber;
+import com.inf5153.ast.PrintStatement;
+import com.inf5153.ast.ReadStatement;
+import com.inf5153.ast.UnaryExpression;
+import com.inf5153.ast.UnaryOperator;
+import com.inf5153.ast.WhileStatement;
+import com.inf5153.ast.parser.Lexer;
+import com.inf5153.ast.parser.Parser;
+import com.inf5153.utils.WriterOutputSink;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit tests for the ASTBinaryCodec.
+ */
+public class ASTBinaryCodecTest
+    extends TestCase
+{
+    private static final int DEPTH = 100000;
+
+    /**
+     * Create the test case
+     *
+     * @param testName name of the test case
+     */
+    public ASTBinaryCodecTest( String testName )
+    {
+        super( testName );
+    }
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite()
+    {
+        return new TestSuite( ASTBinaryCodecTest.class );
+    }
+
+    /**
+     * Every test file decodes into the tree it was encoded from.
+     */
+    public void testTestFilesRoundTrip() throws IOException
+    {
+        File[] files = new File( "testFiles" ).listFiles( ( dir, name ) -> name.endsWith( ".txt" ) );
+        assertTrue( files.length > 0 );
+        for ( File file : files )
+        {
+            Block program;
+            try
+            {
+                program = parse( new String( Files.readAllBytes( file.toPath() ), StandardCharsets.UTF_8 ) );
+            }
+            catch ( RuntimeException e )
+            {
+                continue; // Files with syntax errors have no tree
+            }
+            assertEquals( file.getName(), print( program ), print( roundTrip( program ) ) );
+        }
+    }
+
+    /**
+     * Every kind of node survives encoding, names and literal strings are
+     * stored once, a read without prompt keeps none, and negative numbers are
+     * encoded.
+     */
+    public void testAllNodes()
+    {
+        String code = "{ read(\"Value?\", counter); read(other); label = \"counter\"; "
+                + "if (counter >= 10) then { print(label); } else { counter = -counter * 2 - 1; } "
+                + "if (counter != other) then { print(counter / 3); } "
+                + "while (counter < 100) { counter = (counter + 1) * 1000000; } print(\"counter\"); }";
+        Block program = parse( code );
+        byte[] bytes = new ASTBinaryCodec().encode( program );
+        Block decoded = ASTBinaryCodec.decode( bytes );
+        assertTrue( Arrays.equals( bytes, new ASTBinaryCodec().encode( decoded ) ) );
+        ReadStatement read = (ReadStatement) decoded.getStatements().get( 1 );
+        assertNull( read.getLiteralString() );
+        assertEquals( "other", read.getIdentifier().getName() );
+        WhileStatement loop = (WhileStatement) decoded.getStatements().get( 5 );
+        assertEquals( "counter = ((counter + 1) * 1000000)", loop.getBlock().getStatements().get( 0 ).toString() );
+        assertEquals( 1, countOccurrences( bytes, "counter".getBytes( StandardCharsets.UTF_8 ) ) );
+        assertTrue( bytes.length < code.length() / 2 );
+
+        Block negative = new Block( Arrays.asList(
+                new Assignment( new Identifier( "x" ), new LiteralNumber( Integer.MIN_VALUE ) ),
+                new PrintStatement( new UnaryExpression( new LiteralNumber( -1 ), UnaryOperator.NEGATE ) ) ) );
+        assertEquals( print( negative ), print( roundTrip( negative ) ) );
+    }
+
+    /**
+     * Deeply nested statements and expressions are encoded and decoded
+     * without overflowing the stack.
+     */
+    public void testDeeplyNestedTrees()
+    {
+        StringBuilder code = new StringBuilder( "{ x = 1; " );
+        for ( int i = 0; i < DEPTH; i++ )
+        {
+            code.append( "if (x == 1) then { " );
+        }
+        code.append( "print(-(" );
+        for ( int i = 0; i < DEPTH; i++ )
+        {
+            code.append( "x + " );
+        }
+        code.append( "x)); " );
+        for ( int i = 0; i < DEPTH; i++ )
+        {
+            code.append( "} " );
+        }
+        code.append( "}" );
+        byte[] bytes = new ASTBinaryCodec().encode( parse( code.toString() ) );
+        assertTrue( Arrays.equals( bytes, new ASTBinaryCodec().encode( ASTBinaryCodec.decode( bytes ) ) ) );
+    }
+
+    /**
+     * Bytes that are not an encoded tree are rejected.
+     */
+    public void testMalformedBytes()
+    {
+        byte[] bytes = new ASTBinaryCodec().encode( parse( "{ x = 1 + 2; print(x); }" ) );
+        assertMalformed( new byte[] { 1, 2, 3, 4, 5 } );
+        assertMalformed( Arrays.copyOf( bytes, bytes.length - 1 ) );
+        assertMalformed( Arrays.copyOf( bytes, 6 ) );
+        byte[] extra = Arrays.copyOf( bytes, bytes.length + 2 );
+        extra[bytes.length] = 0; // Another root
+        assertMalformed( extra );
+        assertMalformed( new byte[] { 'M', 'L', 'A', 1, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07 } ); // Huge string table
+        assertMalformed( new byte[] { 'M', 'L', 'A', 1, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F } ); // Negative count
+        assertMalformed( new byte[] { 'M', 'L', 'A', 1, 1, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F } ); // Negative length
+    }
+
+    private static Block parse( String code )
+    {
+        return new Parser( new Lexer( code ) ).parse();
+    }
+
+    private static Block roundTrip( Block program )
+    {
+        return ASTBinaryCodec.decode( new ASTBinaryCodec().encode( program ) );
+    }
+
+    private static String print( Block program )
+    {
+        StringWriter printed = new StringWriter();
+        program.accept( new ASTCodePrinter( new WriterOutputSink( printed ) ) );
+        return printed.toString();
+    }
+
+    private static int countOccurrences( byte[] bytes, byte[] pattern )
+    {
+        int count = 0;
+        for ( int i = 0; i + pattern.length <= bytes.length; i++ )
+        {
+            if ( Arrays.equals( bytes, i, i + pattern.length, pattern, 0, pattern.length ) )
+            {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static void assertMalformed( byte[] bytes )
+    {
+        try
+        {
+            ASTBinaryCodec.decode( bytes );
+            fail( "Decoded malformed bytes" );
+        }
+        catch ( IllegalArgumentException e )
+        {
+            // Expected
+        }
+    }
+}
@@ -0,0 +1,380 @@
+package com.inf5153.ast.visitor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.inf5153.ast.Block;
+import com.inf5153.ast.PrintStatement;
+import com.inf5153.ast.flat.FlatTree;
+import com.inf5153.ast.flat.FlatTreeExecutor;
+import com.inf5153.closure.ClosureProgram;
+import com.inf5153.ast.parser.Lexer;
+import com.inf5153.ast.parser.Parser;
+import com.inf5153.node.NodeProgram;
+import com.inf5153.register.RegisterProgram;
+import com.inf5153.utils.InputSource;
+import com.inf5153.utils.OutputSink;
+import com.inf5153.utils.ProgramGenerator;
+import com.inf5153.utils.WriterOutputSink;
+import com.inf5153.utils.FileUtils;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit tests checking that every execution backend behaves like the
+ * ASTCodeExecutor.
+ */
+public class ExecutionBackendsTest
+    extends TestCase
+{
+    /**
+     * Create the test case
+     *
+     * @param testName name of the test case
+     */
+    public ExecutionBackendsTest( String testName )
+    {
+        super( testName );
+    }
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite()
+    {
+        return new TestSuite( ExecutionBackendsTest.class );
+    }
+
+    /**
+     * The compiled bytecode, closures and execution nodes must print the same
+     * output as the interpreter on every program of the testFiles/ directory.
+     */
+    public void testCompiledBackendsOnTestFiles() throws IOException
+    {
+        File[] files = new File( "testFiles" ).listFiles( ( dir, name ) -> name.endsWith( ".txt" ) );
+        assertNotNull( files );
+        for ( File file : files )
+        {
+            assertSameBehaviour( FileUtils.readFile( file.getPath() ), "" );
+        }
+    }
+
+    /**
+     * The generated Java class, compiled in memory, must print the same output
+     * as the interpreter on every program of the testFiles/ directory, folded
+     * or not.
+     */
+    public void testGeneratedJavaOnTestFiles() throws IOException
+    {
+        File[] files = new File( "testFiles" ).listFiles( ( dir, name ) -> name.endsWith( ".txt" ) );
+        assertNotNull( files );
+        for ( File file : files )
+        {
+            Block program = parse( FileUtils.readFile( file.getPath() ) );
+            String expected = capture( () -> program.accept( new ASTCodeExecutor() ), "" );
+            String className = FileUtils.generateClassName( file.getPath() );
+            assertEquals( file.getName(), expected, runJava( className, program ) );
+            Block folded = new ASTConstantFolder().fold( program );
+            assertEquals( file.getName(), expected, runJava( className, folded ) );
+        }
+    }
+
+    /**
+     * Strings, reads, nested loops and runtime errors must behave the same.
+     */
+    public void testCompiledBackendsOnEdgeCases()
+    {
+        assertSameBehaviour( "{ x = \"hello\"; print(x); x = 3; print(x); }", "" );
+        assertSameBehaviour( "{ read(\"n?\" n); i = 0; s = 0; while (i < n) { j = 0; while (j <= i) { s = s + j * 2 - -1; j = j + 1; } i = i + 1; } print(s); }", "40" );
+        assertSameBehaviour( "{ read(n); if (n != 5) then { print(n); } else { n = n / 0; } }", "5" );
+        assertSameBehaviour( "{ x = 70000 * 70000; y = x / 7; if (y >= x) then { print(y); } else { print(x); } }", "" );
+        assertSameBehaviour( "{ print(y); }", "" );
+        assertSameBehaviour( "{ x = 2; print(x * 3 + 1); print(-x); }", "" );
+        assertSameBehaviour( "{ s = \"text\"; y = s + 1; }", "" );
+        assertSameBehaviour( "{ x = 10; y = 3 - x; z = 2 * x / 3 - 1; while (x > 0) { x = x - 4; } print(y + z + x); print(x / 0); }", "" );
+    }
+
+    /**
+     * The backends whose compiled programs nest like the tree accept programs
+     * up to the nesting limit, and refuse deeper ones with a clear error.
+     */
+    public void testNestingLimit()
+    {
+        // The block, the print and the literal take three levels
+        int negations = NestingLimit.MAX_DEPTH - 3;
+        assertSameBehaviour( "{ print(" + "-(".repeat( negations ) + "1" + ")".repeat( negations ) + "); }", "" );
+
+        Block deeper = parse( "{ print(" + "-(".repeat( negations + 1 ) + "1" + ")".repeat( negations + 1 ) + "); }" );
+        String expected = "error: Program too deeply nested for the %s: more than " + NestingLimit.MAX_DEPTH + " levels";
+        assertEquals( String.format( expected, "bytecode compiler" ),
+                run( () -> new ASTBytecodeCompiler().compile( deeper ) ) );
+        assertEquals( String.format( expected, "closure compiler" ),
+                run( () -> new ASTClosureCompiler().compile( deeper ) ) );
+        assertEquals( String.format( expected, "execution tree builder" ),
+                run( () -> new ASTExecutionTreeBuilder().build( deeper ) ) );
+    }
+
+    /**
+     * A variable assigned on some paths only is still checked when read after
+     * them, and a variable checked once is not reported twice.
+     */
+    public void testVariablesAssignedOnSomePaths()
+    {
+        assertSameBehaviour( "{ read(n); if (n > 2) then { x = 1; } print(x + 1); }", "1" );
+        assertSameBehaviour( "{ read(n); if (n > 2) then { x = 1; } else { x = 2; } print(x + 1); }", "1" );
+        assertSameBehaviour( "{ read(n); i = 0; while (i < n) { x = i; i = i + 1; } print(x * 2); }", "0" );
+        assertSameBehaviour( "{ read(n); i = 0; while (i < n) { x = i; i = i + 1; } print(x * 2); }", "3" );
+        assertSameBehaviour( "{ i = 0; while (i < 3) { if (i > 0) then { print(y - 1); } y = i; i = i + 1; } }", "" );
+        assertSameBehaviour( "{ x = \"s\"; print(x); y = x * 2; }", "" );
+    }
+
+    /**
+     * Every backend must agree on larger random programs, with nested loops,
+     * branches and many variables, and none of them may fail.
+     */
+    public void testCompiledBackendsOnGeneratedPrograms()
+    {
+        for ( long seed = 0; seed < 20; seed++ )
+        {
+            String code = new ProgramGenerator( seed ).setStatements( 300 ).setDepth( 8 ).setTripCount( 4 )
+                    .setVariables( 1 + (int) seed ).generate();
+            assertFalse( code, capture( () -> parse( code ).accept( new ASTCodeExecutor() ), "" ).contains( "error: " ) );
+            assertSameBehaviour( code, "" );
+        }
+    }
+
+    /**
+     * Constants are propagated through assignments and branches, but never
+     * across a loop assigning them, nor into a variable printed as a string.
+     */
+    public void testConstantFolding()
+    {
+        assertSameBehaviour( "{ x = 5; i = 0; while (i < 3) { if (x > 4) then { print(x * 2); } x = x + 1; i = i + 1; } print(x + 0); }", "" );
+        assertSameBehaviour( "{ read(n); x = 1; if (n > 2) then { x = 2; y = 7; } else { y = 7; } print(x); print(y * 1 + 0 * n); }", "3" );
+        assertSameBehaviour( "{ x = 2; x = \"two\"; print(x); print(x - 1); while (x < 0) { print(1 / 0); } }", "" );
+        assertSameBehaviour( "{ x = 0; print(-x + 7 / x); }", "" );
+        assertSameBehaviour( "{ print(y + 0); }", "" );
+        assertSameBehaviour( "{ s = \"hi\"; print(s + 0); }", "" );
+        assertSameBehaviour( "{ s = \"hi\"; print(1 * s); }", "" );
+        assertSameBehaviour( "{ s = \"hi\"; print(0 + s); }", "" );
+        assertSameBehaviour( "{ s = \"hi\"; print((s - 0) / 1); }", "" );
+        assertSameBehaviour( "{ read(n); if (n > 0) then { s = \"hi\"; } else { s = 1; } print(s * 1); }", "1" );
+    }
+
+    /**
+     * The branches of test5.txt are decided at compile time.
+     */
+    public void testFoldingRemovesDecidedBranches() throws IOException
+    {
+        Block folded = new ASTConstantFolder().fold( parse( FileUtils.readFile( "testFiles/test5.txt" ) ) );
+        assertEquals( 5, folded.getStatements().size() );
+        assertEquals( "result = 190", folded.getStatements().get( 3 ).toString() );
+        assertEquals( "190", ( (PrintStatement) folded.getStatements().get( 4 ) ).getExpression().toString() );
+    }
+
+    /**
+     * All the reads of a run share the same input, whether typed or supplied
+     * beforehand.
+     */
+    public void testReadsShareTheInput()
+    {
+        Block program = parse( "{ read(n); i = 0; s = 0; while (i < n) { read(x); s = s + x; i = i + 1; } print(s); }" );
+        assertEquals( "6" + System.lineSeparator(), capture( () -> program.accept( new ASTCodeExecutor() ), "3\n1 2\n+3\n" ) );
+        String supplied = capture( () -> program.accept( new ASTCodeExecutor( OutputSink.standardOutput(), InputSource.of( 2, -4, 1 ) ) ), "" );
+        assertEquals( "-3" + System.lineSeparator(), supplied );
+        assertEquals( "6" + System.lineSeparator(), capture( () -> new ASTBytecodeCompiler().compile( program ).run(), "3\n1 2\n+3\n" ) );
+        String compiled = capture( () -> new ASTBytecodeCompiler().compile( program ).run( OutputSink.standardOutput(), InputSource.of( 2, -4, 1 ) ), "" );
+        assertEquals( "-3" + System.lineSeparator(), compiled );
+        assertEquals( "error: No more input", capture( () -> program.accept( new ASTCodeExecutor() ), "2 5" ) );
+        assertEquals( "error: Expected an integer but found 'a'", capture( () -> program.accept( new ASTCodeExecutor() ), "1 2a" ) );
+    }
+
+    /**
+     * Compiled programs start with no variable defined on every run.
+     */
+    public void testCompiledRunsAreIndependent()
+    {
+        Block program = parse( "{ if (1 == 1) then { print(x); } x = 1; }" );
+        assertFailsTwice( new ASTBytecodeCompiler().compile( program )::run );
+        assertFailsTwice( new ASTClosureCompiler().compile( program )::run );
+        assertFailsTwice( new ASTExecutionTreeBuilder().build( program )::run );
+    }
+
+    /**
+     * A compiled closure or register program can be run by many threads at
+     * once, each run printing to its own sink and reading from its own
+     * source.
+     */
+    public void testConcurrentRuns() throws Exception
+    {
+        Block program = parse( "{ read(\"n?\" n); s = 0; while (n > 0) { s = s + n; n = n - 1; } if (s > 100) then { print(s / 0); } print(s); }" );
+        ClosureProgram closures = new ASTClosureCompiler().compile( program );
+        RegisterProgram registers = new ASTRegisterCompiler().compile( program );
+        try ( ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor() )
+        {
+            List<Future<?>> runs = new ArrayList<>();
+            for ( int i = 0; i < 2000; i++ )
+            {
+                int n = i % 20;
+                String expected = "\"n?\" " + ( n * ( n + 1 ) / 2 > 100 ? "error: Division by zero!" : n * ( n + 1 ) / 2 + System.lineSeparator() );
+                runs.add( executor.submit( () -> {
+                    StringWriter closuresOut = new StringWriter();
+                    String closuresError = run( () -> closures.run( new WriterOutputSink( closuresOut ), InputSource.of( n ) ) );
+                    assertEquals( expected, closuresOut + closuresError );
+                    StringWriter registersOut = new StringWriter();
+                    String registersError = run( () -> registers.run( new WriterOutputSink( registersOut ), InputSource.of( n ) ) );
+                    assertEquals( expected, registersOut + registersError );
+                } ) );
+            }
+            for ( Future<?> run : runs )
+            {
+                run.get();
+            }
+        }
+    }
+
+    /**
+     * A tree and the folded tree sharing its identifiers can be compiled by
+     * many threads at once: resolving the variables of one tree does not
+     * change the other.
+     */
+    public void testConcurrentCompilations() throws Exception
+    {
+        Block program = parse( "{ read(n); y = 2; if (y > 1) then { x = n * y; } print(x + y); z = \"z\"; print(z); }" );
+        Block folded = new ASTConstantFolder().fold( program );
+        String expected = "8" + System.lineSeparator() + "z" + System.lineSeparator();
+        try ( ExecutorService executor = Executors.newFixedThreadPool( 8 ) )
+        {
+            List<Future<?>> compilations = new ArrayList<>();
+            for ( int i = 0; i < 400; i++ )
+            {
+                Block tree = i % 2 == 0 ? program : folded;
+                compilations.add( executor.submit( () -> {
+                    StringWriter closures = new StringWriter();
+                    new ASTClosureCompiler().compile( tree ).run( new WriterOutputSink( closures ), InputSource.of( 3 ) );
+                    assertEquals( expected, closures.toString() );
+                    StringWriter registers = new StringWriter();
+                    new ASTRegisterCompiler().compile( tree ).run( new WriterOutputSink( registers ), InputSource.of( 3 ) );
+                    assertEquals( expected, registers.toString() );
+                    StringWriter nodes = new StringWriter();
+                    new ASTExecutionTreeBuilder().build( tree ).run( new WriterOutputSink( nodes ), InputSource.of( 3 ) );
+                    assertEquals( expected, nodes.toString() );
+                    StringWriter interpreted = new StringWriter();
+                    tree.accept( new ASTCodeExecutor( new WriterOutputSink( interpreted ), InputSource.of( 3 ) ) );
+                    assertEquals( expected, interpreted.toString() );
+                } ) );
+            }
+            for ( Future<?> compilation : compilations )
+            {
+                compilation.get();
+            }
+        }
+    }
+
+    private static String run( Runnable program )
+    {
+        try
+        {
+            program.run();
+            return "";
+        }
+        catch ( RuntimeException e )
+        {
+            return "error: " + e.getMessage();
+        }
+    }
+
+    private static void assertFailsTwice( Runnable program )
+    {
+        for ( int run = 0; run < 2; run++ )
+        {
+            try
+            {
+                program.run();
+                fail( "x is undefined" );
+            }
+            catch ( RuntimeException e )
+            {
+                assertEquals( "Error: Undefined variable - x", e.getMessage() );
+            }
+        }
+    }
+
+    private static Block parse( String code )
+    {
+        return new Parser( new Lexer( code ).tokenize() ).parse();
+    }
+
+    /**
+     * Runs the Java class generated from a program in memory and returns what
+     * it printed to the sink of the generator, followed by the message of the
+     * exception it threw, if any.
+     */
+    private static String runJava( String className, Block program )
+    {
+        StringWriter writer = new StringWriter();
+        ASTJavaClassGenerator generator = new ASTJavaClassGenerator( className, new WriterOutputSink( writer ) );
+        String error = run( () -> generator.runJavaClass( program ) );
+        return writer.toString().replace( System.lineSeparator(), "\n" ) + error;
+    }
+
+    private static void assertSameBehaviour( String code, String input )
+    {
+        Block program = parse( code );
+        String expected = capture( () -> program.accept( new ASTCodeExecutor() ), input );
+        String bytecode = capture( () -> new ASTBytecodeCompiler().compile( program ).run(), input );
+        assertEquals( code, expected, bytecode );
+        String closures = capture( () -> new ASTClosureCompiler().compile( program ).run(), input );
+        assertEquals( code, expected, closures );
+        RegisterProgram registers = new ASTRegisterCompiler().compile( program );
+        assertEquals( code, expected, capture( registers::run, input ) );
+        assertEquals( code, expected, capture( registers::run, input ) );
+        NodeProgram nodes = new ASTExecutionTreeBuilder().build( program );
+        assertEquals( code, expected, capture( nodes::run, input ) );
+        assertEquals( code, expected, capture( nodes::run, input ) );
+        Block folded = new ASTConstantFolder().fold( program );
+        assertEquals( code, expected, capture( () -> folded.accept( new ASTCodeExecutor() ), input ) );
+        FlatTree flat = new Parser( new Lexer( code ).tokenize() ).parseFlat();
+        assertEquals( code, expected, capture( () -> new FlatTreeExecutor().execute( flat ), input ) );
+    }
+
+    /**
+     * Runs a program with the given standard input and returns what it
+     * printed, followed by the message of the exception it threw, if any.
+     */
+    private static String capture( Runnable program, String input )
+    {
+        PrintStream out = System.out;
+        InputStream in = System.in;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        System.setOut( new PrintStream( bytes, true ) );
+        System.setIn( new ByteArrayInputStream( input.getBytes() ) );
+        String error = "";
+        try
+        {
+            program.run();
+        }
+        catch ( RuntimeException e )
+        {
+            error = "error: " + e.getMessage();
+        }
+        finally
+        {
+            System.setOut( out );
+            System.setIn( in );
+        }
+        return bytes.toString() + error;
+    }
+}
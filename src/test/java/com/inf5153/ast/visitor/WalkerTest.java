@@ -0,0 +1,189 @@
+package com.inf5153.ast.visitor;
+
+import java.io.StringWriter;
+
+import com.inf5153.ast.Block;
+import com.inf5153.ast.parser.Lexer;
+import com.inf5153.ast.parser.Parser;
+import com.inf5153.utils.InputSource;
+import com.inf5153.utils.WriterOutputSink;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit tests for the Walker and the visitors walking trees with it.
+ */
+public class WalkerTest
+    extends TestCase
+{
+    private static final int DEPTH = 100000;
+
+    /**
+     * Create the test case
+     *
+     * @param testName name of the test case
+     */
+    public WalkerTest( String testName )
+    {
+        super( testName );
+    }
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite()
+    {
+        return new TestSuite( WalkerTest.class );
+    }
+
+    /**
+     * The work scheduled by a visit runs in order, after the visit and
+     * before the work scheduled earlier.
+     */
+    public void testScheduledWorkRunsInOrder()
+    {
+        StringWriter writer = new StringWriter();
+        WriterOutputSink out = new WriterOutputSink( writer );
+        parse( "{ if (a < 1) then { a = -(b + 2); } else { print(a); } while (a > b) { read(\"n\" b); } }" )
+                .accept( new ASTCodePrinter( out ) );
+        String expected = String.join( System.lineSeparator(),
+                "{",
+                "  if ((a < 1)) then ",
+                "    {",
+                "      a = (-(b + 2));",
+                "    }",
+                "  else ",
+                "    {",
+                "      print(a);",
+                "    }",
+                "  while ((a > b)) ",
+                "    {",
+                "      read(\"\"n\"\", b);",
+                "    }",
+                "}",
+                "" );
+        assertEquals( expected, writer.toString() );
+    }
+
+    /**
+     * Deeply nested statements are resolved, executed, compiled into
+     * registers and walked without overflowing the stack.
+     */
+    public void testDeeplyNestedStatements()
+    {
+        StringBuilder code = new StringBuilder( "{ n = 0; " );
+        for ( int i = 0; i < DEPTH; i++ )
+        {
+            code.append( i % 2 == 0 ? "if (n == 0) then { " : "i = 0; while (i < 1) { i = i + 1; " );
+        }
+        code.append( "print(7); " );
+        for ( int i = 0; i < DEPTH; i++ )
+        {
+            code.append( "} " );
+        }
+        code.append( "print(i); }" );
+        Block program = parse( code.toString() );
+
+        assertEquals( "7" + System.lineSeparator() + "1" + System.lineSeparator(), execute( program ) );
+        assertEquals( execute( program ), runRegisters( program ) );
+        ASTAssignmentsCollector collector = new ASTAssignmentsCollector();
+        program.accept( collector );
+        assertEquals( 1 + DEPTH, collector.getAssignments().size() );
+        program.accept( new ASTTreeMaker( new WriterOutputSink( new StringWriter() ) ) );
+    }
+
+    /**
+     * Long chains of operators and deeply nested parentheses are evaluated,
+     * compiled into registers, printed and translated without overflowing the
+     * stack.
+     */
+    public void testDeeplyNestedExpressions()
+    {
+        StringBuilder chain = new StringBuilder( "x" );
+        StringBuilder nested = new StringBuilder();
+        int expected = 1;
+        for ( int i = 0; i < DEPTH; i++ )
+        {
+            chain.append( " + x" );
+            nested.append( "-(x - " );
+            expected = -( 1 - expected );
+        }
+        nested.append( "x" );
+        for ( int i = 0; i < DEPTH; i++ )
+        {
+            nested.append( ")" );
+        }
+        Block program = parse( "{ x = 1; print(" + chain + "); print(" + nested + "); print(x / 0); }" );
+
+        assertEquals( ( DEPTH + 1 ) + System.lineSeparator() + expected + System.lineSeparator() + "error: Division by zero!",
+                execute( program ) );
+        assertEquals( execute( program ), runRegisters( program ) );
+        StringWriter printed = new StringWriter();
+        program.accept( new ASTCodePrinter( new WriterOutputSink( printed ) ) );
+        assertTrue( printed.toString().contains( "print((-(x - (-(x - " ) );
+        assertTrue( new ASTJavaClassGenerator( "Deep" ).generateSource( program ).contains( "((x + x) + x) + x)" ) );
+    }
+
+    /**
+     * Deeply nested expressions are rendered as text, and their assignments
+     * printed, without overflowing the stack.
+     */
+    public void testDeeplyNestedExpressionsAsText()
+    {
+        String expression = "-(x - ".repeat( DEPTH ) + "x" + ")".repeat( DEPTH );
+        Block program = parse( "{ y = " + expression + "; z = x" + " + w".repeat( DEPTH ) + "; }" );
+
+        assertEquals( "y = " + expression, program.getStatements().get( 0 ).toString() );
+        StringWriter printed = new StringWriter();
+        ASTAssignmentsCollector collector = new ASTAssignmentsCollector();
+        program.accept( collector );
+        WriterOutputSink out = new WriterOutputSink( printed );
+        collector.printAssignments( out );
+        out.flush();
+        assertTrue( printed.toString().contains( "y = " + expression ) );
+        assertTrue( printed.toString().contains( "Variable(s) read: [w, x]" ) );
+    }
+
+    private static Block parse( String code )
+    {
+        return new Parser( new Lexer( code ) ).parse();
+    }
+
+    /**
+     * Runs a program and returns what it printed, followed by the message of
+     * the exception it threw, if any.
+     */
+    private static String execute( Block program )
+    {
+        StringWriter writer = new StringWriter();
+        try
+        {
+            program.accept( new ASTCodeExecutor( new WriterOutputSink( writer ), InputSource.of() ) );
+            return writer.toString();
+        }
+        catch ( RuntimeException e )
+        {
+            return writer + "error: " + e.getMessage();
+        }
+    }
+
+    /**
+     * Compiles a program into registers, runs it and returns what it printed,
+     * followed by the message of the exception it threw, if any.
+     */
+    private static String runRegisters( Block program )
+    {
+        StringWriter writer = new StringWriter();
+        try
+        {
+            new ASTRegisterCompiler().compile( program ).run( new WriterOutputSink( writer ), InputSource.of() );
+            return writer.toString();
+        }
+        catch ( RuntimeException e )
+        {
+            return writer + "error: " + e.getMessage();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.inf5153.pipeline;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit tests for the CompileCache.
+ */
+public class CompileCacheTest
+    extends TestCase
+{
+    private Path directory;
+
+    /**
+     * Create the test case
+     *
+     * @param testName name of the test case
+     */
+    public CompileCacheTest( String testName )
+    {
+        super( testName );
+    }
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite()
+    {
+        return new TestSuite( CompileCacheTest.class );
+    }
+
+    @Override
+    protected void setUp() throws IOException
+    {
+        directory = Files.createTempDirectory( "cache" );
+    }
+
+    @Override
+    protected void tearDown() throws IOException
+    {
+        try ( Stream<Path> files = Files.list( directory ) )
+        {
+            for ( Path file : (Iterable<Path>) files::iterator )
+            {
+                Files.delete( file );
+            }
+        }
+        Files.delete( directory );
+    }
+
+    /**
+     * Keys depend on the kind, the source and the extras, and not on the
+     * position of the source buffer.
+     */
+    public void testKeys()
+    {
+        ByteBuffer source = bytes( "{ x = 1; }" );
+        String key = CompileCache.key( "ast", source );
+        assertEquals( key, CompileCache.key( "ast", bytes( "{ x = 1; }" ) ) );
+        assertEquals( 0, source.position() );
+        assertFalse( key.equals( CompileCache.key( "ast", bytes( "{ x = 2; }" ) ) ) );
+        assertFalse( key.equals( CompileCache.key( "java", source ) ) );
+        assertFalse( CompileCache.key( "java", source, "GenA" ).equals( CompileCache.key( "java", source, "GenB" ) ) );
+    }
+
+    /**
+     * Artefacts are found again by a cache opened later on the same
+     * directory.
+     */
+    public void testArtefactsPersist() throws IOException
+    {
+        new CompileCache( directory ).put( "ast-a", new byte[] { 1, 2, 3 } );
+        CompileCache cache = new CompileCache( directory );
+        assertEquals( 1, cache.size() );
+        assertTrue( Arrays.equals( new byte[] { 1, 2, 3 }, cache.get( "ast-a" ) ) );
+        assertNull( cache.get( "ast-b" ) );
+        assertEquals( 1, cache.getHits() );
+        assertEquals( 1, cache.getMisses() );
+    }
+
+    /**
+     * When the cache is too large, the least recently used artefacts are
+     * deleted first.
+     */
+    public void testLeastRecentlyUsedEviction() throws IOException
+    {
+        CompileCache cache = new CompileCache( directory, 25 );
+        cache.put( "a", new byte[10] );
+        cache.put( "b", new byte[10] );
+        assertNotNull( cache.get( "a" ) );
+        cache.put( "c", new byte[10] );
+        assertEquals( 2, cache.size() );
+        assertEquals( 20, cache.getTotalBytes() );
+        assertNull( cache.get( "b" ) );
+        assertNotNull( cache.get( "a" ) );
+        assertNotNull( cache.get( "c" ) );
+        assertFalse( Files.exists( directory.resolve( "b.bin" ) ) );
+    }
+
+    private static ByteBuffer bytes( String text )
+    {
+        return ByteBuffer.wrap( text.getBytes( StandardCharsets.UTF_8 ) );
+    }
+}
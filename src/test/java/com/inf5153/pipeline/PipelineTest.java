@@ -0,0 +1,310 @@
+package com.inf5153.pipeline;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import com.inf5153.register.RegisterProgram;
+import com.inf5153.utils.InputSource;
+import com.inf5153.utils.WriterOutputSink;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit tests for the Pipeline.
+ */
+public class PipelineTest
+    extends TestCase
+{
+    /**
+     * Create the test case
+     *
+     * @param testName name of the test case
+     */
+    public PipelineTest( String testName )
+    {
+        super( testName );
+    }
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite()
+    {
+        return new TestSuite( PipelineTest.class );
+    }
+
+    /**
+     * Running only the execution prints only what the script prints.
+     */
+    public void testOnlyExecute() throws IOException
+    {
+        assertEquals( "190\n", run( EnumSet.of( Stage.EXECUTE ) ) );
+    }
+
+    /**
+     * Several stages are printed in order, each with its title.
+     */
+    public void testSeveralStages() throws IOException
+    {
+        String output = run( EnumSet.of( Stage.ASSIGNMENTS, Stage.EXECUTE ) );
+        assertTrue( output, output.startsWith( "EXECUTING CODE:\n190\n\nCOLLECTING ASSIGNMENTS:\n" ) );
+    }
+
+    /**
+     * The generated Java class runs in memory and prints to the sink of the
+     * pipeline, not to the standard output, and its failures are failures of
+     * the execution.
+     */
+    public void testRunJava() throws IOException
+    {
+        Path directory = Files.createTempDirectory( "java" );
+        Path source = directory.resolve( "run.txt" );
+        PrintStream out = System.out;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try
+        {
+            System.setOut( new PrintStream( bytes, true ) );
+            Files.writeString( source, "{ s = \"hi\"; print(s); x = 4; print(x * 2); }" );
+            assertEquals( "hi\n8\n", run( new Pipeline( EnumSet.of( Stage.RUN_JAVA ) ), source ) );
+            assertEquals( "EXECUTING CODE:\nhi\n8\n\nRUNNING JAVA CLASS:\nhi\n8\n",
+                    run( new Pipeline( EnumSet.of( Stage.EXECUTE, Stage.RUN_JAVA ) ), source ) );
+
+            // The loop keeps the folder from dividing by zero
+            Files.writeString( source, "{ x = 0; while (x < 0) { x = x + 1; } print(1 / x); }" );
+            try
+            {
+                run( new Pipeline( EnumSet.of( Stage.RUN_JAVA ) ), source );
+                fail( "division by zero" );
+            }
+            catch ( ExecutionFailedException e )
+            {
+                assertEquals( "/ by zero", e.getMessage() );
+            }
+            assertEquals( "", bytes.toString() );
+        }
+        finally
+        {
+            System.setOut( out );
+            Files.deleteIfExists( source );
+            Files.delete( directory );
+        }
+    }
+
+    /**
+     * Stages are named as on the command line.
+     */
+    public void testStageNames()
+    {
+        assertEquals( Stage.JAVA, Stage.fromName( "java" ) );
+        try
+        {
+            Stage.fromName( "bytecode" );
+            fail( "no such stage" );
+        }
+        catch ( IllegalArgumentException e )
+        {
+            assertEquals( "Unknown stage: bytecode", e.getMessage() );
+        }
+    }
+
+    /**
+     * A second run on the same file takes its tree from the cache, and prints
+     * the same output.
+     */
+    public void testCachedRun() throws IOException
+    {
+        Path directory = Files.createTempDirectory( "cache" );
+        try
+        {
+            CompileCache cache = new CompileCache( directory );
+            Pipeline pipeline = new Pipeline( EnumSet.of( Stage.CODE, Stage.EXECUTE ), null, cache );
+            String cold = run( pipeline );
+            assertEquals( 0, cache.getHits() );
+            assertEquals( cold, run( pipeline ) );
+            assertEquals( 1, cache.getHits() );
+            assertEquals( cold, run( new Pipeline( EnumSet.of( Stage.CODE, Stage.EXECUTE ) ) ) );
+        }
+        finally
+        {
+            try ( Stream<Path> files = Files.list( directory ) )
+            {
+                for ( Path file : (Iterable<Path>) files::iterator )
+                {
+                    Files.delete( file );
+                }
+            }
+            Files.delete( directory );
+        }
+    }
+
+    /**
+     * The program of a source is compiled once, then run again by the later
+     * runs on the same source, each with its own input and output, until the
+     * source changes.
+     */
+    public void testKeptPrograms() throws IOException
+    {
+        Path source = Files.createTempFile( "program", ".txt" );
+        try
+        {
+            Files.writeString( source, "{ read(n); print(n * 2); }" );
+            Map<String, RegisterProgram> programs = new HashMap<>();
+            Pipeline pipeline = new Pipeline( EnumSet.of( Stage.EXECUTE ), null, null, programs );
+            assertEquals( "42\n", run( pipeline, source, 21 ) );
+            assertEquals( 1, programs.size() );
+            RegisterProgram program = programs.values().iterator().next();
+
+            assertEquals( "14\n", run( pipeline, source, 7 ) );
+            String output = run( new Pipeline( EnumSet.of( Stage.EXECUTE, Stage.ASSIGNMENTS ), null, null, programs ), source, 5 );
+            assertTrue( output, output.startsWith( "EXECUTING CODE:\n10\n\nCOLLECTING ASSIGNMENTS:\n" ) );
+            assertEquals( 1, programs.size() );
+            assertSame( program, programs.values().iterator().next() );
+
+            Files.writeString( source, "{ read(n); print(n + 2); }" );
+            assertEquals( "23\n", run( pipeline, source, 21 ) );
+            assertEquals( 2, programs.size() );
+        }
+        finally
+        {
+            Files.delete( source );
+        }
+    }
+
+    /**
+     * Deeply nested statements are folded and executed, and deeply nested
+     * expressions folded, executed and translated, on a thread with a small
+     * stack. The nested statements are not printed, since their indentation
+     * alone would take gigabytes.
+     */
+    public void testDeepPrograms() throws Exception
+    {
+        int depth = 20000;
+        // The loop keeps the folder from knowing x
+        String prologue = "{ x = 2; while (x < 2) { x = x + 1; } ";
+        StringBuilder statements = new StringBuilder( prologue );
+        for ( int i = 0; i < depth; i++ )
+        {
+            statements.append( "if (x > 1) then { " );
+        }
+        statements.append( "print(x); " );
+        for ( int i = 0; i < depth; i++ )
+        {
+            statements.append( "} " );
+        }
+        statements.append( "}" );
+        assertEquals( "2\n", runDeep( EnumSet.of( Stage.EXECUTE ), statements.toString() ) );
+
+        String expression = nestedExpression( depth );
+        String output = runDeep( EnumSet.of( Stage.FOLDED, Stage.EXECUTE, Stage.JAVA ),
+                prologue + "print(" + expression + "); }" );
+        assertTrue( output.contains( "EXECUTING CODE:\n" + ( 2 - 2 * depth ) + "\n" ) );
+        assertTrue( output.contains( "GenDeep.java" ) );
+
+        output = runDeep( EnumSet.of( Stage.ASSIGNMENTS ), "{ y = " + expression + "; }" );
+        assertTrue( output.contains( "y = -(x - -(x - " ) );
+        // Each node of the tree prints its whole expression, so a shallower one will do
+        output = runDeep( EnumSet.of( Stage.TREE ), "{ y = " + nestedExpression( depth / 10 ) + "; }" );
+        assertTrue( output.contains( "-(x - -(x - " ) );
+    }
+
+    /**
+     * Returns an expression nesting a negation and a subtraction the given
+     * number of times.
+     */
+    private static String nestedExpression( int depth )
+    {
+        StringBuilder expression = new StringBuilder();
+        for ( int i = 0; i < depth; i++ )
+        {
+            expression.append( "-(x - " );
+        }
+        expression.append( "x" );
+        for ( int i = 0; i < depth; i++ )
+        {
+            expression.append( ")" );
+        }
+        return expression.toString();
+    }
+
+    /**
+     * Runs stages on a program, on a thread with a 1 MB stack, and
+     * returns what they printed.
+     */
+    private static String runDeep( EnumSet<Stage> stages, String code ) throws Exception
+    {
+        Path directory = Files.createTempDirectory( "deep" );
+        Path source = directory.resolve( "deep.txt" );
+        Path generated = Paths.get( "src/main/java/com/inf5153/miniLang/javaGeneration/GenDeep.java" );
+        try
+        {
+            Files.writeString( source, code );
+            Pipeline pipeline = new Pipeline( stages );
+            String[] output = new String[1];
+            Throwable[] failure = new Throwable[1];
+            Thread thread = new Thread( null, () -> {
+                try
+                {
+                    output[0] = run( pipeline, source );
+                }
+                catch ( Throwable e )
+                {
+                    failure[0] = e;
+                }
+            }, "deep", 1 << 20 );
+            thread.start();
+            thread.join();
+            if ( failure[0] != null )
+            {
+                throw new AssertionError( failure[0] );
+            }
+            return output[0];
+        }
+        finally
+        {
+            Files.deleteIfExists( generated );
+            Files.deleteIfExists( source );
+            Files.delete( directory );
+        }
+    }
+
+    private static String run( Pipeline pipeline, Path source, int... input ) throws IOException
+    {
+        StringWriter writer = new StringWriter();
+        WriterOutputSink out = new WriterOutputSink( writer );
+        pipeline.run( source.toString(), out, InputSource.of( input ) );
+        out.flush();
+        return writer.toString().replace( System.lineSeparator(), "\n" );
+    }
+
+    private static String run( EnumSet<Stage> stages ) throws IOException
+    {
+        return run( new Pipeline( stages ) );
+    }
+
+    private static String run( Pipeline pipeline ) throws IOException
+    {
+        PrintStream out = System.out;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        System.setOut( new PrintStream( bytes, true ) );
+        try
+        {
+            pipeline.run( "testFiles/test5.txt" );
+        }
+        finally
+        {
+            System.setOut( out );
+        }
+        return bytes.toString().replace( System.lineSeparator(), "\n" );
+    }
+}
@@ -0,0 +1,208 @@
+package com.inf5153.server;
+
+import com.inf5153.pipeline.Stage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit tests for the CompileServer and the CompileClient.
+ */
+public class CompileServerTest
+    extends TestCase
+{
+    private static final Set<Stage> EXECUTE = EnumSet.of( Stage.EXECUTE );
+
+    private Path directory;
+    private Path socket;
+    private Path source;
+    private PrintStream out;
+    private CompileServer server;
+    private Thread serving;
+
+    /**
+     * Create the test case
+     *
+     * @param testName name of the test case
+     */
+    public CompileServerTest( String testName )
+    {
+        super( testName );
+    }
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite()
+    {
+        return new TestSuite( CompileServerTest.class );
+    }
+
+    @Override
+    protected void setUp() throws IOException
+    {
+        directory = Files.createTempDirectory( "server" );
+        socket = directory.resolve( "server.sock" );
+        source = directory.resolve( "double.txt" );
+        Files.writeString( source, "{ read(\"n?\", n); while (n > 100) { n = n - 100; } print(n * 2); }" );
+        out = System.out;
+        server = new CompileServer( socket, null );
+        serving = new Thread( server::serve );
+        serving.start();
+    }
+
+    @Override
+    protected void tearDown() throws Exception
+    {
+        server.close();
+        serving.join();
+        assertSame( out, System.out );
+        assertFalse( Files.exists( socket ) );
+        Files.deleteIfExists( source );
+        Files.deleteIfExists( directory );
+    }
+
+    /**
+     * A client receives what the stages print, and can send several requests
+     * over its connection, the standard output of the server being left
+     * alone.
+     */
+    public void testRun() throws IOException
+    {
+        try ( CompileClient client = new CompileClient( socket ) )
+        {
+            assertEquals( "\"n?\" 42\n", run( client, "21" ) );
+            assertSame( out, System.out );
+            assertEquals( "\"n?\" 14\n", run( client, "307" ) );
+
+            ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+            ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+            assertTrue( client.run( EnumSet.of( Stage.CODE, Stage.EXECUTE ), source.toString(),
+                    "5".getBytes( StandardCharsets.UTF_8 ), stdout, stderr ) );
+            assertTrue( stdout.toString( StandardCharsets.UTF_8 ).endsWith( "\"n?\" 10\n" ) );
+            assertTrue( stdout.size() > "\"n?\" 10\n".length() );
+            assertEquals( 0, stderr.size() );
+        }
+    }
+
+    /**
+     * Many clients are served at once, each one receiving only its own
+     * output.
+     */
+    public void testConcurrentClients() throws Exception
+    {
+        ExecutorService executor = Executors.newFixedThreadPool( 16 );
+        try
+        {
+            List<Future<?>> results = new ArrayList<>();
+            for ( int i = 0; i < 32; i++ )
+            {
+                int first = i * 1000 + 1;
+                results.add( executor.submit( () -> {
+                    try ( CompileClient client = new CompileClient( socket ) )
+                    {
+                        for ( int value = first; value < first + 20; value++ )
+                        {
+                            assertEquals( "\"n?\" " + value % 100 * 2 + "\n", run( client, Integer.toString( value ) ) );
+                        }
+                    }
+                    return null;
+                } ) );
+            }
+            for ( Future<?> result : results )
+            {
+                result.get();
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Errors are reported to the client on the standard error, and leave
+     * the connection usable.
+     */
+    public void testErrors() throws IOException
+    {
+        try ( CompileClient client = new CompileClient( socket ) )
+        {
+            ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+            ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+            assertFalse( client.run( EXECUTE, directory.resolve( "missing.txt" ).toString(), new byte[0], stdout, stderr ) );
+            assertTrue( stderr.toString( StandardCharsets.UTF_8 ).startsWith( "File read error: " ) );
+
+            Files.writeString( source, "{ print(1 }" );
+            stderr.reset();
+            assertFalse( client.run( EXECUTE, source.toString(), new byte[0], stdout, stderr ) );
+            assertTrue( stderr.toString( StandardCharsets.UTF_8 ).startsWith( "Parsing error: " ) );
+
+            Files.writeString( source, "{ print(x); }" );
+            stderr.reset();
+            assertFalse( client.run( EXECUTE, source.toString(), new byte[0], stdout, stderr ) );
+            assertTrue( stderr.toString( StandardCharsets.UTF_8 ).startsWith( "Runtime error: Error: Undefined variable - x" ) );
+
+            Files.writeString( source, "{ print(1); }" );
+            stderr.reset();
+            assertFalse( client.run( EnumSet.noneOf( Stage.class ), source.toString(), new byte[0], stdout, stderr ) );
+            assertTrue( stderr.toString( StandardCharsets.UTF_8 ).startsWith( "Unknown stage: " ) );
+
+            stdout.reset();
+            assertTrue( client.run( EXECUTE, source.toString(), new byte[0], stdout, stderr ) );
+            assertEquals( "1\n", stdout.toString( StandardCharsets.UTF_8 ) );
+        }
+    }
+
+    /**
+     * A second server cannot listen on the socket of a running server, but
+     * replaces the socket file of a server that stopped.
+     */
+    public void testSocketInUse() throws Exception
+    {
+        try
+        {
+            new CompileServer( socket, null ).close();
+            fail( "Opened a second server on a socket in use" );
+        }
+        catch ( IOException e )
+        {
+            assertTrue( Files.exists( socket ) );
+        }
+
+        server.close();
+        serving.join();
+        Files.createFile( socket );
+        server = new CompileServer( socket, null );
+        serving = new Thread( server::serve );
+        serving.start();
+        try ( CompileClient client = new CompileClient( socket ) )
+        {
+            assertEquals( "\"n?\" 42\n", run( client, "21" ) );
+        }
+    }
+
+    private String run( CompileClient client, String input ) throws IOException
+    {
+        ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+        ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+        assertTrue( client.run( EXECUTE, source.toString(), input.getBytes( StandardCharsets.UTF_8 ), stdout, stderr ) );
+        assertEquals( 0, stderr.size() );
+        return stdout.toString( StandardCharsets.UTF_8 );
+    }
+}